@@ -17,6 +17,7 @@ package org.artificer.atom;
 
 import org.artificer.common.ArtifactType;
 import org.artificer.common.ArtificerConstants;
+import org.artificer.common.ArtificerModelUtils;
 import org.artificer.common.MediaType;
 import org.artificer.common.ontology.ArtificerOntology;
 import org.artificer.common.query.ArtifactSummary;
@@ -49,6 +50,7 @@ import java.lang.reflect.Method;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Some useful static utils for users of the s-ramp client.
@@ -59,6 +61,8 @@ import java.util.List;
 public final class ArtificerAtomUtils {
 
     private static final XmlJAXBContextFinder finder = new XmlJAXBContextFinder();
+
+    private static final Method setFinderMethod = findSetFinderMethod();
     
 	/**
 	 * Private constructor.
@@ -194,6 +198,21 @@ public final class ArtificerAtomUtils {
         entry.getExtensionAttributes().put(ArtificerConstants.ARTIFICER_EXPANDED_FROM_ARCHIVE_QNAME,
                 String.valueOf(artifact.isExpandedFromArchive()));
 
+        // Projected custom properties (the s-ramp "propertyName" feature) are returned in a partial artifact.
+        if (artifact.getProperties() != null && !artifact.getProperties().isEmpty()) {
+            BaseArtifactType partial = artifact.getArtifactType().newArtifactInstance();
+            partial.getOtherAttributes().remove(ArtificerConstants.SRAMP_CONTENT_TYPE_QNAME);
+            partial.setUuid(artifact.getUuid());
+            partial.setName(artifact.getName());
+            for (Map.Entry<String, String> property : artifact.getProperties().entrySet()) {
+                ArtificerModelUtils.setCustomProperty(partial, property.getKey(), property.getValue());
+            }
+            Artifact srampArty = new Artifact();
+            Method method = Artifact.class.getMethod("set" + partial.getClass().getSimpleName(), partial.getClass());
+            method.invoke(srampArty, partial);
+            entry.setAnyOtherJAXBObject(srampArty);
+        }
+
         return entry;
     }
     
@@ -364,10 +383,19 @@ public final class ArtificerAtomUtils {
 	 */
 	@SuppressWarnings("unchecked")
 	public static <T> T unwrap(Entry entry, Class<T> clazz) throws JAXBException {
-	    setFinder(entry);
 	    if (entry.getAnyOtherElement() == null && entry.getAnyOther().isEmpty())
 	        return null;
-		T object = entry.getAnyOtherJAXBObject(clazz);
+		T object;
+		if (clazz.isInstance(entry.getAnyOtherJAXBObject())) {
+			object = (T) entry.getAnyOtherJAXBObject();
+		} else if (setFinder(entry)) {
+			object = entry.getAnyOtherJAXBObject(clazz);
+		} else if (entry.getAnyOtherElement() != null) {
+			// Without the finder, the Entry would create a new JAXBContext on every call.
+			object = ArtificerJaxbContexts.unmarshal(entry.getAnyOtherElement(), clazz);
+		} else {
+			object = null;
+		}
 		if (object == null) {
 			for (Object anyOther : entry.getAnyOther()) {
 				if (anyOther != null && anyOther.getClass().equals(clazz)) {
@@ -382,20 +410,31 @@ public final class ArtificerAtomUtils {
 	/**
 	 * TODO: remove this once we fix RestEasy to set the finder automatically on the Entry during unmarshaling
      * @param entry
+     * @return false if the finder couldn't be set (in which case the caller must avoid the Entry's own JAXB lookups)
      */
-    private static void setFinder(Entry entry) {
-        // Eat any exception we might encounter - if this fails it'll just revert to creating
-        // a new JAXBContext each time.  This is slow but works.
+    private static boolean setFinder(Entry entry) {
+        if (setFinderMethod == null)
+            return false;
         try {
-            Method method = entry.getClass().getDeclaredMethod("setFinder", JAXBContextFinder.class);
-            method.setAccessible(true);
-            method.invoke(entry, finder);
-        } catch (SecurityException e) {
+            setFinderMethod.invoke(entry, finder);
+            return true;
         } catch (IllegalArgumentException e) {
         } catch (IllegalAccessException e) {
         } catch (InvocationTargetException e) {
+        }
+        return false;
+    }
+
+    private static Method findSetFinderMethod() {
+        // Eat any exception we might encounter - if this fails, unwrap falls back to the cached contexts.
+        try {
+            Method method = Entry.class.getDeclaredMethod("setFinder", JAXBContextFinder.class);
+            method.setAccessible(true);
+            return method;
+        } catch (SecurityException e) {
         } catch (NoSuchMethodException e) {
         }
+        return null;
     }
 
     /**
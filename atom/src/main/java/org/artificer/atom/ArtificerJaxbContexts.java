@@ -0,0 +1,137 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.atom;
+
+import org.jboss.downloads.artificer._2013.auditing.AuditEntry;
+import org.jboss.resteasy.plugins.providers.atom.Entry;
+import org.jboss.resteasy.plugins.providers.atom.Feed;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.Artifact;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.StoredQueryData;
+import org.w3._1999._02._22_rdf_syntax_ns_.RDF;
+import org.w3c.dom.Element;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared JAXB contexts.  Creating a JAXBContext is expensive, but the contexts are thread-safe, so each is created
+ * once and reused.  Marshallers are not thread-safe, but are cheap to reuse, so the ones used to stream Atom
+ * (see {@link AtomFeedWriter}) are pooled.
+ *
+ * @author Brett Meyer
+ */
+public final class ArtificerJaxbContexts {
+
+    private static final int MAX_POOLED_MARSHALLERS = 32;
+
+    private static final ConcurrentMap<Class<?>, JAXBContext> contexts = new ConcurrentHashMap<>();
+
+    private static final Queue<Marshaller> marshallers = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger pooledMarshallers = new AtomicInteger();
+
+    private static volatile JAXBContext atomContext;
+
+    private ArtificerJaxbContexts() {
+    }
+
+    /**
+     * @return a context for Atom feeds and entries, including everything Artificer wraps in them (artifacts, stored
+     * queries, audit entries, and ontologies)
+     * @throws JAXBException
+     */
+    public static JAXBContext getAtomContext() throws JAXBException {
+        if (atomContext == null) {
+            synchronized (ArtificerJaxbContexts.class) {
+                if (atomContext == null) {
+                    atomContext = JAXBContext.newInstance(Feed.class, Entry.class, Artifact.class,
+                            StoredQueryData.class, AuditEntry.class, RDF.class);
+                }
+            }
+        }
+        return atomContext;
+    }
+
+    /**
+     * @param clazz
+     * @return a context for the given JAXB class
+     * @throws JAXBException
+     */
+    public static JAXBContext getContext(Class<?> clazz) throws JAXBException {
+        JAXBContext context = contexts.get(clazz);
+        if (context == null) {
+            context = JAXBContext.newInstance(clazz);
+            JAXBContext existing = contexts.putIfAbsent(clazz, context);
+            if (existing != null) {
+                context = existing;
+            }
+        }
+        return context;
+    }
+
+    /**
+     * Unmarshals the given element as the given class, using its cached context.
+     * @param element
+     * @param clazz
+     * @return the unmarshalled object, or null if the element isn't one
+     * @throws JAXBException
+     */
+    public static <T> T unmarshal(Element element, Class<T> clazz) throws JAXBException {
+        Object object = getContext(clazz).createUnmarshaller().unmarshal(element);
+        if (object instanceof JAXBElement) {
+            object = ((JAXBElement<?>) object).getValue();
+        }
+        return clazz.isInstance(object) ? clazz.cast(object) : null;
+    }
+
+    /**
+     * Borrows a fragment marshaller (no XML declaration) for the Atom context.  Must be given back, using
+     * {@link #release(javax.xml.bind.Marshaller)}, when done.
+     * @return Marshaller
+     * @throws JAXBException
+     */
+    public static Marshaller borrowMarshaller() throws JAXBException {
+        Marshaller marshaller = marshallers.poll();
+        if (marshaller != null) {
+            pooledMarshallers.decrementAndGet();
+            return marshaller;
+        }
+        marshaller = getAtomContext().createMarshaller();
+        marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+        return marshaller;
+    }
+
+    /**
+     * Returns a marshaller to the pool.
+     * @param marshaller
+     */
+    public static void release(Marshaller marshaller) {
+        if (marshaller == null) {
+            return;
+        }
+        if (pooledMarshallers.incrementAndGet() <= MAX_POOLED_MARSHALLERS) {
+            marshallers.offer(marshaller);
+        } else {
+            pooledMarshallers.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.atom;
+
+import org.jboss.resteasy.plugins.providers.atom.Entry;
+import org.jboss.resteasy.plugins.providers.atom.Feed;
+import org.jboss.resteasy.plugins.providers.atom.Link;
+import org.jboss.resteasy.plugins.providers.atom.Person;
+
+import javax.xml.bind.DatatypeConverter;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes an Atom {@link Feed} to a stream, one {@link Entry} at a time (StAX for the feed itself, and a pooled JAXB
+ * marshaller for each entry).  Unlike marshalling a complete {@link Feed}, only the entry being written needs to be
+ * in memory.
+ *
+ * <pre>
+ *   AtomFeedWriter writer = new AtomFeedWriter(out);
+ *   try {
+ *       writer.startFeed(header);
+ *       for (...) {
+ *           writer.writeEntry(entry);
+ *       }
+ *       writer.endFeed();
+ *   } finally {
+ *       writer.close();
+ *   }
+ * </pre>
+ *
+ * @author Brett Meyer
+ */
+public class AtomFeedWriter implements Closeable {
+
+    public static final String ATOM_NS = "http://www.w3.org/2005/Atom";
+
+    private static final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+
+    private final XMLStreamWriter writer;
+
+    private Marshaller marshaller;
+
+    /**
+     * Constructor.
+     * @param out the stream to write to (left open when this writer is closed)
+     * @throws XMLStreamException
+     * @throws JAXBException
+     */
+    public AtomFeedWriter(OutputStream out) throws XMLStreamException, JAXBException {
+        writer = outputFactory.createXMLStreamWriter(out, "UTF-8");
+        marshaller = ArtificerJaxbContexts.borrowMarshaller();
+    }
+
+    /**
+     * Starts the feed, writing everything except its entries (any in the given feed are ignored).
+     * @param feed
+     * @throws XMLStreamException
+     */
+    @SuppressWarnings("unchecked")
+    public void startFeed(Feed feed) throws XMLStreamException {
+        writer.writeStartDocument("UTF-8", "1.0");
+        writer.setDefaultNamespace(ATOM_NS);
+        writer.writeStartElement("", "feed", ATOM_NS);
+        writer.writeDefaultNamespace(ATOM_NS);
+        writeExtensionAttributes(feed.getExtensionAttributes());
+
+        if (feed.getId() != null) {
+            writeElement("id", feed.getId().toString());
+        }
+        if (feed.getTitle() != null) {
+            writeElement("title", feed.getTitle());
+        }
+        if (feed.getSubtitle() != null) {
+            writeElement("subtitle", feed.getSubtitle());
+        }
+        if (feed.getUpdated() != null) {
+            writeElement("updated", format(feed.getUpdated()));
+        }
+        for (Person author : feed.getAuthors()) {
+            writer.writeStartElement(ATOM_NS, "author");
+            writeElement("name", author.getName());
+            writer.writeEndElement();
+        }
+        for (Link link : feed.getLinks()) {
+            writer.writeEmptyElement(ATOM_NS, "link");
+            if (link.getRel() != null) {
+                writer.writeAttribute("rel", link.getRel());
+            }
+            if (link.getHref() != null) {
+                writer.writeAttribute("href", link.getHref().toString());
+            }
+            if (link.getType() != null) {
+                writer.writeAttribute("type", link.getType().toString());
+            }
+        }
+    }
+
+    /**
+     * Writes a single entry.  Must be called between {@link #startFeed(Feed)} and {@link #endFeed()}.
+     * @param entry
+     * @throws JAXBException
+     */
+    public void writeEntry(Entry entry) throws JAXBException {
+        marshaller.marshal(entry, writer);
+    }
+
+    /**
+     * Ends the feed, and flushes it to the stream.
+     * @throws XMLStreamException
+     */
+    public void endFeed() throws XMLStreamException {
+        writer.writeEndElement();
+        writer.writeEndDocument();
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            writer.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            ArtificerJaxbContexts.release(marshaller);
+            marshaller = null;
+        }
+    }
+
+    private void writeExtensionAttributes(Map<QName, Object> attributes) throws XMLStreamException {
+        Map<String, String> prefixes = new HashMap<String, String>();
+        for (Map.Entry<QName, Object> attribute : attributes.entrySet()) {
+            QName name = attribute.getKey();
+            String prefix = name.getPrefix();
+            if (name.getNamespaceURI().length() > 0) {
+                if (prefixes.containsKey(name.getNamespaceURI())) {
+                    prefix = prefixes.get(name.getNamespaceURI());
+                } else {
+                    if (prefix.length() == 0 || prefixes.containsValue(prefix)) {
+                        prefix = "ns" + prefixes.size();
+                    }
+                    prefixes.put(name.getNamespaceURI(), prefix);
+                    writer.writeNamespace(prefix, name.getNamespaceURI());
+                }
+            }
+            writer.writeAttribute(prefix, name.getNamespaceURI(), name.getLocalPart(),
+                    String.valueOf(attribute.getValue()));
+        }
+    }
+
+    private void writeElement(String name, String value) throws XMLStreamException {
+        writer.writeStartElement(ATOM_NS, name);
+        writer.writeCharacters(value);
+        writer.writeEndElement();
+    }
+
+    private static String format(Date date) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(date);
+        return DatatypeConverter.printDateTime(calendar);
+    }
+}
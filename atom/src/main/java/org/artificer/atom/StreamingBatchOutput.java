@@ -0,0 +1,134 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.atom;
+
+import org.artificer.atom.beans.HttpResponseBean;
+import org.artificer.atom.providers.HttpResponseProvider;
+import org.artificer.common.MediaType;
+import org.jboss.resteasy.plugins.providers.atom.Entry;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.StreamingOutput;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+/**
+ * A multipart/mixed batch response (a list of HTTP responses, each carrying an Atom {@link Entry}, as defined by the
+ * S-RAMP Atom binding) that's written as it's produced.  The format is identical to a
+ * {@link org.jboss.resteasy.plugins.providers.multipart.MultipartOutput} of {@link HttpResponseBean}s, but only the
+ * part being written needs to be in memory.
+ *
+ * @author Brett Meyer
+ */
+public abstract class StreamingBatchOutput implements StreamingOutput {
+
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final byte[] CRLF = "\r\n".getBytes(ASCII);
+
+    private final String boundary;
+
+    /**
+     * Constructor.
+     * @param boundary
+     */
+    public StreamingBatchOutput(String boundary) {
+        this.boundary = boundary;
+    }
+
+    /**
+     * @return the media type of this response, including its boundary
+     */
+    public javax.ws.rs.core.MediaType getMediaType() {
+        return javax.ws.rs.core.MediaType.valueOf(MediaType.MULTIPART_MIXED + "; boundary=" + boundary);
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException, WebApplicationException {
+        try {
+            writeParts(new Parts(output));
+        } catch (IOException e) {
+            throw e;
+        } catch (WebApplicationException e) {
+            throw e;
+        } catch (Exception e) {
+            // The response is already committed, so this can only abort it.
+            throw new IOException(e);
+        }
+        output.write(("--" + boundary + "--").getBytes(ASCII));
+        output.flush();
+    }
+
+    /**
+     * Writes each of the batch's parts.
+     * @param parts
+     * @throws Exception
+     */
+    protected abstract void writeParts(Parts parts) throws Exception;
+
+    /**
+     * Writes the individual parts of a {@link StreamingBatchOutput}.
+     */
+    public final class Parts {
+
+        private final OutputStream output;
+
+        private Parts(OutputStream output) {
+            this.output = output;
+        }
+
+        /**
+         * Writes a part.
+         * @param contentId
+         * @param response its body must be an Atom {@link Entry}, or a String (ex: the reason for a 409 Conflict)
+         * @throws IOException
+         * @throws JAXBException
+         */
+        public void add(String contentId, HttpResponseBean response) throws IOException, JAXBException {
+            output.write(("--" + boundary).getBytes(ASCII));
+            output.write(CRLF);
+            output.write(("Content-ID: " + contentId).getBytes(ASCII));
+            output.write(CRLF);
+            output.write(("Content-Type: " + MediaType.MESSAGE_HTTP).getBytes(ASCII));
+            output.write(CRLF);
+            output.write(CRLF);
+
+            Object body = response.getBody();
+            if (body instanceof String) {
+                response.setHeader("Content-Classname", String.class.getName());
+                HttpResponseProvider.writeHead(response, output);
+                output.write(((String) body).getBytes(UTF8));
+            } else if (body instanceof Entry) {
+                response.setHeader("Content-Classname", Entry.class.getName());
+                HttpResponseProvider.writeHead(response, output);
+                Marshaller marshaller = ArtificerJaxbContexts.borrowMarshaller();
+                try {
+                    marshaller.marshal(body, output);
+                } finally {
+                    ArtificerJaxbContexts.release(marshaller);
+                }
+            } else {
+                throw new IllegalArgumentException(String.valueOf(body));
+            }
+            output.write(CRLF);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.atom;
+
+import org.jboss.resteasy.plugins.providers.atom.Feed;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An Atom feed response body that's written as it's produced, rather than built up as a complete {@link Feed} and
+ * then marshalled.  Subclasses write the entries, one at a time, in {@link #writeEntries(AtomFeedWriter)}.
+ *
+ * @author Brett Meyer
+ */
+public abstract class StreamingFeed implements StreamingOutput {
+
+    private final Feed header;
+
+    /**
+     * Constructor.
+     * @param header the feed's own data (id, title, extension attributes, links, etc.) -- its entries are ignored
+     */
+    public StreamingFeed(Feed header) {
+        this.header = header;
+    }
+
+    public Feed getHeader() {
+        return header;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException, WebApplicationException {
+        AtomFeedWriter writer = null;
+        try {
+            writer = new AtomFeedWriter(output);
+            writer.startFeed(header);
+            writeEntries(writer);
+            writer.endFeed();
+        } catch (IOException e) {
+            throw e;
+        } catch (WebApplicationException e) {
+            throw e;
+        } catch (Exception e) {
+            // The response is already committed, so this can only abort it.
+            throw new IOException(e);
+        } finally {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+    }
+
+    /**
+     * Writes each of the feed's entries.
+     * @param writer
+     * @throws Exception
+     */
+    protected abstract void writeEntries(AtomFeedWriter writer) throws Exception;
+}
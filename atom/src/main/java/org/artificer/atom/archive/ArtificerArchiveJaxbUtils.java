@@ -24,9 +24,9 @@ import javax.xml.bind.Marshaller;
 import javax.xml.bind.Unmarshaller;
 
 import org.jboss.resteasy.plugins.providers.atom.Entry;
-import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.Artifact;
 import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactType;
 import org.artificer.atom.ArtificerAtomUtils;
+import org.artificer.atom.ArtificerJaxbContexts;
 
 /**
  * Utility methods for using jaxb.
@@ -35,12 +35,8 @@ import org.artificer.atom.ArtificerAtomUtils;
  */
 public class ArtificerArchiveJaxbUtils {
 
-	private static JAXBContext jaxbContext;
 	private static JAXBContext getJaxbContext() throws JAXBException {
-		if (jaxbContext == null) {
-			jaxbContext = JAXBContext.newInstance(Entry.class, Artifact.class);
-		}
-		return jaxbContext;
+		return ArtificerJaxbContexts.getAtomContext();
 	}
 
 	/**
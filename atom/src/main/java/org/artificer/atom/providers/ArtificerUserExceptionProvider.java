@@ -0,0 +1,45 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.atom.providers;
+
+import org.artificer.common.error.ArtificerUserException;
+import org.jboss.resteasy.annotations.interception.ServerInterceptor;
+
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Returns a 400 when the client did something it shouldn't have (ex: an invalid query parameter).  More specific
+ * user errors (not found, conflict, wrong model) have their own providers.  The body is written the same way as any
+ * other server exception, so clients read it back as one.
+ *
+ * @author Brett Meyer
+ */
+@Provider
+@ServerInterceptor
+public class ArtificerUserExceptionProvider extends AbstractArtificerExceptionProvider
+        implements ExceptionMapper<ArtificerUserException> {
+
+    /**
+     * @see javax.ws.rs.ext.ExceptionMapper#toResponse(java.lang.Throwable)
+     */
+    @Override
+    public Response toResponse(ArtificerUserException exception) {
+        return super.toResponse(exception, Response.Status.BAD_REQUEST,
+                org.artificer.common.MediaType.APPLICATION_ARTIFICER_SERVER_EXCEPTION);
+    }
+}
@@ -113,6 +113,17 @@ public class HttpResponseProvider implements MessageBodyReader<HttpResponseBean>
 		}
 		t.setHeader("Content-Classname", entityType.getName());
 
+		writeHead(t, entityStream);
+
+		entityWriter.writeTo(entity, entityType, null, null, t.getBodyType(), null, entityStream);
+	}
+
+	/**
+	 * Writes the HTTP prolog and headers of the given response, leaving the stream positioned for its body.
+	 * @param t
+	 * @param entityStream
+	 */
+	public static void writeHead(HttpResponseBean t, OutputStream entityStream) {
 		PrintWriter writer = new PrintWriter(entityStream);
 		writer.print("HTTP/1.1 ");
 		writer.print(t.getCode());
@@ -127,8 +138,6 @@ public class HttpResponseProvider implements MessageBodyReader<HttpResponseBean>
 		}
 		writer.println("");
 		writer.flush();
-
-		entityWriter.writeTo(entity, entityType, null, null, t.getBodyType(), null, entityStream);
 	}
 
 	/**
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.atom;
+
+import org.artificer.atom.test.AtomTestUtils;
+import org.artificer.common.ArtificerConstants;
+import org.artificer.common.MediaType;
+import org.artificer.common.query.ArtifactSummary;
+import org.jboss.resteasy.plugins.providers.RegisterBuiltin;
+import org.jboss.resteasy.plugins.providers.atom.Entry;
+import org.jboss.resteasy.plugins.providers.atom.Feed;
+import org.jboss.resteasy.plugins.providers.atom.Link;
+import org.jboss.resteasy.plugins.providers.atom.Person;
+import org.jboss.resteasy.specimpl.MultivaluedMapImpl;
+import org.jboss.resteasy.spi.ResteasyProviderFactory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Providers;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.lang.annotation.Annotation;
+import java.net.URI;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tests that {@link AtomFeedWriter} writes a feed equivalent to the one JAXB (RESTEasy's Atom provider) wrote for
+ * the complete {@link Feed}.
+ *
+ * @author Brett Meyer
+ */
+public class AtomFeedWriterTest {
+
+    @After
+    public void clearContext() {
+        ResteasyProviderFactory.clearContextData();
+    }
+
+    @Test
+    public void testFeed() throws Exception {
+        Feed feed = header();
+        feed.getLinks().add(new Link("first", "http://localhost:8080/artificer-server/s-ramp?query=%2Fs-ramp"
+                + "&startIndex=0&pageSize=2&orderBy=name&ascending=true", MediaType.APPLICATION_ATOM_XML_FEED_TYPE));
+        feed.getLinks().add(new Link("next", "http://localhost:8080/artificer-server/s-ramp?query=%2Fs-ramp"
+                + "&startIndex=4&pageSize=2&continuation=abc%3D", MediaType.APPLICATION_ATOM_XML_FEED_TYPE));
+        feed.getEntries().add(entry(1, null));
+        Map<String, String> properties = new HashMap<>();
+        properties.put("color", "<blue> & green");
+        feed.getEntries().add(entry(2, properties));
+
+        String expected = writeJaxb(feed);
+        String actual = writeStreaming(feed);
+        Assert.assertTrue(actual.contains("summary-2.xsd"));
+        Assert.assertEquals(AtomTestUtils.normalizeAtom(expected), AtomTestUtils.normalizeAtom(actual));
+    }
+
+    @Test
+    public void testEmptyFeed() throws Exception {
+        Feed feed = header();
+        String expected = writeJaxb(feed);
+        String actual = writeStreaming(feed);
+        Assert.assertEquals(AtomTestUtils.normalizeAtom(expected), AtomTestUtils.normalizeAtom(actual));
+
+        Feed read = (Feed) ArtificerJaxbContexts.getAtomContext().createUnmarshaller().unmarshal(
+                new StringReader(actual));
+        Assert.assertTrue(read.getEntries().isEmpty());
+        Assert.assertEquals("0", read.getExtensionAttributes().get(ArtificerConstants.SRAMP_TOTAL_RESULTS_QNAME));
+    }
+
+    private Feed header() throws Exception {
+        Feed feed = new Feed();
+        feed.getExtensionAttributes().put(ArtificerConstants.SRAMP_PROVIDER_QNAME, "Artificer");
+        feed.getExtensionAttributes().put(ArtificerConstants.SRAMP_ITEMS_PER_PAGE_QNAME, "2");
+        feed.getExtensionAttributes().put(ArtificerConstants.SRAMP_START_INDEX_QNAME, "0");
+        feed.getExtensionAttributes().put(ArtificerConstants.SRAMP_TOTAL_RESULTS_QNAME, "0");
+        feed.getExtensionAttributes().put(ArtificerConstants.ARTIFICER_CONTINUATION_QNAME, "abc=");
+        feed.setId(new URI("urn:uuid:6f1b3f0e-8a1c-4d3a-9b7e-3c2d1e0f9a8b"));
+        feed.setTitle("S-RAMP Feed");
+        feed.setSubtitle("Ad Hoc query feed");
+        feed.setUpdated(new Date(1400000000123L));
+        feed.getAuthors().add(new Person("anonymous"));
+        return feed;
+    }
+
+    private Entry entry(int i, Map<String, String> properties) throws Exception {
+        ArtifactSummary summary = new ArtifactSummary();
+        summary.setUuid("00000000-0000-0000-0000-00000000000" + i);
+        summary.setName("summary-" + i + ".xsd");
+        summary.setDescription("Summary #" + i);
+        summary.setModel("xsd");
+        summary.setType("XsdDocument");
+        summary.setCreatedBy("admin");
+        Calendar created = Calendar.getInstance();
+        created.setTimeInMillis(1400000000000L + i);
+        summary.setCreatedTimestamp(created);
+        summary.setLastModifiedTimestamp(created);
+        summary.setProperties(properties == null ? Collections.<String, String>emptyMap() : properties);
+        return ArtificerAtomUtils.wrapArtifactSummary(summary);
+    }
+
+    private String writeStreaming(Feed feed) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AtomFeedWriter writer = new AtomFeedWriter(out);
+        try {
+            writer.startFeed(feed);
+            for (Entry entry : feed.getEntries()) {
+                writer.writeEntry(entry);
+            }
+            writer.endFeed();
+        } finally {
+            writer.close();
+        }
+        return out.toString("UTF-8");
+    }
+
+    @SuppressWarnings("unchecked")
+    private String writeJaxb(Feed feed) throws Exception {
+        ResteasyProviderFactory providerFactory = new ResteasyProviderFactory();
+        RegisterBuiltin.register(providerFactory);
+        ResteasyProviderFactory.pushContext(Providers.class, providerFactory);
+        MessageBodyWriter<Feed> writer = providerFactory.getMessageBodyWriter(Feed.class, null,
+                new Annotation[0], MediaType.APPLICATION_ATOM_XML_FEED_TYPE);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeTo(feed, Feed.class, null, new Annotation[0], MediaType.APPLICATION_ATOM_XML_FEED_TYPE,
+                new MultivaluedMapImpl<String, Object>(), out);
+        return out.toString("UTF-8");
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.atom;
+
+import org.artificer.atom.beans.HttpResponseBean;
+import org.artificer.atom.providers.HttpResponseProvider;
+import org.artificer.atom.test.AtomTestUtils;
+import org.artificer.common.MediaType;
+import org.jboss.resteasy.plugins.providers.RegisterBuiltin;
+import org.jboss.resteasy.plugins.providers.atom.Entry;
+import org.jboss.resteasy.plugins.providers.multipart.MultipartOutput;
+import org.jboss.resteasy.specimpl.MultivaluedMapImpl;
+import org.jboss.resteasy.spi.ResteasyProviderFactory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.XsdDocument;
+
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Providers;
+import java.io.ByteArrayOutputStream;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Tests that {@link StreamingBatchOutput} writes what the {@link MultipartOutput} it replaced did.  The parts' Atom
+ * entries need only be equivalent (namespace prefixes may differ).
+ *
+ * @author Brett Meyer
+ */
+public class StreamingBatchOutputTest {
+
+    @After
+    public void clearContext() {
+        ResteasyProviderFactory.clearContextData();
+    }
+
+    @Test
+    public void testParts() throws Exception {
+        List<String> contentIds = new ArrayList<>();
+        List<HttpResponseBean> responses = new ArrayList<>();
+
+        contentIds.add("<schemas/PO.xsd@package>");
+        responses.add(entryResponse(201, "Created", "PO.xsd"));
+        contentIds.add("<schemas/XMLSchema.xsd@package>");
+        responses.add(entryResponse(200, "OK", "XMLSchema.xsd"));
+        contentIds.add("<schemas/broken.xsd@package>");
+        HttpResponseBean error = new HttpResponseBean(409, "Conflict");
+        error.setBody("Artifact already exists: broken.xsd", javax.ws.rs.core.MediaType.TEXT_PLAIN_TYPE);
+        responses.add(error);
+
+        String expected = writeMultipartOutput(contentIds, responses);
+        String actual = writeStreaming(contentIds, responses);
+        Assert.assertEquals(3, actual.split("--package\r\n").length - 1);
+        Assert.assertEquals(AtomTestUtils.normalizeAtom(expected), AtomTestUtils.normalizeAtom(actual));
+    }
+
+    @Test
+    public void testNoParts() throws Exception {
+        List<String> contentIds = new ArrayList<>();
+        List<HttpResponseBean> responses = new ArrayList<>();
+        Assert.assertEquals(writeMultipartOutput(contentIds, responses), writeStreaming(contentIds, responses));
+    }
+
+    private HttpResponseBean entryResponse(int code, String status, String name) throws Exception {
+        XsdDocument artifact = new XsdDocument();
+        artifact.setArtifactType(org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactEnum.XSD_DOCUMENT);
+        artifact.setUuid("uuid-" + name);
+        artifact.setName(name);
+        artifact.setDescription("The <" + name + "> schema & more");
+        artifact.setContentSize(2376L);
+        artifact.setContentType("application/xml");
+        Entry entry = ArtificerAtomUtils.wrapSrampArtifact(artifact);
+        HttpResponseBean response = new HttpResponseBean(code, status);
+        response.setBody(entry, MediaType.APPLICATION_ATOM_XML_ENTRY_TYPE);
+        return response;
+    }
+
+    private String writeStreaming(final List<String> contentIds, final List<HttpResponseBean> responses)
+            throws Exception {
+        StreamingBatchOutput output = new StreamingBatchOutput("package") {
+            @Override
+            protected void writeParts(Parts parts) throws Exception {
+                for (int i = 0; i < contentIds.size(); i++) {
+                    parts.add(contentIds.get(i), copy(responses.get(i)));
+                }
+            }
+        };
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        output.write(out);
+        return out.toString("UTF-8");
+    }
+
+    @SuppressWarnings("unchecked")
+    private String writeMultipartOutput(List<String> contentIds, List<HttpResponseBean> responses)
+            throws Exception {
+        MultipartOutput output = new MultipartOutput();
+        output.setBoundary("package");
+        for (int i = 0; i < contentIds.size(); i++) {
+            output.addPart(copy(responses.get(i)), MediaType.MESSAGE_HTTP_TYPE).getHeaders()
+                    .putSingle("Content-ID", contentIds.get(i));
+        }
+
+        ResteasyProviderFactory providerFactory = new ResteasyProviderFactory();
+        RegisterBuiltin.register(providerFactory);
+        providerFactory.registerProvider(HttpResponseProvider.class);
+        ResteasyProviderFactory.pushContext(Providers.class, providerFactory);
+        javax.ws.rs.core.MediaType mediaType = javax.ws.rs.core.MediaType.valueOf(MediaType.MULTIPART_MIXED);
+        MessageBodyWriter<MultipartOutput> writer = providerFactory.getMessageBodyWriter(MultipartOutput.class,
+                null, new Annotation[0], mediaType);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeTo(output, MultipartOutput.class, null, new Annotation[0], mediaType,
+                new MultivaluedMapImpl<String, Object>(), out);
+        return out.toString("UTF-8");
+    }
+
+    private static HttpResponseBean copy(HttpResponseBean response) {
+        HttpResponseBean copy = new HttpResponseBean(response.getCode(), response.getStatus());
+        copy.setHeaders(new HashMap<>(response.getHeaders()));
+        copy.setBody(response.getBody(), response.getBodyType());
+        return copy;
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.atom.providers;
+
+import org.artificer.common.MediaType;
+import org.artificer.common.error.ArtificerUserException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.ws.rs.core.Response;
+
+/**
+ * Test for {@link ArtificerUserExceptionProvider}.
+ *
+ * @author Brett Meyer
+ */
+public class ArtificerUserExceptionProviderTest {
+
+    @Test
+    public void testBadRequest() throws Exception {
+        Response response = new ArtificerUserExceptionProvider().toResponse(
+                new ArtificerUserException("Invalid count mode: approximate"));
+        Assert.assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+        Assert.assertEquals(MediaType.APPLICATION_ARTIFICER_SERVER_EXCEPTION,
+                String.valueOf(response.getMetadata().getFirst("Content-Type")));
+        Assert.assertEquals("Invalid count mode: approximate", response.getMetadata().getFirst("Error-Message"));
+    }
+}
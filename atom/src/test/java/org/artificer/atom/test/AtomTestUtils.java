@@ -16,8 +16,16 @@
 package org.artificer.atom.test;
 
 import java.io.File;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.lang.reflect.Field;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+
+import org.artificer.atom.ArtificerJaxbContexts;
 import org.artificer.atom.archive.ArtificerArchive;
 
 /**
@@ -27,6 +35,9 @@ import org.artificer.atom.archive.ArtificerArchive;
  */
 public class AtomTestUtils {
 
+	private static final Pattern ATOM_ELEMENT = Pattern.compile(
+			"(<\\?xml[^>]*\\?>)?<((\\w+:)?(feed|entry))[\\s>].*?</\\2>", Pattern.DOTALL);
+
 	/**
 	 * Gets the working directory from the archive.  The working directory
 	 * is a private field, but we can get it anyway (during a unit test).
@@ -43,4 +54,28 @@ public class AtomTestUtils {
 		return workDir;
 	}
 
+	/**
+	 * Replaces each Atom feed or entry in the given text with the way JAXB marshals what it reads from it.  Two
+	 * serializations that differ only in namespace prefixes, or in their XML declarations, are then equal.
+	 * @param text
+	 * @return the normalized text
+	 * @throws Exception
+	 */
+	public static String normalizeAtom(String text) throws Exception {
+		JAXBContext context = ArtificerJaxbContexts.getAtomContext();
+		Marshaller marshaller = context.createMarshaller();
+		marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
+
+		StringBuffer normalized = new StringBuffer();
+		Matcher matcher = ATOM_ELEMENT.matcher(text);
+		while (matcher.find()) {
+			Object atom = context.createUnmarshaller().unmarshal(new StringReader(matcher.group()));
+			StringWriter writer = new StringWriter();
+			marshaller.marshal(atom, writer);
+			matcher.appendReplacement(normalized, Matcher.quoteReplacement(writer.toString()));
+		}
+		matcher.appendTail(normalized);
+		return normalized.toString();
+	}
+
 }
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.benchmark;
+
+import org.artificer.common.ArtifactContent;
+import org.artificer.integration.artifactbuilder.ArtifactBuilder;
+import org.artificer.integration.artifactbuilder.WsdlDocumentArtifactBuilder;
+import org.artificer.integration.artifactbuilder.XsdDocumentArtifactBuilder;
+import org.artificer.integration.switchyard.artifactbuilder.SwitchYardXmlArtifactBuilder;
+import org.artificer.integration.switchyard.model.SwitchYardModel;
+import org.artificer.integration.teiid.artifactbuilder.ModelArtifactBuilder;
+import org.artificer.integration.teiid.artifactbuilder.VdbManifestArtifactBuilder;
+import org.artificer.integration.teiid.model.TeiidModel;
+import org.artificer.integration.teiid.model.VdbManifest;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactEnum;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactType;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.ExtendedDocument;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.WsdlDocument;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.XsdDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The ingestion hot path: an {@link ArtifactBuilder} parsing a realistic document and generating its derived
+ * artifacts.  Only buildArtifacts is measured -- buildRelationships resolves references against the repository,
+ * which is covered by the query benchmarks.
+ *
+ * @author Brett Meyer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArtifactBuilderBenchmark {
+
+    @Param({"wsdl", "xsd", "switchyard", "teiid-vdb", "teiid-model"})
+    public String document;
+
+    private ArtifactContent content;
+
+    @Setup
+    public void setup() throws Exception {
+        switch (document) {
+            case "wsdl":
+                content = Fixtures.content(Fixtures.WSDL);
+                break;
+            case "xsd":
+                content = Fixtures.content(Fixtures.XSD);
+                break;
+            case "switchyard":
+                content = Fixtures.content(Fixtures.SWITCHYARD);
+                break;
+            case "teiid-vdb":
+                content = Fixtures.content(Fixtures.TEIID_VDB);
+                break;
+            case "teiid-model":
+                content = Fixtures.content(Fixtures.TEIID_MODEL);
+                break;
+            default:
+                throw new IllegalArgumentException(document);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        content.cleanup();
+    }
+
+    @Benchmark
+    public Collection<BaseArtifactType> buildArtifacts() throws Exception {
+        // Builders are stateful and decorate the primary artifact, so both are created per invocation, exactly as
+        // the provider does on every upload.
+        BaseArtifactType primaryArtifact;
+        ArtifactBuilder builder;
+        switch (document) {
+            case "wsdl":
+                primaryArtifact = new WsdlDocument();
+                primaryArtifact.setArtifactType(BaseArtifactEnum.WSDL_DOCUMENT);
+                builder = new WsdlDocumentArtifactBuilder();
+                break;
+            case "xsd":
+                primaryArtifact = new XsdDocument();
+                primaryArtifact.setArtifactType(BaseArtifactEnum.XSD_DOCUMENT);
+                builder = new XsdDocumentArtifactBuilder();
+                break;
+            case "switchyard":
+                primaryArtifact = extendedDocument(SwitchYardModel.SwitchYardXmlDocument);
+                builder = new SwitchYardXmlArtifactBuilder();
+                break;
+            case "teiid-vdb":
+                primaryArtifact = extendedDocument(VdbManifest.ARTIFACT_TYPE.extendedType());
+                builder = new VdbManifestArtifactBuilder();
+                break;
+            default:
+                primaryArtifact = extendedDocument(TeiidModel.ARTIFACT_TYPE.extendedType());
+                builder = new ModelArtifactBuilder();
+                break;
+        }
+        primaryArtifact.setName(content.getFilename());
+        return builder.buildArtifacts(primaryArtifact, content).getDerivedArtifacts();
+    }
+
+    private static ExtendedDocument extendedDocument(String extendedType) {
+        ExtendedDocument artifact = new ExtendedDocument();
+        artifact.setArtifactType(BaseArtifactEnum.EXTENDED_ARTIFACT_TYPE);
+        artifact.setExtendedType(extendedType);
+        return artifact;
+    }
+}
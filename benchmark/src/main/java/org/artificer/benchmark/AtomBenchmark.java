@@ -0,0 +1,102 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.benchmark;
+
+import org.artificer.atom.ArtificerAtomUtils;
+import org.artificer.atom.visitors.ArtifactToFullAtomEntryVisitor;
+import org.artificer.common.visitors.ArtifactVisitorHelper;
+import org.jboss.resteasy.plugins.providers.atom.Entry;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.Artifact;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.xml.bind.JAXBContext;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization between artifacts and Atom entries: the wrapping the client does before every create/update, the
+ * full entry the server builds for every artifact GET, their XML (un)marshalling, and the client's unwrapping of a
+ * received entry.
+ *
+ * @author Brett Meyer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AtomBenchmark {
+
+    private static final String BASE_URL = "http://localhost:8080/artificer-server";
+
+    @Param({"WsdlDocument", "Operation", "ExtendedArtifactType"})
+    public String artifact;
+
+    private BaseArtifactType srampArtifact;
+
+    private JAXBContext jaxbContext;
+
+    private byte[] entryXml;
+
+    @Setup
+    public void setup() throws Exception {
+        srampArtifact = Fixtures.artifact(artifact);
+        jaxbContext = JAXBContext.newInstance(Entry.class, Artifact.class);
+        entryXml = marshal(ArtificerAtomUtils.wrapSrampArtifact(srampArtifact));
+    }
+
+    @Benchmark
+    public Entry wrapSrampArtifact() throws Exception {
+        return ArtificerAtomUtils.wrapSrampArtifact(srampArtifact);
+    }
+
+    @Benchmark
+    public Entry fullAtomEntry() throws Exception {
+        ArtifactToFullAtomEntryVisitor visitor = new ArtifactToFullAtomEntryVisitor(BASE_URL);
+        ArtifactVisitorHelper.visitArtifact(visitor, srampArtifact);
+        return visitor.getAtomEntry();
+    }
+
+    @Benchmark
+    public byte[] marshalFullAtomEntry() throws Exception {
+        return marshal(fullAtomEntry());
+    }
+
+    @Benchmark
+    public BaseArtifactType unmarshalAndUnwrap() throws Exception {
+        Entry entry = (Entry) jaxbContext.createUnmarshaller().unmarshal(new ByteArrayInputStream(entryXml));
+        return ArtificerAtomUtils.unwrapSrampArtifact(entry);
+    }
+
+    private byte[] marshal(Entry entry) throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream(entryXml == null ? 8192 : entryXml.length);
+        jaxbContext.createMarshaller().marshal(entry, os);
+        return os.toByteArray();
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.benchmark;
+
+import org.artificer.common.ArtifactType;
+import org.artificer.repository.hibernate.data.HibernateEntityToSrampVisitor;
+import org.artificer.repository.hibernate.data.SrampToHibernateEntityVisitor;
+import org.artificer.repository.hibernate.entity.ArtificerArtifact;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping between the S-RAMP model and the Hibernate entities, in both directions.  Every create, update, and full
+ * artifact read goes through one or the other.  Purely in-memory: relationships are mapped by the persistence
+ * manager, not by the visitors, so they're not part of these numbers.
+ *
+ * @author Brett Meyer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityConversionBenchmark {
+
+    @Param({"WsdlDocument", "Operation", "ExtendedArtifactType"})
+    public String artifact;
+
+    private BaseArtifactType srampArtifact;
+
+    private ArtifactType artifactType;
+
+    private ArtificerArtifact artificerArtifact;
+
+    @Setup
+    public void setup() throws Exception {
+        srampArtifact = Fixtures.artifact(artifact);
+        artifactType = ArtifactType.valueOf(srampArtifact);
+        artificerArtifact = SrampToHibernateEntityVisitor.visit(srampArtifact, artifactType,
+                Fixtures.CLASSIFICATION_HELPER);
+    }
+
+    @Benchmark
+    public ArtificerArtifact srampToHibernateEntity() throws Exception {
+        return SrampToHibernateEntityVisitor.visit(srampArtifact, artifactType, Fixtures.CLASSIFICATION_HELPER);
+    }
+
+    @Benchmark
+    public BaseArtifactType hibernateEntityToSramp() throws Exception {
+        return HibernateEntityToSrampVisitor.visit(artificerArtifact, artifactType, true);
+    }
+}
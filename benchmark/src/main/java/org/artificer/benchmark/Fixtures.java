@@ -0,0 +1,213 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.benchmark;
+
+import org.apache.commons.io.IOUtils;
+import org.artificer.common.ArtifactContent;
+import org.artificer.common.ArtificerModelUtils;
+import org.artificer.integration.artifactbuilder.WsdlDocumentArtifactBuilder;
+import org.artificer.repository.ClassificationHelper;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactEnum;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactType;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.ExtendedArtifactType;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.WsdlDocument;
+
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.GregorianCalendar;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Shared fixtures.  Documents are the same ones the integration modules' unit tests use (pulled in through their
+ * test-jars), so the numbers reflect realistic content rather than toy input.
+ *
+ * @author Brett Meyer
+ */
+public final class Fixtures {
+
+    public static final String WSDL = "/sample-files/wsdl/ws-humantask-api.wsdl";
+
+    public static final String XSD = "/sample-files/xsd/ws-humantask.xsd";
+
+    public static final String SWITCHYARD = "/org/artificer/integration/switchyard/artifactbuilder/switchyard.xml";
+
+    public static final String TEIID_VDB = "/org/artificer/integration/teiid/artifactbuilder/parser-test-vdb.xml";
+
+    public static final String TEIID_MODEL = "/org/artificer/integration/teiid/artifactbuilder/Books_Oracle.xmi";
+
+    public static final String EXTENDED_TYPE = "BenchmarkType";
+
+    public static final String CLASSIFIER_BASE = "http://www.artificer.org/benchmark/ontology#";
+
+    /**
+     * Representative queries, by name (JMH @Params can't contain commas, so the benchmarks refer to these by name).
+     * All of them are valid against the data set built by {@link RepositoryState}.
+     */
+    public static final Map<String, String> QUERIES = new LinkedHashMap<>();
+    static {
+        QUERIES.put("type", "/s-ramp/wsdl/Operation");
+        QUERIES.put("attribute", "/s-ramp/ext/BenchmarkType[@name = 'benchmark-42']");
+        QUERIES.put("property", "/s-ramp/ext/BenchmarkType[@priority > 5 and @owner = 'team-3']");
+        QUERIES.put("relationship", "/s-ramp/ext/BenchmarkType[dependsOn[@name = 'benchmark-7']]");
+        QUERIES.put("compound", "/s-ramp/ext/BenchmarkType[(@owner = 'team-1' or @owner = 'team-2') "
+                + "and xp2:not(@deprecated) and @name != 'benchmark-3']");
+        QUERIES.put("fulltext", "/s-ramp[xp2:matches(., 'task')]");
+    }
+
+    private Fixtures() {
+    }
+
+    /**
+     * @param resourcePath one of the constants above
+     * @return the resource, spooled into an {@link ArtifactContent} (the caller must clean it up)
+     * @throws Exception
+     */
+    public static ArtifactContent content(String resourcePath) throws Exception {
+        InputStream is = Fixtures.class.getResourceAsStream(resourcePath);
+        if (is == null) {
+            throw new IllegalStateException("Missing fixture (is its test-jar on the classpath?): " + resourcePath);
+        }
+        try {
+            return new ArtifactContent(resourcePath.substring(resourcePath.lastIndexOf('/') + 1), is);
+        } finally {
+            IOUtils.closeQuietly(is);
+        }
+    }
+
+    /**
+     * @param index
+     * @param propertyCount
+     * @return an extended artifact carrying the given number of custom properties and a generic relationship
+     * @throws Exception
+     */
+    public static ExtendedArtifactType extendedArtifact(int index, int propertyCount) throws Exception {
+        ExtendedArtifactType artifact = new ExtendedArtifactType();
+        artifact.setArtifactType(BaseArtifactEnum.EXTENDED_ARTIFACT_TYPE);
+        artifact.setExtendedType(EXTENDED_TYPE);
+        stamp(artifact, "benchmark-" + index);
+        artifact.setDescription("Benchmark artifact " + index + ", used to measure the task list queries.");
+
+        ArtificerModelUtils.setCustomProperty(artifact, "owner", "team-" + (index % 10));
+        ArtificerModelUtils.setCustomProperty(artifact, "priority", String.valueOf(index % 10));
+        if (index % 5 == 0) {
+            ArtificerModelUtils.setCustomProperty(artifact, "deprecated", "true");
+        }
+        for (int i = 0; i < propertyCount; i++) {
+            ArtificerModelUtils.setCustomProperty(artifact, "property-" + i, "value-" + index + "-" + i);
+        }
+        ArtificerModelUtils.addGenericRelationship(artifact, "dependsOn", UUID.randomUUID().toString());
+        return artifact;
+    }
+
+    /**
+     * Runs the WSDL builder over the WSDL fixture.
+     *
+     * @return the WsdlDocument, followed by all of its derived artifacts
+     * @throws Exception
+     */
+    public static List<BaseArtifactType> wsdlArtifacts() throws Exception {
+        WsdlDocument wsdlDocument = new WsdlDocument();
+        wsdlDocument.setArtifactType(BaseArtifactEnum.WSDL_DOCUMENT);
+        wsdlDocument.setContentType("application/xml");
+        wsdlDocument.setContentEncoding("UTF-8");
+        stamp(wsdlDocument, "ws-humantask-api.wsdl");
+
+        ArtifactContent content = content(WSDL);
+        try {
+            List<BaseArtifactType> artifacts = new ArrayList<>();
+            artifacts.add(wsdlDocument);
+            artifacts.addAll(new WsdlDocumentArtifactBuilder().buildArtifacts(wsdlDocument, content)
+                    .getDerivedArtifacts());
+            for (BaseArtifactType artifact : artifacts) {
+                if (artifact.getUuid() == null) {
+                    stamp(artifact, artifact.getName());
+                }
+            }
+            return artifacts;
+        } finally {
+            content.cleanup();
+        }
+    }
+
+    /**
+     * @param name one of "WsdlDocument", "Operation", or "ExtendedArtifactType"
+     * @return a fully populated artifact of that kind (the extended artifact is also classified, roughly what a
+     * governance workflow leaves behind)
+     * @throws Exception
+     */
+    public static BaseArtifactType artifact(String name) throws Exception {
+        if (ExtendedArtifactType.class.getSimpleName().equals(name)) {
+            ExtendedArtifactType artifact = extendedArtifact(1, 20);
+            for (int i = 0; i < 3; i++) {
+                artifact.getClassifiedBy().add(CLASSIFIER_BASE + "class-" + i);
+            }
+            return artifact;
+        }
+        for (BaseArtifactType artifact : wsdlArtifacts()) {
+            if (artifact.getClass().getSimpleName().equals(name)) {
+                return artifact;
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    /**
+     * Resolves classifiers without an ontology.  Keeps the conversion benchmarks purely in-memory.
+     */
+    public static final ClassificationHelper CLASSIFICATION_HELPER = new ClassificationHelper() {
+        @Override
+        public URI resolve(String classifiedBy) {
+            return URI.create(classifiedBy);
+        }
+
+        @Override
+        public Collection<URI> normalize(URI classification) {
+            return Collections.singletonList(classification);
+        }
+
+        @Override
+        public Collection<URI> resolveAll(Collection<String> classifiedBy) {
+            List<URI> resolved = new ArrayList<>(classifiedBy.size());
+            for (String classifier : classifiedBy) {
+                resolved.add(resolve(classifier));
+            }
+            return resolved;
+        }
+
+        @Override
+        public Collection<URI> normalizeAll(Collection<URI> classifications) {
+            return new ArrayList<>(classifications);
+        }
+    };
+
+    private static void stamp(BaseArtifactType artifact, String name) throws Exception {
+        XMLGregorianCalendar now = DatatypeFactory.newInstance().newXMLGregorianCalendar(new GregorianCalendar());
+        artifact.setUuid(UUID.randomUUID().toString());
+        artifact.setName(name);
+        artifact.setCreatedBy("benchmark");
+        artifact.setCreatedTimestamp(now);
+        artifact.setLastModifiedBy("benchmark");
+        artifact.setLastModifiedTimestamp(now);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.benchmark;
+
+import org.artificer.common.query.ArtifactSummary;
+import org.artificer.common.query.xpath.XPathParser;
+import org.artificer.common.query.xpath.ast.Query;
+import org.artificer.repository.ClassificationHelper;
+import org.artificer.repository.hibernate.query.ArtificerToHibernateQueryVisitor;
+import org.artificer.repository.query.PagedResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Hibernate query path, against the H2 {@link RepositoryState}: building the JPA criteria from a parsed query
+ * (what {@link ArtificerToHibernateQueryVisitor} does before anything is sent to the database), and the full
+ * execution (plan cache, criteria, SQL or Lucene, and the summaries).
+ *
+ * @author Brett Meyer
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBenchmark {
+
+    @Param({"type", "attribute", "property", "relationship", "compound", "fulltext"})
+    public String query;
+
+    private String xpath;
+
+    private Query queryModel;
+
+    private EntityManager entityManager;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        xpath = Fixtures.QUERIES.get(query);
+        queryModel = new XPathParser().parseXPath(xpath);
+    }
+
+    @Setup(Level.Iteration)
+    public void openEntityManager(RepositoryState repository) throws Exception {
+        entityManager = repository.entityManager();
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeEntityManager() {
+        entityManager.close();
+    }
+
+    @Benchmark
+    public ArtificerToHibernateQueryVisitor buildCriteria(RepositoryState repository) throws Exception {
+        ArtificerToHibernateQueryVisitor visitor = new ArtificerToHibernateQueryVisitor(entityManager,
+                (ClassificationHelper) repository.persistenceManager);
+        queryModel.accept(visitor);
+        return visitor;
+    }
+
+    @Benchmark
+    public PagedResult<ArtifactSummary> executeQuery(RepositoryState repository) throws Exception {
+        return repository.queryManager.createQuery(xpath).executeQuery();
+    }
+}
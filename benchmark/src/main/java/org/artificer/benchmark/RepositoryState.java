@@ -0,0 +1,123 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.benchmark;
+
+import org.artificer.common.ArtifactContent;
+import org.artificer.common.ArtificerConstants;
+import org.artificer.repository.PersistenceManager;
+import org.artificer.repository.PersistenceManager.BatchItem;
+import org.artificer.repository.QueryManager;
+import org.artificer.repository.RepositoryProviderFactory;
+import org.artificer.repository.filter.ServletCredentialsFilter;
+import org.artificer.repository.hibernate.HibernateUtil;
+import org.artificer.repository.hibernate.query.ContentTextIndexer;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactEnum;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactType;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.WsdlDocument;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An in-memory H2 repository, set up the same way as the repository tests (see HibernateRepositoryTestProvider), and
+ * populated with the WSDL fixture (and everything derived from it) plus {@link #ARTIFACT_COUNT} extended artifacts.
+ *
+ * The second-level and query caches are left off, so that the query benchmarks measure the query itself.  Auditing
+ * is off as well.
+ *
+ * @author Brett Meyer
+ */
+@State(Scope.Benchmark)
+public class RepositoryState {
+
+    public static final int ARTIFACT_COUNT = 500;
+
+    private static final int BATCH_SIZE = 50;
+
+    public PersistenceManager persistenceManager;
+
+    public QueryManager queryManager;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        System.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        System.setProperty("hibernate.connection.driver_class", "org.h2.Driver");
+        System.setProperty("hibernate.connection.url", "jdbc:h2:mem:artificerBenchmark;DB_CLOSE_DELAY=-1;MVCC=true");
+        System.setProperty("hibernate.connection.username", "sa");
+        System.setProperty("hibernate.cache.use_second_level_cache", "false");
+        System.setProperty("hibernate.cache.use_query_cache", "false");
+        System.setProperty("hibernate.search.default.directory_provider", "ram");
+        System.setProperty(ArtificerConstants.ARTIFICER_FILE_STORAGE, "blob");
+        System.setProperty(ArtificerConstants.ARTIFICER_CONFIG_AUDITING, "false");
+        ServletCredentialsFilter.setUsername("benchmark");
+
+        persistenceManager = RepositoryProviderFactory.persistenceManager();
+        queryManager = RepositoryProviderFactory.queryManager();
+
+        WsdlDocument wsdlDocument = new WsdlDocument();
+        wsdlDocument.setArtifactType(BaseArtifactEnum.WSDL_DOCUMENT);
+        wsdlDocument.setName("ws-humantask-api.wsdl");
+        wsdlDocument.setContentType("application/xml");
+        ArtifactContent content = Fixtures.content(Fixtures.WSDL);
+        try {
+            persistenceManager.persistArtifact(wsdlDocument, content);
+        } finally {
+            content.cleanup();
+        }
+
+        // Each artifact depends on the one before it, so relationship predicates have something to join.
+        List<BatchItem> batch = new ArrayList<>();
+        String previousUuid = null;
+        for (int i = 0; i < ARTIFACT_COUNT; i++) {
+            BaseArtifactType artifact = Fixtures.extendedArtifact(i, 10);
+            if (previousUuid == null) {
+                artifact.getRelationship().clear();
+            } else {
+                artifact.getRelationship().get(0).getRelationshipTarget().get(0).setValue(previousUuid);
+            }
+            previousUuid = artifact.getUuid();
+
+            batch.add(new BatchItem(artifact.getUuid(), artifact, null));
+            if (batch.size() == BATCH_SIZE || i == ARTIFACT_COUNT - 1) {
+                persistenceManager.persistBatch(batch);
+                batch.clear();
+            }
+        }
+
+        if (!ContentTextIndexer.getInstance().awaitIdle(60000)) {
+            throw new IllegalStateException("Timed out waiting for full-text indexing");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        persistenceManager.shutdown();
+    }
+
+    /**
+     * @return a new EntityManager, which the caller must close
+     * @throws Exception
+     */
+    public EntityManager entityManager() throws Exception {
+        return HibernateUtil.startup().createEntityManager();
+    }
+}
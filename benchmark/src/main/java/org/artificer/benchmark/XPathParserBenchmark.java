@@ -0,0 +1,64 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.benchmark;
+
+import org.artificer.common.query.xpath.XPathParser;
+import org.artificer.common.query.xpath.ast.Query;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the representative queries (see {@link Fixtures#QUERIES}).  Compiled templates are cached (see
+ * QueryPlanCache), so this is mostly paid by ad-hoc queries and cache misses.
+ *
+ * @author Brett Meyer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class XPathParserBenchmark {
+
+    @Param({"type", "attribute", "property", "relationship", "compound", "fulltext"})
+    public String query;
+
+    private final XPathParser parser = new XPathParser();
+
+    private String xpath;
+
+    @Setup
+    public void setup() {
+        xpath = Fixtures.QUERIES.get(query);
+    }
+
+    @Benchmark
+    public Query parseXPath() {
+        return parser.parseXPath(xpath);
+    }
+}
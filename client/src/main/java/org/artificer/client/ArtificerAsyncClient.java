@@ -0,0 +1,571 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.client;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.artificer.client.i18n.Messages;
+import org.artificer.client.query.QueryResultSet;
+import org.artificer.common.ArtifactType;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactType;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs {@link ArtificerAtomApiClient} requests in the background, returning {@link Future}s (and optionally
+ * notifying an {@link AsyncCallback}) rather than blocking.  Requests share the wrapped client's connection pool.
+ *
+ * At most {@link ArtificerClientConfig#getMaxInFlight()} requests run at once.  Submitting another blocks the caller
+ * until one of them completes, so that producing requests faster than the repository handles them can't queue up an
+ * unbounded amount of work (see {@link #bulkUpload()}).
+ *
+ * Requests that fail with an I/O error (connection refused or reset, timeouts, a 503) are retried, up to
+ * {@link ArtificerClientConfig#getMaxRetries()} times, with an exponential backoff.  Reads and updates are retried
+ * after any I/O error, uploads only if they failed before reaching the repository (see {@link Retry}).
+ *
+ * Callbacks are notified on a separate thread (one per async client), in the order the requests complete, so they
+ * never hold up the requests themselves (see {@link AsyncCallback}).
+ *
+ * Closing the async client waits for its outstanding requests, but does not close the wrapped client.
+ *
+ * @author Brett Meyer
+ */
+public class ArtificerAsyncClient implements Closeable {
+
+    /**
+     * Which failures of a request can safely be retried.
+     */
+    public static enum Retry {
+        /**
+         * Any I/O error.  For requests that can be repeated without side effects (reads, PUTs).
+         */
+        ON_IO_ERROR,
+        /**
+         * Only failures to connect (or to get a pooled connection), where the request can't have reached the
+         * repository.  For requests that would otherwise have been processed twice (POSTs).
+         */
+        ON_CONNECT_ERROR,
+        NEVER
+    }
+
+    private static final AtomicInteger CLIENT_COUNT = new AtomicInteger();
+
+    // Bounds the walk down an exception's causes.
+    private static final int MAX_CAUSE_DEPTH = 10;
+
+    private final ArtificerAtomApiClient client;
+
+    private final int maxInFlight;
+
+    private final int maxRetries;
+
+    private final long retryBackoff;
+
+    private final long maxRetryBackoff;
+
+    private final Semaphore inFlight;
+
+    private final ScheduledThreadPoolExecutor executor;
+
+    private final ExecutorService callbackExecutor;
+
+    private volatile boolean closed = false;
+
+    /**
+     * Constructor.  Concurrency and retries are configured by the client's {@link ArtificerClientConfig}.
+     * @param client
+     */
+    public ArtificerAsyncClient(ArtificerAtomApiClient client) {
+        this.client = client;
+        ArtificerClientConfig config = client.getConfig();
+        maxInFlight = config.getMaxInFlight();
+        maxRetries = config.getMaxRetries();
+        retryBackoff = config.getRetryBackoff();
+        maxRetryBackoff = config.getMaxRetryBackoff();
+        inFlight = new Semaphore(maxInFlight);
+
+        final String threadPrefix = "artificer-async-" + CLIENT_COUNT.incrementAndGet() + "-";
+        executor = new ScheduledThreadPoolExecutor(maxInFlight, new ThreadFactory() {
+            private final AtomicInteger threadCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, threadPrefix + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        callbackExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, threadPrefix + "callback");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * @return the wrapped (blocking) client
+     */
+    public ArtificerAtomApiClient getClient() {
+        return client;
+    }
+
+    /**
+     * Runs any request in the background.  Blocks while {@link ArtificerClientConfig#getMaxInFlight()} requests are
+     * already running.
+     * @param request typically a call to one of the wrapped client's methods
+     * @param retry which failures to retry
+     * @param callback notified once the request completes (may be null)
+     * @return the request's result
+     */
+    public <T> Future<T> submit(Callable<T> request, Retry retry, AsyncCallback<? super T> callback) {
+        if (closed) {
+            throw new IllegalStateException(Messages.i18n.format("ASYNC_CLIENT_CLOSED"));
+        }
+        AsyncResult<T> result = new AsyncResult<T>(callback, callbackExecutor);
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.setException(e);
+            return result;
+        }
+        if (closed) {
+            // Closed while waiting for a permit (close() hands them all back, to wake us up)
+            inFlight.release();
+            throw new IllegalStateException(Messages.i18n.format("ASYNC_CLIENT_CLOSED"));
+        }
+        try {
+            executor.execute(new Attempt<T>(request, retry, result));
+        } catch (RejectedExecutionException e) {
+            // Closed in the meantime
+            inFlight.release();
+            result.setException(e);
+        }
+        return result;
+    }
+
+    /**
+     * @see ArtificerAtomApiClient#getArtifactMetaData(ArtifactType, String)
+     */
+    public Future<BaseArtifactType> getArtifactMetaData(final ArtifactType artifactType, final String artifactUuid,
+            AsyncCallback<? super BaseArtifactType> callback) {
+        return submit(new Callable<BaseArtifactType>() {
+            @Override
+            public BaseArtifactType call() throws Exception {
+                return client.getArtifactMetaData(artifactType, artifactUuid);
+            }
+        }, Retry.ON_IO_ERROR, callback);
+    }
+
+    /**
+     * @see ArtificerAtomApiClient#getArtifactMetaData(ArtifactType, String)
+     */
+    public Future<BaseArtifactType> getArtifactMetaData(ArtifactType artifactType, String artifactUuid) {
+        return getArtifactMetaData(artifactType, artifactUuid, null);
+    }
+
+    /**
+     * @see ArtificerAtomApiClient#getArtifactMetaData(List)
+     */
+    public Future<List<BaseArtifactType>> getArtifactMetaData(final List<String> artifactUuids,
+            AsyncCallback<? super List<BaseArtifactType>> callback) {
+        // A POST, but a read-only one
+        return submit(new Callable<List<BaseArtifactType>>() {
+            @Override
+            public List<BaseArtifactType> call() throws Exception {
+                return client.getArtifactMetaData(artifactUuids);
+            }
+        }, Retry.ON_IO_ERROR, callback);
+    }
+
+    /**
+     * @see ArtificerAtomApiClient#getArtifactMetaData(List)
+     */
+    public Future<List<BaseArtifactType>> getArtifactMetaData(List<String> artifactUuids) {
+        return getArtifactMetaData(artifactUuids, null);
+    }
+
+    /**
+     * @see ArtificerAtomApiClient#updateArtifactMetaData(BaseArtifactType)
+     */
+    public Future<Void> updateArtifactMetaData(final BaseArtifactType artifact, AsyncCallback<? super Void> callback) {
+        return submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                client.updateArtifactMetaData(artifact);
+                return null;
+            }
+        }, Retry.ON_IO_ERROR, callback);
+    }
+
+    /**
+     * @see ArtificerAtomApiClient#updateArtifactMetaData(BaseArtifactType)
+     */
+    public Future<Void> updateArtifactMetaData(BaseArtifactType artifact) {
+        return updateArtifactMetaData(artifact, null);
+    }
+
+    /**
+     * @see ArtificerAtomApiClient#query(String, int, int, String, boolean)
+     */
+    public Future<QueryResultSet> query(final String srampQuery, final int startIndex, final int count,
+            final String orderBy, final boolean ascending, AsyncCallback<? super QueryResultSet> callback) {
+        return submit(new Callable<QueryResultSet>() {
+            @Override
+            public QueryResultSet call() throws Exception {
+                return client.query(srampQuery, startIndex, count, orderBy, ascending);
+            }
+        }, Retry.ON_IO_ERROR, callback);
+    }
+
+    /**
+     * @see ArtificerAtomApiClient#query(String, int, int, String, boolean)
+     */
+    public Future<QueryResultSet> query(String srampQuery, int startIndex, int count, String orderBy,
+            boolean ascending) {
+        return query(srampQuery, startIndex, count, orderBy, ascending, null);
+    }
+
+    /**
+     * Downloads an artifact's content into a file (rather than returning a stream, which would hold one of the
+     * pooled connections for as long as the caller takes to read it).
+     * @param artifactType
+     * @param artifactUuid
+     * @param target the file to write (overwritten, including by any retry)
+     * @param callback notified once the request completes (may be null)
+     * @return the target file
+     * @see ArtificerAtomApiClient#getArtifactContent(ArtifactType, String)
+     */
+    public Future<File> downloadArtifactContent(final ArtifactType artifactType, final String artifactUuid,
+            final File target, AsyncCallback<? super File> callback) {
+        return submit(new Callable<File>() {
+            @Override
+            public File call() throws Exception {
+                // Closes the content stream
+                FileUtils.copyInputStreamToFile(client.getArtifactContent(artifactType, artifactUuid), target);
+                return target;
+            }
+        }, Retry.ON_IO_ERROR, callback);
+    }
+
+    /**
+     * @see #downloadArtifactContent(ArtifactType, String, File, AsyncCallback)
+     */
+    public Future<File> downloadArtifactContent(ArtifactType artifactType, String artifactUuid, File target) {
+        return downloadArtifactContent(artifactType, artifactUuid, target, null);
+    }
+
+    /**
+     * Uploads a file.  The file is (re)opened by each attempt, so failures to connect are retried.
+     * @param artifactType the artifact type, or null to let the repository detect it from the file
+     * @param file
+     * @param callback notified once the request completes (may be null)
+     * @return the new artifact
+     * @see ArtificerAtomApiClient#uploadArtifact(ArtifactType, InputStream, String)
+     */
+    public Future<BaseArtifactType> uploadArtifact(final ArtifactType artifactType, final File file,
+            AsyncCallback<? super BaseArtifactType> callback) {
+        return submit(new Callable<BaseArtifactType>() {
+            @Override
+            public BaseArtifactType call() throws Exception {
+                InputStream content = new FileInputStream(file);
+                try {
+                    return client.uploadArtifact(artifactType, content, file.getName());
+                } finally {
+                    IOUtils.closeQuietly(content);
+                }
+            }
+        }, Retry.ON_CONNECT_ERROR, callback);
+    }
+
+    /**
+     * @see #uploadArtifact(ArtifactType, File, AsyncCallback)
+     */
+    public Future<BaseArtifactType> uploadArtifact(ArtifactType artifactType, File file) {
+        return uploadArtifact(artifactType, file, null);
+    }
+
+    /**
+     * Uploads a file, along with the new artifact's meta-data.  The file is (re)opened by each attempt, so failures
+     * to connect are retried.
+     * @param artifact
+     * @param file
+     * @param callback notified once the request completes (may be null)
+     * @return the new artifact
+     * @see ArtificerAtomApiClient#uploadArtifact(BaseArtifactType, InputStream)
+     */
+    public Future<BaseArtifactType> uploadArtifact(final BaseArtifactType artifact, final File file,
+            AsyncCallback<? super BaseArtifactType> callback) {
+        return submit(new Callable<BaseArtifactType>() {
+            @Override
+            public BaseArtifactType call() throws Exception {
+                InputStream content = new FileInputStream(file);
+                try {
+                    return client.uploadArtifact(artifact, content);
+                } finally {
+                    IOUtils.closeQuietly(content);
+                }
+            }
+        }, Retry.ON_CONNECT_ERROR, callback);
+    }
+
+    /**
+     * @see #uploadArtifact(BaseArtifactType, File, AsyncCallback)
+     */
+    public Future<BaseArtifactType> uploadArtifact(BaseArtifactType artifact, File file) {
+        return uploadArtifact(artifact, file, null);
+    }
+
+    /**
+     * Uploads a stream.  A stream can only be read once, so the upload is never retried.
+     * @param artifactType the artifact type, or null to let the repository detect it from the file name
+     * @param content closed once the upload completes
+     * @param artifactFileName
+     * @param callback notified once the request completes (may be null)
+     * @return the new artifact
+     * @see ArtificerAtomApiClient#uploadArtifact(ArtifactType, InputStream, String)
+     */
+    public Future<BaseArtifactType> uploadArtifact(final ArtifactType artifactType, final InputStream content,
+            final String artifactFileName, AsyncCallback<? super BaseArtifactType> callback) {
+        return submit(new Callable<BaseArtifactType>() {
+            @Override
+            public BaseArtifactType call() throws Exception {
+                try {
+                    return client.uploadArtifact(artifactType, content, artifactFileName);
+                } finally {
+                    IOUtils.closeQuietly(content);
+                }
+            }
+        }, Retry.NEVER, callback);
+    }
+
+    /**
+     * @see #uploadArtifact(ArtifactType, InputStream, String, AsyncCallback)
+     */
+    public Future<BaseArtifactType> uploadArtifact(ArtifactType artifactType, InputStream content,
+            String artifactFileName) {
+        return uploadArtifact(artifactType, content, artifactFileName, null);
+    }
+
+    /**
+     * @return a new bulk upload, which streams any number of artifacts to the repository through this client
+     */
+    public BulkUpload bulkUpload() {
+        return new BulkUpload(this);
+    }
+
+    /**
+     * Stops accepting requests and waits for the outstanding ones (including their retries) to complete.  Requests
+     * submitted meanwhile (including any blocked on the in-flight limit) fail with an IllegalStateException.
+     * Callbacks that are already due are still notified.  The wrapped client is left open.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            // Every permit is back once nothing is in flight.
+            inFlight.acquire(maxInFlight);
+            executor.shutdown();
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        } finally {
+            // Wakes up any submit() blocked on a permit, which then sees that we're closed.
+            inFlight.release(maxInFlight);
+            callbackExecutor.shutdown();
+        }
+    }
+
+    /**
+     * @param error
+     * @param retry
+     * @return true if a request that failed with the given error can be retried
+     */
+    protected static boolean isRetryable(Throwable error, Retry retry) {
+        if (retry == Retry.NEVER) {
+            return false;
+        }
+        Throwable cause = error;
+        for (int depth = 0; cause != null && depth < MAX_CAUSE_DEPTH; depth++) {
+            if (retry == Retry.ON_IO_ERROR && cause instanceof IOException) {
+                return true;
+            }
+            // HttpHostConnectException is a ConnectException, ConnectionPoolTimeoutException a ConnectTimeoutException
+            if (cause instanceof ConnectException || cause instanceof ConnectTimeoutException) {
+                return true;
+            }
+            cause = cause.getCause();
+        }
+        return false;
+    }
+
+    /**
+     * @param retryCount 1 for the first retry
+     * @return how long to wait before the retry, in ms: exponential, with +/- 25% jitter so that requests that
+     * failed together don't all retry together
+     */
+    protected long getBackoff(int retryCount) {
+        long backoff = retryBackoff << Math.min(retryCount - 1, 20);
+        if (backoff <= 0 || backoff > maxRetryBackoff) {
+            backoff = maxRetryBackoff;
+        }
+        long jitter = backoff / 4;
+        return jitter > 0 ? backoff - jitter + ThreadLocalRandom.current().nextLong(2 * jitter + 1) : backoff;
+    }
+
+    /**
+     * One attempt of a request.  A failed attempt reschedules itself (after the backoff) while retries remain, so a
+     * request holds its in-flight permit, but not a thread, while waiting.
+     */
+    private class Attempt<T> implements Runnable {
+
+        private final Callable<T> request;
+
+        private final Retry retry;
+
+        private final AsyncResult<T> result;
+
+        private int retryCount = 0;
+
+        private Attempt(Callable<T> request, Retry retry, AsyncResult<T> result) {
+            this.request = request;
+            this.retry = retry;
+            this.result = result;
+        }
+
+        @Override
+        public void run() {
+            if (result.isCancelled()) {
+                inFlight.release();
+                return;
+            }
+
+            T value;
+            try {
+                value = request.call();
+            } catch (Throwable e) {
+                if (retryCount < maxRetries && !result.isCancelled() && isRetryable(e, retry)) {
+                    retryCount++;
+                    client.getMetrics().recordRetry();
+                    try {
+                        executor.schedule(this, getBackoff(retryCount), TimeUnit.MILLISECONDS);
+                        return;
+                    } catch (RejectedExecutionException rejected) {
+                        // Interrupted close, give up
+                    }
+                }
+                // Release first, so that the callback can submit the next request.
+                inFlight.release();
+                result.setException(e);
+                return;
+            }
+            inFlight.release();
+            result.set(value);
+        }
+    }
+
+    /**
+     * The {@link Future} of a request, completed by its last {@link Attempt}.
+     */
+    private static class AsyncResult<T> extends FutureTask<T> {
+
+        private static final Runnable NOOP = new Runnable() {
+            @Override
+            public void run() {
+            }
+        };
+
+        private final AsyncCallback<? super T> callback;
+
+        private final Executor callbackExecutor;
+
+        private AsyncResult(AsyncCallback<? super T> callback, Executor callbackExecutor) {
+            super(NOOP, null);
+            this.callback = callback;
+            this.callbackExecutor = callbackExecutor;
+        }
+
+        @Override
+        public void run() {
+            // Only ever completed through set/setException
+        }
+
+        @Override
+        protected void set(T value) {
+            super.set(value);
+        }
+
+        @Override
+        protected void setException(Throwable error) {
+            super.setException(error);
+        }
+
+        @Override
+        protected void done() {
+            if (callback == null || isCancelled()) {
+                return;
+            }
+            try {
+                callbackExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        notifyCallback();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Closed (ex: a request that failed while submitting it)
+                notifyCallback();
+            }
+        }
+
+        private void notifyCallback() {
+            T value;
+            try {
+                value = get();
+            } catch (Throwable e) {
+                callback.onFailure(e.getCause() != null ? e.getCause() : e);
+                return;
+            }
+            callback.onSuccess(value);
+        }
+    }
+}
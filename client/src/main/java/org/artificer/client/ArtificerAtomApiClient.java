@@ -15,6 +15,8 @@
  */
 package org.artificer.client;
 
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -42,6 +44,7 @@ import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.DefaultHttpClient;
 import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
 import org.artificer.atom.ArtificerAtomUtils;
 import org.artificer.atom.archive.ArtificerArchive;
 import org.artificer.atom.beans.HttpResponseBean;
@@ -57,10 +60,9 @@ import org.artificer.common.ArtificerModelUtils;
 import org.artificer.common.MediaType;
 import org.artificer.common.error.ArtificerServerException;
 import org.artificer.common.query.ArtifactSummary;
+import org.artificer.common.query.CountMode;
 import org.jboss.downloads.artificer._2013.auditing.AuditEntry;
-import org.jboss.resteasy.client.ClientExecutor;
 import org.jboss.resteasy.client.ClientResponse;
-import org.jboss.resteasy.client.core.executors.ApacheHttpClient4Executor;
 import org.jboss.resteasy.plugins.providers.atom.Category;
 import org.jboss.resteasy.plugins.providers.atom.Entry;
 import org.jboss.resteasy.plugins.providers.atom.Feed;
@@ -80,25 +82,47 @@ import org.w3._1999._02._22_rdf_syntax_ns_.RDF;
 /**
  * Class used to communicate with the S-RAMP server via the S-RAMP Atom API.
  *
+ * All requests go through a single pool of keep-alive connections (see {@link ArtificerClientConfig}), and a client
+ * is safe to share across threads -- sharing one is much cheaper than creating one per thread or per task.  Per
+ * request latencies are available from {@link #getMetrics()}.  Call {@link #close()} once done with the client, to
+ * release its connections.  For concurrent, non-blocking use (ex: bulk uploads), wrap it in an
+ * {@link ArtificerAsyncClient}.
+ *
  * @author eric.wittmann@redhat.com
  * @author Brett Meyer
  */
-public class ArtificerAtomApiClient {
+public class ArtificerAtomApiClient implements Closeable {
+
+	// The server's limit on artifacts per bulk meta-data request
+	private static final int METADATA_BATCH_SIZE = 500;
 
 	private String endpoint;
     private final String srampEndpoint;
     private final String artificerEndpoint;
 	private boolean validating;
 	private final Set<String> enabledFeatures = new HashSet<String>();
-	private Locale locale;
+	private volatile Locale locale;
 
     private AuthenticationProvider authProvider;
 
+    private final ClientMetrics metrics = new ClientMetrics();
+    private final ArtificerClientConfig config;
+    private final PooledClientExecutor executor;
+
 	/**
 	 * Constructor.
 	 * @param endpoint
 	 */
 	public ArtificerAtomApiClient(String endpoint) {
+		this(endpoint, new ArtificerClientConfig());
+	}
+
+	/**
+	 * Constructor.
+	 * @param endpoint
+	 * @param config the HTTP transport settings
+	 */
+	public ArtificerAtomApiClient(String endpoint, ArtificerClientConfig config) {
 		this.endpoint = endpoint;
 		if (this.endpoint.endsWith("/")) {
 			this.endpoint = this.endpoint.substring(0, this.endpoint.length() - 1);
@@ -112,6 +136,9 @@ public class ArtificerAtomApiClient {
 
         srampEndpoint = endpoint + "/s-ramp";
         artificerEndpoint = endpoint + "/artificer";
+
+        this.config = config;
+        executor = createClientExecutor(config);
 	}
 
 	/**
@@ -153,7 +180,22 @@ public class ArtificerAtomApiClient {
      */
     public ArtificerAtomApiClient(final String endpoint, AuthenticationProvider authenticationProvider,
 								  final boolean validating) throws ArtificerClientException, ArtificerServerException {
-        this(endpoint);
+        this(endpoint, authenticationProvider, validating, new ArtificerClientConfig());
+    }
+
+    /**
+     * Constructor.
+     * @param endpoint
+     * @param authenticationProvider
+     * @param validating
+     * @param config the HTTP transport settings
+     * @throws ArtificerClientException
+     * @throws ArtificerServerException
+     */
+    public ArtificerAtomApiClient(final String endpoint, AuthenticationProvider authenticationProvider,
+            final boolean validating, ArtificerClientConfig config)
+            throws ArtificerClientException, ArtificerServerException {
+        this(endpoint, config);
         this.authProvider = authenticationProvider;
         this.validating = validating;
         if (this.validating) {
@@ -308,11 +350,90 @@ public class ArtificerAtomApiClient {
 		}
 	}
 
+	/**
+	 * Gets the full meta-data of many artifacts, in as few requests as possible (one per 500 UUIDs), rather than one
+	 * request per artifact.  The artifact types need not be known.
+	 * @param artifactUuids
+	 * @return the artifacts, in the order of the given UUIDs (any that are not found are skipped)
+	 * @throws ArtificerClientException
+	 * @throws ArtificerServerException
+	 */
+	public List<BaseArtifactType> getArtifactMetaData(List<String> artifactUuids)
+			throws ArtificerClientException, ArtificerServerException {
+		List<BaseArtifactType> artifacts = new ArrayList<BaseArtifactType>(artifactUuids.size());
+		for (int i = 0; i < artifactUuids.size(); i += METADATA_BATCH_SIZE) {
+			ClientResponse<Feed> response = null;
+			try {
+				ClientRequest request = createClientRequest(artificerEndpoint + "/metadata");
+				request.body(MediaType.TEXT_PLAIN_TYPE, StringUtils.join(
+						artifactUuids.subList(i, Math.min(i + METADATA_BATCH_SIZE, artifactUuids.size())), "\n"));
+				response = request.post(Feed.class);
+				artifacts.addAll(unwrapFeed(response.getEntity()));
+			} catch (ArtificerServerException e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new ArtificerClientException(e);
+			} finally {
+				closeQuietly(response);
+			}
+		}
+		return artifacts;
+	}
+
+	/**
+	 * Executes the given s-ramp query, returning the full meta-data of the matching artifacts (rather than the
+	 * summaries returned by {@link #query(String, int, int, String, boolean)}), all in a single request.
+	 * @param srampQuery the s-ramp query (xpath formatted)
+	 * @param startIndex which index within the result to start (0 indexed)
+	 * @param count the size of the page of results to return (at most 500)
+	 * @param orderBy the s-ramp property to use for sorting (name, uuid, createdOn, etc)
+	 * @param ascending the direction of the sort
+	 * @return the artifacts, in query order
+	 * @throws ArtificerClientException
+	 * @throws ArtificerServerException
+	 */
+	public List<BaseArtifactType> queryArtifactMetaData(String srampQuery, int startIndex, int count, String orderBy,
+			boolean ascending) throws ArtificerClientException, ArtificerServerException {
+		ClientResponse<Feed> response = null;
+		try {
+			StringBuilder urlBuilder = new StringBuilder();
+			urlBuilder.append(artificerEndpoint);
+			urlBuilder.append("/metadata?query=");
+			urlBuilder.append(URLEncoder.encode(srampQuery, "UTF8"));
+			urlBuilder.append("&startIndex=");
+			urlBuilder.append(String.valueOf(startIndex));
+			urlBuilder.append("&count=");
+			urlBuilder.append(String.valueOf(count));
+			urlBuilder.append("&orderBy=");
+			urlBuilder.append(URLEncoder.encode(orderBy, "UTF8"));
+			urlBuilder.append("&ascending=");
+			urlBuilder.append(String.valueOf(ascending));
+			ClientRequest request = createClientRequest(urlBuilder.toString());
+			response = request.get(Feed.class);
+			return unwrapFeed(response.getEntity());
+		} catch (ArtificerServerException e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new ArtificerClientException(e);
+		} finally {
+			closeQuietly(response);
+		}
+	}
+
+	private List<BaseArtifactType> unwrapFeed(Feed feed) {
+		List<BaseArtifactType> artifacts = new ArrayList<BaseArtifactType>(feed.getEntries().size());
+		for (Entry entry : feed.getEntries()) {
+			artifacts.add(ArtificerAtomUtils.unwrapSrampArtifact(entry));
+		}
+		return artifacts;
+	}
+
 	/**
 	 * Gets the content for an artifact as an input stream.  The caller must close the resulting
 	 * @param artifactType the artifact type
 	 * @param artifactUuid the S-RAMP uuid of the artifact
-	 * @return an {@link InputStream} to the S-RAMP artifact content
+	 * @return an {@link InputStream} to the S-RAMP artifact content, which must be closed (it holds one of the
+	 * client's pooled connections until it is)
 	 * @throws ArtificerClientException
 	 * @throws ArtificerServerException
 	 */
@@ -324,18 +445,29 @@ public class ArtificerAtomApiClient {
 					artifactType.getArtifactType().getModel(), artifactType.getArtifactType().getType(),
 					artifactUuid);
 
-	        DefaultHttpClient httpClient = new DefaultHttpClient();
-	        if (this.authProvider != null) {
-	            httpClient.addRequestInterceptor(new HttpRequestInterceptor() {
-	                @Override
-	                public void process(HttpRequest request, HttpContext context) throws HttpException, IOException {
-	                    authProvider.provideAuthentication(request);
-	                }
-	            });
+	        long start = System.nanoTime();
+	        boolean failed = true;
+	        try {
+	            HttpResponse response = executor.getHttpClient().execute(new HttpGet(atomUrl));
+	            // Error responses throw what any other request would (ex: a retryable IOException for a 503).
+	            ClientRequest.handlePotentialServerError(response);
+	            int statusCode = response.getStatusLine().getStatusCode();
+	            HttpEntity entity = response.getEntity();
+	            if (statusCode < 200 || statusCode >= 300) {
+	                EntityUtils.consume(entity);
+	                throw new ArtificerClientException(Messages.i18n.format("BAD_RETURN_CODE", statusCode,
+	                        artifactUuid));
+	            }
+	            failed = false;
+	            // ex: a 204, for empty content
+	            return entity == null ? new ByteArrayInputStream(new byte[0]) : entity.getContent();
+	        } finally {
+	            metrics.record(HttpGet.METHOD_NAME, atomUrl, System.nanoTime() - start, failed);
 	        }
-	        HttpResponse response = httpClient.execute(new HttpGet(atomUrl));
-	        HttpEntity entity = response.getEntity();
-	        return entity.getContent();
+		} catch (ArtificerServerException e) {
+			throw e;
+		} catch (ArtificerClientException e) {
+			throw e;
 		} catch (Throwable e) {
 			throw new ArtificerClientException(e);
 		}
@@ -776,6 +908,29 @@ public class ArtificerAtomApiClient {
 	 */
 	public QueryResultSet query(String srampQuery, int startIndex, int count, String orderBy, boolean ascending,
 	        Collection<String> propertyNames) throws ArtificerClientException, ArtificerServerException {
+		return query(srampQuery, startIndex, null, count, orderBy, ascending, propertyNames, null);
+	}
+
+	/**
+	 * Executes the given s-ramp query xpath and returns a page of the matching artifacts.  If a continuation token
+	 * (see {@link QueryResultSet#getContinuation()}) is given, the page following the one that returned it is
+	 * selected instead of startIndex.  Rather than skipping a number of results, the server then seeks directly to the
+	 * next page, so deep pages cost no more than the first.
+	 * @param srampQuery the s-ramp query (xpath formatted)
+	 * @param startIndex which index within the result to start (0 indexed), ignored if continuation is given
+	 * @param continuation the opaque token returned with the previous page, or null
+	 * @param count the size of the page of results to return
+	 * @param orderBy the s-ramp property to use for sorting (must match the previous page's, if continuing)
+	 * @param ascending the direction of the sort (must match the previous page's, if continuing)
+	 * @param propertyNames an optional collection of names of custom s-ramp properties to be returned as part of the result set
+	 * @param countMode how (and whether) the server should count the total results, or null for an exact count
+	 * @return an Atom {@link Feed}
+	 * @throws ArtificerClientException
+	 * @throws ArtificerServerException
+	 */
+	public QueryResultSet query(String srampQuery, int startIndex, String continuation, int count, String orderBy,
+			boolean ascending, Collection<String> propertyNames, CountMode countMode)
+			throws ArtificerClientException, ArtificerServerException {
         ClientResponse<Feed> response = null;
 		try {
 			String xpath = srampQuery;
@@ -794,6 +949,12 @@ public class ArtificerAtomApiClient {
     			formData.addFormData("count", String.valueOf(count), MediaType.TEXT_PLAIN_TYPE);
     			formData.addFormData("orderBy", orderBy, MediaType.TEXT_PLAIN_TYPE);
     			formData.addFormData("ascending", String.valueOf(ascending), MediaType.TEXT_PLAIN_TYPE);
+    			if (continuation != null) {
+    			    formData.addFormData("continuation", continuation, MediaType.TEXT_PLAIN_TYPE);
+    			}
+    			if (countMode != null) {
+    			    formData.addFormData("countMode", countMode.name(), MediaType.TEXT_PLAIN_TYPE);
+    			}
     			if (propertyNames != null) {
     			    for (String propertyName : propertyNames) {
                         formData.addFormData("propertyName", propertyName, MediaType.TEXT_PLAIN_TYPE);
@@ -816,6 +977,14 @@ public class ArtificerAtomApiClient {
                 urlBuilder.append(URLEncoder.encode(orderBy, "UTF8"));
                 urlBuilder.append("&ascending=");
                 urlBuilder.append(String.valueOf(ascending));
+                if (continuation != null) {
+                    urlBuilder.append("&continuation=");
+                    urlBuilder.append(URLEncoder.encode(continuation, "UTF8"));
+                }
+                if (countMode != null) {
+                    urlBuilder.append("&countMode=");
+                    urlBuilder.append(countMode.name());
+                }
                 for (String propName : propertyNames) {
                     urlBuilder.append("&propertyName=");
                     urlBuilder.append(URLEncoder.encode(propName, "UTF8"));
@@ -1468,18 +1637,18 @@ public class ArtificerAtomApiClient {
      * @param atomUrl
      */
     protected ClientRequest createClientRequest(String atomUrl) {
-        ClientExecutor executor = createClientExecutor();
         ClientRequest request = new ClientRequest(atomUrl, executor);
         return request;
     }
 
     /**
      * Creates the client executor that will be used by RESTEasy when
-     * making the request.
+     * making the request.  A single one is shared by all requests (and threads).
+     * @param config
      */
-    private ClientExecutor createClientExecutor() {
-        // TODO I think the http client is thread safe - so let's try to create just one of these
-        DefaultHttpClient httpClient = new DefaultHttpClient();
+    private PooledClientExecutor createClientExecutor(ArtificerClientConfig config) {
+        PooledClientExecutor executor = new PooledClientExecutor(config, metrics);
+        DefaultHttpClient httpClient = executor.getDefaultHttpClient();
         httpClient.addRequestInterceptor(new HttpRequestInterceptor() {
             @Override
             public void process(HttpRequest request, HttpContext context) throws HttpException, IOException {
@@ -1490,15 +1659,37 @@ public class ArtificerAtomApiClient {
                 request.addHeader("Accept-Language", l.toString());
             }
         });
-        if (this.authProvider != null) {
-            httpClient.addRequestInterceptor(new HttpRequestInterceptor() {
-                @Override
-                public void process(HttpRequest request, HttpContext context) throws HttpException, IOException {
+        httpClient.addRequestInterceptor(new HttpRequestInterceptor() {
+            @Override
+            public void process(HttpRequest request, HttpContext context) throws HttpException, IOException {
+                if (authProvider != null) {
                     authProvider.provideAuthentication(request);
                 }
-            });
-        }
-        return new ApacheHttpClient4Executor(httpClient);
+            }
+        });
+        return executor;
+    }
+
+    /**
+     * @return the HTTP transport settings this client was created with
+     */
+    public ArtificerClientConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * @return the latency metrics of the requests made by this client
+     */
+    public ClientMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Closes the client's pooled connections.  The client can't be used afterwards.
+     */
+    @Override
+    public void close() {
+        executor.close();
     }
 
     /**
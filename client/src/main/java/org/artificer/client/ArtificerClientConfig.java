@@ -0,0 +1,184 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.client;
+
+/**
+ * HTTP transport settings for an {@link ArtificerAtomApiClient}: the connection pool, timeouts, and compression.
+ * The defaults suit a client making many small requests from a handful of threads.
+ *
+ * @author Brett Meyer
+ */
+public class ArtificerClientConfig {
+
+    private int maxConnectionsPerRoute = 20;
+
+    private int maxConnectionsTotal = 100;
+
+    private int connectTimeout = 30000;
+
+    private int socketTimeout = 0;
+
+    private long keepAlive = 60000;
+
+    private boolean acceptGzip = true;
+
+    private boolean gzipRequests = false;
+
+    private int maxInFlight = 0;
+
+    private int maxRetries = 3;
+
+    private long retryBackoff = 500;
+
+    private long maxRetryBackoff = 30000;
+
+    /**
+     * @return the max number of pooled connections to the repository (a route is a host and port)
+     */
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    public ArtificerClientConfig setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        return this;
+    }
+
+    /**
+     * @return the max number of pooled connections, across all routes
+     */
+    public int getMaxConnectionsTotal() {
+        return maxConnectionsTotal;
+    }
+
+    public ArtificerClientConfig setMaxConnectionsTotal(int maxConnectionsTotal) {
+        this.maxConnectionsTotal = maxConnectionsTotal;
+        return this;
+    }
+
+    /**
+     * @return the connect timeout, in ms (0 is infinite).  Also bounds the wait for a free pooled connection.
+     */
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public ArtificerClientConfig setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+        return this;
+    }
+
+    /**
+     * @return the socket (read) timeout, in ms (0, the default, is infinite -- large batch uploads can take a while)
+     */
+    public int getSocketTimeout() {
+        return socketTimeout;
+    }
+
+    public ArtificerClientConfig setSocketTimeout(int socketTimeout) {
+        this.socketTimeout = socketTimeout;
+        return this;
+    }
+
+    /**
+     * @return how long an idle connection is kept for reuse, in ms, unless the server's Keep-Alive header says
+     * otherwise (0 disables keep-alive)
+     */
+    public long getKeepAlive() {
+        return keepAlive;
+    }
+
+    public ArtificerClientConfig setKeepAlive(long keepAlive) {
+        this.keepAlive = keepAlive;
+        return this;
+    }
+
+    /**
+     * @return true if gzip'd responses are requested (Accept-Encoding) and transparently decompressed
+     */
+    public boolean isAcceptGzip() {
+        return acceptGzip;
+    }
+
+    public ArtificerClientConfig setAcceptGzip(boolean acceptGzip) {
+        this.acceptGzip = acceptGzip;
+        return this;
+    }
+
+    /**
+     * @return true if textual (XML, text, JSON) request bodies are gzip'd.  Off by default, since only the Atom API
+     * endpoints (not, for instance, other S-RAMP implementations) are known to accept them.
+     */
+    public boolean isGzipRequests() {
+        return gzipRequests;
+    }
+
+    public ArtificerClientConfig setGzipRequests(boolean gzipRequests) {
+        this.gzipRequests = gzipRequests;
+        return this;
+    }
+
+    /**
+     * @return the max number of requests an {@link ArtificerAsyncClient} runs at once (0, the default, means
+     * {@link #getMaxConnectionsPerRoute()} -- any more would only wait for a pooled connection)
+     */
+    public int getMaxInFlight() {
+        return maxInFlight > 0 ? maxInFlight : maxConnectionsPerRoute;
+    }
+
+    public ArtificerClientConfig setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+        return this;
+    }
+
+    /**
+     * @return how many times an {@link ArtificerAsyncClient} retries a request that failed with an I/O error (0
+     * disables retries)
+     */
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public ArtificerClientConfig setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+        return this;
+    }
+
+    /**
+     * @return the delay before the first retry, in ms.  Each following retry waits twice as long, plus or minus a
+     * random jitter, up to {@link #getMaxRetryBackoff()}.
+     */
+    public long getRetryBackoff() {
+        return retryBackoff;
+    }
+
+    public ArtificerClientConfig setRetryBackoff(long retryBackoff) {
+        this.retryBackoff = retryBackoff;
+        return this;
+    }
+
+    /**
+     * @return the longest delay between retries, in ms
+     */
+    public long getMaxRetryBackoff() {
+        return maxRetryBackoff;
+    }
+
+    public ArtificerClientConfig setMaxRetryBackoff(long maxRetryBackoff) {
+        this.maxRetryBackoff = maxRetryBackoff;
+        return this;
+    }
+}
@@ -18,6 +18,7 @@ package org.artificer.client;
 import org.artificer.client.i18n.Messages;
 import org.artificer.client.query.QueryResultSet;
 import org.artificer.common.error.ArtificerServerException;
+import org.artificer.common.query.CountMode;
 import org.joda.time.DateTime;
 import org.joda.time.format.ISODateTimeFormat;
 
@@ -46,6 +47,8 @@ public class ArtificerClientQuery {
     private String orderBy = "name";
     private boolean ascending = true;
     private Set<String> propertyNames = new HashSet<String>();
+    private String continuation;
+    private CountMode countMode;
 
     /**
      * Constructor.
@@ -189,6 +192,23 @@ public class ArtificerClientQuery {
         return this;
     }
 
+    /**
+     * @param continuation the token returned with the previous page (see {@link QueryResultSet#getContinuation()}),
+     *                     selecting the next page in place of the start index
+     */
+    public ArtificerClientQuery continuation(String continuation) {
+        this.continuation = continuation;
+        return this;
+    }
+
+    /**
+     * @param countMode how (and whether) the server should count the total results
+     */
+    public ArtificerClientQuery countMode(CountMode countMode) {
+        this.countMode = countMode;
+        return this;
+    }
+
     /**
      * Formats the query given the replacement params, then issues the query
      * to the S-RAMP repository and returns the result.
@@ -197,7 +217,7 @@ public class ArtificerClientQuery {
      */
     public QueryResultSet query() throws ArtificerClientException, ArtificerServerException {
         String query = formatQuery();
-        return client.query(query, startIndex, count, orderBy, ascending, propertyNames);
+        return client.query(query, startIndex, continuation, count, orderBy, ascending, propertyNames, countMode);
     }
 
     /**
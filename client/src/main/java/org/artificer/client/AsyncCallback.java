@@ -0,0 +1,38 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.client;
+
+/**
+ * Notified when an {@link ArtificerAsyncClient} request completes (after any retries).  Called on the async client's
+ * callback thread, in the order the requests complete, so implementations should be quick: other callbacks wait.
+ * They never hold up the requests themselves, though, so a callback can safely submit further requests (which blocks
+ * it while the in-flight limit is reached) or wait for another request's Future.
+ *
+ * @author Brett Meyer
+ */
+public interface AsyncCallback<T> {
+
+    /**
+     * @param result the request's result (null for requests without one)
+     */
+    void onSuccess(T result);
+
+    /**
+     * @param error the last failure, typically an {@link ArtificerClientException} or
+     * {@link org.artificer.common.error.ArtificerServerException}
+     */
+    void onFailure(Throwable error);
+}
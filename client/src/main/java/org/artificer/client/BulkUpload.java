@@ -0,0 +1,130 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.client;
+
+import org.artificer.common.ArtifactType;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactType;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Uploads any number of artifacts, one request each, over the {@link ArtificerAsyncClient}'s pooled connections.
+ * Unlike {@link ArtificerAtomApiClient#uploadBatch(org.artificer.atom.archive.ArtificerArchive)}, nothing needs to
+ * be packed up front: each upload starts as soon as it's added, and {@link #add} only blocks while the async client
+ * is at its in-flight limit, so the caller can stream artifacts in (ex: while walking a build's output).
+ *
+ * Each upload succeeds or fails on its own.  Not thread-safe: add the uploads from one thread.
+ *
+ * @author Brett Meyer
+ */
+public class BulkUpload {
+
+    private final ArtificerAsyncClient asyncClient;
+
+    private final List<String> names = new ArrayList<String>();
+
+    private final List<Future<BaseArtifactType>> uploads = new ArrayList<Future<BaseArtifactType>>();
+
+    private final Map<String, Throwable> failures = new LinkedHashMap<String, Throwable>();
+
+    /**
+     * Constructor.
+     * @param asyncClient
+     */
+    public BulkUpload(ArtificerAsyncClient asyncClient) {
+        this.asyncClient = asyncClient;
+    }
+
+    /**
+     * Starts uploading a file.
+     * @param artifactType the artifact type, or null to let the repository detect it from the file
+     * @param file
+     * @return the upload's result
+     */
+    public Future<BaseArtifactType> add(ArtifactType artifactType, File file) {
+        return add(file.getPath(), asyncClient.uploadArtifact(artifactType, file));
+    }
+
+    /**
+     * Starts uploading a file, along with the new artifact's meta-data.
+     * @param artifact
+     * @param file
+     * @return the upload's result
+     */
+    public Future<BaseArtifactType> add(BaseArtifactType artifact, File file) {
+        return add(file.getPath(), asyncClient.uploadArtifact(artifact, file));
+    }
+
+    /**
+     * Starts uploading a stream.
+     * @param artifactType the artifact type, or null to let the repository detect it from the file name
+     * @param content closed once the upload completes
+     * @param artifactFileName
+     * @return the upload's result
+     */
+    public Future<BaseArtifactType> add(ArtifactType artifactType, InputStream content, String artifactFileName) {
+        return add(artifactFileName, asyncClient.uploadArtifact(artifactType, content, artifactFileName));
+    }
+
+    private Future<BaseArtifactType> add(String name, Future<BaseArtifactType> upload) {
+        names.add(name);
+        uploads.add(upload);
+        return upload;
+    }
+
+    /**
+     * Waits for every upload added so far.
+     * @return the new artifacts, in the order they were added (failed uploads are skipped, see {@link #getFailures()})
+     * @throws InterruptedException
+     */
+    public List<BaseArtifactType> finish() throws InterruptedException {
+        List<BaseArtifactType> artifacts = new ArrayList<BaseArtifactType>(uploads.size());
+        failures.clear();
+        for (int i = 0; i < uploads.size(); i++) {
+            try {
+                artifacts.add(uploads.get(i).get());
+            } catch (ExecutionException e) {
+                failures.put(names.get(i), e.getCause());
+            } catch (CancellationException e) {
+                failures.put(names.get(i), e);
+            }
+        }
+        return artifacts;
+    }
+
+    /**
+     * @return the failed uploads, as of the last {@link #finish()}, keyed by file path (or name, for streams)
+     */
+    public Map<String, Throwable> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    /**
+     * @return the number of uploads added
+     */
+    public int size() {
+        return uploads.size();
+    }
+}
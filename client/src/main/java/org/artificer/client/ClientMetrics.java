@@ -0,0 +1,152 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.client;
+
+import org.artificer.common.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Per-request latency metrics of an {@link ArtificerAtomApiClient}, keyed by the request's method and path, with
+ * UUIDs and the query string removed (ex: "GET /s-ramp/core/Document/{uuid}/media").  The latency is measured
+ * until the response headers are received.
+ *
+ * Safe to read while the client is in use.
+ *
+ * @author Brett Meyer
+ */
+public class ClientMetrics {
+
+    public static final String OTHER_OPERATION = "(other)";
+
+    // Bounds the map, in case of unexpected path segments (ex: stored query names).
+    private static final int MAX_OPERATIONS = 200;
+
+    private static final Pattern UUID_SEGMENT = Pattern.compile(
+            "/[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}(?=/|$)");
+
+    private final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    private final AtomicLong requestCount = new AtomicLong();
+
+    private final AtomicLong failedRequestCount = new AtomicLong();
+
+    private final AtomicLong retryCount = new AtomicLong();
+
+    /**
+     * @param method ex: GET
+     * @param uri the full request URI
+     * @return the operation key
+     */
+    public static String operation(String method, String uri) {
+        String path = uri;
+        int schemeEnd = path.indexOf("://");
+        if (schemeEnd >= 0) {
+            int pathStart = path.indexOf('/', schemeEnd + 3);
+            path = pathStart >= 0 ? path.substring(pathStart) : "/";
+        }
+        int queryStart = path.indexOf('?');
+        if (queryStart >= 0) {
+            path = path.substring(0, queryStart);
+        }
+        return method + " " + UUID_SEGMENT.matcher(path).replaceAll("/{uuid}");
+    }
+
+    /**
+     * Records a request.
+     * @param method
+     * @param uri
+     * @param nanos
+     * @param failed true if no response was received (I/O error, timeout)
+     */
+    public void record(String method, String uri, long nanos, boolean failed) {
+        requestCount.incrementAndGet();
+        if (failed) {
+            failedRequestCount.incrementAndGet();
+        }
+
+        String operation = operation(method, uri);
+        LatencyHistogram histogram = histograms.get(operation);
+        if (histogram == null) {
+            if (histograms.size() >= MAX_OPERATIONS) {
+                operation = OTHER_OPERATION;
+            }
+            LatencyHistogram newHistogram = new LatencyHistogram();
+            histogram = histograms.putIfAbsent(operation, newHistogram);
+            if (histogram == null) {
+                histogram = newHistogram;
+            }
+        }
+        histogram.record(nanos);
+    }
+
+    /**
+     * Records that a failed request is being retried (see {@link ArtificerAsyncClient}).
+     */
+    public void recordRetry() {
+        retryCount.incrementAndGet();
+    }
+
+    /**
+     * @param operation
+     * @return the operation's histogram, or null if it hasn't been requested
+     */
+    public LatencyHistogram getHistogram(String operation) {
+        return histograms.get(operation);
+    }
+
+    /**
+     * @return the operations requested so far
+     */
+    public List<String> getOperations() {
+        return new ArrayList<>(histograms.keySet());
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getFailedRequestCount() {
+        return failedRequestCount.get();
+    }
+
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    public void reset() {
+        histograms.clear();
+        requestCount.set(0);
+        failedRequestCount.set(0);
+        retryCount.set(0);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("requests=").append(getRequestCount()).append(" failed=").append(getFailedRequestCount())
+                .append(" retried=").append(getRetryCount());
+        for (String operation : getOperations()) {
+            builder.append('\n').append(operation).append(": ").append(histograms.get(operation));
+        }
+        return builder.toString();
+    }
+}
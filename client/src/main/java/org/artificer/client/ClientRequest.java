@@ -15,6 +15,9 @@
  */
 package org.artificer.client;
 
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.util.EntityUtils;
 import org.artificer.atom.err.ArtificerAtomException;
 import org.artificer.atom.i18n.Messages;
 import org.artificer.atom.providers.ArtificerConflictExceptionProvider;
@@ -31,10 +34,14 @@ import org.jboss.resteasy.client.ClientExecutor;
 import org.jboss.resteasy.client.ClientResponse;
 import org.jboss.resteasy.plugins.providers.RegisterBuiltin;
 import org.jboss.resteasy.spi.ResteasyProviderFactory;
+import org.jboss.resteasy.util.CaseInsensitiveMap;
 import org.jboss.resteasy.util.HttpHeaderNames;
 
+import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriBuilder;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 
 /**
@@ -201,25 +208,78 @@ public class ClientRequest extends org.jboss.resteasy.client.ClientRequest {
 	 * @throws Exception
 	 */
 	private <T> void handlePotentialServerError(ClientResponse<T> response) throws Exception {
-		String contentType = String.valueOf(response.getMetadata().getFirst(HttpHeaderNames.CONTENT_TYPE));
-		Response.Status status = Response.Status.fromStatusCode(response.getStatus());
+		try {
+			throwPotentialServerError(response);
+		} catch (Exception e) {
+			// The caller never sees the response, so release its (pooled) connection here.
+			response.releaseConnection();
+			throw e;
+		}
+	}
+
+	/**
+	 * Handles the possibility of an error found in the response of a request made directly through the HttpClient
+	 * (ex: a streamed download), throwing the same exceptions as the other requests.  If one is thrown, the
+	 * response's entity has been consumed (releasing its connection).
+	 * @param response
+	 * @throws Exception
+	 */
+	static void handlePotentialServerError(final HttpResponse response) throws Exception {
+		try {
+			final Header contentType = response.getFirstHeader(HttpHeaderNames.CONTENT_TYPE);
+			throwPotentialServerError(response.getStatusLine().getStatusCode(),
+					String.valueOf(contentType == null ? null : contentType.getValue()), new ErrorReader() {
+				@Override
+				public <E> E read(Class<E> type) throws Exception {
+					javax.ws.rs.core.MediaType mediaType = javax.ws.rs.core.MediaType.valueOf(contentType.getValue());
+					MultivaluedMap<String, String> headers = new CaseInsensitiveMap<String>();
+					for (Header header : response.getAllHeaders()) {
+						headers.add(header.getName(), header.getValue());
+					}
+					return providerFactory.getMessageBodyReader(type, type, new Annotation[0], mediaType)
+							.readFrom(type, type, new Annotation[0], mediaType, headers,
+									response.getEntity().getContent());
+				}
+			});
+		} catch (Exception e) {
+			EntityUtils.consume(response.getEntity());
+			throw e;
+		}
+	}
+
+	private <T> void throwPotentialServerError(final ClientResponse<T> response) throws Exception {
+		throwPotentialServerError(response.getStatus(),
+				String.valueOf(response.getMetadata().getFirst(HttpHeaderNames.CONTENT_TYPE)), new ErrorReader() {
+			@Override
+			public <E> E read(Class<E> type) throws Exception {
+				return response.getEntity(type);
+			}
+		});
+	}
+
+	private static void throwPotentialServerError(int statusCode, String contentType, ErrorReader errorReader)
+			throws Exception {
+		Response.Status status = Response.Status.fromStatusCode(statusCode);
 
 		if (MediaType.APPLICATION_ARTIFICER_SERVER_EXCEPTION.equals(contentType)) {
-			throw response.getEntity(ArtificerServerException.class);
+			throw errorReader.read(ArtificerServerException.class);
 		}
 
 		if (MediaType.APPLICATION_ARTIFICER_CONFLICT_EXCEPTION.equals(contentType)) {
-			throw response.getEntity(ArtificerConflictException.class);
+			throw errorReader.read(ArtificerConflictException.class);
 		}
 
 		if (MediaType.APPLICATION_ARTIFICER_NOTFOUND_EXCEPTION.equals(contentType)) {
-			throw response.getEntity(ArtificerNotFoundException.class);
+			throw errorReader.read(ArtificerNotFoundException.class);
 		}
 
 		if (MediaType.APPLICATION_ARTIFICER_WRONGMODEL_EXCEPTION.equals(contentType)) {
-			throw response.getEntity(ArtificerWrongModelException.class);
+			throw errorReader.read(ArtificerWrongModelException.class);
 		}
 
+		if (status == null) {
+			return;
+		}
 		switch (status) {
 			case INTERNAL_SERVER_ERROR:
 				throw new Exception(Messages.i18n.format("UNKNOWN_ARTIFICER_ERROR"));
@@ -230,7 +290,17 @@ public class ClientRequest extends org.jboss.resteasy.client.ClientRequest {
 				throw new ArtificerAtomException(Messages.i18n.format("AUTHORIZATION_FAILED"));
 			case UNAUTHORIZED:
 				throw new ArtificerAtomException(Messages.i18n.format("AUTHENTICATION_FAILED"));
+			case SERVICE_UNAVAILABLE:
+				// An I/O error, rather than a server error: the request can be retried (see ArtificerAsyncClient).
+				throw new IOException(Messages.i18n.format("SERVICE_UNAVAILABLE"));
 		}
 	}
 
+	/**
+	 * Reads the exception sent as an error response's entity.
+	 */
+	private static interface ErrorReader {
+		<E> E read(Class<E> type) throws Exception;
+	}
+
 }
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.client;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.client.entity.GzipDecompressingEntity;
+import org.apache.http.client.params.ClientPNames;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.impl.NoConnectionReuseStrategy;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+import org.jboss.resteasy.client.ClientRequest;
+import org.jboss.resteasy.client.ClientResponse;
+import org.jboss.resteasy.client.core.executors.ApacheHttpClient4Executor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The {@link org.jboss.resteasy.client.ClientExecutor} of an {@link ArtificerAtomApiClient}: a single, thread-safe
+ * HttpClient over a pool of keep-alive connections (configured by an {@link ArtificerClientConfig}), which records
+ * every request in a {@link ClientMetrics}.
+ *
+ * @author Brett Meyer
+ */
+public class PooledClientExecutor extends ApacheHttpClient4Executor {
+
+    // Smaller bodies aren't worth the CPU (or the chunked encoding) to compress.
+    private static final long MIN_GZIP_LENGTH = 1024;
+
+    private final PoolingClientConnectionManager connectionManager;
+
+    private final ClientMetrics metrics;
+
+    /**
+     * Constructor.
+     * @param config
+     * @param metrics
+     */
+    public PooledClientExecutor(ArtificerClientConfig config, ClientMetrics metrics) {
+        super(createHttpClient(config));
+        this.connectionManager = (PoolingClientConnectionManager) httpClient.getConnectionManager();
+        this.metrics = metrics;
+    }
+
+    private static DefaultHttpClient createHttpClient(final ArtificerClientConfig config) {
+        PoolingClientConnectionManager connectionManager = new PoolingClientConnectionManager(
+                SchemeRegistryFactory.createDefault());
+        connectionManager.setMaxTotal(config.getMaxConnectionsTotal());
+        connectionManager.setDefaultMaxPerRoute(config.getMaxConnectionsPerRoute());
+
+        DefaultHttpClient httpClient = new DefaultHttpClient(connectionManager);
+        HttpParams params = httpClient.getParams();
+        HttpConnectionParams.setConnectionTimeout(params, config.getConnectTimeout());
+        HttpConnectionParams.setSoTimeout(params, config.getSocketTimeout());
+        // Waiting on an exhausted pool (ex: leaked, unclosed content streams) fails rather than hanging forever.
+        params.setLongParameter(ClientPNames.CONN_MANAGER_TIMEOUT, config.getConnectTimeout());
+
+        if (config.getKeepAlive() > 0) {
+            httpClient.setKeepAliveStrategy(new DefaultConnectionKeepAliveStrategy() {
+                @Override
+                public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+                    long duration = super.getKeepAliveDuration(response, context);
+                    return duration > 0 ? duration : config.getKeepAlive();
+                }
+            });
+        } else {
+            httpClient.setReuseStrategy(new NoConnectionReuseStrategy());
+        }
+
+        if (config.isAcceptGzip()) {
+            httpClient.addRequestInterceptor(new AcceptGzipInterceptor());
+            httpClient.addResponseInterceptor(new GunzipInterceptor());
+        } else {
+            httpClient.addRequestInterceptor(new NoAcceptEncodingInterceptor());
+        }
+        if (config.isGzipRequests()) {
+            // First, so the standard protocol interceptors set the headers of the compressed entity.
+            httpClient.addRequestInterceptor(new GzipInterceptor(), 0);
+        }
+        return httpClient;
+    }
+
+    /**
+     * @return the underlying HttpClient, for adding interceptors or making requests outside of RESTEasy
+     */
+    public DefaultHttpClient getDefaultHttpClient() {
+        return (DefaultHttpClient) httpClient;
+    }
+
+    public ClientMetrics getMetrics() {
+        return metrics;
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Override
+    public ClientResponse execute(ClientRequest request) throws Exception {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            ClientResponse response = super.execute(request);
+            failed = false;
+            return response;
+        } finally {
+            metrics.record(request.getHttpMethod(), request.getUri(), System.nanoTime() - start, failed);
+        }
+    }
+
+    /**
+     * Closes all pooled connections.  The executor can't be used afterwards.
+     */
+    @Override
+    public void close() {
+        connectionManager.shutdown();
+        closed = true;
+    }
+
+    /**
+     * Asks for gzip'd responses, and only those: RESTEasy's client otherwise asks for "gzip, deflate".
+     */
+    private static class AcceptGzipInterceptor implements HttpRequestInterceptor {
+        @Override
+        public void process(HttpRequest request, HttpContext context) throws HttpException, IOException {
+            request.setHeader("Accept-Encoding", "gzip");
+        }
+    }
+
+    /**
+     * Removes the Accept-Encoding that RESTEasy's client adds to every request, so that responses aren't compressed.
+     */
+    private static class NoAcceptEncodingInterceptor implements HttpRequestInterceptor {
+        @Override
+        public void process(HttpRequest request, HttpContext context) throws HttpException, IOException {
+            request.removeHeaders("Accept-Encoding");
+        }
+    }
+
+    /**
+     * Decompresses gzip'd responses, and removes the headers describing the compressed entity (so that neither
+     * RESTEasy nor a content stream's reader ever sees them).
+     */
+    private static class GunzipInterceptor implements HttpResponseInterceptor {
+        @Override
+        public void process(HttpResponse response, HttpContext context) throws HttpException, IOException {
+            HttpEntity entity = response.getEntity();
+            Header encoding = response.getFirstHeader("Content-Encoding");
+            if (entity != null && encoding != null && "gzip".equalsIgnoreCase(encoding.getValue().trim())) {
+                response.setEntity(new GzipDecompressingEntity(entity));
+                response.removeHeaders("Content-Encoding");
+                response.removeHeaders("Content-Length");
+                response.removeHeaders("Content-MD5");
+            }
+        }
+    }
+
+    /**
+     * Compresses textual request bodies.
+     */
+    private static class GzipInterceptor implements HttpRequestInterceptor {
+        @Override
+        public void process(HttpRequest request, HttpContext context) throws HttpException, IOException {
+            if (!(request instanceof HttpEntityEnclosingRequest) || request.containsHeader("Content-Encoding")) {
+                return;
+            }
+            HttpEntityEnclosingRequest entityRequest = (HttpEntityEnclosingRequest) request;
+            HttpEntity entity = entityRequest.getEntity();
+            if (entity == null || entity.getContentEncoding() != null
+                    || (entity.getContentLength() >= 0 && entity.getContentLength() < MIN_GZIP_LENGTH)) {
+                return;
+            }
+            Header contentType = request.getFirstHeader("Content-Type");
+            if (contentType == null) {
+                contentType = entity.getContentType();
+            }
+            if (contentType != null && isCompressible(contentType.getValue())) {
+                entityRequest.setEntity(new GzipCompressingEntity(entity));
+            }
+        }
+
+        private boolean isCompressible(String contentType) {
+            String type = contentType.toLowerCase();
+            int parameters = type.indexOf(';');
+            if (parameters >= 0) {
+                type = type.substring(0, parameters).trim();
+            }
+            return type.startsWith("text/") || type.endsWith("/xml") || type.endsWith("+xml")
+                    || type.endsWith("/json");
+        }
+    }
+
+    /**
+     * Wraps an entity, gzip'ing it as it's written.
+     */
+    private static class GzipCompressingEntity extends HttpEntityWrapper {
+
+        public GzipCompressingEntity(HttpEntity entity) {
+            super(entity);
+        }
+
+        @Override
+        public Header getContentEncoding() {
+            return new BasicHeader("Content-Encoding", "gzip");
+        }
+
+        @Override
+        public long getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public boolean isChunked() {
+            return true;
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void writeTo(OutputStream output) throws IOException {
+            GZIPOutputStream gzip = new GZIPOutputStream(output);
+            wrappedEntity.writeTo(gzip);
+            gzip.finish();
+        }
+    }
+}
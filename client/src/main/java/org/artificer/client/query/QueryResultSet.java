@@ -21,9 +21,13 @@ import org.artificer.common.ArtificerConstants;
 import org.artificer.common.query.ArtifactSummary;
 import org.jboss.resteasy.plugins.providers.atom.Entry;
 import org.jboss.resteasy.plugins.providers.atom.Feed;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactType;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.Property;
 
 import java.util.Calendar;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
 
 /**
  * An instance of this class is returned by the Atom API client when consumers
@@ -98,6 +102,16 @@ public class QueryResultSet implements Iterable<ArtifactSummary> {
         }
 	}
 
+    /**
+     * Returns the opaque token that selects the next page of results (see
+     * {@link org.artificer.client.ArtificerAtomApiClient#query(String, int, String, int, String, boolean, java.util.Collection, org.artificer.common.query.CountMode)}).
+     *
+     * Returns null if this is the last page, or if this feature is not supported by the server.
+     */
+    public String getContinuation() {
+        return (String) this.currentFeed.getExtensionAttributes().get(ArtificerConstants.ARTIFICER_CONTINUATION_QNAME);
+    }
+
 	/**
 	 * Gets an item at the given index.
 	 * @param index
@@ -186,6 +200,19 @@ public class QueryResultSet implements Iterable<ArtifactSummary> {
 			summary.setLastModifiedTimestamp(updated);
 		}
         summary.setExpandedFromArchive("true".equals(entry.getExtensionAttributes().get(ArtificerConstants.ARTIFICER_EXPANDED_FROM_ARCHIVE_QNAME)));
+        // Present only if the query requested properties (propertyName).
+        BaseArtifactType partial = ArtificerAtomUtils.unwrapSrampArtifact(artifactType, entry);
+        if (partial != null) {
+            // The artifact wrapper alone doesn't name an extended type, but the partial artifact does.
+            if (artifactType.isExtendedType()) {
+                summary.setType(ArtifactType.valueOf(partial).getType());
+            }
+            Map<String, String> properties = new HashMap<String, String>();
+            for (Property property : partial.getProperty()) {
+                properties.put(property.getPropertyName(), property.getPropertyValue());
+            }
+            summary.setProperties(properties);
+        }
         return summary;
     }
 }
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.artificer.common.ArtifactType;
+import org.artificer.common.MediaType;
+import org.artificer.common.error.ArtificerServerException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+
+/**
+ * Unit test for {@link ArtificerAtomApiClient#getArtifactContent(ArtifactType, String)}, against a stub server.
+ *
+ * @author Brett Meyer
+ */
+public class ArtifactContentTest {
+
+    private HttpServer server;
+
+    private ArtificerAtomApiClient client;
+
+    private volatile int status;
+
+    private volatile String contentType;
+
+    private volatile String body;
+
+    @Before
+    public void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                exchange.getResponseHeaders().add("Content-Type", contentType);
+                exchange.getResponseHeaders().add("Error-Message", "stub error");
+                byte[] bytes = body.getBytes("UTF-8");
+                exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+                exchange.getResponseBody().write(bytes);
+                exchange.close();
+            }
+        });
+        server.start();
+        client = new ArtificerAtomApiClient("http://localhost:" + server.getAddress().getPort() + "/artificer-server");
+    }
+
+    @After
+    public void stopServer() {
+        client.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void testContent() throws Exception {
+        respond(200, "text/plain", "some content");
+        InputStream content = client.getArtifactContent(ArtifactType.Document(), "uuid");
+        try {
+            Assert.assertEquals("some content", IOUtils.toString(content));
+        } finally {
+            content.close();
+        }
+    }
+
+    @Test
+    public void testServerError() throws Exception {
+        respond(500, MediaType.APPLICATION_ARTIFICER_SERVER_EXCEPTION, "stack trace");
+        try {
+            client.getArtifactContent(ArtifactType.Document(), "uuid");
+            Assert.fail("expected an error");
+        } catch (ArtificerServerException e) {
+            Assert.assertEquals("stub error", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testServiceUnavailable() throws Exception {
+        respond(503, "text/html", "<html>down for maintenance</html>");
+        try {
+            client.getArtifactContent(ArtifactType.Document(), "uuid");
+            Assert.fail("expected an error");
+        } catch (ArtificerClientException e) {
+            // retried by the async client
+            Assert.assertTrue(e.getCause() instanceof IOException);
+            Assert.assertTrue(ArtificerAsyncClient.isRetryable(e, ArtificerAsyncClient.Retry.ON_IO_ERROR));
+        }
+    }
+
+    @Test
+    public void testUnexpectedStatus() throws Exception {
+        respond(409, "text/html", "<html>conflict</html>");
+        try {
+            client.getArtifactContent(ArtifactType.Document(), "uuid");
+            Assert.fail("expected an error");
+        } catch (ArtificerClientException e) {
+            Assert.assertTrue(e.getMessage().contains("409"));
+        }
+    }
+
+    @Test
+    public void testNoContent() throws Exception {
+        respond(204, "text/plain", "");
+        Assert.assertEquals(-1, client.getArtifactContent(ArtifactType.Document(), "uuid").read());
+    }
+
+    private void respond(int status, String contentType, String body) {
+        this.status = status;
+        this.contentType = contentType;
+        this.body = body;
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.client;
+
+import org.apache.http.conn.ConnectTimeoutException;
+import org.artificer.client.ArtificerAsyncClient.Retry;
+import org.artificer.common.ArtifactType;
+import org.artificer.common.error.ArtificerServerException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactType;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Unit test for the {@link ArtificerAsyncClient}, with requests that never reach a repository.
+ *
+ * @author Brett Meyer
+ */
+public class ArtificerAsyncClientTest {
+
+    private ArtificerAtomApiClient client;
+
+    private ArtificerAsyncClient asyncClient;
+
+    @Before
+    public void createClient() {
+        client = new ArtificerAtomApiClient("http://localhost:8080/artificer-server",
+                new ArtificerClientConfig().setMaxInFlight(1).setRetryBackoff(1).setMaxRetryBackoff(10));
+        asyncClient = new ArtificerAsyncClient(client);
+    }
+
+    @After
+    public void closeClient() {
+        asyncClient.close();
+        client.close();
+    }
+
+    @Test(timeout = 30000)
+    public void testCloseWakesBlockedSubmit() throws Exception {
+        final CountDownLatch running = new CountDownLatch(1);
+        final CountDownLatch finish = new CountDownLatch(1);
+        Future<String> first = asyncClient.submit(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                running.countDown();
+                finish.await();
+                return "first";
+            }
+        }, Retry.NEVER, null);
+        Assert.assertTrue(running.await(10, TimeUnit.SECONDS));
+
+        // blocks on the in-flight limit
+        final AtomicReference<Throwable> submitError = new AtomicReference<Throwable>();
+        Thread submitter = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    asyncClient.submit(new Callable<String>() {
+                        @Override
+                        public String call() {
+                            return "second";
+                        }
+                    }, Retry.NEVER, null);
+                } catch (Throwable e) {
+                    submitError.set(e);
+                }
+            }
+        };
+        submitter.start();
+        waitUntilBlocked(submitter);
+
+        Thread closer = new Thread() {
+            @Override
+            public void run() {
+                asyncClient.close();
+            }
+        };
+        closer.start();
+        waitUntilBlocked(closer);
+        finish.countDown();
+
+        closer.join(10000);
+        submitter.join(10000);
+        Assert.assertFalse(closer.isAlive());
+        Assert.assertFalse(submitter.isAlive());
+        Assert.assertEquals("first", first.get());
+        Assert.assertTrue(submitError.get() instanceof IllegalStateException);
+    }
+
+    @Test(timeout = 30000)
+    public void testCallbackCanWaitForAnotherRequest() throws Exception {
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicReference<String> nested = new AtomicReference<String>();
+        asyncClient.submit(new Callable<String>() {
+            @Override
+            public String call() {
+                return "first";
+            }
+        }, Retry.NEVER, new AsyncCallback<String>() {
+            @Override
+            public void onSuccess(String result) {
+                // with a single request thread, this would deadlock if callbacks ran on it
+                try {
+                    nested.set(asyncClient.submit(new Callable<String>() {
+                        @Override
+                        public String call() {
+                            return "second";
+                        }
+                    }, Retry.NEVER, null).get());
+                } catch (Exception e) {
+                    // asserted below
+                }
+                done.countDown();
+            }
+
+            @Override
+            public void onFailure(Throwable error) {
+                done.countDown();
+            }
+        });
+        Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals("second", nested.get());
+    }
+
+    @Test
+    public void testIsRetryable() {
+        IOException reset = new IOException("Connection reset");
+        ConnectException refused = new ConnectException("Connection refused");
+        ArtificerServerException serverError = new ArtificerServerException("boom");
+
+        Assert.assertTrue(ArtificerAsyncClient.isRetryable(reset, Retry.ON_IO_ERROR));
+        Assert.assertFalse(ArtificerAsyncClient.isRetryable(reset, Retry.ON_CONNECT_ERROR));
+        Assert.assertTrue(ArtificerAsyncClient.isRetryable(refused, Retry.ON_IO_ERROR));
+        Assert.assertTrue(ArtificerAsyncClient.isRetryable(refused, Retry.ON_CONNECT_ERROR));
+        Assert.assertTrue(ArtificerAsyncClient.isRetryable(new ConnectTimeoutException(), Retry.ON_CONNECT_ERROR));
+        Assert.assertFalse(ArtificerAsyncClient.isRetryable(refused, Retry.NEVER));
+        Assert.assertFalse(ArtificerAsyncClient.isRetryable(serverError, Retry.ON_IO_ERROR));
+        Assert.assertFalse(ArtificerAsyncClient.isRetryable(serverError, Retry.ON_CONNECT_ERROR));
+
+        // as thrown by the blocking client
+        Assert.assertTrue(ArtificerAsyncClient.isRetryable(new ArtificerClientException(reset), Retry.ON_IO_ERROR));
+        Assert.assertTrue(ArtificerAsyncClient.isRetryable(new ArtificerClientException(refused),
+                Retry.ON_CONNECT_ERROR));
+        Assert.assertFalse(ArtificerAsyncClient.isRetryable(new ArtificerClientException("invalid"),
+                Retry.ON_IO_ERROR));
+    }
+
+    @Test
+    public void testGetBackoff() {
+        ArtificerAsyncClient backoffClient = new ArtificerAsyncClient(new ArtificerAtomApiClient(
+                "http://localhost:8080/artificer-server",
+                new ArtificerClientConfig().setRetryBackoff(100).setMaxRetryBackoff(1000)));
+        try {
+            for (int i = 0; i < 100; i++) {
+                // exponential, +/- 25%
+                assertBetween(75, 125, backoffClient.getBackoff(1));
+                assertBetween(150, 250, backoffClient.getBackoff(2));
+                assertBetween(300, 500, backoffClient.getBackoff(3));
+                // capped, however many retries
+                assertBetween(750, 1250, backoffClient.getBackoff(5));
+                assertBetween(750, 1250, backoffClient.getBackoff(64));
+                assertBetween(750, 1250, backoffClient.getBackoff(Integer.MAX_VALUE));
+            }
+        } finally {
+            backoffClient.close();
+            backoffClient.getClient().close();
+        }
+
+        // the shift overflowing
+        backoffClient = new ArtificerAsyncClient(new ArtificerAtomApiClient("http://localhost:8080/artificer-server",
+                new ArtificerClientConfig().setRetryBackoff(1L << 62).setMaxRetryBackoff(1000)));
+        try {
+            assertBetween(750, 1250, backoffClient.getBackoff(3));
+        } finally {
+            backoffClient.close();
+            backoffClient.getClient().close();
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testStreamUploadsAreNeverRetried() throws Exception {
+        ArtificerAsyncClient refusingClient = new ArtificerAsyncClient(new ArtificerAtomApiClient(
+                "http://localhost:" + closedPort() + "/artificer-server",
+                new ArtificerClientConfig().setMaxRetries(3).setRetryBackoff(1).setMaxRetryBackoff(10)));
+        File file = File.createTempFile("artificer-async", ".xml");
+        try {
+            Future<BaseArtifactType> upload = refusingClient.uploadArtifact(ArtifactType.XmlDocument(),
+                    new ByteArrayInputStream("<xml/>".getBytes("UTF-8")), "stream.xml");
+            assertFailed(upload);
+            Assert.assertEquals(0, refusingClient.getClient().getMetrics().getRetryCount());
+
+            // whereas a file is simply reopened
+            upload = refusingClient.uploadArtifact(ArtifactType.XmlDocument(), file);
+            assertFailed(upload);
+            Assert.assertEquals(3, refusingClient.getClient().getMetrics().getRetryCount());
+        } finally {
+            file.delete();
+            refusingClient.close();
+            refusingClient.getClient().close();
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testInFlightLimit() throws Exception {
+        ArtificerAsyncClient boundedClient = new ArtificerAsyncClient(new ArtificerAtomApiClient(
+                "http://localhost:8080/artificer-server", new ArtificerClientConfig().setMaxInFlight(2)));
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        try {
+            List<Future<Void>> requests = new ArrayList<Future<Void>>();
+            for (int i = 0; i < 8; i++) {
+                requests.add(boundedClient.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        int now = running.incrementAndGet();
+                        synchronized (maxRunning) {
+                            maxRunning.set(Math.max(maxRunning.get(), now));
+                        }
+                        Thread.sleep(20);
+                        running.decrementAndGet();
+                        return null;
+                    }
+                }, Retry.NEVER, null));
+            }
+            for (Future<Void> request : requests) {
+                request.get();
+            }
+            Assert.assertTrue(maxRunning.get() >= 1 && maxRunning.get() <= 2);
+        } finally {
+            boundedClient.close();
+            boundedClient.getClient().close();
+        }
+    }
+
+    private static void assertBetween(long min, long max, long actual) {
+        Assert.assertTrue(actual + " not within [" + min + ", " + max + "]", actual >= min && actual <= max);
+    }
+
+    private static void assertFailed(Future<?> request) throws InterruptedException {
+        try {
+            request.get();
+            Assert.fail("expected a failure");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(ArtificerAsyncClient.isRetryable(e.getCause(), Retry.ON_CONNECT_ERROR));
+        }
+    }
+
+    private static int closedPort() throws IOException {
+        ServerSocket socket = new ServerSocket(0);
+        try {
+            return socket.getLocalPort();
+        } finally {
+            socket.close();
+        }
+    }
+
+    private static void waitUntilBlocked(Thread thread) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (thread.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(Thread.State.WAITING, thread.getState());
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.client;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link ClientMetrics}.
+ *
+ * @author Brett Meyer
+ */
+public class ClientMetricsTest {
+
+    private static final String UUID = "2b5c3d8e-1f4a-4b6c-9d0e-a1b2c3d4e5f6";
+
+    @Test
+    public void testOperation() {
+        Assert.assertEquals("GET /artificer-server/s-ramp/core/Document/{uuid}/media", ClientMetrics.operation("GET",
+                "http://localhost:8080/artificer-server/s-ramp/core/Document/" + UUID + "/media"));
+        Assert.assertEquals("GET /artificer-server/s-ramp/core/Document/{uuid}", ClientMetrics.operation("GET",
+                "http://localhost:8080/artificer-server/s-ramp/core/Document/" + UUID.toUpperCase()));
+        Assert.assertEquals("POST /artificer-server/s-ramp", ClientMetrics.operation("POST",
+                "https://example.org/artificer-server/s-ramp?query=%2Fs-ramp&startIndex=0&propertyName=" + UUID));
+        Assert.assertEquals("GET /", ClientMetrics.operation("GET", "http://localhost:8080"));
+        Assert.assertEquals("GET /s-ramp/{uuid}/{uuid}", ClientMetrics.operation("GET", "/s-ramp/" + UUID + "/" + UUID));
+
+        // Only whole path segments are UUIDs.
+        Assert.assertEquals("GET /s-ramp/x" + UUID, ClientMetrics.operation("GET", "/s-ramp/x" + UUID));
+        Assert.assertEquals("GET /s-ramp/" + UUID + "0", ClientMetrics.operation("GET", "/s-ramp/" + UUID + "0"));
+    }
+
+    @Test
+    public void testRecord() {
+        ClientMetrics metrics = new ClientMetrics();
+        metrics.record("GET", "http://localhost:8080/s-ramp/core/Document/" + UUID, 1000000, false);
+        metrics.record("GET", "http://localhost:8080/s-ramp/core/Document/" + UUID.replace('2', '3'), 2000000, false);
+        metrics.record("GET", "http://localhost:8080/s-ramp/core/Document/" + UUID, 3000000, true);
+        metrics.recordRetry();
+
+        Assert.assertEquals(3, metrics.getRequestCount());
+        Assert.assertEquals(1, metrics.getFailedRequestCount());
+        Assert.assertEquals(1, metrics.getRetryCount());
+        Assert.assertEquals(1, metrics.getOperations().size());
+        Assert.assertEquals(3, metrics.getHistogram("GET /s-ramp/core/Document/{uuid}").getCount());
+
+        metrics.reset();
+        Assert.assertEquals(0, metrics.getRequestCount());
+        Assert.assertTrue(metrics.getOperations().isEmpty());
+    }
+
+    @Test
+    public void testTooManyOperations() {
+        ClientMetrics metrics = new ClientMetrics();
+        // ex: stored query names, which aren't normalized
+        for (int i = 0; i < 250; i++) {
+            metrics.record("GET", "/s-ramp/query/q" + i + "/results", 1000, false);
+        }
+        // Operations already seen keep their own histogram.
+        metrics.record("GET", "/s-ramp/query/q0/results", 1000, false);
+
+        Assert.assertEquals(201, metrics.getOperations().size());
+        Assert.assertEquals(50, metrics.getHistogram(ClientMetrics.OTHER_OPERATION).getCount());
+        Assert.assertEquals(2, metrics.getHistogram("GET /s-ramp/query/q0/results").getCount());
+        Assert.assertEquals(1, metrics.getHistogram("GET /s-ramp/query/q199/results").getCount());
+        Assert.assertNull(metrics.getHistogram("GET /s-ramp/query/q200/results"));
+        Assert.assertEquals(251, metrics.getRequestCount());
+    }
+}
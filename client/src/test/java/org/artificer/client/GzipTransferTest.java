@@ -0,0 +1,178 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.util.EntityUtils;
+import org.artificer.atom.ArtificerAtomUtils;
+import org.artificer.atom.AtomFeedWriter;
+import org.artificer.client.query.QueryResultSet;
+import org.artificer.common.ArtificerConstants;
+import org.artificer.common.query.ArtifactSummary;
+import org.jboss.resteasy.plugins.providers.atom.Feed;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Tests that gzip'd responses (ex: a large query feed) are transparently decompressed by the client.  The feed is
+ * served by a minimal HTTP server, written the same way the repository writes it.
+ *
+ * @author Brett Meyer
+ */
+public class GzipTransferTest {
+
+    private static final int ENTRIES = 100;
+
+    private HttpServer server;
+
+    private final List<String> acceptEncodings = new CopyOnWriteArrayList<>();
+
+    private byte[] feed;
+
+    @Before
+    public void startServer() throws Exception {
+        feed = feed();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                InputStream request = exchange.getRequestBody();
+                while (request.read() != -1) {
+                    // drain
+                }
+                String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+                acceptEncodings.add(String.valueOf(acceptEncoding));
+
+                byte[] body = feed;
+                exchange.getResponseHeaders().set("Content-Type", "application/atom+xml;type=feed");
+                if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                    ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+                    GZIPOutputStream gzip = new GZIPOutputStream(gzipped);
+                    gzip.write(body);
+                    gzip.close();
+                    body = gzipped.toByteArray();
+                    exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                }
+                exchange.sendResponseHeaders(200, body.length);
+                OutputStream response = exchange.getResponseBody();
+                response.write(body);
+                response.close();
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testGzipFeed() throws Exception {
+        doTestFeed(new ArtificerClientConfig(), "gzip");
+    }
+
+    @Test
+    public void testGunzipInterceptor() throws Exception {
+        PooledClientExecutor executor = new PooledClientExecutor(new ArtificerClientConfig(), new ClientMetrics());
+        try {
+            HttpResponse response = executor.getDefaultHttpClient().execute(
+                    new HttpGet("http://localhost:" + server.getAddress().getPort() + "/artificer-server/s-ramp"));
+            Assert.assertNull(response.getFirstHeader("Content-Encoding"));
+            Assert.assertNull(response.getFirstHeader("Content-Length"));
+            Assert.assertArrayEquals(feed, EntityUtils.toByteArray(response.getEntity()));
+            Assert.assertEquals("[gzip]", acceptEncodings.toString());
+        } finally {
+            executor.close();
+        }
+    }
+
+    @Test
+    public void testUncompressedFeed() throws Exception {
+        doTestFeed(new ArtificerClientConfig().setAcceptGzip(false), "null");
+    }
+
+    private void doTestFeed(ArtificerClientConfig config, String expectedAcceptEncoding) throws Exception {
+        ArtificerAtomApiClient client = new ArtificerAtomApiClient(
+                "http://localhost:" + server.getAddress().getPort() + "/artificer-server", config);
+        try {
+            // Twice, over the same pooled connection.
+            for (int i = 0; i < 2; i++) {
+                QueryResultSet results = client.query("/s-ramp/xsd/XsdDocument");
+                Assert.assertEquals(ENTRIES, results.size());
+                Assert.assertEquals(ENTRIES, results.getTotalResults());
+                for (int j = 0; j < ENTRIES; j++) {
+                    ArtifactSummary summary = results.get(j);
+                    Assert.assertEquals(uuid(j), summary.getUuid());
+                    Assert.assertEquals("schema-" + j + ".xsd", summary.getName());
+                    Assert.assertEquals("XsdDocument", summary.getType());
+                }
+            }
+            Assert.assertEquals(2, acceptEncodings.size());
+            for (String acceptEncoding : acceptEncodings) {
+                Assert.assertEquals(expectedAcceptEncoding, acceptEncoding);
+            }
+            Assert.assertEquals(0, client.getMetrics().getFailedRequestCount());
+            Assert.assertEquals(2, client.getMetrics().getHistogram("POST /artificer-server/s-ramp").getCount());
+        } finally {
+            client.close();
+        }
+    }
+
+    private static byte[] feed() throws Exception {
+        Feed header = new Feed();
+        header.setTitle("S-RAMP Feed");
+        header.getExtensionAttributes().put(ArtificerConstants.SRAMP_TOTAL_RESULTS_QNAME, String.valueOf(ENTRIES));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AtomFeedWriter writer = new AtomFeedWriter(out);
+        try {
+            writer.startFeed(header);
+            for (int i = 0; i < ENTRIES; i++) {
+                ArtifactSummary summary = new ArtifactSummary();
+                summary.setUuid(uuid(i));
+                summary.setName("schema-" + i + ".xsd");
+                summary.setDescription("A description that compresses well.");
+                summary.setModel("xsd");
+                summary.setType("XsdDocument");
+                writer.writeEntry(ArtificerAtomUtils.wrapArtifactSummary(summary));
+            }
+            writer.endFeed();
+        } finally {
+            writer.close();
+        }
+        return out.toByteArray();
+    }
+
+    private static String uuid(int i) {
+        return String.format("00000000-0000-0000-0000-%012d", i);
+    }
+}
@@ -15,6 +15,7 @@
  */
 package org.artificer.common;
 
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 
@@ -25,6 +26,13 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.InvalidMarkException;
+import java.nio.channels.FileChannel;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -33,18 +41,31 @@ import java.util.UUID;
  * When S-RAMP is handed content's InputStream, it needs to be read multiple times (multiple times in the
  * extensions, then again for persistence), some of which automatically close the stream.  Further, we don't want to trust
  * that custom extensions will always "do the right thing" and call #reset.  So, this object is passed
- * around throughout the process.  Using a temp file, it creates on-demand streams.
+ * around throughout the process.
+ *
+ * The incoming stream is spooled to a temp file exactly once.  During that single pass, the SHA-1 hash and the size
+ * are computed, so persistence never needs to re-read the content.  Afterwards, the temp file is memory-mapped
+ * (lazily, and only once) and every consumer receives an independent, read-only view of that mapping, either as a
+ * {@link ByteBuffer} or as an InputStream.  Content too large to be mapped falls back to on-demand file streams.
  * 
  * @author Brett Meyer
  */
 public class ArtifactContent {
 
+    private static final String HASH_ALGORITHM = "SHA-1";
+
     private final String path;
 
     private final String filename;
     
     private File tempFile = null;
 
+    private long size = 0;
+
+    private String sha1Hash = null;
+
+    private ByteBuffer mappedContent = null;
+
     private List<InputStream> tempStreams = new ArrayList<InputStream>();
     
     public ArtifactContent(String path, InputStream is) throws IOException {
@@ -63,9 +84,11 @@ public class ArtifactContent {
 
         OutputStream os = null;
         try {
+            DigestInputStream dis = new DigestInputStream(is, messageDigest());
             tempFile = File.createTempFile(UUID.randomUUID().toString(), filename);
             os = FileUtils.openOutputStream(tempFile);
-            IOUtils.copy(is, os);
+            size = IOUtils.copyLarge(dis, os);
+            sha1Hash = new String(Hex.encodeHex(dis.getMessageDigest().digest()));
         } catch (IOException e) {
             if (tempFile != null) {
                 FileUtils.deleteQuietly(tempFile);
@@ -82,21 +105,53 @@ public class ArtifactContent {
     }
 
     /**
-     * Obtain this artifact's InputStream, created on-demand.
+     * Obtain this artifact's InputStream, created on-demand.  When possible, the stream reads directly from the
+     * shared memory mapping of the content.  In all cases, the stream supports mark/reset.
      *
      * @return InputStream
      * @throws FileNotFoundException
      */
     public InputStream getInputStream() throws FileNotFoundException {
         if (tempFile != null) {
-            InputStream is = new BufferedInputStream(new FileInputStream(tempFile));
-            tempStreams.add(is);
+            InputStream is;
+            ByteBuffer buffer = getByteBuffer();
+            if (buffer != null) {
+                is = new ByteBufferInputStream(buffer);
+            } else {
+                is = new BufferedInputStream(new FileInputStream(tempFile));
+                tempStreams.add(is);
+            }
             return is;
         } else {
             return null;
         }
     }
 
+    /**
+     * Obtain a read-only, zero-copy view of the artifact's content.  Each call returns a new view (with its own
+     * position and limit) over the same memory mapping, so callers are free to consume it.
+     *
+     * @return ByteBuffer, or null if the content is unavailable or too large to be mapped
+     * @throws FileNotFoundException
+     */
+    public synchronized ByteBuffer getByteBuffer() throws FileNotFoundException {
+        if (tempFile == null || size > Integer.MAX_VALUE) {
+            return null;
+        }
+        if (mappedContent == null) {
+            RandomAccessFile raf = new RandomAccessFile(tempFile, "r");
+            try {
+                // The mapping remains valid after the channel is closed.
+                mappedContent = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } catch (IOException e) {
+                return null;
+            } finally {
+                IOUtils.closeQuietly(raf);
+            }
+        }
+        return mappedContent.asReadOnlyBuffer();
+    }
+
     /**
      * Obtain a reference to the artifact's temporary File on the filesystem.
      *
@@ -126,12 +181,25 @@ public class ArtifactContent {
     }
 
     public long getSize() {
-        return tempFile.length();
+        return size;
     }
 
-    public void cleanup() {
+    /**
+     * Obtain the hex-encoded SHA-1 hash of the content, computed while the content was originally streamed in.
+     *
+     * @return String
+     */
+    public String getSha1Hash() {
+        return sha1Hash;
+    }
+
+    public synchronized void cleanup() {
+        mappedContent = null;
         if (tempFile != null) {
-            tempFile.delete();
+            if (!tempFile.delete()) {
+                // Some platforms refuse to delete a file while a mapping is still reachable.
+                tempFile.deleteOnExit();
+            }
             tempFile = null;
         }
         for (InputStream is : tempStreams) {
@@ -139,4 +207,76 @@ public class ArtifactContent {
         }
         tempStreams = null;
     }
+
+    private static MessageDigest messageDigest() throws IOException {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Exposes a ByteBuffer as a (markable) InputStream, without copying the underlying bytes.
+     */
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            return buffer.get() & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            len = Math.min(len, buffer.remaining());
+            buffer.get(bytes, off, len);
+            return len;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return buffer.remaining();
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(int readLimit) {
+            buffer.mark();
+        }
+
+        @Override
+        public synchronized void reset() throws IOException {
+            try {
+                buffer.reset();
+            } catch (InvalidMarkException e) {
+                throw new IOException(e);
+            }
+        }
+    }
 }
@@ -87,6 +87,41 @@ public class ArtificerConfig {
         return configuration.getBoolean(ArtificerConstants.ARTIFICER_CONFIG_EVENT_JMS_ENABLED, false);
     }
 
+    /**
+     * @return true if events should be published asynchronously, off of the thread that fired them
+     */
+    public static boolean isEventAsync() {
+        return getConfigProperty(ArtificerConstants.ARTIFICER_CONFIG_EVENT_ASYNC, true);
+    }
+
+    /**
+     * @return the maximum number of events queued for asynchronous publication
+     */
+    public static int getEventQueueSize() {
+        return getConfigProperty(ArtificerConstants.ARTIFICER_CONFIG_EVENT_QUEUE_SIZE, 10000);
+    }
+
+    /**
+     * @return the maximum number of queued events published together (ex: within a single JMS transaction)
+     */
+    public static int getEventBatchSize() {
+        return getConfigProperty(ArtificerConstants.ARTIFICER_CONFIG_EVENT_BATCH_SIZE, 100);
+    }
+
+    /**
+     * @return what to do when the event queue is full: block, drop, or caller-runs
+     */
+    public static String getEventOverflowPolicy() {
+        return getConfigProperty(ArtificerConstants.ARTIFICER_CONFIG_EVENT_OVERFLOW_POLICY, "block");
+    }
+
+    /**
+     * @return how long (ms) the 'block' overflow policy waits for room on a full event queue before dropping the event
+     */
+    public static long getEventOfferTimeout() {
+        return getConfigProperty(ArtificerConstants.ARTIFICER_CONFIG_EVENT_OFFER_TIMEOUT, 5000L);
+    }
+
     /**
      * Gets a property from the s-ramp configuration.
      * @param propertyName
@@ -105,6 +140,145 @@ public class ArtificerConfig {
         return configuration.getBoolean(propertyName, propertyDefault);
     }
 
+    /**
+     * Gets a property from the s-ramp configuration.
+     * @param propertyName
+     * @param propertyDefault
+     */
+    public static int getConfigProperty(String propertyName, int propertyDefault) {
+        return configuration.getInt(propertyName, propertyDefault);
+    }
+
+    /**
+     * Gets a property from the s-ramp configuration.
+     * @param propertyName
+     * @param propertyDefault
+     */
+    public static long getConfigProperty(String propertyName, long propertyDefault) {
+        return configuration.getLong(propertyName, propertyDefault);
+    }
+
+    /**
+     * @return the number of threads used to expand, detect, and build artifacts in parallel during ingestion
+     */
+    public static int getIngestParallelism() {
+        return getConfigProperty(ArtificerConstants.ARTIFICER_CONFIG_INGEST_PARALLELISM,
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @return the content size (in bytes) at which XML artifact builders that support it switch to streaming
+     * derivation, or a negative number if streaming is disabled
+     */
+    public static long getArtifactBuilderStreamingThreshold() {
+        return getConfigProperty(ArtificerConstants.ARTIFICER_CONFIG_ARTIFACTBUILDER_STREAMING_THRESHOLD, -1L);
+    }
+
+    /**
+     * @return true if document content is extracted and indexed in the background, after the upload commits
+     */
+    public static boolean isFullTextAsync() {
+        return getConfigProperty(ArtificerConstants.ARTIFICER_CONFIG_FULLTEXT_ASYNC, true);
+    }
+
+    /**
+     * @return the number of threads extracting (Tika) document content for the full-text index
+     */
+    public static int getFullTextThreads() {
+        return getConfigProperty(ArtificerConstants.ARTIFICER_CONFIG_FULLTEXT_THREADS, 2);
+    }
+
+    /**
+     * @return the number of pending documents claimed per pass, as well as the batch size used by a mass reindex
+     */
+    public static int getFullTextBatchSize() {
+        return getConfigProperty(ArtificerConstants.ARTIFICER_CONFIG_FULLTEXT_BATCH_SIZE, 50);
+    }
+
+    /**
+     * @return how often (ms) the database is checked for documents still awaiting extraction
+     */
+    public static long getFullTextPollInterval() {
+        return getConfigProperty(ArtificerConstants.ARTIFICER_CONFIG_FULLTEXT_POLL_INTERVAL, 30000L);
+    }
+
+    /**
+     * @return the max number of characters extracted from a single document, or a negative number for no limit
+     */
+    public static int getFullTextMaxTextLength() {
+        return getConfigProperty(ArtificerConstants.ARTIFICER_CONFIG_FULLTEXT_MAX_TEXT_LENGTH, 1048576);
+    }
+
+    /**
+     * @return true if the full-text index should be completely rebuilt when the repository starts
+     */
+    public static boolean isFullTextReindexOnStartup() {
+        return getConfigProperty(ArtificerConstants.ARTIFICER_CONFIG_FULLTEXT_REINDEX_ON_STARTUP, false);
+    }
+
+    /**
+     * @return true if full-text queries should be filtered, sorted, and paged within Lucene whenever possible
+     */
+    public static boolean isFullTextNativePaging() {
+        return getConfigProperty(ArtificerConstants.ARTIFICER_CONFIG_FULLTEXT_NATIVE_PAGING, true);
+    }
+
+    /**
+     * @return true if the Hibernate second-level and query caches should be used
+     */
+    public static boolean isCacheEnabled() {
+        return getConfigProperty(ArtificerConstants.ARTIFICER_CONFIG_CACHE_ENABLED, true);
+    }
+
+    /**
+     * @return true if cache hit/miss/eviction statistics should be collected (and logged on shutdown)
+     */
+    public static boolean isCacheStatisticsEnabled() {
+        return getConfigProperty(ArtificerConstants.ARTIFICER_CONFIG_CACHE_STATISTICS, false);
+    }
+
+    /**
+     * @param region ex: 'artifacts', 'relationships', 'comments', 'ontologies', 'stored-queries', 'audit', or 'query'
+     * @param defaultValue
+     * @return the max number of entries held by the given cache region
+     */
+    public static long getCacheMaxEntries(String region, long defaultValue) {
+        return getConfigProperty(ArtificerConstants.ARTIFICER_CONFIG_CACHE_PREFIX + region + ".max-entries",
+                defaultValue);
+    }
+
+    /**
+     * @param region ex: 'artifacts', 'relationships', 'comments', 'ontologies', 'stored-queries', 'audit', or 'query'
+     * @param defaultValue
+     * @return how long (ms) an entry may live in the given cache region
+     */
+    public static long getCacheTtl(String region, long defaultValue) {
+        return getConfigProperty(ArtificerConstants.ARTIFICER_CONFIG_CACHE_PREFIX + region + ".ttl", defaultValue);
+    }
+
+    /**
+     * @return how long (ms) a query may take before it's logged as slow (with its SQL and row counts), or a negative
+     * number to never log
+     */
+    public static long getQuerySlowThreshold() {
+        return getConfigProperty(ArtificerConstants.ARTIFICER_CONFIG_QUERY_SLOW_THRESHOLD, 1000L);
+    }
+
+    /**
+     * @return the max number of distinct query shapes (xpath with the literals removed) tracked by the query
+     * statistics -- anything beyond that is lumped together
+     */
+    public static int getQueryStatisticsMaxShapes() {
+        return getConfigProperty(ArtificerConstants.ARTIFICER_CONFIG_QUERY_STATISTICS_MAX_SHAPES, 200);
+    }
+
+    /**
+     * @return true if the query, Hibernate, and connection pool statistics should be registered as JMX MBeans
+     */
+    public static boolean isJmxEnabled() {
+        return getConfigProperty(ArtificerConstants.ARTIFICER_CONFIG_JMX_ENABLED, true);
+    }
+
     /**
      * Returns a Map of all keys and values, where the keys begin with the given prefix.
      * @param prefix
@@ -140,6 +314,20 @@ public class ArtificerConfig {
         }
     }
 
+    /**
+     * @return the max number of generated Maven metadata/checksum documents held by the Maven facade (0 disables)
+     */
+    public static int getMavenCacheSize() {
+        return getConfigProperty(ArtificerConstants.ARTIFICER_CONFIG_MAVEN_CACHE_SIZE, 1000);
+    }
+
+    /**
+     * @return how long (ms) a cached Maven metadata/checksum document may be served
+     */
+    public static long getMavenCacheTtl() {
+        return getConfigProperty(ArtificerConstants.ARTIFICER_CONFIG_MAVEN_CACHE_TTL, 60000L);
+    }
+
     private static boolean isSnapshot() {
         String version = getVersion();
         return StringUtils.isNotBlank(version) && version.contains("SNAPSHOT");
@@ -57,6 +57,9 @@ public class ArtificerConstants {
     public static final QName ARTIFICER_RELATIONSHIP_GENERIC_QNAME = new QName(ARTIFICER_NS, ARTIFICER_RELATIONSHIP_GENERIC, ARTIFICER_PREFIX);
     public static final QName ARTIFICER_RELATIONSHIP_TYPE_QNAME = new QName(ARTIFICER_NS, ARTIFICER_RELATIONSHIP_TYPE, ARTIFICER_PREFIX);
 
+    public static final String ARTIFICER_CONTINUATION = "continuation";
+    public static final QName ARTIFICER_CONTINUATION_QNAME = new QName(ARTIFICER_NS, ARTIFICER_CONTINUATION, ARTIFICER_PREFIX);
+
     public static final String ARTIFICER_EXPANDED_FROM_ARCHIVE = "expanded.from.archive";
     public static final QName ARTIFICER_EXPANDED_FROM_ARCHIVE_QNAME = new QName(ARTIFICER_NS, ARTIFICER_EXPANDED_FROM_ARCHIVE, ARTIFICER_PREFIX);
     public static final String ARTIFICER_EXPANDED_FROM_ARCHIVE_UUID = "expanded.from.archive.uuid";
@@ -74,9 +77,30 @@ public class ArtificerConstants {
     public static final String ARTIFICER_CONFIG_EVENT_JMS_CONNECTIONFACTORY = "artificer.config.events.jms.connectionfactory";
     public static final String ARTIFICER_CONFIG_EVENT_JMS_TOPICS = "artificer.config.events.jms.topics";
     public static final String ARTIFICER_CONFIG_EVENT_JMS_QUEUES = "artificer.config.events.jms.queues";
+    public static final String ARTIFICER_CONFIG_EVENT_ASYNC = "artificer.config.events.async";
+    public static final String ARTIFICER_CONFIG_EVENT_QUEUE_SIZE = "artificer.config.events.queue-size";
+    public static final String ARTIFICER_CONFIG_EVENT_BATCH_SIZE = "artificer.config.events.batch-size";
+    public static final String ARTIFICER_CONFIG_EVENT_OVERFLOW_POLICY = "artificer.config.events.overflow-policy";
+    public static final String ARTIFICER_CONFIG_EVENT_OFFER_TIMEOUT = "artificer.config.events.offer-timeout";
     public static final String ARTIFICER_CONFIG_REPO_PROVIDER = "artificer.config.repository.provider";
     public static final String ARTIFICER_FILE_STORAGE = "artificer.file.storage";
     public static final String ARTIFICER_FILE_STORAGE_FILESYSTEM_PATH = "artificer.file.storage.filesystem.path";
+    public static final String ARTIFICER_CONFIG_INGEST_PARALLELISM = "artificer.config.ingest.parallelism";
+    public static final String ARTIFICER_CONFIG_ARTIFACTBUILDER_STREAMING_THRESHOLD = "artificer.config.artifactbuilder.streaming-threshold";
+    public static final String ARTIFICER_CONFIG_FULLTEXT_ASYNC = "artificer.config.fulltext.async";
+    public static final String ARTIFICER_CONFIG_FULLTEXT_THREADS = "artificer.config.fulltext.threads";
+    public static final String ARTIFICER_CONFIG_FULLTEXT_BATCH_SIZE = "artificer.config.fulltext.batch-size";
+    public static final String ARTIFICER_CONFIG_FULLTEXT_POLL_INTERVAL = "artificer.config.fulltext.poll-interval";
+    public static final String ARTIFICER_CONFIG_FULLTEXT_MAX_TEXT_LENGTH = "artificer.config.fulltext.max-text-length";
+    public static final String ARTIFICER_CONFIG_FULLTEXT_REINDEX_ON_STARTUP = "artificer.config.fulltext.reindex-on-startup";
+    public static final String ARTIFICER_CONFIG_FULLTEXT_NATIVE_PAGING = "artificer.config.fulltext.native-paging";
+    public static final String ARTIFICER_CONFIG_CACHE_ENABLED = "artificer.config.cache.enabled";
+    public static final String ARTIFICER_CONFIG_CACHE_STATISTICS = "artificer.config.cache.statistics";
+    // Per-region settings, ex: 'artificer.config.cache.artifacts.max-entries' or 'artificer.config.cache.ontologies.ttl'
+    public static final String ARTIFICER_CONFIG_CACHE_PREFIX = "artificer.config.cache.";
+    public static final String ARTIFICER_CONFIG_QUERY_SLOW_THRESHOLD = "artificer.config.query.slow-threshold";
+    public static final String ARTIFICER_CONFIG_QUERY_STATISTICS_MAX_SHAPES = "artificer.config.query.statistics.max-shapes";
+    public static final String ARTIFICER_CONFIG_JMX_ENABLED = "artificer.config.jmx.enabled";
 
     // Location of a directory containing JARs which provide custom ArtifactBuilderProviders
     public static final String ARTIFICER_CUSTOM_EXTENSION_DIR = "artificer.extension.customDir";
@@ -85,4 +109,8 @@ public class ArtificerConstants {
 
     public static final String ARTIFICER_SNAPSHOT_ALLOWED = "artificer.config.maven.allow-snapshots";
 
+    public static final String ARTIFICER_CONFIG_MAVEN_CACHE_SIZE = "artificer.config.maven.cache.size";
+
+    public static final String ARTIFICER_CONFIG_MAVEN_CACHE_TTL = "artificer.config.maven.cache.ttl";
+
 }
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.common;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free latency histogram, with power-of-two microsecond buckets (bucket n holds latencies below 2^n us).
+ * Percentiles are therefore approximate -- they're reported as their bucket's upper bound, so they're never
+ * understated by more than a factor of two.  Plenty for telling a 5 ms operation from a 500 ms one, and cheap enough
+ * to record every execution.  Used for both the server's query statistics and the client's request metrics.
+ *
+ * @author Brett Meyer
+ */
+public class LatencyHistogram {
+
+    // 2^40 us is ~12 days.  Anything slower lands in the last bucket.
+    private static final int BUCKETS = 41;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong totalNanos = new AtomicLong();
+
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * @param nanos
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        long micros = nanos / 1000;
+        int bucket = micros == 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        buckets.incrementAndGet(bucket);
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @return the mean, in ms
+     */
+    public double getMean() {
+        long count = this.count.get();
+        return count == 0 ? 0 : totalNanos.get() / 1000000.0 / count;
+    }
+
+    /**
+     * @return the max, in ms
+     */
+    public double getMax() {
+        return maxNanos.get() / 1000000.0;
+    }
+
+    /**
+     * @param percentile ex: 50, 95, 99
+     * @return the (upper bound of the) given percentile, in ms, capped at the max
+     */
+    public double getPercentile(double percentile) {
+        long count = this.count.get();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(count * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min((1L << i) / 1000.0, getMax());
+            }
+        }
+        return getMax();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d mean=%.2fms p50=%.2fms p95=%.2fms p99=%.2fms max=%.2fms", getCount(), getMean(),
+                getPercentile(50), getPercentile(95), getPercentile(99), getMax());
+    }
+}
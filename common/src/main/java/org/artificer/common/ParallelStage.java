@@ -0,0 +1,299 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A named step of the ingestion pipeline (archive expansion, artifact building, etc.) whose tasks are independent of
+ * one another.  The tasks are run across a shared, bounded pool (see
+ * {@link ArtificerConfig#getIngestParallelism()}), but results are always returned in task order, so that any
+ * subsequent, order-sensitive processing (relationship resolution, persistence) remains deterministic.
+ *
+ * If the results hold resources (ex: temp files), give the stage a {@link Cleanup}.  When a task fails, it is applied to
+ * every result that was (or, despite the cancellation, still is) produced, since the caller never receives them.
+ *
+ * Cumulative timing is tracked per stage name and is available through {@link #getTimings()}.
+ *
+ * @author Brett Meyer
+ */
+public class ParallelStage<T> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ParallelStage.class);
+
+    private static final ConcurrentMap<String, Timing> TIMINGS = new ConcurrentHashMap<String, Timing>();
+
+    private static final ThreadLocal<Boolean> IS_WORKER = new ThreadLocal<Boolean>();
+
+    private static ExecutorService executor = null;
+
+    private final String name;
+
+    private final Cleanup<T> cleanup;
+
+    public ParallelStage(String name) {
+        this(name, null);
+    }
+
+    /**
+     * @param name
+     * @param cleanup applied to each produced result if the stage fails (optional)
+     */
+    public ParallelStage(String name, Cleanup<T> cleanup) {
+        this.name = name;
+        this.cleanup = cleanup;
+    }
+
+    /**
+     * Executes all tasks, blocking until they complete.  If any task fails, the remaining tasks are cancelled, any
+     * results already produced are cleaned up, and the first failure (in task order) is thrown.
+     *
+     * @param tasks
+     * @return List<T> the results, in the same order as the given tasks
+     * @throws Exception
+     */
+    public List<T> execute(List<Callable<T>> tasks) throws Exception {
+        long start = System.nanoTime();
+        try {
+            ExecutorService executor = executor();
+            if (executor == null || tasks.size() < 2 || Boolean.TRUE.equals(IS_WORKER.get())) {
+                // Serial (or nested) execution -- no need to hand off.
+                List<T> results = new ArrayList<T>(tasks.size());
+                try {
+                    for (Callable<T> task : tasks) {
+                        results.add(task.call());
+                    }
+                } catch (Exception e) {
+                    cleanup(results);
+                    throw e;
+                }
+                return results;
+            }
+
+            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            Produced produced = new Produced();
+            List<Future<T>> futures = new ArrayList<Future<T>>(tasks.size());
+            for (Callable<T> task : tasks) {
+                futures.add(executor.submit(new WorkerTask(task, classLoader, produced)));
+            }
+
+            List<T> results = new ArrayList<T>(tasks.size());
+            boolean succeeded = false;
+            try {
+                for (Future<T> future : futures) {
+                    results.add(future.get());
+                }
+                succeeded = true;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Exception) {
+                    throw (Exception) cause;
+                }
+                throw e;
+            } finally {
+                for (Future<T> future : futures) {
+                    future.cancel(true);
+                }
+                if (!succeeded) {
+                    cleanup(produced.abort());
+                }
+            }
+            return results;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            timing(name).record(tasks.size(), elapsed);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(String.format("Stage '%s' processed %d tasks in %d ms", name, tasks.size(),
+                        TimeUnit.NANOSECONDS.toMillis(elapsed)));
+            }
+        }
+    }
+
+    /**
+     * @return Map<String, Timing> cumulative timing, keyed by stage name
+     */
+    public static Map<String, Timing> getTimings() {
+        return Collections.unmodifiableMap(TIMINGS);
+    }
+
+    private void cleanup(List<T> results) {
+        if (cleanup == null) {
+            return;
+        }
+        for (T result : results) {
+            if (result != null) {
+                try {
+                    cleanup.cleanup(result);
+                } catch (Exception e) {
+                    LOG.warn(String.format("Stage '%s' failed to clean up a result", name), e);
+                }
+            }
+        }
+    }
+
+    private static Timing timing(String name) {
+        Timing timing = TIMINGS.get(name);
+        if (timing == null) {
+            TIMINGS.putIfAbsent(name, new Timing());
+            timing = TIMINGS.get(name);
+        }
+        return timing;
+    }
+
+    private static synchronized ExecutorService executor() {
+        if (executor == null) {
+            int parallelism = ArtificerConfig.getIngestParallelism();
+            if (parallelism <= 1) {
+                return null;
+            }
+            final AtomicInteger count = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "artificer-ingest-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            pool.allowCoreThreadTimeOut(true);
+            executor = pool;
+        }
+        return executor;
+    }
+
+    /**
+     * Releases whatever a single result holds, when the stage fails and the result is therefore discarded.
+     */
+    public static interface Cleanup<T> {
+        public void cleanup(T result) throws Exception;
+    }
+
+    /**
+     * Every result produced by one execution's workers.  A cancelled Future discards its task's result, so the workers
+     * themselves record it here.  Once aborted, results produced by stragglers are handed back for cleanup instead.
+     */
+    private class Produced {
+
+        // Guarded by this.
+        private final List<T> results = new ArrayList<T>();
+        private boolean aborted = false;
+
+        /**
+         * @return false if the execution was already aborted, in which case the caller owns the result
+         */
+        private synchronized boolean add(T result) {
+            if (aborted) {
+                return false;
+            }
+            results.add(result);
+            return true;
+        }
+
+        private synchronized List<T> abort() {
+            aborted = true;
+            List<T> abandoned = new ArrayList<T>(results);
+            results.clear();
+            return abandoned;
+        }
+    }
+
+    /**
+     * Runs the task with the submitting thread's context ClassLoader, since extensions (detectors, builders, etc.)
+     * may rely on it.
+     */
+    private class WorkerTask implements Callable<T> {
+
+        private final Callable<T> task;
+
+        private final ClassLoader classLoader;
+
+        private final Produced produced;
+
+        private WorkerTask(Callable<T> task, ClassLoader classLoader, Produced produced) {
+            this.task = task;
+            this.classLoader = classLoader;
+            this.produced = produced;
+        }
+
+        @Override
+        public T call() throws Exception {
+            Thread thread = Thread.currentThread();
+            ClassLoader original = thread.getContextClassLoader();
+            thread.setContextClassLoader(classLoader);
+            IS_WORKER.set(Boolean.TRUE);
+            try {
+                T result = task.call();
+                if (!produced.add(result)) {
+                    cleanup(Collections.singletonList(result));
+                    return null;
+                }
+                return result;
+            } finally {
+                IS_WORKER.remove();
+                thread.setContextClassLoader(original);
+            }
+        }
+    }
+
+    /**
+     * Cumulative timing for a single stage.
+     */
+    public static class Timing {
+
+        private final AtomicLong executions = new AtomicLong();
+
+        private final AtomicLong tasks = new AtomicLong();
+
+        private final AtomicLong nanos = new AtomicLong();
+
+        private void record(int taskCount, long elapsedNanos) {
+            executions.incrementAndGet();
+            tasks.addAndGet(taskCount);
+            nanos.addAndGet(elapsedNanos);
+        }
+
+        public long getExecutions() {
+            return executions.get();
+        }
+
+        public long getTasks() {
+            return tasks.get();
+        }
+
+        public long getTotalMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(nanos.get());
+        }
+    }
+}
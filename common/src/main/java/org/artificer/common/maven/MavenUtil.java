@@ -18,7 +18,9 @@ package org.artificer.common.maven;
 import org.apache.commons.lang.StringUtils;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Common methods use for the Maven Facade and the shell's DeployCommand.
@@ -32,17 +34,8 @@ public class MavenUtil {
         queryBuilder.append("/s-ramp");
         List<String> criteria = new ArrayList<String>();
 
-        criteria.add("@maven.groupId = '" + gavInfo.getGroupId() + "'");
-        criteria.add("@maven.artifactId = '" + gavInfo.getArtifactId() + "'");
-        criteria.add("@maven.version = '" + gavInfo.getVersion() + "'");
-        if (StringUtils.isNotBlank(gavInfo.getType())) {
-            criteria.add("@maven.type = '" + gavInfo.getType() + "'");
-        }
-        if (StringUtils.isNotBlank(gavInfo.getClassifier())) {
-            criteria.add("@maven.classifier = '" + gavInfo.getClassifier() + "'");
-        }
-        if (StringUtils.isNotBlank(gavInfo.getSnapshotId())) {
-            criteria.add("@maven.snapshot.id = '" + gavInfo.getSnapshotId() + "'");
+        for (Map.Entry<String, String> criterion : gavCriteria(gavInfo).entrySet()) {
+            criteria.add("@" + criterion.getKey() + " = '" + criterion.getValue() + "'");
         }
 
         if (criteria.size() > 0) {
@@ -53,4 +46,26 @@ public class MavenUtil {
 
         return queryBuilder.toString();
     }
+
+    /**
+     * The custom property values an artifact must have in order to match the given GAV.
+     * @param gavInfo
+     * @return Map<String, String> property name -> value
+     */
+    public static Map<String, String> gavCriteria(MavenGavInfo gavInfo) {
+        Map<String, String> criteria = new LinkedHashMap<String, String>();
+        criteria.put("maven.groupId", gavInfo.getGroupId());
+        criteria.put("maven.artifactId", gavInfo.getArtifactId());
+        criteria.put("maven.version", gavInfo.getVersion());
+        if (StringUtils.isNotBlank(gavInfo.getType())) {
+            criteria.put("maven.type", gavInfo.getType());
+        }
+        if (StringUtils.isNotBlank(gavInfo.getClassifier())) {
+            criteria.put("maven.classifier", gavInfo.getClassifier());
+        }
+        if (StringUtils.isNotBlank(gavInfo.getSnapshotId())) {
+            criteria.put("maven.snapshot.id", gavInfo.getSnapshotId());
+        }
+        return criteria;
+    }
 }
@@ -48,8 +48,14 @@ public class ArtifactSummary implements Serializable {
 
     private Calendar lastModifiedTimestamp;
 
+    private String lastModifiedBy;
+
+    private String version;
+
     private Map<Serializable, Serializable> extensionAttributes;
 
+    private Map<String, String> properties;
+
     public ArtifactSummary() {
 
     }
@@ -77,6 +83,15 @@ public class ArtifactSummary implements Serializable {
         this.lastModifiedTimestamp = lastModifiedTimestamp;
     }
 
+    public ArtifactSummary(String uuid, String name, String description, String model, String type, boolean derived,
+            boolean expandedFromArchive, Calendar createdTimestamp, String createdBy, Calendar lastModifiedTimestamp,
+            String lastModifiedBy, String version) {
+        this(uuid, name, description, model, type, derived, expandedFromArchive, createdTimestamp, createdBy,
+                lastModifiedTimestamp);
+        this.lastModifiedBy = lastModifiedBy;
+        this.version = version;
+    }
+
     public String getUuid() {
         return uuid;
     }
@@ -157,6 +172,22 @@ public class ArtifactSummary implements Serializable {
         this.lastModifiedTimestamp = lastModifiedTimestamp;
     }
 
+    public String getLastModifiedBy() {
+        return lastModifiedBy;
+    }
+
+    public void setLastModifiedBy(String lastModifiedBy) {
+        this.lastModifiedBy = lastModifiedBy;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
     public Map<Serializable, Serializable> getExtensionAttributes() {
         return extensionAttributes;
     }
@@ -169,6 +200,21 @@ public class ArtifactSummary implements Serializable {
         this.extensionAttributes = extensionAttributes;
     }
 
+    /**
+     * @return the custom properties projected into this summary (not necessarily *all* of the artifact's properties)
+     */
+    public Map<String, String> getProperties() {
+        return properties;
+    }
+
+    public String getProperty(String name) {
+        return properties == null ? null : properties.get(name);
+    }
+
+    public void setProperties(Map<String, String> properties) {
+        this.properties = properties;
+    }
+
     public ArtifactType getArtifactType() {
         ArtifactType artifactType = ArtifactType.valueOf(model, type, false);
         artifactType.setExtendedDerivedType(derived);
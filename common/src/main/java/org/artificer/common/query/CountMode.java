@@ -0,0 +1,60 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.common.query;
+
+import org.artificer.common.error.ArtificerUserException;
+import org.artificer.common.i18n.Messages;
+
+/**
+ * How (and whether) a paged query should determine the total size of its result set.  An exact count requires a
+ * separate COUNT(DISTINCT ...) over the entire result set, which is often more expensive than the page itself.
+ *
+ * @author Brett Meyer
+ */
+public enum CountMode {
+
+    /**
+     * Always count the full result set (the default).
+     */
+    EXACT,
+
+    /**
+     * Skip the count, but report a lower bound derived from the page itself (the start index, plus the number of
+     * results, plus one if another page exists).  Exact once the final page is reached.
+     */
+    ESTIMATE,
+
+    /**
+     * Skip the count entirely.  The total is reported as -1.
+     */
+    NONE;
+
+    /**
+     * @param value case-insensitive name, or null
+     * @return the corresponding CountMode, or EXACT if null/blank
+     * @throws ArtificerUserException if the value is not recognized
+     */
+    public static CountMode fromString(String value) throws ArtificerUserException {
+        if (value == null || value.trim().length() == 0) {
+            return EXACT;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ArtificerUserException(Messages.i18n.format("INVALID_COUNT_MODE", value));
+        }
+    }
+}
@@ -15,6 +15,7 @@
  */
 package org.artificer.common.query.xpath;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -58,6 +59,13 @@ public class StaticNamespaceContext implements NamespaceContext {
 		this.nsMapping.remove(prefix);
 	}
 
+	/**
+	 * @return an unmodifiable view of the prefix->namespace mappings
+	 */
+	public Map<String, String> getMappings() {
+		return Collections.unmodifiableMap(this.nsMapping);
+	}
+
 	/**
 	 * @see javax.xml.namespace.NamespaceContext#getNamespaceURI(java.lang.String)
 	 */
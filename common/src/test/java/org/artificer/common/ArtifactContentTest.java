@@ -0,0 +1,83 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.common;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Test for {@link ArtifactContent}.
+ *
+ * @author Brett Meyer
+ */
+public class ArtifactContentTest {
+
+    private static final byte[] CONTENT = "<?xml version=\"1.0\"?><foo><bar/></foo>".getBytes();
+
+    @Test
+    public void testSinglePassMetadata() throws Exception {
+        ArtifactContent content = new ArtifactContent("some/path/foo.xml", new ByteArrayInputStream(CONTENT));
+        try {
+            Assert.assertEquals("foo.xml", content.getFilename());
+            Assert.assertEquals(CONTENT.length, content.getSize());
+            Assert.assertEquals(DigestUtils.shaHex(CONTENT), content.getSha1Hash());
+        } finally {
+            content.cleanup();
+        }
+    }
+
+    @Test
+    public void testIndependentViews() throws Exception {
+        ArtifactContent content = new ArtifactContent("foo.xml", new ByteArrayInputStream(CONTENT));
+        try {
+            ByteBuffer buffer1 = content.getByteBuffer();
+            ByteBuffer buffer2 = content.getByteBuffer();
+            Assert.assertTrue(buffer1.isReadOnly());
+            buffer1.get(new byte[10]);
+            Assert.assertEquals(CONTENT.length, buffer2.remaining());
+
+            InputStream is1 = content.getInputStream();
+            Assert.assertTrue(is1.markSupported());
+            is1.mark(CONTENT.length);
+            Assert.assertArrayEquals(CONTENT, IOUtils.toByteArray(is1));
+            is1.reset();
+            Assert.assertArrayEquals(CONTENT, IOUtils.toByteArray(is1));
+
+            InputStream is2 = content.getInputStream();
+            Assert.assertArrayEquals(CONTENT, IOUtils.toByteArray(is2));
+        } finally {
+            content.cleanup();
+        }
+    }
+
+    @Test
+    public void testEmptyContent() throws Exception {
+        ArtifactContent content = new ArtifactContent("empty.bin", new ByteArrayInputStream(new byte[0]));
+        try {
+            Assert.assertEquals(0, content.getSize());
+            Assert.assertEquals(DigestUtils.shaHex(new byte[0]), content.getSha1Hash());
+            Assert.assertEquals(-1, content.getInputStream().read());
+        } finally {
+            content.cleanup();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.common;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test for {@link ParallelStage}.
+ *
+ * @author Brett Meyer
+ */
+public class ParallelStageTest {
+
+    @BeforeClass
+    public static void enableParallelism() {
+        // Regardless of the available processors.
+        System.setProperty(ArtificerConstants.ARTIFICER_CONFIG_INGEST_PARALLELISM, "4");
+    }
+
+    @Test(timeout = 30000)
+    public void testResultsInTaskOrder() throws Exception {
+        // The first two tasks can only complete if they run concurrently.
+        final CountDownLatch concurrent = new CountDownLatch(2);
+        List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+        for (int i = 0; i < 8; i++) {
+            final int index = i;
+            tasks.add(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    if (index < 2) {
+                        concurrent.countDown();
+                        Assert.assertTrue(concurrent.await(10, TimeUnit.SECONDS));
+                    }
+                    // Later tasks finish first.
+                    Thread.sleep((8 - index) * 10);
+                    return index;
+                }
+            });
+        }
+        List<Integer> results = new ParallelStage<Integer>("test-order").execute(tasks);
+        Assert.assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7), results);
+        Assert.assertEquals(1, ParallelStage.getTimings().get("test-order").getExecutions());
+        Assert.assertEquals(8, ParallelStage.getTimings().get("test-order").getTasks());
+    }
+
+    @Test(timeout = 30000)
+    public void testFirstFailureInTaskOrder() throws Exception {
+        List<Callable<String>> tasks = new ArrayList<Callable<String>>();
+        tasks.add(result("0"));
+        tasks.add(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                Thread.sleep(100);
+                throw new IllegalStateException("1");
+            }
+        });
+        tasks.add(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                throw new IOException("2");
+            }
+        });
+        try {
+            new ParallelStage<String>("test-failure").execute(tasks);
+            Assert.fail("Expected the failure of task 1");
+        } catch (IllegalStateException e) {
+            // unwrapped, and the first in task order (though not the first to occur)
+            Assert.assertEquals("1", e.getMessage());
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testCleanupOnFailure() throws Exception {
+        final Set<String> cleaned = Collections.synchronizedSet(new HashSet<String>());
+        final CountDownLatch produced = new CountDownLatch(2);
+        final CountDownLatch stragglerStarted = new CountDownLatch(1);
+        final CountDownLatch releaseStraggler = new CountDownLatch(1);
+
+        List<Callable<String>> tasks = new ArrayList<Callable<String>>();
+        for (final String result : Arrays.asList("0", "1")) {
+            tasks.add(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    produced.countDown();
+                    return result;
+                }
+            });
+        }
+        tasks.add(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                produced.await();
+                stragglerStarted.await();
+                throw new IllegalStateException("2");
+            }
+        });
+        tasks.add(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                // Ignores the cancellation, producing its result after the stage has already failed.
+                stragglerStarted.countDown();
+                while (true) {
+                    try {
+                        releaseStraggler.await();
+                        return "3";
+                    } catch (InterruptedException e) {
+                        // keep waiting
+                    }
+                }
+            }
+        });
+
+        ParallelStage<String> stage = new ParallelStage<String>("test-cleanup", new ParallelStage.Cleanup<String>() {
+            @Override
+            public void cleanup(String result) {
+                cleaned.add(result);
+            }
+        });
+        try {
+            stage.execute(tasks);
+            Assert.fail("Expected the failure of task 2");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("2", e.getMessage());
+        }
+        Assert.assertEquals(new HashSet<String>(Arrays.asList("0", "1")), cleaned);
+
+        releaseStraggler.countDown();
+        while (!cleaned.contains("3")) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(new HashSet<String>(Arrays.asList("0", "1", "3")), cleaned);
+    }
+
+    @Test
+    public void testNoCleanupOnSuccess() throws Exception {
+        final Set<String> cleaned = Collections.synchronizedSet(new HashSet<String>());
+        List<Callable<String>> tasks = new ArrayList<Callable<String>>();
+        tasks.add(result("0"));
+        tasks.add(result("1"));
+        List<String> results = new ParallelStage<String>("test-success", new ParallelStage.Cleanup<String>() {
+            @Override
+            public void cleanup(String result) {
+                cleaned.add(result);
+            }
+        }).execute(tasks);
+        Assert.assertEquals(Arrays.asList("0", "1"), results);
+        Assert.assertTrue(cleaned.isEmpty());
+    }
+
+    private static Callable<String> result(final String result) {
+        return new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return result;
+            }
+        };
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.common.query;
+
+import org.artificer.common.error.ArtificerUserException;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link CountMode}.
+ *
+ * @author Brett Meyer
+ */
+public class CountModeTest {
+
+    @Test
+    public void testFromString() throws Exception {
+        Assert.assertEquals(CountMode.EXACT, CountMode.fromString(null));
+        Assert.assertEquals(CountMode.EXACT, CountMode.fromString(" "));
+        Assert.assertEquals(CountMode.ESTIMATE, CountMode.fromString("estimate"));
+        Assert.assertEquals(CountMode.NONE, CountMode.fromString(" None "));
+    }
+
+    @Test
+    public void testFromStringInvalid() throws Exception {
+        try {
+            CountMode.fromString("approximate");
+            Assert.fail("Expected an ArtificerUserException");
+        } catch (ArtificerUserException e) {
+            Assert.assertTrue(e.getMessage().contains("approximate"));
+        }
+    }
+}
@@ -16,11 +16,13 @@
 package org.artificer.events.jms;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.apache.commons.lang.StringUtils;
 import org.artificer.common.ArtificerConfig;
 import org.artificer.common.ArtificerConstants;
 import org.artificer.common.ontology.ArtificerOntology;
 import org.artificer.events.ArtifactUpdateEvent;
+import org.artificer.events.AsyncEventDispatcher;
 import org.artificer.events.EventProducer;
 import org.artificer.events.OntologyUpdateEvent;
 import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactType;
@@ -39,7 +41,9 @@ import javax.naming.Context;
 import javax.naming.InitialContext;
 import javax.naming.NamingException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Provides a JMS implementation of the {@link EventProducer}.
@@ -50,6 +54,12 @@ import java.util.List;
  * correctly configured. We simply use the existing JMS framework and the
  * pre-existing topics/queues.
  *
+ * Events are serialized on the firing thread (so that later changes to the artifact can't leak into the event), but
+ * sent through an {@link AsyncEventDispatcher}, so that the request never waits on the broker.  The dispatcher's
+ * worker owns the JMS Session and a cached MessageProducer per destination.  When batching, each batch is sent
+ * within a single transacted Session commit.  A failed batch is rolled back, and the dispatcher then re-sends its
+ * events one at a time.
+ *
  * @author Brett Meyer
  */
 public class JMSEventProducer implements EventProducer {
@@ -63,12 +73,19 @@ public class JMSEventProducer implements EventProducer {
 
     private static Logger LOG = LoggerFactory.getLogger(JMSEventProducer.class);
 
-    private Connection connection = null;
+    // ObjectWriters are immutable and thread-safe -- no need for one per event.
+    private static final ObjectWriter WRITER = new ObjectMapper().writer();
 
-    private Session session = null;
+    private static final long SHUTDOWN_TIMEOUT = 10000;
+
+    private Connection connection = null;
 
     private final List<Destination> destinations = new ArrayList<Destination>();
 
+    private JMSSender sender = null;
+
+    private AsyncEventDispatcher<JMSEvent> dispatcher = null;
+
     @Override
     public void startup() {
         if (ArtificerConfig.isJmsEnabled()) {
@@ -94,7 +111,6 @@ public class JMSEventProducer implements EventProducer {
 
                 ConnectionFactory connectionFactory = (ConnectionFactory) jndiLookup(connectionFactoryName);
                 connection = connectionFactory.createConnection();
-                session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
 
                 for (String topicName : topicNames) {
                     Topic topic = (Topic) jndiLookup(topicName);
@@ -105,6 +121,16 @@ public class JMSEventProducer implements EventProducer {
                     Queue queue = (Queue) jndiLookup(queueName);
                     destinations.add(queue);
                 }
+
+                int batchSize = ArtificerConfig.isEventAsync() ? ArtificerConfig.getEventBatchSize() : 1;
+                sender = new JMSSender(batchSize > 1);
+                dispatcher = new AsyncEventDispatcher<JMSEvent>("jms", ArtificerConfig.getEventQueueSize(), batchSize,
+                        AsyncEventDispatcher.OverflowPolicy.fromString(ArtificerConfig.getEventOverflowPolicy(),
+                                AsyncEventDispatcher.OverflowPolicy.BLOCK),
+                        ArtificerConfig.getEventOfferTimeout(), sender);
+                if (ArtificerConfig.isEventAsync()) {
+                    dispatcher.start();
+                }
             } catch (Exception e) {
                 LOG.error(e.getMessage(), e);
             }
@@ -155,29 +181,22 @@ public class JMSEventProducer implements EventProducer {
         }
     }
 
-    private void publishEvent(Object payload, String type) {
-        for (Destination destination : destinations) {
-            MessageProducer producer = null;
-            try {
-                producer = session.createProducer(destination);
-                TextMessage textMessage = session.createTextMessage();
-                textMessage.setJMSType(type);
-
-                ObjectMapper mapper = new ObjectMapper();
-                String text = mapper.writeValueAsString(payload);
-                textMessage.setText(text);
+    /**
+     * @return the publication metrics, or null if JMS is not enabled/started
+     */
+    public AsyncEventDispatcher<?>.Metrics getMetrics() {
+        return dispatcher == null ? null : dispatcher.getMetrics();
+    }
 
-                producer.send(textMessage);
-            } catch (Exception e) {
-                LOG.error(e.getMessage(), e);
-            } finally {
-                if (producer != null) {
-                    try {
-                        producer.close();
-                    } catch (Exception e) {
-                    }
-                }
-            }
+    private void publishEvent(Object payload, String type) {
+        if (dispatcher == null || destinations.isEmpty()) {
+            return;
+        }
+        try {
+            // Serialized once, regardless of the number of destinations.
+            dispatcher.dispatch(new JMSEvent(type, WRITER.writeValueAsString(payload)));
+        } catch (Exception e) {
+            LOG.error(e.getMessage(), e);
         }
     }
 
@@ -196,13 +215,100 @@ public class JMSEventProducer implements EventProducer {
     @Override
     public void shutdown() {
         if (ArtificerConfig.isJmsEnabled()) {
+            if (dispatcher != null) {
+                dispatcher.shutdown(SHUTDOWN_TIMEOUT);
+            }
+            if (sender != null) {
+                sender.close();
+            }
             try {
-                session.close();
+                connection.close();
             } catch (Exception e) {
             }
+        }
+    }
+
+    /**
+     * A serialized event, awaiting publication.
+     */
+    private static class JMSEvent {
+
+        private final String type;
+
+        private final String text;
+
+        private JMSEvent(String type, String text) {
+            this.type = type;
+            this.text = text;
+        }
+    }
+
+    /**
+     * Owns the Session and the per-destination MessageProducers, created once and reused for every batch.  Only
+     * ever called by the dispatcher, one batch at a time.  If a send fails, everything is closed and lazily
+     * re-created for the next batch, in case the Session itself is no longer usable.
+     */
+    private class JMSSender implements AsyncEventDispatcher.BatchHandler<JMSEvent> {
+
+        private final boolean transacted;
+
+        private Session session = null;
+
+        private final Map<Destination, MessageProducer> producers = new LinkedHashMap<Destination, MessageProducer>();
+
+        private JMSSender(boolean transacted) {
+            this.transacted = transacted;
+        }
+
+        @Override
+        public void handle(List<JMSEvent> batch) throws Exception {
             try {
-                connection.close();
+                open();
+                for (JMSEvent event : batch) {
+                    for (Map.Entry<Destination, MessageProducer> entry : producers.entrySet()) {
+                        TextMessage textMessage = session.createTextMessage(event.text);
+                        textMessage.setJMSType(event.type);
+                        entry.getValue().send(textMessage);
+                    }
+                }
+                if (transacted) {
+                    session.commit();
+                }
             } catch (Exception e) {
+                if (transacted && session != null) {
+                    try {
+                        session.rollback();
+                    } catch (Exception e1) {
+                    }
+                }
+                close();
+                throw e;
+            }
+        }
+
+        private void open() throws Exception {
+            if (session == null) {
+                session = connection.createSession(transacted, transacted ? Session.SESSION_TRANSACTED : Session.AUTO_ACKNOWLEDGE);
+                for (Destination destination : destinations) {
+                    producers.put(destination, session.createProducer(destination));
+                }
+            }
+        }
+
+        private void close() {
+            for (MessageProducer producer : producers.values()) {
+                try {
+                    producer.close();
+                } catch (Exception e) {
+                }
+            }
+            producers.clear();
+            if (session != null) {
+                try {
+                    session.close();
+                } catch (Exception e) {
+                }
+                session = null;
             }
         }
     }
@@ -0,0 +1,331 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decouples event publication from the thread that fired the event.  Events are placed on a bounded queue and
+ * handed, in batches of up to 'batchSize', to a {@link BatchHandler} by a single worker thread.  A single worker
+ * keeps events in order and lets the handler own non-thread-safe resources (ex: a JMS Session).
+ *
+ * When the queue is full, the {@link OverflowPolicy} decides whether the caller waits, the event is dropped, or the
+ * caller handles the event itself.
+ *
+ * If the handler fails a batch, each of its events is handed over again, on its own.  A transient failure (ex: a
+ * broken Session, re-created by the handler) is therefore retried, and a single bad event can't take the rest of its
+ * batch down with it.  An event that fails on its own as well is counted as failed.
+ *
+ * @author Brett Meyer
+ */
+public class AsyncEventDispatcher<T> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncEventDispatcher.class);
+
+    private static final long POLL_MILLIS = 100;
+
+    public static enum OverflowPolicy {
+        /**
+         * Wait (up to the offer timeout) for room on the queue, then drop the event.
+         */
+        BLOCK,
+        /**
+         * Drop the event immediately.
+         */
+        DROP,
+        /**
+         * Handle the event synchronously, on the calling thread.
+         */
+        CALLER_RUNS;
+
+        /**
+         * @param value case-insensitive name (ex: 'block', 'caller-runs')
+         * @param defaultPolicy
+         * @return OverflowPolicy
+         */
+        public static OverflowPolicy fromString(String value, OverflowPolicy defaultPolicy) {
+            if (value == null || value.trim().length() == 0) {
+                return defaultPolicy;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase().replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                LOG.warn("Unknown overflow policy '" + value + "', using " + defaultPolicy);
+                return defaultPolicy;
+            }
+        }
+    }
+
+    /**
+     * Receives the dispatched events.  Never called concurrently.
+     */
+    public static interface BatchHandler<T> {
+
+        /**
+         * @param batch one or more events, in the order they were dispatched
+         * @throws Exception if the batch could not be handled.  Its events are then handled again, one at a time, so
+         * a failed batch should have had no effect (ex: a rolled-back transaction).
+         */
+        public void handle(List<T> batch) throws Exception;
+    }
+
+    private final String name;
+
+    private final BlockingQueue<T> queue;
+
+    private final int batchSize;
+
+    private final OverflowPolicy overflowPolicy;
+
+    private final long offerTimeout;
+
+    private final BatchHandler<T> handler;
+
+    // Serializes the worker's batches with any CALLER_RUNS overflow.
+    private final Object handlerLock = new Object();
+
+    private final Metrics metrics = new Metrics();
+
+    private volatile boolean running = false;
+
+    private Thread worker = null;
+
+    /**
+     * @param name used to name the worker thread and in logging
+     * @param capacity the maximum number of queued events
+     * @param batchSize the maximum number of events given to the handler at once
+     * @param overflowPolicy
+     * @param offerTimeout how long (ms) {@link OverflowPolicy#BLOCK} waits for room on the queue
+     * @param handler
+     */
+    public AsyncEventDispatcher(String name, int capacity, int batchSize, OverflowPolicy overflowPolicy,
+            long offerTimeout, BatchHandler<T> handler) {
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<T>(Math.max(1, capacity));
+        this.batchSize = Math.max(1, batchSize);
+        this.overflowPolicy = overflowPolicy;
+        this.offerTimeout = offerTimeout;
+        this.handler = handler;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                work();
+            }
+        }, "artificer-events-" + name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Queues the event, returning immediately (unless the queue is full -- see {@link OverflowPolicy}).
+     * @param event
+     */
+    public void dispatch(T event) {
+        metrics.submitted.incrementAndGet();
+        if (!running) {
+            // Not (or no longer) started -- don't let the event sit on a queue nobody drains.
+            handle(Collections.singletonList(event));
+            return;
+        }
+        if (queue.offer(event)) {
+            return;
+        }
+
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    if (queue.offer(event, offerTimeout, TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                drop(event);
+                break;
+            case CALLER_RUNS:
+                metrics.callerRuns.incrementAndGet();
+                handle(Collections.singletonList(event));
+                break;
+            default:
+                drop(event);
+        }
+    }
+
+    /**
+     * Stops accepting queued events and waits (up to the given timeout) for those already queued to be handled.
+     * @param timeout ms
+     */
+    public synchronized void shutdown(long timeout) {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            worker.join(timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            LOG.warn(String.format("Event dispatcher '%s' shut down with %d events still queued", name, queue.size()));
+        }
+        LOG.info(String.format("Event dispatcher '%s': %s", name, metrics));
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    private void work() {
+        List<T> batch = new ArrayList<T>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                T first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                handle(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Throwable t) {
+                // Never let the worker die.
+                LOG.error(t.getMessage(), t);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void handle(List<T> batch) {
+        long start = System.nanoTime();
+        synchronized (handlerLock) {
+            try {
+                handler.handle(batch);
+                metrics.handled.addAndGet(batch.size());
+            } catch (Exception e) {
+                LOG.warn(String.format("Event dispatcher '%s' failed to handle %d events, retrying individually: %s",
+                        name, batch.size(), e.getMessage()), e);
+                for (T event : batch) {
+                    metrics.retried.incrementAndGet();
+                    try {
+                        handler.handle(Collections.singletonList(event));
+                        metrics.handled.incrementAndGet();
+                    } catch (Exception e1) {
+                        metrics.failed.incrementAndGet();
+                        LOG.error(String.format("Event dispatcher '%s' failed to handle an event: %s", name,
+                                e1.getMessage()), e1);
+                    }
+                }
+            }
+        }
+        metrics.batches.incrementAndGet();
+        metrics.handleNanos.addAndGet(System.nanoTime() - start);
+    }
+
+    private void drop(T event) {
+        long dropped = metrics.dropped.incrementAndGet();
+        // Avoid flooding the log under sustained overload.
+        if (dropped == 1 || dropped % 1000 == 0) {
+            LOG.warn(String.format("Event dispatcher '%s' queue is full -- %d events dropped so far", name, dropped));
+        }
+    }
+
+    /**
+     * Cumulative counters for a single dispatcher.
+     */
+    public class Metrics {
+
+        private final AtomicLong submitted = new AtomicLong();
+
+        private final AtomicLong handled = new AtomicLong();
+
+        private final AtomicLong failed = new AtomicLong();
+
+        private final AtomicLong retried = new AtomicLong();
+
+        private final AtomicLong dropped = new AtomicLong();
+
+        private final AtomicLong callerRuns = new AtomicLong();
+
+        private final AtomicLong batches = new AtomicLong();
+
+        private final AtomicLong handleNanos = new AtomicLong();
+
+        public long getSubmitted() {
+            return submitted.get();
+        }
+
+        public long getHandled() {
+            return handled.get();
+        }
+
+        public long getFailed() {
+            return failed.get();
+        }
+
+        /**
+         * @return the number of events handled again, individually, after their batch failed
+         */
+        public long getRetried() {
+            return retried.get();
+        }
+
+        public long getDropped() {
+            return dropped.get();
+        }
+
+        public long getCallerRuns() {
+            return callerRuns.get();
+        }
+
+        public long getBatches() {
+            return batches.get();
+        }
+
+        public long getHandleMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(handleNanos.get());
+        }
+
+        public int getQueueDepth() {
+            return queue.size();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("submitted=%d, handled=%d, failed=%d, retried=%d, dropped=%d, callerRuns=%d, "
+                    + "batches=%d, handleMillis=%d, queueDepth=%d", getSubmitted(), getHandled(), getFailed(),
+                    getRetried(), getDropped(), getCallerRuns(), getBatches(), getHandleMillis(), getQueueDepth());
+        }
+    }
+}
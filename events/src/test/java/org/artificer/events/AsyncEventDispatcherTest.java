@@ -0,0 +1,190 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.events;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test for {@link AsyncEventDispatcher}.
+ *
+ * @author Brett Meyer
+ */
+public class AsyncEventDispatcherTest {
+
+    @Test(timeout = 30000)
+    public void testBatching() throws Exception {
+        final CountDownLatch firstBatchStarted = new CountDownLatch(1);
+        final CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+        RecordingHandler handler = new RecordingHandler() {
+            @Override
+            public void handle(List<Integer> batch) throws Exception {
+                if (batch.contains(0)) {
+                    firstBatchStarted.countDown();
+                    releaseFirstBatch.await();
+                }
+                super.handle(batch);
+            }
+        };
+        AsyncEventDispatcher<Integer> dispatcher = new AsyncEventDispatcher<Integer>("test", 100, 4,
+                AsyncEventDispatcher.OverflowPolicy.BLOCK, 1000, handler);
+        dispatcher.start();
+
+        // Everything queued while the worker is busy is picked up in batches of (at most) 4.
+        dispatcher.dispatch(0);
+        Assert.assertTrue(firstBatchStarted.await(10, TimeUnit.SECONDS));
+        for (int i = 1; i <= 10; i++) {
+            dispatcher.dispatch(i);
+        }
+        releaseFirstBatch.countDown();
+        dispatcher.shutdown(10000);
+
+        Assert.assertEquals(Arrays.asList(Arrays.asList(0), Arrays.asList(1, 2, 3, 4), Arrays.asList(5, 6, 7, 8),
+                Arrays.asList(9, 10)), handler.batches);
+        Assert.assertEquals(11, dispatcher.getMetrics().getHandled());
+        Assert.assertEquals(4, dispatcher.getMetrics().getBatches());
+        Assert.assertEquals(0, dispatcher.getMetrics().getFailed());
+    }
+
+    @Test(timeout = 30000)
+    public void testShutdownFlushesQueue() throws Exception {
+        RecordingHandler handler = new RecordingHandler() {
+            @Override
+            public void handle(List<Integer> batch) throws Exception {
+                Thread.sleep(10);
+                super.handle(batch);
+            }
+        };
+        AsyncEventDispatcher<Integer> dispatcher = new AsyncEventDispatcher<Integer>("test", 100, 2,
+                AsyncEventDispatcher.OverflowPolicy.BLOCK, 1000, handler);
+        dispatcher.start();
+        for (int i = 0; i < 20; i++) {
+            dispatcher.dispatch(i);
+        }
+        dispatcher.shutdown(10000);
+
+        Assert.assertEquals(20, handler.events().size());
+        Assert.assertEquals(0, dispatcher.getMetrics().getQueueDepth());
+
+        // Once shut down, events are handled by the caller rather than queued.
+        dispatcher.dispatch(20);
+        Assert.assertEquals(21, handler.events().size());
+    }
+
+    @Test(timeout = 30000)
+    public void testFailedBatchIsRetriedIndividually() throws Exception {
+        // Any batch containing the "poison" event fails.
+        RecordingHandler handler = new RecordingHandler() {
+            @Override
+            public void handle(List<Integer> batch) throws Exception {
+                if (batch.contains(-1)) {
+                    throw new Exception("poison");
+                }
+                super.handle(batch);
+            }
+        };
+        AsyncEventDispatcher<Integer> dispatcher = dispatchAll(handler, 1, -1, 2);
+
+        // The rest of the batch still makes it, in order.
+        Assert.assertEquals(Arrays.asList(1, 2), handler.events());
+        // (plus the blocking event)
+        Assert.assertEquals(3, dispatcher.getMetrics().getHandled());
+        Assert.assertEquals(1, dispatcher.getMetrics().getFailed());
+        Assert.assertEquals(3, dispatcher.getMetrics().getRetried());
+    }
+
+    @Test(timeout = 30000)
+    public void testTransientFailureIsRetried() throws Exception {
+        // Fails once (ex: a stale Session), then recovers.
+        RecordingHandler handler = new RecordingHandler() {
+            private boolean failed = false;
+
+            @Override
+            public void handle(List<Integer> batch) throws Exception {
+                if (!failed) {
+                    failed = true;
+                    throw new Exception("transient");
+                }
+                super.handle(batch);
+            }
+        };
+        AsyncEventDispatcher<Integer> dispatcher = dispatchAll(handler, 1, 2, 3);
+
+        Assert.assertEquals(Arrays.asList(1, 2, 3), handler.events());
+        Assert.assertEquals(4, dispatcher.getMetrics().getHandled());
+        Assert.assertEquals(0, dispatcher.getMetrics().getFailed());
+    }
+
+    /**
+     * Has the worker handle the given events as a single batch: they're queued while it's blocked on an initial
+     * event (0), then drained together.
+     */
+    private AsyncEventDispatcher<Integer> dispatchAll(RecordingHandler handler, Integer... events) throws Exception {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final RecordingHandler delegate = handler;
+        AsyncEventDispatcher<Integer> dispatcher = new AsyncEventDispatcher<Integer>("test", 100, events.length,
+                AsyncEventDispatcher.OverflowPolicy.BLOCK, 1000, new AsyncEventDispatcher.BatchHandler<Integer>() {
+            @Override
+            public void handle(List<Integer> batch) throws Exception {
+                if (batch.contains(0)) {
+                    // the initial, blocking event
+                    blocked.countDown();
+                    release.await();
+                    return;
+                }
+                delegate.handle(batch);
+            }
+        });
+        dispatcher.start();
+        dispatcher.dispatch(0);
+        Assert.assertTrue(blocked.await(10, TimeUnit.SECONDS));
+        for (Integer event : events) {
+            dispatcher.dispatch(event);
+        }
+        release.countDown();
+        dispatcher.shutdown(10000);
+        return dispatcher;
+    }
+
+    private static class RecordingHandler implements AsyncEventDispatcher.BatchHandler<Integer> {
+
+        protected final List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<List<Integer>>());
+
+        @Override
+        public void handle(List<Integer> batch) throws Exception {
+            // The dispatcher re-uses its batch list.
+            batches.add(new ArrayList<Integer>(batch));
+        }
+
+        private List<Integer> events() {
+            List<Integer> events = new ArrayList<Integer>();
+            synchronized (batches) {
+                for (List<Integer> batch : batches) {
+                    events.addAll(batch);
+                }
+            }
+            return events;
+        }
+    }
+}
@@ -52,6 +52,10 @@ public abstract class AbstractArtifactBuilder implements ArtifactBuilder {
     protected BaseArtifactType getPrimaryArtifact() {
         return primaryArtifact;
     }
+
+    protected ArtifactContent getArtifactContent() {
+        return artifactContent;
+    }
     
     /**
      * Since the build process is multi-step and parses the content multiple times, it's necessary to be given
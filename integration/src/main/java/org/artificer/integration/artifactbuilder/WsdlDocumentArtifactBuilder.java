@@ -18,6 +18,7 @@ package org.artificer.integration.artifactbuilder;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.UUID;
 
 import javax.xml.namespace.QName;
@@ -36,6 +37,8 @@ import org.w3c.dom.NodeList;
  */
 public class WsdlDocumentArtifactBuilder extends XsdDocumentArtifactBuilder {
     
+    private static final QName WSDL_TYPES = new QName("http://schemas.xmlsoap.org/wsdl/", "types");
+
    private String targetNS;
 
     @Override
@@ -46,6 +49,20 @@ public class WsdlDocumentArtifactBuilder extends XsdDocumentArtifactBuilder {
         namespaceContext.addMapping("soap", "http://schemas.xmlsoap.org/wsdl/soap/");
     }
     
+    /**
+     * Embedded schemas (typically the bulk of a large WSDL) are pruned to their direct children, the same as
+     * standalone XSDs.  Everything else is retained, since messages, port types, bindings, and services all
+     * cross-reference one another.
+     */
+    @Override
+    protected boolean isRetained(List<QName> path) {
+        if (path.size() > 1 && WSDL_TYPES.equals(path.get(1))) {
+            // wsdl:definitions/wsdl:types/xsd:schema/*
+            return path.size() <= 4;
+        }
+        return true;
+    }
+
     @Override
     protected void derive() throws IOException {
         targetNS = rootElement.getAttribute("targetNamespace");
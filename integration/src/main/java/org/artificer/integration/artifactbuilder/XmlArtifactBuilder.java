@@ -17,6 +17,7 @@ package org.artificer.integration.artifactbuilder;
 
 import org.apache.commons.lang.StringUtils;
 import org.artificer.common.ArtifactContent;
+import org.artificer.common.ArtificerConfig;
 import org.artificer.common.ArtificerModelUtils;
 import org.artificer.common.query.xpath.StaticNamespaceContext;
 import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactType;
@@ -27,11 +28,17 @@ import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.Relationship;
 import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.XmlDocument;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 
+import javax.xml.XMLConstants;
 import javax.xml.namespace.QName;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
@@ -39,7 +46,11 @@ import javax.xml.xpath.XPathFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Provides the basis for an {@link ArtifactBuilder} responsible for an XML artifact.  Sets up commonly-used namespaces,
@@ -49,21 +60,57 @@ import java.util.List;
  */
 public class XmlArtifactBuilder extends AbstractArtifactBuilder {
 
-    private static final XPathFactory XPATH_FACTORY = XPathFactory.newInstance();
+    // Neither DocumentBuilder, XPathFactory, XMLInputFactory nor compiled XPathExpressions are thread-safe, and
+    // builders may run concurrently during ingestion.  Keep one of each per thread, rather than creating them for
+    // every artifact.
+    private static final ThreadLocal<XPathFactory> XPATH_FACTORY = new ThreadLocal<XPathFactory>() {
+        @Override
+        protected XPathFactory initialValue() {
+            return XPathFactory.newInstance();
+        }
+    };
 
-    private static final DocumentBuilder DOCUMENT_BUILDER;
-    static {
-        DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-        documentBuilderFactory.setNamespaceAware(true);
-        documentBuilderFactory.setValidating(false);
-        try {
-            documentBuilderFactory.setFeature("http://apache.org/xml/features/nonvalidating/load-dtd-grammar", false);
-            documentBuilderFactory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
-            DOCUMENT_BUILDER = documentBuilderFactory.newDocumentBuilder();
-        } catch (ParserConfigurationException e) {
-            throw new RuntimeException(e);
+    private static final ThreadLocal<DocumentBuilder> DOCUMENT_BUILDER = new ThreadLocal<DocumentBuilder>() {
+        @Override
+        protected DocumentBuilder initialValue() {
+            DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+            documentBuilderFactory.setNamespaceAware(true);
+            documentBuilderFactory.setValidating(false);
+            try {
+                documentBuilderFactory.setFeature("http://apache.org/xml/features/nonvalidating/load-dtd-grammar", false);
+                documentBuilderFactory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+                return documentBuilderFactory.newDocumentBuilder();
+            } catch (ParserConfigurationException e) {
+                throw new RuntimeException(e);
+            }
         }
-    }
+    };
+
+    private static final ThreadLocal<XMLInputFactory> XML_INPUT_FACTORY = new ThreadLocal<XMLInputFactory>() {
+        @Override
+        protected XMLInputFactory initialValue() {
+            XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+            xmlInputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+            xmlInputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+            xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+            return xmlInputFactory;
+        }
+    };
+
+    private static final int MAX_CACHED_NAMESPACE_CONTEXTS = 16;
+
+    private static final int MAX_CACHED_EXPRESSIONS = 256;
+
+    // Compiled expressions, keyed first by the namespace mappings they were compiled against (most builders have a
+    // fixed set, but some derive theirs from the document itself), then by the expression.
+    private static final ThreadLocal<Map<Map<String, String>, Map<String, XPathExpression>>> XPATH_EXPRESSIONS
+            = new ThreadLocal<Map<Map<String, String>, Map<String, XPathExpression>>>() {
+        @Override
+        protected Map<Map<String, String>, Map<String, XPathExpression>> initialValue() {
+            return new LruMap<>(MAX_CACHED_NAMESPACE_CONTEXTS);
+        }
+    };
     
     protected final List<RelationshipSource> relationshipSources = new ArrayList<RelationshipSource>();
     
@@ -73,27 +120,45 @@ public class XmlArtifactBuilder extends AbstractArtifactBuilder {
     
     protected XPath xpath;
 
+    private Map<String, XPathExpression> xpathExpressions;
+
     @Override
     public ArtifactBuilder buildArtifacts(BaseArtifactType primaryArtifact, ArtifactContent artifactContent) throws Exception {
         super.buildArtifacts(primaryArtifact, artifactContent);
         
         try {
-            Document document = DOCUMENT_BUILDER.parse(getContentStream());
+            Document document;
+            String encoding;
+            long streamingThreshold = ArtificerConfig.getArtifactBuilderStreamingThreshold();
+            try (InputStream is = getContentStream()) {
+                if (supportsStreaming() && streamingThreshold >= 0 && artifactContent.getSize() >= streamingThreshold) {
+                    XMLStreamReader reader = XML_INPUT_FACTORY.get().createXMLStreamReader(is);
+                    try {
+                        encoding = reader.getCharacterEncodingScheme();
+                        document = parseRetained(reader);
+                    } finally {
+                        reader.close();
+                    }
+                } else {
+                    document = DOCUMENT_BUILDER.get().parse(is);
+                    encoding = document.getXmlEncoding();
+                }
+            }
             // This *must* be setup prior to calling #configureNamespaceMappings.  Most subclasses will need it.
             rootElement = document.getDocumentElement();
             
             if (primaryArtifact instanceof XmlDocument) {
-                String encoding = document.getXmlEncoding();
                 if (StringUtils.isBlank(encoding)) {
                     encoding = "UTF-8";
                 }
                 ((XmlDocument) primaryArtifact).setContentEncoding(encoding);
             }
             
-            xpath = XPATH_FACTORY.newXPath();
+            xpath = XPATH_FACTORY.get().newXPath();
             StaticNamespaceContext nsCtx = new StaticNamespaceContext();
             configureNamespaceMappings(nsCtx);
             xpath.setNamespaceContext(nsCtx);
+            xpathExpressions = xpathExpressions(nsCtx);
             
             // Create all derived artifacts
             derive();
@@ -139,8 +204,132 @@ public class XmlArtifactBuilder extends AbstractArtifactBuilder {
     protected void configureNamespaceMappings(StaticNamespaceContext namespaceContext) {
     }
 
+    /**
+     * Whether or not this builder can derive from the partial DOM described by {@link #isRetained(List)}.  If so, and
+     * the content is at least 'artificer.config.artifactbuilder.streaming-threshold' bytes, the content is streamed
+     * (StAX) and only the retained elements are ever materialized, keeping memory flat for very large documents.
+     */
+    protected boolean supportsStreaming() {
+        return false;
+    }
+
+    /**
+     * When streaming, determines whether an element (and, potentially, its descendants) is added to the DOM.  Any
+     * element not retained is skipped, along with its entire subtree.  Only called if {@link #supportsStreaming()}.
+     *
+     * @param path the element's path, starting with the root element and ending with the element itself
+     * @return boolean
+     */
+    protected boolean isRetained(List<QName> path) {
+        return true;
+    }
+
     protected Object query(Element element, String query, QName returnType) throws XPathExpressionException {
-        XPathExpression expr = xpath.compile(query);
+        XPathExpression expr = xpathExpressions.get(query);
+        if (expr == null) {
+            expr = xpath.compile(query);
+            xpathExpressions.put(query, expr);
+        }
         return expr.evaluate(element, returnType);
     }
+
+    private static Map<String, XPathExpression> xpathExpressions(StaticNamespaceContext nsCtx) {
+        Map<Map<String, String>, Map<String, XPathExpression>> cache = XPATH_EXPRESSIONS.get();
+        Map<String, XPathExpression> expressions = cache.get(nsCtx.getMappings());
+        if (expressions == null) {
+            expressions = new LruMap<>(MAX_CACHED_EXPRESSIONS);
+            cache.put(new HashMap<>(nsCtx.getMappings()), expressions);
+        }
+        return expressions;
+    }
+
+    /**
+     * Builds a DOM from the stream, consisting only of the elements (with their attributes, namespace declarations,
+     * and text) accepted by {@link #isRetained(List)}.
+     */
+    private Document parseRetained(XMLStreamReader reader) throws XMLStreamException {
+        Document document = DOCUMENT_BUILDER.get().newDocument();
+        LinkedList<QName> path = new LinkedList<>();
+        Node current = document;
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    path.addLast(reader.getName());
+                    if (isRetained(path)) {
+                        Element element = createElement(document, reader);
+                        current.appendChild(element);
+                        current = element;
+                    } else {
+                        skipElement(reader);
+                        path.removeLast();
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    path.removeLast();
+                    current = current.getParentNode();
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                    if (current != document) {
+                        current.appendChild(document.createTextNode(reader.getText()));
+                    }
+                    break;
+                default:
+                    // comments, processing instructions, etc. are not needed
+            }
+        }
+        return document;
+    }
+
+    private static Element createElement(Document document, XMLStreamReader reader) {
+        Element element = document.createElementNS(StringUtils.trimToNull(reader.getNamespaceURI()),
+                qualifiedName(reader.getPrefix(), reader.getLocalName()));
+        // Retain the declarations, so that QName-valued attributes can still be resolved against the DOM.
+        for (int i = 0; i < reader.getNamespaceCount(); i++) {
+            String prefix = reader.getNamespacePrefix(i);
+            element.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI,
+                    StringUtils.isEmpty(prefix) ? XMLConstants.XMLNS_ATTRIBUTE : XMLConstants.XMLNS_ATTRIBUTE + ":" + prefix,
+                    reader.getNamespaceURI(i));
+        }
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            QName name = reader.getAttributeName(i);
+            element.setAttributeNS(StringUtils.trimToNull(name.getNamespaceURI()),
+                    qualifiedName(name.getPrefix(), name.getLocalPart()), reader.getAttributeValue(i));
+        }
+        return element;
+    }
+
+    private static String qualifiedName(String prefix, String localName) {
+        return StringUtils.isEmpty(prefix) ? localName : prefix + ":" + localName;
+    }
+
+    /**
+     * Advances the reader to the END_ELEMENT matching the current START_ELEMENT.
+     */
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static class LruMap<K, V> extends LinkedHashMap<K, V> {
+
+        private final int maxSize;
+
+        private LruMap(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > maxSize;
+        }
+    }
 }
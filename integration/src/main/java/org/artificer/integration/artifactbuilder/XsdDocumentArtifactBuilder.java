@@ -19,6 +19,7 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
 
+import javax.xml.namespace.QName;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
 
@@ -51,6 +52,20 @@ public class XsdDocumentArtifactBuilder extends XmlArtifactBuilder {
         namespaceContext.addMapping("xsd", "http://www.w3.org/2001/XMLSchema");
     }
 
+    @Override
+    protected boolean supportsStreaming() {
+        return true;
+    }
+
+    /**
+     * Only global declarations, imports, includes, and redefines are derived, so nothing beneath the schema's direct
+     * children is needed.
+     */
+    @Override
+    protected boolean isRetained(List<QName> path) {
+        return path.size() <= 2;
+    }
+
     @Override
     protected void derive() throws IOException {
         try {
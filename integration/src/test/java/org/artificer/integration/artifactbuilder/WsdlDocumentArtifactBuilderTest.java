@@ -54,6 +54,7 @@ import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.WsdlDocument;
 import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.WsdlExtension;
 import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.WsdlService;
 import org.artificer.common.ArtifactContent;
+import org.artificer.common.ArtificerConstants;
 
 /**
  * Unit test for the {@link WsdlDocumentArtifactBuilder} class.
@@ -283,6 +284,19 @@ public class WsdlDocumentArtifactBuilderTest {
 		}
 	}
 
+	/**
+	 * Same expectations as {@link #testDeriverWsdl()}, but derived from the pruned, streamed (StAX) DOM.
+	 */
+	@Test
+	public void testDeriverWsdlStreaming() throws Exception {
+		System.setProperty(ArtificerConstants.ARTIFICER_CONFIG_ARTIFACTBUILDER_STREAMING_THRESHOLD, "0");
+		try {
+			testDeriverWsdl();
+		} finally {
+			System.clearProperty(ArtificerConstants.ARTIFICER_CONFIG_ARTIFACTBUILDER_STREAMING_THRESHOLD);
+		}
+	}
+
 
 	@Test
 	public void testHumanTaskWsdl() throws Exception {
@@ -20,6 +20,7 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.*;
 import org.artificer.common.ArtifactContent;
+import org.artificer.common.ArtificerConstants;
 
 import javax.xml.datatype.DatatypeFactory;
 import javax.xml.datatype.XMLGregorianCalendar;
@@ -125,6 +126,19 @@ public class XsdDocumentArtifactBuilderTest {
 		}
 	}
 
+	/**
+	 * Same expectations as {@link #testDerive()}, but derived from the pruned, streamed (StAX) DOM.
+	 */
+	@Test
+	public void testDeriveStreaming() throws Exception {
+		java.lang.System.setProperty(ArtificerConstants.ARTIFICER_CONFIG_ARTIFACTBUILDER_STREAMING_THRESHOLD, "0");
+		try {
+			testDerive();
+		} finally {
+			java.lang.System.clearProperty(ArtificerConstants.ARTIFICER_CONFIG_ARTIFACTBUILDER_STREAMING_THRESHOLD);
+		}
+	}
+
 	/**
 	 * Make a set from values.
 	 * @param values
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.repository.hibernate;
+
+import org.artificer.common.ArtificerConfig;
+import org.artificer.repository.query.QueryStatistics;
+import org.artificer.repository.query.QueryStatisticsMBean;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import javax.persistence.EntityManagerFactory;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Registers the repository's statistics with the platform MBeanServer (if 'artificer.config.jmx.enabled'):
+ *
+ * - org.artificer:type=QueryStatistics -- per query shape latency percentiles, and the slow query threshold
+ * - org.artificer:type=HibernateStatistics -- Hibernate's own Statistics.  Collection is controlled by
+ *   'hibernate.generate_statistics', but can also be switched on at runtime through the StatisticsEnabled attribute.
+ *
+ * HikariCP registers its pools itself, as com.zaxxer.hikari:type=Pool (artificer) (and artificer-replica, if a read
+ * replica is configured).
+ *
+ * @author Brett Meyer
+ */
+public class ArtificerMBeans {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ArtificerMBeans.class);
+
+    public static final String QUERY_STATISTICS = "org.artificer:type=QueryStatistics";
+
+    public static final String HIBERNATE_STATISTICS = "org.artificer:type=HibernateStatistics";
+
+    /**
+     * Registers the MBeans, replacing any that are already registered (ex: by an earlier deployment).  Failures are
+     * logged, but never prevent the repository from starting.
+     * @param entityManagerFactory
+     */
+    public static void register(EntityManagerFactory entityManagerFactory) {
+        if (!ArtificerConfig.isJmxEnabled()) {
+            return;
+        }
+        try {
+            register(new StandardMBean(QueryStatistics.getInstance(), QueryStatisticsMBean.class), QUERY_STATISTICS);
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            register(new StandardMBean(statistics, Statistics.class), HIBERNATE_STATISTICS);
+        } catch (Exception e) {
+            LOG.warn(e.getMessage(), e);
+        }
+    }
+
+    private static void register(Object mbean, String name) throws Exception {
+        MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName(name);
+        if (mbeanServer.isRegistered(objectName)) {
+            mbeanServer.unregisterMBean(objectName);
+        }
+        mbeanServer.registerMBean(mbean, objectName);
+    }
+}
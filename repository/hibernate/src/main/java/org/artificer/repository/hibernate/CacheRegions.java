@@ -0,0 +1,144 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.repository.hibernate;
+
+import org.artificer.common.ArtificerConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+
+/**
+ * The named second-level (entity) and query cache regions used by Artificer, as well as the translation of the
+ * 'artificer.config.cache.*' settings into Hibernate (and Infinispan) properties.
+ *
+ * Any 'hibernate.cache.*' property given explicitly in artificer.properties always wins.
+ *
+ * @author Brett Meyer
+ */
+public final class CacheRegions {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CacheRegions.class);
+
+    // entity regions
+    public static final String ARTIFACTS = "artificer.artifacts";
+    public static final String RELATIONSHIPS = "artificer.relationships";
+    public static final String COMMENTS = "artificer.comments";
+    public static final String STORED_QUERIES = "artificer.storedQueries";
+    public static final String AUDIT = "artificer.audit";
+    // Not a Hibernate region -- see OntologyCache.
+    public static final String ONTOLOGIES = "artificer.ontologies";
+    // Not a Hibernate region -- see QueryPlanCache.
+    public static final String QUERY_PLANS = "artificer.queryPlans";
+
+    // query regions
+    public static final String QUERY_ARTIFACTS = "artificer.query.artifacts";
+    public static final String QUERY_RELATIONSHIPS = "artificer.query.relationships";
+    public static final String QUERY_ONTOLOGIES = "artificer.query.ontologies";
+    public static final String QUERY_STORED_QUERIES = "artificer.query.storedQueries";
+    public static final String QUERY_AUDIT = "artificer.query.audit";
+
+    private static final String USE_SECOND_LEVEL_CACHE = "hibernate.cache.use_second_level_cache";
+    private static final String USE_QUERY_CACHE = "hibernate.cache.use_query_cache";
+    private static final String REGION_FACTORY = "hibernate.cache.region.factory_class";
+    private static final String GENERATE_STATISTICS = "hibernate.generate_statistics";
+    private static final String INFINISPAN_PREFIX = "hibernate.cache.infinispan.";
+
+    // WF/EAP's integration (uses the app server's 'hibernate' cache container), then standalone Infinispan.
+    private static final String JBOSS_INFINISPAN_REGION_FACTORY
+            = "org.jboss.as.jpa.hibernate4.infinispan.InfinispanRegionFactory";
+    private static final String JBOSS_INFINISPAN_CACHEMANAGER = "java:jboss/infinispan/container/hibernate";
+    private static final String INFINISPAN_REGION_FACTORY = "org.hibernate.cache.infinispan.InfinispanRegionFactory";
+
+    // artificer.properties region key -> Infinispan region (or type) name
+    private static final String[][] REGION_KEYS = {
+            {"artifacts", ARTIFACTS},
+            {"relationships", RELATIONSHIPS},
+            {"comments", COMMENTS},
+            {"stored-queries", STORED_QUERIES},
+            {"audit", AUDIT},
+            {"query", "query"}};
+
+    private CacheRegions() {
+    }
+
+    /**
+     * Fills in the cache-related Hibernate properties, prior to building the EntityManagerFactory.
+     * @param properties the 'hibernate.*' properties from artificer.properties
+     */
+    public static void configure(Map<String, Object> properties) {
+        if (ArtificerConfig.isCacheStatisticsEnabled()) {
+            putIfAbsent(properties, GENERATE_STATISTICS, "true");
+        }
+
+        if (!ArtificerConfig.isCacheEnabled()) {
+            properties.put(USE_SECOND_LEVEL_CACHE, "false");
+            properties.put(USE_QUERY_CACHE, "false");
+            return;
+        }
+
+        String regionFactory = (String) properties.get(REGION_FACTORY);
+        if (regionFactory == null) {
+            if (isAvailable(JBOSS_INFINISPAN_REGION_FACTORY)) {
+                regionFactory = JBOSS_INFINISPAN_REGION_FACTORY;
+                putIfAbsent(properties, INFINISPAN_PREFIX + "cachemanager", JBOSS_INFINISPAN_CACHEMANAGER);
+            } else if (isAvailable(INFINISPAN_REGION_FACTORY)) {
+                regionFactory = INFINISPAN_REGION_FACTORY;
+            } else {
+                LOG.warn("No cache region factory is configured ('" + REGION_FACTORY + "') or available -- the "
+                        + "second-level and query caches are disabled.");
+                properties.put(USE_SECOND_LEVEL_CACHE, "false");
+                properties.put(USE_QUERY_CACHE, "false");
+                return;
+            }
+            properties.put(REGION_FACTORY, regionFactory);
+        }
+        putIfAbsent(properties, USE_SECOND_LEVEL_CACHE, "true");
+        putIfAbsent(properties, USE_QUERY_CACHE, "true");
+
+        if (regionFactory.contains("infinispan")) {
+            // Per-region size and TTL limits.
+            for (String[] regionKey : REGION_KEYS) {
+                long maxEntries = ArtificerConfig.getCacheMaxEntries(regionKey[0], -1);
+                if (maxEntries > 0) {
+                    putIfAbsent(properties, INFINISPAN_PREFIX + regionKey[1] + ".eviction.strategy", "LRU");
+                    putIfAbsent(properties, INFINISPAN_PREFIX + regionKey[1] + ".eviction.max_entries",
+                            String.valueOf(maxEntries));
+                }
+                long ttl = ArtificerConfig.getCacheTtl(regionKey[0], -1);
+                if (ttl > 0) {
+                    putIfAbsent(properties, INFINISPAN_PREFIX + regionKey[1] + ".expiration.lifespan",
+                            String.valueOf(ttl));
+                }
+            }
+        }
+    }
+
+    private static boolean isAvailable(String className) {
+        try {
+            Class.forName(className, false, CacheRegions.class.getClassLoader());
+            return true;
+        } catch (Throwable t) {
+            return false;
+        }
+    }
+
+    private static void putIfAbsent(Map<String, Object> properties, String key, String value) {
+        if (!properties.containsKey(key)) {
+            properties.put(key, value);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.repository.hibernate;
+
+import org.artificer.repository.query.QueryPlanCache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A point-in-time snapshot of a single cache region's hits, misses, puts, evictions, and size.
+ *
+ * Hits, misses, and puts of the Hibernate regions are only collected when 'artificer.config.cache.statistics' is
+ * enabled.  Evictions (explicit, by Artificer's write paths) and the ontology and query plan caches' numbers are always
+ * collected.
+ *
+ * @author Brett Meyer
+ */
+public class CacheStatistics {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CacheStatistics.class);
+
+    private static final ConcurrentMap<String, AtomicLong> EVICTIONS = new ConcurrentHashMap<String, AtomicLong>();
+
+    private final String region;
+
+    private final long hitCount;
+
+    private final long missCount;
+
+    private final long putCount;
+
+    private final long evictionCount;
+
+    private final long elementCount;
+
+    public CacheStatistics(String region, long hitCount, long missCount, long putCount, long evictionCount,
+            long elementCount) {
+        this.region = region;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.putCount = putCount;
+        this.evictionCount = evictionCount;
+        this.elementCount = elementCount;
+    }
+
+    /**
+     * Records an explicit eviction from the given region.
+     * @param region
+     */
+    public static void recordEviction(String region) {
+        AtomicLong count = EVICTIONS.get(region);
+        if (count == null) {
+            EVICTIONS.putIfAbsent(region, new AtomicLong());
+            count = EVICTIONS.get(region);
+        }
+        count.incrementAndGet();
+    }
+
+    /**
+     * @param sessionFactory
+     * @return Map<String, CacheStatistics> a snapshot of every region, keyed (and sorted) by region name
+     */
+    public static Map<String, CacheStatistics> snapshot(SessionFactory sessionFactory) {
+        Map<String, CacheStatistics> snapshot = new TreeMap<String, CacheStatistics>();
+
+        Statistics statistics = sessionFactory.getStatistics();
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            SecondLevelCacheStatistics regionStatistics = statistics.getSecondLevelCacheStatistics(region);
+            if (regionStatistics != null) {
+                snapshot.put(region, new CacheStatistics(region, regionStatistics.getHitCount(),
+                        regionStatistics.getMissCount(), regionStatistics.getPutCount(), evictions(region),
+                        regionStatistics.getElementCountInMemory()));
+            }
+        }
+
+        OntologyCache ontologyCache = OntologyCache.getInstance();
+        snapshot.put(CacheRegions.ONTOLOGIES, new CacheStatistics(CacheRegions.ONTOLOGIES,
+                ontologyCache.getHitCount(), ontologyCache.getMissCount(), ontologyCache.getPutCount(),
+                ontologyCache.getEvictionCount(), ontologyCache.getElementCount()));
+
+        QueryPlanCache queryPlanCache = QueryPlanCache.getInstance();
+        snapshot.put(CacheRegions.QUERY_PLANS, new CacheStatistics(CacheRegions.QUERY_PLANS,
+                queryPlanCache.getHitCount(), queryPlanCache.getMissCount(), queryPlanCache.getPutCount(),
+                queryPlanCache.getEvictionCount(), queryPlanCache.getElementCount()));
+
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    public static void logSummary(Map<String, CacheStatistics> snapshot) {
+        for (CacheStatistics regionStatistics : snapshot.values()) {
+            LOG.info(regionStatistics.toString());
+        }
+    }
+
+    private static long evictions(String region) {
+        AtomicLong count = EVICTIONS.get(region);
+        return count == null ? 0 : count.get();
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getPutCount() {
+        return putCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public long getElementCount() {
+        return elementCount;
+    }
+
+    /**
+     * @return double hits / (hits + misses), or 0 if the region was never read
+     */
+    public double getHitRatio() {
+        long reads = hitCount + missCount;
+        return reads == 0 ? 0 : (double) hitCount / reads;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Cache region '%s': %d hits, %d misses (%.1f%%), %d puts, %d evictions, %d elements",
+                region, hitCount, missCount, getHitRatio() * 100, putCount, evictionCount, elementCount);
+    }
+}
@@ -48,13 +48,13 @@ public class HibernateAuditManager implements AuditManager {
 
     @Override
     public AuditEntry getArtifactAuditEntry(final String artifactUuid, final String auditEntryUuid) throws ArtificerException {
-        return new HibernateUtil.HibernateTask<AuditEntry>() {
+        return new HibernateUtil.ReadOnlyHibernateTask<AuditEntry>() {
             @Override
             protected AuditEntry doExecute(EntityManager entityManager) throws Exception {
                 Query q = entityManager.createQuery(
                         "SELECT au FROM ArtificerAuditEntry au WHERE au.uuid=:uuid ORDER BY au.id DESC");
                 q.setParameter("uuid", auditEntryUuid);
-                q.unwrap(org.hibernate.Query.class).setCacheable(true);
+                q.unwrap(org.hibernate.Query.class).setCacheable(true).setCacheRegion(CacheRegions.QUERY_AUDIT);
                 try {
                     ArtificerAuditEntry auditEntry = (ArtificerAuditEntry) q.getSingleResult();
                     return HibernateAuditor.auditEntry(auditEntry);
@@ -68,20 +68,20 @@ public class HibernateAuditManager implements AuditManager {
     @Override
     public PagedResult<AuditEntry> getArtifactAuditEntries(final String artifactUuid, final ArtificerQueryArgs args) throws ArtificerException {
         try {
-            return new HibernateUtil.HibernateTask<PagedResult<AuditEntry>>() {
+            return new HibernateUtil.ReadOnlyHibernateTask<PagedResult<AuditEntry>>() {
                 @Override
                 protected PagedResult<AuditEntry> doExecute(EntityManager entityManager) throws Exception {
                     Query q = entityManager.createQuery(
                             "SELECT au FROM ArtificerAuditEntry au INNER JOIN au.artifact a WHERE a.uuid=:uuid ORDER BY au.id DESC");
                     q.setParameter("uuid", artifactUuid);
-                    q.unwrap(org.hibernate.Query.class).setCacheable(true);
+                    q.unwrap(org.hibernate.Query.class).setCacheable(true).setCacheRegion(CacheRegions.QUERY_AUDIT);
                     args.applyPaging(q);
                     List<ArtificerAuditEntry> auditEntries = q.getResultList();
 
                     q = entityManager.createQuery(
                             "SELECT count(au) FROM ArtificerAuditEntry au INNER JOIN au.artifact a WHERE a.uuid=:uuid");
                     q.setParameter("uuid", artifactUuid);
-                    q.unwrap(org.hibernate.Query.class).setCacheable(true);
+                    q.unwrap(org.hibernate.Query.class).setCacheable(true).setCacheRegion(CacheRegions.QUERY_AUDIT);
                     args.applyPaging(q);
                     long totalSize = (Long) q.getSingleResult();
 
@@ -103,20 +103,20 @@ public class HibernateAuditManager implements AuditManager {
     @Override
     public PagedResult<AuditEntry> getUserAuditEntries(final String username, final ArtificerQueryArgs args) throws ArtificerException {
         try {
-            return new HibernateUtil.HibernateTask<PagedResult<AuditEntry>>() {
+            return new HibernateUtil.ReadOnlyHibernateTask<PagedResult<AuditEntry>>() {
                 @Override
                 protected PagedResult<AuditEntry> doExecute(EntityManager entityManager) throws Exception {
                     Query q = entityManager.createQuery(
                             "SELECT au FROM ArtificerAuditEntry au WHERE au.modifiedBy.username=:username ORDER BY au.id DESC");
                     q.setParameter("username", username);
-                    q.unwrap(org.hibernate.Query.class).setCacheable(true);
+                    q.unwrap(org.hibernate.Query.class).setCacheable(true).setCacheRegion(CacheRegions.QUERY_AUDIT);
                     args.applyPaging(q);
                     List<ArtificerAuditEntry> auditEntries = q.getResultList();
 
                     q = entityManager.createQuery(
                             "SELECT count(au) FROM ArtificerAuditEntry au WHERE au.modifiedBy.username=:username");
                     q.setParameter("username", username);
-                    q.unwrap(org.hibernate.Query.class).setCacheable(true);
+                    q.unwrap(org.hibernate.Query.class).setCacheable(true).setCacheRegion(CacheRegions.QUERY_AUDIT);
                     args.applyPaging(q);
                     long totalSize = (Long) q.getSingleResult();
 
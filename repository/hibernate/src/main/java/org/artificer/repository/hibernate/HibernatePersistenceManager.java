@@ -15,13 +15,12 @@
  */
 package org.artificer.repository.hibernate;
 
-import org.apache.commons.codec.digest.DigestUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.artificer.common.ArtifactContent;
 import org.artificer.common.ArtifactType;
 import org.artificer.common.ArtificerConfig;
 import org.artificer.common.ArtificerException;
+import org.artificer.common.ParallelStage;
 import org.artificer.common.error.ArtificerConflictException;
 import org.artificer.common.error.ArtificerNotFoundException;
 import org.artificer.common.error.ArtificerServerException;
@@ -33,8 +32,10 @@ import org.artificer.integration.artifactbuilder.ArtifactBuilder;
 import org.artificer.integration.artifactbuilder.RelationshipContext;
 import org.artificer.repository.AbstractPersistenceManager;
 import org.artificer.repository.ClassificationHelper;
+import org.artificer.repository.OntologyIndex;
 import org.artificer.repository.hibernate.audit.ArtificerAuditEntry;
 import org.artificer.repository.hibernate.audit.HibernateAuditor;
+import org.artificer.repository.hibernate.data.ArtifactChangeSet;
 import org.artificer.repository.hibernate.data.HibernateEntityToSrampVisitor;
 import org.artificer.repository.hibernate.data.SrampToHibernateEntityRelationshipsVisitor;
 import org.artificer.repository.hibernate.data.SrampToHibernateEntityVisitor;
@@ -44,9 +45,14 @@ import org.artificer.repository.hibernate.entity.ArtificerDocumentArtifact;
 import org.artificer.repository.hibernate.entity.ArtificerRelationship;
 import org.artificer.repository.hibernate.entity.ArtificerStoredQuery;
 import org.artificer.repository.hibernate.file.FileManagerFactory;
+import org.artificer.repository.hibernate.query.ContentTextIndexer;
+import org.artificer.repository.query.QueryPlanCache;
+import org.artificer.repository.query.QueryStatistics;
 import org.hibernate.Session;
 import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactType;
 import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.StoredQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.persistence.EntityManager;
 import javax.persistence.Query;
@@ -56,12 +62,15 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Callable;
 
 /**
  * @author Brett Meyer.
  */
 public class HibernatePersistenceManager extends AbstractPersistenceManager {
 
+    private static final Logger LOG = LoggerFactory.getLogger(HibernatePersistenceManager.class);
+
     private final ClassificationHelper classificationHelper = this;
 
     @Override
@@ -72,14 +81,26 @@ public class HibernatePersistenceManager extends AbstractPersistenceManager {
     @Override
     public List<BaseArtifactType> persistBatch(final List<BatchItem> items) throws ArtificerException {
 		try {
+			// Running the artifact builders (parsing, deriving, etc.) is independent for each item, so do it in
+			// parallel and *outside* of the transaction.  Relationship resolution and persistence remain ordered.
+			List<Callable<ArtifactBuild>> buildTasks = new ArrayList<>(items.size());
+			for (final BatchItem item : items) {
+				buildTasks.add(new Callable<ArtifactBuild>() {
+					@Override
+					public ArtifactBuild call() throws Exception {
+						return new ArtifactBuild(item.baseArtifactType, item.content);
+					}
+				});
+			}
+			final List<ArtifactBuild> builds = new ParallelStage<ArtifactBuild>("artifact-build").execute(buildTasks);
+
 			return new HibernateUtil.HibernateTask<List<BaseArtifactType>>() {
 				@Override
 				protected List<BaseArtifactType> doExecute(EntityManager entityManager) throws Exception {
 					HibernateRelationshipFactory relationshipFactory = new HibernateRelationshipFactory();
-					List<BaseArtifactType> rval = new ArrayList<>(items.size());
-					for (BatchItem item : items) {
-						BaseArtifactType artifact = doPersistArtifact(item.baseArtifactType, item.content,
-								relationshipFactory, entityManager);
+					List<BaseArtifactType> rval = new ArrayList<>(builds.size());
+					for (ArtifactBuild build : builds) {
+						BaseArtifactType artifact = doPersistArtifact(build, relationshipFactory, entityManager);
 						rval.add(artifact);
 					}
 					return rval;
@@ -104,7 +125,8 @@ public class HibernatePersistenceManager extends AbstractPersistenceManager {
 			return new HibernateUtil.HibernateTask<BaseArtifactType>() {
 				@Override
 				protected BaseArtifactType doExecute(EntityManager entityManager) throws Exception {
-					return doPersistArtifact(srampArtifact, content, relationshipFactory, entityManager);
+					return doPersistArtifact(new ArtifactBuild(srampArtifact, content), relationshipFactory,
+							entityManager);
 				}
 			}.execute();
 		} catch (ArtificerException ae) {
@@ -114,13 +136,41 @@ public class HibernatePersistenceManager extends AbstractPersistenceManager {
 		}
 	}
 
-	private BaseArtifactType doPersistArtifact(final BaseArtifactType srampArtifact, final ArtifactContent content,
-			final HibernateRelationshipFactory relationshipFactory, EntityManager entityManager) throws Exception {
+	/**
+	 * The non-transactional portion of persisting an artifact: assigns its UUID and runs the artifact builders to both
+	 * set metadata on the S-RAMP artifact, as well as create the derived artifacts.
+	 */
+	private static class ArtifactBuild {
+		private final BaseArtifactType srampArtifact;
+		private final ArtifactContent content;
+		private final boolean uuidProvided;
+		private final List<ArtifactBuilder> artifactBuilders;
+		private final List<BaseArtifactType> derivedSrampArtifacts = new ArrayList<>();
+
+		private ArtifactBuild(BaseArtifactType srampArtifact, ArtifactContent content) throws Exception {
+			this.srampArtifact = srampArtifact;
+			this.content = content;
+
+			uuidProvided = StringUtils.isNotBlank(srampArtifact.getUuid());
+			if (!uuidProvided) {
+				srampArtifact.setUuid(UUID.randomUUID().toString());
+			}
+
+			artifactBuilders = ExtensionFactory.createArtifactBuilders(srampArtifact, content);
+			for (ArtifactBuilder artifactBuilder : artifactBuilders) {
+				artifactBuilder.buildArtifacts(srampArtifact, content);
+				derivedSrampArtifacts.addAll(artifactBuilder.getDerivedArtifacts());
+			}
+		}
+	}
+
+	private BaseArtifactType doPersistArtifact(ArtifactBuild build, final HibernateRelationshipFactory relationshipFactory,
+			EntityManager entityManager) throws Exception {
+		final BaseArtifactType srampArtifact = build.srampArtifact;
+		final ArtifactContent content = build.content;
 		final ArtifactType artifactType = ArtifactType.valueOf(srampArtifact);
 
-		if (StringUtils.isBlank(srampArtifact.getUuid())) {
-			srampArtifact.setUuid(UUID.randomUUID().toString());
-		} else {
+		if (build.uuidProvided) {
 			// TODO: ugh -- ugly
 			try {
 				HibernateUtil.getArtifact(srampArtifact.getUuid(), entityManager, false);
@@ -130,16 +180,8 @@ public class HibernatePersistenceManager extends AbstractPersistenceManager {
 			}
 		}
 
-		List<ArtifactBuilder> artifactBuilders = ExtensionFactory.createArtifactBuilders(
-				srampArtifact, content);
-
-		// First, need to run the artifact builders to both set metadata on srampArtifact, as well as create
-		// the derived artifacts
-		List<BaseArtifactType> derivedSrampArtifacts = new ArrayList<>();
-		for (ArtifactBuilder artifactBuilder : artifactBuilders) {
-			artifactBuilder.buildArtifacts(srampArtifact, content);
-			derivedSrampArtifacts.addAll(artifactBuilder.getDerivedArtifacts());
-		}
+		List<ArtifactBuilder> artifactBuilders = build.artifactBuilders;
+		List<BaseArtifactType> derivedSrampArtifacts = build.derivedSrampArtifacts;
 
 		// S-RAMP -> Hibernate
 		ArtificerArtifact artificerArtifact = SrampToHibernateEntityVisitor.visit(
@@ -152,6 +194,7 @@ public class HibernatePersistenceManager extends AbstractPersistenceManager {
 			if (content != null) {
 				// sets info on the artifact, so call prior to persisting
 				FileManagerFactory.getInstance().write(artificerDocumentArtifact, content, entityManager);
+				ContentTextIndexer.getInstance().contentWritten(artificerDocumentArtifact, content, entityManager);
 			}
 		}
 
@@ -205,6 +248,23 @@ public class HibernatePersistenceManager extends AbstractPersistenceManager {
 
     @Override
     public BaseArtifactType getArtifact(final String uuid, final ArtifactType artifactType) throws ArtificerException {
+        return new HibernateUtil.ReadOnlyHibernateTask<BaseArtifactType>() {
+            @Override
+            protected BaseArtifactType doExecute(EntityManager entityManager) throws Exception {
+                try {
+                    ArtificerArtifact artifact = HibernateUtil.getArtifact(uuid, entityManager, true);
+                    return HibernateEntityToSrampVisitor.visit(artifact, artifactType, true);
+                } catch (ArtificerNotFoundException e) {
+                    return null;
+                }
+            }
+        }.execute();
+    }
+
+    @Override
+    public BaseArtifactType getArtifactForUpdate(final String uuid, final ArtifactType artifactType)
+            throws ArtificerException {
+        // A regular task: always the primary, whether or not a replica is configured.
         return new HibernateUtil.HibernateTask<BaseArtifactType>() {
             @Override
             protected BaseArtifactType doExecute(EntityManager entityManager) throws Exception {
@@ -218,9 +278,23 @@ public class HibernatePersistenceManager extends AbstractPersistenceManager {
         }.execute();
     }
 
+    @Override
+    public List<BaseArtifactType> getArtifacts(final List<String> uuids) throws ArtificerException {
+        return new HibernateUtil.ReadOnlyHibernateTask<List<BaseArtifactType>>() {
+            @Override
+            protected List<BaseArtifactType> doExecute(EntityManager entityManager) throws Exception {
+                List<BaseArtifactType> artifacts = new ArrayList<>(uuids.size());
+                for (ArtificerArtifact artifact : HibernateUtil.getArtifacts(uuids, entityManager)) {
+                    artifacts.add(HibernateEntityToSrampVisitor.visit(artifact, true));
+                }
+                return artifacts;
+            }
+        }.execute();
+    }
+
     @Override
     public InputStream getArtifactContent(final String uuid, ArtifactType artifactType) throws ArtificerException {
-        return new HibernateUtil.HibernateTask<InputStream>() {
+        return new HibernateUtil.ReadOnlyHibernateTask<InputStream>() {
             @Override
             protected InputStream doExecute(EntityManager entityManager) throws Exception {
                 ArtificerDocumentArtifact artifact = (ArtificerDocumentArtifact) HibernateUtil.getArtifact(
@@ -240,18 +314,17 @@ public class HibernatePersistenceManager extends AbstractPersistenceManager {
 
                 HibernateUtil.evict(ArtificerArtifact.class, artificerArtifact.getId(), entityManager);
 
-                HibernateAuditor differ = null;
-                if (ArtificerConfig.isAuditingEnabled()) {
-                    differ = new HibernateAuditor(artificerArtifact);
-                }
-
-                SrampToHibernateEntityVisitor.visit(srampArtifact, artificerArtifact, artifactType, classificationHelper);
+                // Only what actually changed is written.
+                ArtifactChangeSet changeSet = new ArtifactChangeSet();
+                SrampToHibernateEntityVisitor.visit(srampArtifact, artificerArtifact, artifactType,
+                        classificationHelper, changeSet);
                 HibernateRelationshipFactory relationshipFactory = new HibernateRelationshipFactory();
                 SrampToHibernateEntityRelationshipsVisitor.visit(srampArtifact, artificerArtifact, relationshipFactory,
-						entityManager);
+						entityManager, changeSet);
+                LOG.debug("Updated artifact {}: {}", artificerArtifact.getUuid(), changeSet);
 
                 if (ArtificerConfig.isAuditingEnabled()) {
-                    ArtificerAuditEntry auditEntry = differ.diff(artificerArtifact);
+                    ArtificerAuditEntry auditEntry = HibernateAuditor.createUpdateEntry(artificerArtifact, changeSet);
                     entityManager.persist(auditEntry);
                 }
 
@@ -309,7 +382,7 @@ public class HibernatePersistenceManager extends AbstractPersistenceManager {
     }
 
     private void deleteArtifact(ArtificerArtifact artifact, boolean force, EntityManager entityManager)
-            throws ArtificerException {
+            throws Exception {
         List<Long> targetedArtifacts = new ArrayList<>();
         targetedArtifacts.add(artifact.getId());
         for (ArtificerArtifact derivedArtifact : artifact.getDerivedArtifacts()) {
@@ -340,6 +413,9 @@ public class HibernatePersistenceManager extends AbstractPersistenceManager {
 
         artifact.setTrashed(true);
         HibernateUtil.evict(ArtificerArtifact.class, artifact.getId(), entityManager);
+        if (artifact instanceof ArtificerDocumentArtifact) {
+            FileManagerFactory.getInstance().delete((ArtificerDocumentArtifact) artifact, entityManager);
+        }
         if (ArtificerConfig.isAuditingEnabled()) {
             HibernateAuditor.createDeleteEntry(artifact);
         }
@@ -372,6 +448,8 @@ public class HibernatePersistenceManager extends AbstractPersistenceManager {
                 return null;
             }
         }.execute();
+        OntologyCache.getInstance().invalidate();
+        ontologiesChanged();
 
         return ontology;
     }
@@ -388,19 +466,36 @@ public class HibernatePersistenceManager extends AbstractPersistenceManager {
 
     @Override
     public List<ArtificerOntology> getOntologies() throws ArtificerException {
+        // Until https://hibernate.atlassian.net/browse/HHH-1523, JOIN FETCH cannot be used in conjunction with the
+        // query cache + 2LC, so the fetched list is cached as a whole instead.
+        final OntologyCache cache = OntologyCache.getInstance();
+        List<ArtificerOntology> ontologies = cache.get();
+        if (ontologies != null) {
+            return ontologies;
+        }
+
+        final long generation = cache.generation();
         return new HibernateUtil.HibernateTask<List<ArtificerOntology>>() {
             @Override
             protected List<ArtificerOntology> doExecute(EntityManager entityManager) throws Exception {
 				// MUST be LEFT JOIN!  When creating a new ontology from the UI, rootClasses will be empty!
                 Query q = entityManager.createQuery("SELECT DISTINCT o FROM ArtificerOntology o LEFT JOIN FETCH o.rootClasses ORDER BY o.label ASC");
-                // TODO: Until https://hibernate.atlassian.net/browse/HHH-1523, JOIN FETCH cannot be used in
-                // conjunction with the query cache + 2LC!
-//                q.unwrap(org.hibernate.Query.class).setCacheable(true);
-                return q.getResultList();
+                return cache.put(q.getResultList(), generation);
             }
         }.execute();
     }
 
+    @Override
+    protected boolean isCurrent(OntologyIndex index) {
+        OntologyCache cache = OntologyCache.getInstance();
+        if (!cache.isEnabled()) {
+            return super.isCurrent(index);
+        }
+        // Otherwise, an index rebuilt once its TTL expired could come from a cached list about to expire itself.  Also
+        // picks up an invalidation made through any other persistence manager.
+        return cache.contains(index.getOntologies());
+    }
+
     @Override
     public void updateOntology(final ArtificerOntology ontology) throws ArtificerException {
         new HibernateUtil.HibernateTask<Void>() {
@@ -423,6 +518,8 @@ public class HibernatePersistenceManager extends AbstractPersistenceManager {
                 return null;
             }
         }.execute();
+        OntologyCache.getInstance().invalidate();
+        ontologiesChanged();
     }
 
     @Override
@@ -437,6 +534,8 @@ public class HibernatePersistenceManager extends AbstractPersistenceManager {
                 return null;
             }
         }.execute();
+        OntologyCache.getInstance().invalidate();
+        ontologiesChanged();
     }
 
     @Override
@@ -498,7 +597,7 @@ public class HibernatePersistenceManager extends AbstractPersistenceManager {
             @Override
             protected List<StoredQuery> doExecute(EntityManager entityManager) throws Exception {
                 Query q = entityManager.createQuery("FROM ArtificerStoredQuery asq ORDER BY asq.queryName ASC");
-                q.unwrap(org.hibernate.Query.class).setCacheable(true);
+                q.unwrap(org.hibernate.Query.class).setCacheable(true).setCacheRegion(CacheRegions.QUERY_STORED_QUERIES);
                 List<ArtificerStoredQuery> storedQueries = q.getResultList();
                 return HibernateEntityFactory.storedQueries(storedQueries);
             }
@@ -529,32 +628,55 @@ public class HibernatePersistenceManager extends AbstractPersistenceManager {
 
     }
 
+    @Override
+    public void reindex(boolean reextractContent) throws ArtificerException {
+        try {
+            ContentTextIndexer.getInstance().reindex(reextractContent);
+        } catch (ArtificerException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ArtificerServerException(e);
+        }
+    }
+
     @Override
     public void startup() {
-        // nothing to do
+        try {
+            // Build the EntityManagerFactory (and install the DDL, if necessary) now, rather than on the first request.
+            HibernateUtil.startup();
+        } catch (Exception e) {
+            // The first task will try again, and report the failure to its caller.
+            LOG.error("Unable to initialize the persistence unit", e);
+        }
+
+        // Picks up any documents still awaiting extraction.
+        ContentTextIndexer.getInstance().start(ArtificerConfig.isFullTextReindexOnStartup());
     }
 
     @Override
     public void shutdown() {
-        // nothing to do
+        ContentTextIndexer.getInstance().shutdown();
+        LOG.debug(HibernateUtil.getTaskStatistics().toString());
+        LOG.debug(QueryPlanCache.getInstance().toString());
+        LOG.debug(QueryStatistics.getInstance().toString());
+        if (ArtificerConfig.isCacheStatisticsEnabled()) {
+            try {
+                CacheStatistics.logSummary(HibernateUtil.getCacheStatistics());
+            } catch (Exception e) {
+                // not worth failing the shutdown over
+                LOG.warn("Unable to log the cache statistics", e);
+            }
+        }
     }
 
     private void processDocument(ArtificerDocumentArtifact artificerArtifact, ArtifactContent content) throws Exception {
-        InputStream inputStream = null;
-        try {
-            if (content != null) {
-                artificerArtifact.setContentSize(content.getSize());
-                inputStream = content.getInputStream();
-                String sha1Hash = DigestUtils.shaHex(inputStream);
-                artificerArtifact.setContentHash(sha1Hash);
-            } else {
-                artificerArtifact.setContentSize(0);
-                artificerArtifact.setContentHash("");
-            }
-        } finally {
-            if (inputStream != null) {
-                IOUtils.closeQuietly(inputStream);
-            }
+        if (content != null) {
+            // Both were computed while the content was originally streamed in -- no need to re-read it.
+            artificerArtifact.setContentSize(content.getSize());
+            artificerArtifact.setContentHash(content.getSha1Hash());
+        } else {
+            artificerArtifact.setContentSize(0);
+            artificerArtifact.setContentHash("");
         }
     }
 }
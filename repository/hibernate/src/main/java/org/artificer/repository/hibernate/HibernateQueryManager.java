@@ -1,6 +1,12 @@
 package org.artificer.repository.hibernate;
 
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.persistence.EntityManager;
 import javax.persistence.Query;
@@ -10,6 +16,7 @@ import org.artificer.common.query.ArtifactSummary;
 import org.artificer.common.query.RelationshipType;
 import org.artificer.common.query.ReverseRelationship;
 import org.artificer.repository.QueryManager;
+import org.artificer.repository.hibernate.query.ArtificerToHibernateQueryVisitor;
 import org.artificer.repository.hibernate.query.HibernateQuery;
 import org.artificer.repository.query.ArtificerQuery;
 import org.artificer.repository.query.ArtificerQueryArgs;
@@ -36,7 +43,7 @@ public class HibernateQueryManager implements QueryManager {
 
     @Override
     public List<ReverseRelationship> reverseRelationships(final String uuid) throws ArtificerException {
-                return new HibernateUtil.HibernateTask<List<ReverseRelationship>>() {
+                return new HibernateUtil.ReadOnlyHibernateTask<List<ReverseRelationship>>() {
             @Override
             protected List<ReverseRelationship> doExecute(EntityManager entityManager) throws Exception {
                 Query q = entityManager.createQuery(
@@ -47,7 +54,7 @@ public class HibernateQueryManager implements QueryManager {
                                 " INNER JOIN t.target a2" +
                                 " WHERE a1.trashed = false AND a2.uuid=:uuid");
                 q.setParameter("uuid", uuid);
-                q.unwrap(org.hibernate.Query.class).setCacheable(true);
+                q.unwrap(org.hibernate.Query.class).setCacheable(true).setCacheRegion(CacheRegions.QUERY_RELATIONSHIPS);
                 List<ReverseRelationship> reverseRelationships = q.getResultList();
 
                 // If the artifact has derived artifacts, also need to include those...
@@ -57,7 +64,7 @@ public class HibernateQueryManager implements QueryManager {
                                 " INNER JOIN a.derivedFrom a1" +
                                 " WHERE a1.trashed = false AND a1.uuid=:uuid");
                 q.setParameter("uuid", uuid);
-                q.unwrap(org.hibernate.Query.class).setCacheable(true);
+                q.unwrap(org.hibernate.Query.class).setCacheable(true).setCacheRegion(CacheRegions.QUERY_ARTIFACTS);
                 List<ArtifactSummary> derivedFroms = q.getResultList();
                 for (ArtifactSummary derivedFrom : derivedFroms) {
                     reverseRelationships.add(new ReverseRelationship("relatedDocument", RelationshipType.DERIVED, derivedFrom));
@@ -82,16 +89,81 @@ public class HibernateQueryManager implements QueryManager {
 
     @Override
     public List<String> getTypes() throws ArtificerException {
-        return new HibernateUtil.HibernateTask<List<String>>() {
+        return new HibernateUtil.ReadOnlyHibernateTask<List<String>>() {
             @Override
             protected List<String> doExecute(EntityManager entityManager) throws Exception {
                 Query q = entityManager.createQuery("SELECT distinct type FROM ArtificerArtifact");
 
-                q.unwrap(org.hibernate.Query.class).setCacheable(true);
+                q.unwrap(org.hibernate.Query.class).setCacheable(true).setCacheRegion(CacheRegions.QUERY_ARTIFACTS);
                 List<String> types = q.getResultList();
 
                 return types;
             }
         }.execute();
     }
+
+    @Override
+    public List<ArtifactSummary> queryProperties(final Map<String, String> criteria,
+            final Collection<String> propertyNames, final String orderBy, final boolean ascending)
+            throws ArtificerException {
+        return new HibernateUtil.ReadOnlyHibernateTask<List<ArtifactSummary>>() {
+            @Override
+            protected List<ArtifactSummary> doExecute(EntityManager entityManager) throws Exception {
+                boolean projectProperties = propertyNames != null && !propertyNames.isEmpty();
+
+                // One row per artifact/projected property pair.  Each criterion is an EXISTS against the indexed
+                // (key, value, owner) property columns.
+                StringBuilder jpql = new StringBuilder(
+                        "SELECT a.uuid, a.name, a.description, a.model, a.type, a.derived, a.expandedFromArchive," +
+                        " a.createdBy.lastActionTime, a.createdBy.username, a.modifiedBy.lastActionTime");
+                if (projectProperties) {
+                    jpql.append(", p.key, p.value FROM ArtificerArtifact a LEFT JOIN a.properties p WITH p.key IN (:propertyNames)");
+                } else {
+                    jpql.append(" FROM ArtificerArtifact a");
+                }
+                jpql.append(" WHERE a.trashed = false");
+                for (int i = 0; i < criteria.size(); i++) {
+                    jpql.append(" AND EXISTS (SELECT c").append(i).append(".id FROM ArtificerProperty c").append(i)
+                            .append(" WHERE c").append(i).append(".owner = a AND c").append(i).append(".key = :key")
+                            .append(i).append(" AND c").append(i).append(".value = :value").append(i).append(")");
+                }
+                String orderByPath = ArtificerToHibernateQueryVisitor.orderByPath(orderBy);
+                jpql.append(" ORDER BY ");
+                if (orderByPath != null) {
+                    jpql.append("a.").append(orderByPath).append(ascending ? " ASC, " : " DESC, ");
+                }
+                jpql.append("a.id");
+
+                Query q = entityManager.createQuery(jpql.toString());
+                if (projectProperties) {
+                    q.setParameter("propertyNames", propertyNames);
+                }
+                int i = 0;
+                for (Map.Entry<String, String> criterion : criteria.entrySet()) {
+                    q.setParameter("key" + i, criterion.getKey());
+                    q.setParameter("value" + i, criterion.getValue());
+                    i++;
+                }
+                q.unwrap(org.hibernate.Query.class).setCacheable(true).setCacheRegion(CacheRegions.QUERY_ARTIFACTS);
+                List<Object[]> rows = q.getResultList();
+
+                Map<String, ArtifactSummary> summaries = new LinkedHashMap<>();
+                for (Object[] row : rows) {
+                    String uuid = (String) row[0];
+                    ArtifactSummary summary = summaries.get(uuid);
+                    if (summary == null) {
+                        summary = new ArtifactSummary(uuid, (String) row[1], (String) row[2], (String) row[3],
+                                (String) row[4], (Boolean) row[5], (Boolean) row[6], (Calendar) row[7],
+                                (String) row[8], (Calendar) row[9]);
+                        summary.setProperties(new HashMap<String, String>());
+                        summaries.put(uuid, summary);
+                    }
+                    if (projectProperties && row[10] != null) {
+                        summary.getProperties().put((String) row[10], (String) row[11]);
+                    }
+                }
+                return new ArrayList<>(summaries.values());
+            }
+        }.execute();
+    }
 }
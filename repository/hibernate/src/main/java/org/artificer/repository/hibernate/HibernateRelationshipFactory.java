@@ -21,14 +21,25 @@ import org.artificer.common.error.ArtificerServerException;
 import org.artificer.repository.hibernate.entity.ArtificerArtifact;
 
 import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * During batch or derivation processing, it's useful to map UUIDs to artifacts, in memory.  This prevents a bunch
  * of needless trips to the DB to repeatedly lookup, for example, artifacts-by-UUID for use in relationship
  * target creation.
  *
+ * Relationship targets should be {@link #resolve(Collection, EntityManager)}'d up front, in bulk (chunked IN queries),
+ * rather than looked up one at a time.  Targets are fully loaded, since the saved artifact is converted back to
+ * S-RAMP (reading each target's UUID, model and type), sometimes after the session has closed.
+ *
  * Note that this should be used only once per batch or primary+derivation upload process.  Do not allow it to
  * hang out in memory, permanently!
  *
@@ -36,15 +47,61 @@ import java.util.Map;
  */
 public class HibernateRelationshipFactory {
 
+    // Most databases restrict the size of IN lists.  1000 is safe for all that we support.
+    private static final int CHUNK_SIZE = 1000;
+
     // Optimization.  When a new artifact is (derived and) stored, track the S-RAMP UUIDs
     // and entities here.  When creating the actual relationships, this saves *many* needless queries.
     private final Map<String, ArtificerArtifact> entities = new HashMap<>();
 
+    // UUIDs already known not to exist (or to be trashed).
+    private final Set<String> missing = new HashSet<>();
+
+    /**
+     * Resolves all of the given UUIDs that aren't already known, in as few queries as possible.
+     *
+     * @param uuids
+     * @param entityManager
+     * @throws ArtificerException
+     */
+    public void resolve(Collection<String> uuids, EntityManager entityManager) throws ArtificerException {
+        Set<String> distinct = new LinkedHashSet<>(uuids);
+        distinct.removeAll(entities.keySet());
+        distinct.removeAll(missing);
+        if (distinct.isEmpty()) {
+            return;
+        }
+        List<String> unresolved = new ArrayList<>(distinct);
+
+        try {
+            for (int i = 0; i < unresolved.size(); i += CHUNK_SIZE) {
+                List<String> chunk = unresolved.subList(i, Math.min(i + CHUNK_SIZE, unresolved.size()));
+                Query q = entityManager.createQuery(
+                        "FROM ArtificerArtifact a WHERE a.trashed = false AND a.uuid IN :uuids");
+                q.setParameter("uuids", chunk);
+                List<ArtificerArtifact> artifacts = q.getResultList();
+                for (ArtificerArtifact artifact : artifacts) {
+                    entities.put(artifact.getUuid(), artifact);
+                }
+            }
+        } catch (Throwable t) {
+            throw new ArtificerServerException(t);
+        }
+
+        for (String uuid : unresolved) {
+            if (!entities.containsKey(uuid)) {
+                missing.add(uuid);
+            }
+        }
+    }
+
     public ArtificerArtifact createRelationship(String uuid, EntityManager entityManager) throws ArtificerException {
         try {
             ArtificerArtifact entity;
             if (entities.containsKey(uuid)) {
                 entity = entities.get(uuid);
+            } else if (missing.contains(uuid)) {
+                entity = null;
             } else {
                 entity  = HibernateUtil.getArtifact(uuid, entityManager, false);
             }
@@ -63,5 +120,6 @@ public class HibernateRelationshipFactory {
 
     public void trackEntity(String uuid, ArtificerArtifact entity) {
         entities.put(uuid, entity);
+        missing.remove(uuid);
     }
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.repository.hibernate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cumulative numbers for {@link HibernateUtil.HibernateTask}s: how long acquiring an EntityManager (and its
+ * connection) takes, how many tasks run concurrently, and how many callers had to wait on the one-time
+ * initialization.  Once initialized, acquisition takes no locks, so the concurrency should scale with the connection
+ * pool rather than flatten out.
+ *
+ * @author Brett Meyer
+ */
+public class HibernateTaskStatistics {
+
+    private final AtomicLong tasks = new AtomicLong();
+
+    private final AtomicLong acquisitionNanos = new AtomicLong();
+
+    private final AtomicLong maxAcquisitionNanos = new AtomicLong();
+
+    private final AtomicLong initializationWaits = new AtomicLong();
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    private final AtomicInteger peakActive = new AtomicInteger();
+
+    void taskStarted() {
+        tasks.incrementAndGet();
+        int current = active.incrementAndGet();
+        int peak = peakActive.get();
+        while (current > peak && !peakActive.compareAndSet(peak, current)) {
+            peak = peakActive.get();
+        }
+    }
+
+    void taskFinished() {
+        active.decrementAndGet();
+    }
+
+    void acquired(long nanos) {
+        acquisitionNanos.addAndGet(nanos);
+        long max = maxAcquisitionNanos.get();
+        while (nanos > max && !maxAcquisitionNanos.compareAndSet(max, nanos)) {
+            max = maxAcquisitionNanos.get();
+        }
+    }
+
+    void initializationWait() {
+        initializationWaits.incrementAndGet();
+    }
+
+    /**
+     * @return the number of tasks executed
+     */
+    public long getTaskCount() {
+        return tasks.get();
+    }
+
+    /**
+     * @return the number of tasks currently executing
+     */
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    /**
+     * @return the most tasks ever executing at once
+     */
+    public int getPeakActiveCount() {
+        return peakActive.get();
+    }
+
+    /**
+     * @return the average time (in microseconds) to acquire an EntityManager and begin its transaction
+     */
+    public long getAverageAcquisitionMicros() {
+        long count = tasks.get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(acquisitionNanos.get() / count);
+    }
+
+    /**
+     * @return the longest time (in microseconds) to acquire an EntityManager and begin its transaction
+     */
+    public long getMaxAcquisitionMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxAcquisitionNanos.get());
+    }
+
+    /**
+     * @return the number of callers that found the EntityManagerFactory uninitialized and had to take the lock
+     */
+    public long getInitializationWaitCount() {
+        return initializationWaits.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Hibernate tasks: %d executed, %d active (peak %d), acquisition avg %d us / max %d us, "
+                + "%d initialization waits", getTaskCount(), getActiveCount(), getPeakActiveCount(),
+                getAverageAcquisitionMicros(), getMaxAcquisitionMicros(), getInitializationWaitCount());
+    }
+}
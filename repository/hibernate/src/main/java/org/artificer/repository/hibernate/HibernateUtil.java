@@ -22,14 +22,23 @@ import java.io.Serializable;
 import java.net.URL;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.NoResultException;
 import javax.persistence.Query;
+import javax.sql.DataSource;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
@@ -39,11 +48,19 @@ import org.artificer.common.error.ArtificerNotFoundException;
 import org.artificer.common.error.ArtificerServerException;
 import org.artificer.common.ontology.ArtificerOntology;
 import org.artificer.repository.hibernate.entity.ArtificerArtifact;
+import org.artificer.repository.hibernate.entity.ArtificerProperty;
 import org.artificer.repository.hibernate.entity.ArtificerStoredQuery;
+import org.hibernate.CacheMode;
+import org.hibernate.FlushMode;
 import org.hibernate.Hibernate;
 import org.hibernate.Session;
 import org.hibernate.ejb.HibernatePersistence;
+import org.hibernate.jpa.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.jdbc.ReturningWork;
+import org.hibernate.jdbc.Work;
+import org.hibernate.persister.entity.EntityPersister;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -52,9 +69,40 @@ import org.slf4j.LoggerFactory;
  */
 public class HibernateUtil {
 
+    /**
+     * Lazy collections of artifacts, relationships, and targets are initialized this many owners at a time, rather
+     * than one at a time (see {@link #getArtifacts(List, EntityManager)}).
+     */
+    public static final int FETCH_BATCH_SIZE = 100;
+
+    // Keeps the IN lists below every database's limit.
+    private static final int IN_LIMIT = 1000;
+
+    // Rows read (and committed) at a time by the one-time migrations run on startup.
+    private static final int MIGRATION_BATCH_SIZE = 1000;
+
+    /**
+     * The name recorded in the SchemaMigration table once {@link #backfillTypedPropertyValues} has run.
+     */
+    public static final String TYPED_PROPERTY_VALUES_MIGRATION = "typedPropertyValues";
+
     private static String persistenceUnit = "Artificer";
 
-    private static EntityManagerFactory entityManagerFactory = null;
+    // Published only once fully initialized (including the DDL), so that tasks never need to lock.
+    private static volatile EntityManagerFactory entityManagerFactory = null;
+
+    private static final Object INIT_LOCK = new Object();
+
+    private static final HibernateTaskStatistics TASK_STATISTICS = new HibernateTaskStatistics();
+
+    // True if connections come from our own HikariCP pool(s), which reset the read-only flag on return.
+    private static volatile boolean pooled = false;
+
+    // True if read-only tasks are routed to a read replica.
+    private static volatile boolean readReplica = false;
+
+    // The pools built by initHikariCP, closed by shutdown().  Guarded by INIT_LOCK.
+    private static final List<HikariDataSource> POOLS = new ArrayList<HikariDataSource>();
 
     private static Logger LOG = LoggerFactory.getLogger(HibernateUtil.class);
 
@@ -63,13 +111,52 @@ public class HibernateUtil {
      * @param <T>
      */
     public static abstract class HibernateTask<T> {
+
+        private final boolean readOnly;
+
+        public HibernateTask() {
+            this(false);
+        }
+
+        protected HibernateTask(boolean readOnly) {
+            this.readOnly = readOnly;
+        }
+
         public T execute() throws ArtificerException {
             EntityManager entityManager = null;
+            TASK_STATISTICS.taskStarted();
+            // Always set, so that a task nested within a read-only task still writes to the primary.
+            Boolean previousRoute = ReplicaRoutingDataSource.route(readOnly && readReplica);
             try {
+                // Acquisition covers building the EntityManager and beginning the transaction (ie, obtaining a
+                // pooled connection).
+                long start = System.nanoTime();
                 entityManager = entityManager();
 
+                if (readOnly) {
+                    Session session = entityManager.unwrap(Session.class);
+                    // No flushing, no snapshots, and no dirty checking.
+                    session.setDefaultReadOnly(true);
+                    session.setFlushMode(FlushMode.MANUAL);
+                    if (readReplica) {
+                        // The replica may lag, so don't let it populate the shared caches.
+                        session.setCacheMode(CacheMode.GET);
+                    }
+                }
+
                 entityManager.getTransaction().begin();
 
+                if (readOnly && pooled) {
+                    // Let the driver (or replica) optimize.  Our pool resets the flag once the connection is returned.
+                    entityManager.unwrap(Session.class).doWork(new Work() {
+                        @Override
+                        public void execute(Connection connection) throws SQLException {
+                            connection.setReadOnly(true);
+                        }
+                    });
+                }
+                TASK_STATISTICS.acquired(System.nanoTime() - start);
+
                 T rtn = doExecute(entityManager);
 
                 entityManager.getTransaction().commit();
@@ -94,44 +181,162 @@ public class HibernateUtil {
                 }
                 throw new ArtificerServerException(t);
             } finally {
-//                entityManager.unwrap(Session.class).getSessionFactory().getStatistics().logSummary();
-
                 if (entityManager != null) {
                     entityManager.close();
                 }
+                ReplicaRoutingDataSource.restore(previousRoute);
+                TASK_STATISTICS.taskFinished();
             }
         }
 
         protected abstract T doExecute(EntityManager entityManager) throws Exception;
     }
 
-    private synchronized static EntityManager entityManager() throws Exception {
-        if (entityManagerFactory == null) {
-            // Pass in all hibernate.* settings from artificer.properties
-            Map<String, Object> properties = ArtificerConfig.getConfigProperties("hibernate");
+    /**
+     * A {@link HibernateTask} for pure reads (lookups, queries, listings).  Entities are loaded read-only, nothing is
+     * flushed, and, if 'hibernate.connection.replica.url' is configured, the task runs against the read replica.
+     * Never modify anything within one!
+     * @param <T>
+     */
+    public static abstract class ReadOnlyHibernateTask<T> extends HibernateTask<T> {
+        public ReadOnlyHibernateTask() {
+            super(true);
+        }
+    }
+
+    private static EntityManager entityManager() throws Exception {
+        EntityManagerFactory emf = entityManagerFactory;
+        if (emf == null) {
+            emf = startup();
+        }
+        return emf.createEntityManager();
+    }
 
-            if (properties.containsKey("hibernate.connection.url")) {
-                // If a connection is used, we *cannot* rely on Hibernate's built-in connection pool.  Instead,
-                // automatically set up HikariCP.
-                initHikariCP(properties);
+    /**
+     * Builds the EntityManagerFactory and, if they're not already installed, creates the tables.  Meant to be called
+     * once, on startup, but the first task will also call it if necessary.  Safe to call repeatedly.
+     *
+     * @return EntityManagerFactory
+     * @throws Exception
+     */
+    public static EntityManagerFactory startup() throws Exception {
+        EntityManagerFactory emf = entityManagerFactory;
+        if (emf != null) {
+            return emf;
+        }
+        TASK_STATISTICS.initializationWait();
+        synchronized (INIT_LOCK) {
+            if (entityManagerFactory == null) {
+                // Pass in all hibernate.* settings from artificer.properties
+                Map<String, Object> properties = ArtificerConfig.getConfigProperties("hibernate");
+
+                emf = null;
+                try {
+                    if (properties.containsKey("hibernate.connection.url")) {
+                        // If a connection is used, we *cannot* rely on Hibernate's built-in connection pool.
+                        // Instead, automatically set up HikariCP.
+                        initHikariCP(properties);
+                    }
+
+                    // 2LC and query cache regions, limits, and statistics
+                    CacheRegions.configure(properties);
+
+                    // Captures the SQL issued by each query, for the slow query log
+                    if (!properties.containsKey(AvailableSettings.INTERCEPTOR)) {
+                        properties.put(AvailableSettings.INTERCEPTOR, StatementCaptureInterceptor.class.getName());
+                    }
+
+                    emf = new HibernatePersistence().createEntityManagerFactory(persistenceUnit, properties);
+
+                    EntityManager entityManager = emf.createEntityManager();
+                    try {
+                        initDDL(entityManager, properties);
+                    } finally {
+                        entityManager.close();
+                    }
+                } catch (Exception e) {
+                    // Try again on the next call, rather than publishing a half-initialized factory.  The next
+                    // attempt builds its own pools, so close ours (also unregistering their MBeans, whose names
+                    // would otherwise clash).
+                    if (emf != null) {
+                        emf.close();
+                    }
+                    closePools();
+                    throw e;
+                }
+
+                entityManagerFactory = emf;
+                ArtificerMBeans.register(emf);
             }
+            return entityManagerFactory;
+        }
+    }
 
-            entityManagerFactory = new HibernatePersistence().createEntityManagerFactory(persistenceUnit, properties);
+    /**
+     * Closes the EntityManagerFactory and the connection pools built for it.  Hibernate never closes a DataSource it
+     * was handed, so this is the only place our pools are closed.  The next task starts everything up again (with
+     * the then current settings).
+     */
+    public static void shutdown() {
+        synchronized (INIT_LOCK) {
+            EntityManagerFactory emf = entityManagerFactory;
+            entityManagerFactory = null;
+            if (emf != null) {
+                emf.close();
+            }
+            closePools();
+        }
+    }
 
-            EntityManager entityManager = entityManagerFactory.createEntityManager();
-            initDDL(entityManager, properties);
-            return entityManager;
-        } else {
-            return entityManagerFactory.createEntityManager();
+    private static void closePools() {
+        for (HikariDataSource pool : POOLS) {
+            try {
+                pool.close();
+            } catch (Exception e) {
+                LOG.warn(e.getMessage(), e);
+            }
         }
+        POOLS.clear();
+        pooled = false;
+        readReplica = false;
+    }
+
+    /**
+     * @return HibernateTaskStatistics cumulative EntityManager acquisition and contention numbers for all tasks
+     */
+    public static HibernateTaskStatistics getTaskStatistics() {
+        return TASK_STATISTICS;
     }
 
     private static void initHikariCP(Map<String, Object> properties) {
         String connectionUrl = (String) properties.remove("hibernate.connection.url");
         String username = (String) properties.remove("hibernate.connection.username");
         String password = (String) properties.remove("hibernate.connection.password");
+        String replicaUrl = (String) properties.remove("hibernate.connection.replica.url");
+        String replicaUsername = (String) properties.remove("hibernate.connection.replica.username");
+        String replicaPassword = (String) properties.remove("hibernate.connection.replica.password");
+        String dialect = (String) properties.get("hibernate.dialect");
 
+        DataSource dataSource = hikariDataSource("artificer", connectionUrl, username, password, dialect);
+        if (StringUtils.isNotBlank(replicaUrl)) {
+            // Read-only tasks are routed to the replica.
+            DataSource replicaDataSource = hikariDataSource("artificer-replica", replicaUrl,
+                    replicaUsername != null ? replicaUsername : username,
+                    replicaPassword != null ? replicaPassword : password, dialect);
+            dataSource = new ReplicaRoutingDataSource(dataSource, replicaDataSource);
+            readReplica = true;
+        }
+        pooled = true;
+
+        properties.put("hibernate.connection.datasource", dataSource);
+    }
+
+    private static HikariDataSource hikariDataSource(String poolName, String connectionUrl, String username,
+            String password, String dialect) {
         HikariConfig hikariConfig = new HikariConfig();
+        // Also the name of the pool's MBean: com.zaxxer.hikari:type=Pool (<poolName>)
+        hikariConfig.setPoolName(poolName);
+        hikariConfig.setRegisterMbeans(ArtificerConfig.isJmxEnabled());
         hikariConfig.setJdbcUrl(connectionUrl);
         hikariConfig.setUsername(username);
         hikariConfig.setPassword(password);
@@ -142,15 +347,14 @@ public class HibernateUtil {
         hikariConfig.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
         hikariConfig.addDataSourceProperty("useServerPrepStmts", "true");
 
-        String dialect = (String) properties.get("hibernate.dialect");
         if (dialect != null && dialect.contains("PostgreSQL")) {
             // The JDBC jar verion in the IP BOM does not support Connection.isValid(), so need to use this:
             hikariConfig.setConnectionTestQuery("SELECT 1");
         }
 
-        HikariDataSource hikariDataSource = new HikariDataSource(hikariConfig);
-
-        properties.put("hibernate.connection.datasource", hikariDataSource);
+        HikariDataSource pool = new HikariDataSource(hikariConfig);
+        POOLS.add(pool);
+        return pool;
     }
 
     private static void initDDL(EntityManager entityManager, Map<String, Object> properties) throws Exception {
@@ -220,9 +424,180 @@ public class HibernateUtil {
                 }
                 LOG.info("END INITIALIZING DATABASE WITH SCRIPT");
             }
+        } else {
+            backfillTypedPropertyValues(entityManager, connection, schema);
         }
     }
 
+    /**
+     * Properties written before the typed columns (numericValue, timestampValue) were added have them NULL, and would
+     * never match a numeric or chronological predicate.  Derive them from the value, exactly as
+     * {@link ArtificerProperty#updateTypedValues()} does on write.
+     *
+     * Runs once, recorded in the SchemaMigration table (the DDL scripts record it for new databases).  The Property
+     * table is walked by id, {@link #MIGRATION_BATCH_SIZE} rows at a time, each batch committed on its own.  Values
+     * that aren't numbers or dates after all (ex: "1.0.3") are passed over, and never read again.
+     */
+    private static void backfillTypedPropertyValues(EntityManager entityManager, Connection connection,
+            String schema) {
+        final String table = schema == null ? "Property" : schema + ".Property";
+        try {
+            if (!hasColumn(connection, schema, "Property", "numericValue")) {
+                LOG.warn("The Property table is missing the numericValue and timestampValue columns (and their "
+                        + "indexes) -- add them, as in the DDL scripts, for typed property predicates to work.");
+                return;
+            }
+            if (isMigrated(entityManager, connection, schema, TYPED_PROPERTY_VALUES_MIGRATION)) {
+                return;
+            }
+
+            LOG.info("Backfilling the typed property columns");
+            long lastId = Long.MIN_VALUE;
+            int backfilled = 0;
+            while (true) {
+                final long fromId = lastId;
+                // {id of the batch's last row (or null if there were none), rows updated}
+                Object[] batch = doInTransaction(entityManager, new ReturningWork<Object[]>() {
+                    @Override
+                    public Object[] execute(Connection connection) throws SQLException {
+                        Long batchLastId = null;
+                        int updated = 0;
+                        try (PreparedStatement select = connection.prepareStatement("SELECT id, propertyValue FROM "
+                                + table + " WHERE id > ? AND numericValue IS NULL AND timestampValue IS NULL"
+                                + " ORDER BY id");
+                                PreparedStatement update = connection.prepareStatement("UPDATE " + table
+                                        + " SET numericValue = ?, timestampValue = ? WHERE id = ?")) {
+                            select.setMaxRows(MIGRATION_BATCH_SIZE);
+                            select.setLong(1, fromId);
+                            try (ResultSet resultSet = select.executeQuery()) {
+                                while (resultSet.next()) {
+                                    batchLastId = resultSet.getLong(1);
+                                    String value = resultSet.getString(2);
+                                    Double numericValue = ArtificerProperty.parseNumber(value);
+                                    Calendar timestampValue = ArtificerProperty.parseTimestamp(value);
+                                    if (numericValue == null && timestampValue == null) {
+                                        continue;
+                                    }
+                                    if (numericValue == null) {
+                                        update.setNull(1, Types.DOUBLE);
+                                    } else {
+                                        update.setDouble(1, numericValue);
+                                    }
+                                    if (timestampValue == null) {
+                                        update.setNull(2, Types.TIMESTAMP);
+                                    } else {
+                                        update.setTimestamp(2, new Timestamp(timestampValue.getTimeInMillis()));
+                                    }
+                                    update.setLong(3, batchLastId);
+                                    update.addBatch();
+                                    updated++;
+                                }
+                            }
+                            if (updated > 0) {
+                                update.executeBatch();
+                            }
+                        }
+                        return new Object[] {batchLastId, updated};
+                    }
+                });
+                if (batch[0] == null) {
+                    break;
+                }
+                lastId = (Long) batch[0];
+                backfilled += (Integer) batch[1];
+            }
+
+            markMigrated(entityManager, schema, TYPED_PROPERTY_VALUES_MIGRATION);
+            LOG.info("Backfilled the typed columns of " + backfilled + " properties");
+        } catch (Exception e) {
+            // Not worth failing the startup over -- only typed predicates on older properties are affected.  The
+            // batches committed so far are simply read again (and passed over) on the next startup.
+            LOG.error("Unable to backfill the typed property columns", e);
+            if (entityManager.getTransaction().isActive()) {
+                entityManager.getTransaction().rollback();
+            }
+        }
+    }
+
+    /**
+     * @return true if the given one-time migration has already run (creating the SchemaMigration table, missing from
+     * databases older than the migrations themselves)
+     */
+    private static boolean isMigrated(EntityManager entityManager, Connection connection, final String schema,
+            final String migration) throws SQLException {
+        final boolean exists = hasTable(connection, schema, "SchemaMigration");
+        return doInTransaction(entityManager, new ReturningWork<Boolean>() {
+            @Override
+            public Boolean execute(Connection connection) throws SQLException {
+                String table = schema == null ? "SchemaMigration" : schema + ".SchemaMigration";
+                if (!exists) {
+                    try (Statement create = connection.createStatement()) {
+                        create.executeUpdate("CREATE TABLE " + table
+                                + " (name VARCHAR(255) NOT NULL, PRIMARY KEY (name))");
+                    }
+                    return false;
+                }
+                try (PreparedStatement select = connection.prepareStatement(
+                        "SELECT name FROM " + table + " WHERE name = ?")) {
+                    select.setString(1, migration);
+                    try (ResultSet resultSet = select.executeQuery()) {
+                        return resultSet.next();
+                    }
+                }
+            }
+        });
+    }
+
+    private static void markMigrated(EntityManager entityManager, final String schema, final String migration) {
+        doInTransaction(entityManager, new ReturningWork<Void>() {
+            @Override
+            public Void execute(Connection connection) throws SQLException {
+                String table = schema == null ? "SchemaMigration" : schema + ".SchemaMigration";
+                try (PreparedStatement insert = connection.prepareStatement(
+                        "INSERT INTO " + table + " (name) VALUES (?)")) {
+                    insert.setString(1, migration);
+                    insert.executeUpdate();
+                }
+                return null;
+            }
+        });
+    }
+
+    private static <T> T doInTransaction(EntityManager entityManager, ReturningWork<T> work) {
+        entityManager.getTransaction().begin();
+        T result = entityManager.unwrap(Session.class).doReturningWork(work);
+        entityManager.getTransaction().commit();
+        return result;
+    }
+
+    private static boolean hasTable(Connection connection, String schema, String table) throws SQLException {
+        DatabaseMetaData metadata = connection.getMetaData();
+        // the case depends on the database (thanks again, Oracle)
+        for (String name : new String[] {table, table.toUpperCase(), table.toLowerCase()}) {
+            try (ResultSet tables = metadata.getTables(null, schema, name, null)) {
+                if (tables.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasColumn(Connection connection, String schema, String table, String column)
+            throws SQLException {
+        DatabaseMetaData metadata = connection.getMetaData();
+        // the case depends on the database (thanks again, Oracle)
+        for (String[] names : new String[][] {{table, column}, {table.toUpperCase(), column.toUpperCase()},
+                {table.toLowerCase(), column.toLowerCase()}}) {
+            try (ResultSet columns = metadata.getColumns(null, schema, names[0], names[1])) {
+                if (columns.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     private static boolean hasTables(Connection connection, String schema) throws Exception {
         DatabaseMetaData metadata = connection.getMetaData();
 
@@ -245,7 +620,7 @@ public class HibernateUtil {
     public static ArtificerArtifact getArtifact(String uuid, EntityManager entityManager, boolean fullFetch) throws ArtificerException {
         Query q = entityManager.createQuery("FROM ArtificerArtifact a WHERE a.trashed = false AND a.uuid = :uuid");
         q.setParameter("uuid", uuid);
-        q.unwrap(org.hibernate.Query.class).setCacheable(true);
+        q.unwrap(org.hibernate.Query.class).setCacheable(true).setCacheRegion(CacheRegions.QUERY_ARTIFACTS);
         ArtificerArtifact artifact;
         try {
             artifact = (ArtificerArtifact) q.getSingleResult();
@@ -263,10 +638,46 @@ public class HibernateUtil {
         return artifact;
     }
 
+    /**
+     * Loads the given artifacts (skipping any that don't exist or are trashed), fully fetched, in the given order.
+     * The artifacts are selected by IN list, and since their collections are batch fetched
+     * ({@link #FETCH_BATCH_SIZE}), initializing them costs a handful of statements, regardless of the number of
+     * artifacts.
+     * @param uuids
+     * @param entityManager
+     * @return List<ArtificerArtifact>
+     */
+    public static List<ArtificerArtifact> getArtifacts(List<String> uuids, EntityManager entityManager) {
+        Map<String, ArtificerArtifact> artifacts = new HashMap<>();
+        for (int i = 0; i < uuids.size(); i += IN_LIMIT) {
+            Query q = entityManager.createQuery("FROM ArtificerArtifact a WHERE a.trashed = false AND a.uuid IN :uuids");
+            q.setParameter("uuids", uuids.subList(i, Math.min(i + IN_LIMIT, uuids.size())));
+            for (Object result : q.getResultList()) {
+                ArtificerArtifact artifact = (ArtificerArtifact) result;
+                artifacts.put(artifact.getUuid(), artifact);
+            }
+        }
+
+        List<ArtificerArtifact> results = new ArrayList<>(artifacts.size());
+        for (String uuid : uuids) {
+            ArtificerArtifact artifact = artifacts.remove(uuid);
+            if (artifact != null) {
+                results.add(artifact);
+            }
+        }
+        for (ArtificerArtifact artifact : results) {
+            Hibernate.initialize(artifact.getClassifiers());
+            Hibernate.initialize(artifact.getComments());
+            Hibernate.initialize(artifact.getNormalizedClassifiers());
+            Hibernate.initialize(artifact.getRelationships());
+        }
+        return results;
+    }
+
     public static ArtificerOntology getOntology(String uuid, EntityManager entityManager) throws ArtificerException {
         Query q = entityManager.createQuery("FROM ArtificerOntology a WHERE a.uuid = :uuid");
         q.setParameter("uuid", uuid);
-        q.unwrap(org.hibernate.Query.class).setCacheable(true);
+        q.unwrap(org.hibernate.Query.class).setCacheable(true).setCacheRegion(CacheRegions.QUERY_ONTOLOGIES);
         ArtificerOntology ontology;
         try {
             ontology = (ArtificerOntology) q.getSingleResult();
@@ -286,7 +697,27 @@ public class HibernateUtil {
     }
 
     public static void evict(Class clazz, Serializable id, EntityManager entityManager) {
-        entityManager.unwrap(Session.class).getSessionFactory().getCache().evictEntity(clazz, id);
+        SessionFactoryImplementor sessionFactory
+                = (SessionFactoryImplementor) entityManager.unwrap(Session.class).getSessionFactory();
+        sessionFactory.getCache().evictEntity(clazz, id);
+
+        EntityPersister persister = sessionFactory.getEntityPersister(clazz.getName());
+        if (persister.hasCache()) {
+            CacheStatistics.recordEviction(persister.getCacheAccessStrategy().getRegion().getName());
+        }
+    }
+
+    /**
+     * @return Map<String, CacheStatistics> a snapshot of every cache region, keyed by region name
+     * @throws ArtificerException
+     */
+    public static Map<String, CacheStatistics> getCacheStatistics() throws ArtificerException {
+        return new HibernateTask<Map<String, CacheStatistics>>() {
+            @Override
+            protected Map<String, CacheStatistics> doExecute(EntityManager entityManager) throws Exception {
+                return CacheStatistics.snapshot(entityManager.unwrap(Session.class).getSessionFactory());
+            }
+        }.execute();
     }
 
     /**
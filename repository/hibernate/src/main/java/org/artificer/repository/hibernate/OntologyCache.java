@@ -0,0 +1,150 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.repository.hibernate;
+
+import org.artificer.common.ArtificerConfig;
+import org.artificer.common.ontology.ArtificerOntology;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds the fully-fetched list of ontologies (the 'artificer.ontologies' region), from which the classifier
+ * resolution snapshot is built.  It is loaded with a JOIN FETCH, which cannot use the query cache + 2LC until
+ * https://hibernate.atlassian.net/browse/HHH-1523.  Persisting, updating, or deleting an ontology invalidates it.
+ *
+ * Invalidation is local to the node, so the list also expires after 'artificer.config.cache.ontologies.ttl'.  The
+ * classifier resolution snapshot lives exactly as long as the list it was built from (see {@link #contains(List)}).
+ *
+ * @author Brett Meyer
+ */
+public class OntologyCache {
+
+    private static final long DEFAULT_TTL = 60000;
+
+    private static final OntologyCache INSTANCE = new OntologyCache(
+            ArtificerConfig.isCacheEnabled(), ArtificerConfig.getCacheTtl("ontologies", DEFAULT_TTL));
+
+    public static OntologyCache getInstance() {
+        return INSTANCE;
+    }
+
+    private final boolean enabled;
+
+    private final long ttl;
+
+    // Bumped by every invalidation.  A list loaded while a write was in flight must not be cached.
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong puts = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    // Written under the lock, but volatile so that contains() (called for every classifier lookup) needn't take it.
+    private volatile List<ArtificerOntology> ontologies = null;
+
+    private volatile long expires;
+
+    public OntologyCache(boolean enabled, long ttl) {
+        this.enabled = enabled;
+        this.ttl = ttl;
+    }
+
+    /**
+     * @return the current generation, to be captured *before* loading the ontologies and then given to
+     * {@link #put(List, long)}
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * @return the cached ontologies, or null if they need to be (re-)loaded
+     */
+    public synchronized List<ArtificerOntology> get() {
+        if (ontologies != null && expires < System.currentTimeMillis()) {
+            ontologies = null;
+            evictions.incrementAndGet();
+        }
+        if (ontologies == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return ontologies;
+    }
+
+    /**
+     * @param ontologies
+     * @param generation
+     * @return List<ArtificerOntology> the unmodifiable list that was (or would have been) cached
+     */
+    public synchronized List<ArtificerOntology> put(List<ArtificerOntology> ontologies, long generation) {
+        List<ArtificerOntology> unmodifiable = Collections.unmodifiableList(ontologies);
+        // Checked under the lock, since invalidation also holds it.
+        if (enabled && generation == this.generation.get()) {
+            this.ontologies = unmodifiable;
+            expires = System.currentTimeMillis() + ttl;
+            puts.incrementAndGet();
+        }
+        return unmodifiable;
+    }
+
+    /**
+     * @param ontologies a list returned by {@link #get()} or {@link #put(List, long)}
+     * @return true if that very list is still cached (neither expired nor invalidated since)
+     */
+    public boolean contains(List<ArtificerOntology> ontologies) {
+        return ontologies != null && ontologies == this.ontologies && expires >= System.currentTimeMillis();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public synchronized void invalidate() {
+        generation.incrementAndGet();
+        if (ontologies != null) {
+            ontologies = null;
+            evictions.incrementAndGet();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getPutCount() {
+        return puts.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public synchronized long getElementCount() {
+        return ontologies == null ? 0 : ontologies.size();
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.repository.hibernate;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.logging.Logger;
+
+/**
+ * Hands out connections from the read replica while the current thread is executing a
+ * {@link HibernateUtil.ReadOnlyHibernateTask}, and from the primary otherwise.  Hibernate acquires the connection
+ * when the transaction begins and holds it until the transaction ends, so the routing decision is made exactly once
+ * per task.
+ *
+ * @author Brett Meyer
+ */
+public class ReplicaRoutingDataSource implements DataSource {
+
+    private static final ThreadLocal<Boolean> USE_REPLICA = new ThreadLocal<Boolean>();
+
+    private final DataSource primary;
+
+    private final DataSource replica;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica) {
+        this.primary = primary;
+        this.replica = replica;
+    }
+
+    /**
+     * Routes the current thread's subsequent connections.
+     * @param useReplica
+     * @return the previous routing, to be given to {@link #restore(Boolean)}
+     */
+    static Boolean route(boolean useReplica) {
+        Boolean previous = USE_REPLICA.get();
+        USE_REPLICA.set(useReplica);
+        return previous;
+    }
+
+    static void restore(Boolean previous) {
+        if (previous == null) {
+            USE_REPLICA.remove();
+        } else {
+            USE_REPLICA.set(previous);
+        }
+    }
+
+    private DataSource target() {
+        return Boolean.TRUE.equals(USE_REPLICA.get()) ? replica : primary;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return target().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return target().getConnection(username, password);
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return primary.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        primary.setLogWriter(out);
+        replica.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        primary.setLoginTimeout(seconds);
+        replica.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return primary.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+}
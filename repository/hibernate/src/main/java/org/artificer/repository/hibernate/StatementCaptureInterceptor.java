@@ -0,0 +1,35 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.repository.hibernate;
+
+import org.artificer.repository.query.QueryProfile;
+import org.hibernate.EmptyInterceptor;
+
+/**
+ * Notes every SQL statement prepared while a query is being profiled (see {@link QueryProfile}), so that the slow
+ * query log can show exactly what was run.  Outside of a query execution, this is a ThreadLocal lookup and nothing
+ * more.
+ *
+ * @author Brett Meyer
+ */
+public class StatementCaptureInterceptor extends EmptyInterceptor {
+
+    @Override
+    public String onPrepareStatement(String sql) {
+        QueryProfile.statement(sql);
+        return sql;
+    }
+}
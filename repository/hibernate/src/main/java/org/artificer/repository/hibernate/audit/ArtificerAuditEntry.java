@@ -31,6 +31,7 @@ import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
 
+import org.artificer.repository.hibernate.CacheRegions;
 import org.artificer.repository.hibernate.entity.ArtificerArtifact;
 import org.artificer.repository.hibernate.entity.ArtificerUser;
 import org.hibernate.annotations.Cache;
@@ -43,7 +44,7 @@ import org.hibernate.annotations.Immutable;
 @Entity
 @Immutable
 @Cacheable
-@Cache(usage = CacheConcurrencyStrategy.READ_ONLY)
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = CacheRegions.AUDIT)
 @Table(name = "AuditEntry")
 public class ArtificerAuditEntry implements Serializable {
 
@@ -30,6 +30,7 @@ import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
 
+import org.artificer.repository.hibernate.CacheRegions;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Immutable;
@@ -40,7 +41,7 @@ import org.hibernate.annotations.Immutable;
 @Entity
 @Immutable
 @Cacheable
-@Cache(usage = CacheConcurrencyStrategy.READ_ONLY)
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = CacheRegions.AUDIT)
 @Table(name = "AuditItem")
 public class ArtificerAuditItem implements Serializable {
 
@@ -30,76 +30,21 @@ import java.util.Map;
 import java.util.UUID;
 
 /**
- * A class that is able to compare an artifact and output
- * the differences in properties, relationships, and classifiers.  This class
- * is used by the auditing code to record changes made to a node.
+ * Creates the audit entries for artifact adds, updates, and deletes.  Updates are recorded from the
+ * {@link ArtifactDiff} (the change set) computed while the update was applied, so nothing needs to be
+ * snapshotted ahead of time.
  *
  * @author Brett Meyer.
  */
 public class HibernateAuditor {
 
-    private final Map<String, String> oldProperties = new HashMap<>();
-    private final List<String> oldClassifiers = new ArrayList<>();
-
-    /**
-     * Constructor.  Creates an initial snapshot of information found in the
-     * included artifact.  The information will be used for a later comparison.
-     */
-    public HibernateAuditor(ArtificerArtifact oldArtifact) {
-		// Note: Do not directly use the ArtificerArtifact collections, as they are going to change before #diff is called!
-		oldProperties.putAll(oldArtifact.snapshotProperties());
-        oldClassifiers.addAll(oldArtifact.getClassifiers());
-    }
-
     /**
-     * Called to compare the initial snapshot information with the current state
-     * of the artifact node.
+     * Records the differences in properties and classifiers made by an update.
      *
-     * @param newArtifact
+     * @param artifact
+     * @param diff
      */
-    public ArtificerAuditEntry diff(ArtificerArtifact newArtifact) {
-        ArtifactDiff diff = new ArtifactDiff();
-
-        Map<String, String> newProperties = newArtifact.snapshotProperties();
-        List<String> newClassifiers = newArtifact.getClassifiers();
-
-        for (String name : newProperties.keySet()) {
-            String newValue = newProperties.get(name);
-            newValue = newValue == null ? "" : newValue;
-            if (oldProperties.containsKey(name)) {
-                String oldValue = oldProperties.get(name);
-                oldValue = oldValue == null ? "" : oldValue;
-                if (!oldValue.equals(newValue)) {
-                    diff.getUpdatedProperties().put(name, newValue);
-                }
-                // Remove it so that, at the end of this, the map of properties contains all
-                // properties that were removed.
-                oldProperties.remove(name);
-            } else {
-                diff.getAddedProperties().put(name, newValue);
-            }
-        }
-
-        for (String newClassifier : newClassifiers) {
-            if (!oldClassifiers.contains(newClassifier)) {
-                diff.getAddedClassifiers().add(newClassifier);
-            }
-            // Remove it so that, at the end of this, the classifier set contains only
-            // classifiers that were removed.
-            oldClassifiers.remove(newClassifier);
-        }
-
-        // Process property deletes
-        for (Map.Entry<String, String> entry : oldProperties.entrySet()) {
-            String name = entry.getKey();
-            diff.getDeletedProperties().add(name);
-        }
-
-        // Process classifier deletes
-        for (String classifier : oldClassifiers) {
-            diff.getDeletedClassifiers().add(classifier);
-        }
-
+    public static ArtificerAuditEntry createUpdateEntry(ArtificerArtifact artifact, ArtifactDiff diff) {
         ArtificerAuditEntry artificerAuditEntry = new ArtificerAuditEntry();
         artificerAuditEntry.setUuid(UUID.randomUUID().toString());
         artificerAuditEntry.setModifiedBy(HibernateEntityFactory.user());
@@ -125,8 +70,8 @@ public class HibernateAuditor {
         }
         createAuditItem(artificerAuditEntry, AuditItemTypes.CLASSIFIERS_REMOVED, deletedClassifiers);
 
-        artificerAuditEntry.setArtifact(newArtifact);
-        newArtifact.getAuditEntries().add(artificerAuditEntry);
+        artificerAuditEntry.setArtifact(artifact);
+        artifact.getAuditEntries().add(artificerAuditEntry);
 
         return artificerAuditEntry;
     }
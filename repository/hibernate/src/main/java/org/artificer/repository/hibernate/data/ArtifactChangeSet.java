@@ -0,0 +1,121 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.repository.hibernate.data;
+
+import org.artificer.repository.audit.ArtifactDiff;
+
+import java.util.Objects;
+
+/**
+ * The changes actually applied to a managed artifact by {@link SrampToHibernateEntityVisitor} and
+ * {@link SrampToHibernateEntityRelationshipsVisitor}.  Rather than clearing and re-inserting every property,
+ * classifier, and relationship, the visitors compare the incoming S-RAMP artifact against the entity and only touch
+ * what differs.  The same change set is then handed to the auditor, so nothing needs to be snapshotted up front.
+ *
+ * Built-in meta-data (name, description, version) is tracked alongside the properties, as the audit history has
+ * always presented it that way.  Property values are recorded as "" if null.
+ *
+ * @author Brett Meyer
+ */
+public class ArtifactChangeSet extends ArtifactDiff {
+
+    private int addedRelationships;
+
+    private int removedRelationships;
+
+    private int addedTargets;
+
+    private int removedTargets;
+
+    void propertyAdded(String key, String value) {
+        getAddedProperties().put(key, value == null ? "" : value);
+    }
+
+    void propertyChanged(String key, String oldValue, String newValue) {
+        if (!Objects.equals(emptyIfNull(oldValue), emptyIfNull(newValue))) {
+            getUpdatedProperties().put(key, emptyIfNull(newValue));
+        }
+    }
+
+    void propertyRemoved(String key) {
+        getDeletedProperties().add(key);
+    }
+
+    void classifierAdded(String classifier) {
+        getAddedClassifiers().add(classifier);
+    }
+
+    void classifierRemoved(String classifier) {
+        getDeletedClassifiers().add(classifier);
+    }
+
+    void relationshipAdded(int targets) {
+        addedRelationships++;
+        addedTargets += targets;
+    }
+
+    void relationshipRemoved(int targets) {
+        removedRelationships++;
+        removedTargets += targets;
+    }
+
+    void targetAdded() {
+        addedTargets++;
+    }
+
+    void targetRemoved() {
+        removedTargets++;
+    }
+
+    public int getAddedRelationships() {
+        return addedRelationships;
+    }
+
+    public int getRemovedRelationships() {
+        return removedRelationships;
+    }
+
+    public int getAddedTargets() {
+        return addedTargets;
+    }
+
+    public int getRemovedTargets() {
+        return removedTargets;
+    }
+
+    /**
+     * @return true if the properties, classifiers, and relationships were left untouched
+     */
+    public boolean isEmpty() {
+        return getAddedProperties().isEmpty() && getUpdatedProperties().isEmpty()
+                && getDeletedProperties().isEmpty() && getAddedClassifiers().isEmpty()
+                && getDeletedClassifiers().isEmpty() && addedTargets == 0 && removedTargets == 0
+                && addedRelationships == 0 && removedRelationships == 0;
+    }
+
+    private static String emptyIfNull(String value) {
+        return value == null ? "" : value;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d properties added, %d changed, %d removed; %d classifiers added, %d removed; "
+                + "%d relationships added, %d removed; %d targets added, %d removed",
+                getAddedProperties().size(), getUpdatedProperties().size(), getDeletedProperties().size(),
+                getAddedClassifiers().size(), getDeletedClassifiers().size(), addedRelationships,
+                removedRelationships, addedTargets, removedTargets);
+    }
+}
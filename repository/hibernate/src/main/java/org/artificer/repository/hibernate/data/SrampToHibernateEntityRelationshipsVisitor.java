@@ -73,8 +73,13 @@ import javax.xml.namespace.QName;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 /**
  * @author Brett Meyer.
@@ -85,23 +90,137 @@ public class SrampToHibernateEntityRelationshipsVisitor extends HierarchicalArti
     private final HibernateRelationshipFactory relationshipFactory;
 	private final EntityManager entityManager;
 
+    // If non-null, the visitor only collects the target UUIDs, rather than creating anything.
+    private final Set<String> targetUuids;
+
+    // What the artifact *should* have.  Diff'd against the entity once the visit is complete.
+    private final List<ArtificerRelationship> relationships = new ArrayList<>();
+    private final Map<ArtificerTarget, String> relationshipTargetUuids = new IdentityHashMap<>();
+
     public static void visit(BaseArtifactType srampArtifact, ArtificerArtifact artificerArtifact,
             HibernateRelationshipFactory relationshipFactory, EntityManager entityManager) throws Exception {
+        visit(srampArtifact, artificerArtifact, relationshipFactory, entityManager, new ArtifactChangeSet());
+    }
+
+    /**
+     * Updates the (possibly managed) entity's relationships.  Relationships and targets are immutable, so unchanged
+     * ones are left alone, and only the added or removed relationships and targets are inserted or deleted.
+     *
+     * @param srampArtifact
+     * @param artificerArtifact
+     * @param relationshipFactory
+     * @param entityManager
+     * @param changeSet receives the changes that were applied
+     * @return ArtifactChangeSet
+     * @throws Exception
+     */
+    public static ArtifactChangeSet visit(BaseArtifactType srampArtifact, ArtificerArtifact artificerArtifact,
+            HibernateRelationshipFactory relationshipFactory, EntityManager entityManager,
+            ArtifactChangeSet changeSet) throws Exception {
+        // First, gather every target so that they're resolved in bulk, rather than with a query apiece.
+        SrampToHibernateEntityRelationshipsVisitor collector = new SrampToHibernateEntityRelationshipsVisitor(
+                artificerArtifact, relationshipFactory, entityManager, new LinkedHashSet<String>());
+        ArtifactVisitorHelper.visitArtifact(collector, srampArtifact);
+        collector.throwError();
+        relationshipFactory.resolve(collector.targetUuids, entityManager);
+
         SrampToHibernateEntityRelationshipsVisitor visitor = new SrampToHibernateEntityRelationshipsVisitor(
-                artificerArtifact, relationshipFactory, entityManager);
+                artificerArtifact, relationshipFactory, entityManager, null);
         ArtifactVisitorHelper.visitArtifact(visitor, srampArtifact);
 
         visitor.throwError();
+
+        visitor.applyRelationships(changeSet);
+
+        return changeSet;
     }
 
-    public SrampToHibernateEntityRelationshipsVisitor(ArtificerArtifact artificerArtifact,
-            HibernateRelationshipFactory relationshipFactory, EntityManager entityManager) {
+    private SrampToHibernateEntityRelationshipsVisitor(ArtificerArtifact artificerArtifact,
+            HibernateRelationshipFactory relationshipFactory, EntityManager entityManager, Set<String> targetUuids) {
         this.artificerArtifact = artificerArtifact;
         this.relationshipFactory = relationshipFactory;
 		this.entityManager = entityManager;
+        this.targetUuids = targetUuids;
+    }
 
-        // To make this simple, first bulk-delete all relationships under this artifact.
-        artificerArtifact.getRelationships().clear();
+    /**
+     * Matches the visited relationships to the existing ones by name, type, and attributes, then their targets by
+     * target UUID, type, and attributes.  Only the leftovers are inserted or deleted.
+     * @param changeSet
+     */
+    private void applyRelationships(ArtifactChangeSet changeSet) {
+        Map<String, List<ArtificerRelationship>> existing = new HashMap<>();
+        for (ArtificerRelationship relationship : artificerArtifact.getRelationships()) {
+            String relationshipKey = relationshipKey(relationship);
+            if (!existing.containsKey(relationshipKey)) {
+                existing.put(relationshipKey, new ArrayList<ArtificerRelationship>());
+            }
+            existing.get(relationshipKey).add(relationship);
+        }
+
+        for (ArtificerRelationship relationship : relationships) {
+            List<ArtificerRelationship> matches = existing.get(relationshipKey(relationship));
+            if (matches != null && !matches.isEmpty()) {
+                applyTargets(matches.remove(0), relationship, changeSet);
+            } else {
+                artificerArtifact.getRelationships().add(relationship);
+                changeSet.relationshipAdded(relationship.getTargets().size());
+            }
+        }
+
+        // orphanRemoval (and the cascade) takes care of the rows
+        for (List<ArtificerRelationship> leftovers : existing.values()) {
+            for (ArtificerRelationship relationship : leftovers) {
+                artificerArtifact.getRelationships().remove(relationship);
+                changeSet.relationshipRemoved(relationship.getTargets().size());
+            }
+        }
+    }
+
+    private void applyTargets(ArtificerRelationship relationship, ArtificerRelationship visited,
+            ArtifactChangeSet changeSet) {
+        Map<String, List<ArtificerTarget>> existing = new HashMap<>();
+        for (ArtificerTarget target : relationship.getTargets()) {
+            String targetKey = targetKey(target.getTarget().getUuid(), target);
+            if (!existing.containsKey(targetKey)) {
+                existing.put(targetKey, new ArrayList<ArtificerTarget>());
+            }
+            existing.get(targetKey).add(target);
+        }
+
+        List<ArtificerTarget> added = new ArrayList<>();
+        for (ArtificerTarget target : visited.getTargets()) {
+            List<ArtificerTarget> matches = existing.get(targetKey(relationshipTargetUuids.get(target), target));
+            if (matches != null && !matches.isEmpty()) {
+                matches.remove(0);
+            } else {
+                added.add(target);
+            }
+        }
+
+        // The relationship itself is immutable, so its targets are removed and persisted explicitly.
+        for (List<ArtificerTarget> leftovers : existing.values()) {
+            for (ArtificerTarget target : leftovers) {
+                relationship.getTargets().remove(target);
+                entityManager.remove(target);
+                changeSet.targetRemoved();
+            }
+        }
+        for (ArtificerTarget target : added) {
+            target.setRelationship(relationship);
+            relationship.getTargets().add(target);
+            entityManager.persist(target);
+            changeSet.targetAdded();
+        }
+    }
+
+    private static String relationshipKey(ArtificerRelationship relationship) {
+        return relationship.getName() + "|" + relationship.getType() + "|"
+                + new TreeMap<>(relationship.getOtherAttributes());
+    }
+
+    private static String targetKey(String targetUuid, ArtificerTarget target) {
+        return targetUuid + "|" + target.getTargetType() + "|" + new TreeMap<>(target.getOtherAttributes());
     }
 
     /**
@@ -112,7 +231,12 @@ public class SrampToHibernateEntityRelationshipsVisitor extends HierarchicalArti
         super.visitBase(artifact);
         try {
             // if expanded from a document
-            if (artifact.getOtherAttributes().containsKey(ArtificerConstants.ARTIFICER_EXPANDED_FROM_ARCHIVE_UUID_QNAME)) {
+            if (targetUuids != null) {
+                if (artifact.getOtherAttributes().containsKey(ArtificerConstants.ARTIFICER_EXPANDED_FROM_ARCHIVE_UUID_QNAME)) {
+                    targetUuids.add(artifact.getOtherAttributes().get(
+                            ArtificerConstants.ARTIFICER_EXPANDED_FROM_ARCHIVE_UUID_QNAME));
+                }
+            } else if (artifact.getOtherAttributes().containsKey(ArtificerConstants.ARTIFICER_EXPANDED_FROM_ARCHIVE_UUID_QNAME)) {
                 artificerArtifact.setExpandedFromArchive(true);
                 artificerArtifact.setExpandedFromArchivePath(artifact.getOtherAttributes().get(
                         ArtificerConstants.ARTIFICER_EXPANDED_FROM_ARCHIVE_PATH_QNAME));
@@ -592,17 +716,29 @@ public class SrampToHibernateEntityRelationshipsVisitor extends HierarchicalArti
     private void setRelationship(String relationshipName, RelationshipType relationshipType,
             Target target) throws Exception {
         if (target != null && StringUtils.isNotBlank(target.getValue())) {
+            if (targetUuids != null) {
+                targetUuids.add(target.getValue());
+                return;
+            }
             ArtificerRelationship artificerRelationship = createRelationship(relationshipName, relationshipType,
                     Collections.EMPTY_MAP);
 
             createTarget(artificerRelationship, target);
 
-            artificerArtifact.getRelationships().add(artificerRelationship);
+            relationships.add(artificerRelationship);
         }
     }
 
     private void setRelationships(String relationshipName, RelationshipType relationshipType,
             List<? extends Target> targets, Map<QName, String> relationshipOtherAttributes) throws Exception {
+        if (targetUuids != null) {
+            for (Target target : targets) {
+                if (StringUtils.isNotBlank(target.getValue())) {
+                    targetUuids.add(target.getValue());
+                }
+            }
+            return;
+        }
         if (targets.size() > 0) {
             ArtificerRelationship artificerRelationship = createRelationship(relationshipName, relationshipType,
                     relationshipOtherAttributes);
@@ -614,7 +750,7 @@ public class SrampToHibernateEntityRelationshipsVisitor extends HierarchicalArti
             }
 
             if (!artificerRelationship.getTargets().isEmpty()) {
-                artificerArtifact.getRelationships().add(artificerRelationship);
+                relationships.add(artificerRelationship);
             }
         }
     }
@@ -662,5 +798,6 @@ public class SrampToHibernateEntityRelationshipsVisitor extends HierarchicalArti
             artificerTarget.getOtherAttributes().put(key.toString(), value);
         }
         artificerRelationship.getTargets().add(artificerTarget);
+        relationshipTargetUuids.put(artificerTarget, target.getValue());
     }
 }
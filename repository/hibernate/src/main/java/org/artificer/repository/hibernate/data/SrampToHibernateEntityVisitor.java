@@ -46,7 +46,11 @@ import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.XmlDocument;
 import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.XsdDocument;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * @author Brett Meyer.
@@ -56,6 +60,12 @@ public class SrampToHibernateEntityVisitor extends HierarchicalArtifactVisitor {
     private ArtificerArtifact artificerArtifact;
     private final ArtifactType artifactType;
     private final ClassificationHelper classificationHelper;
+    private final ArtifactChangeSet changeSet;
+
+    // What the artifact *should* have.  Diff'd against the entity once the visit is complete.
+    private final List<ArtificerProperty> properties = new ArrayList<>();
+    private final List<String> classifiers = new ArrayList<>();
+    private final List<String> normalizedClassifiers = new ArrayList<>();
 
     public static ArtificerArtifact visit(BaseArtifactType srampArtifact,
             ArtifactType artifactType, ClassificationHelper classificationHelper) throws Exception {
@@ -66,23 +76,42 @@ public class SrampToHibernateEntityVisitor extends HierarchicalArtifactVisitor {
 
     public static ArtificerArtifact visit(BaseArtifactType srampArtifact, ArtificerArtifact artificerArtifact,
             ArtifactType artifactType, ClassificationHelper classificationHelper) throws Exception {
-        SrampToHibernateEntityVisitor visitor = new SrampToHibernateEntityVisitor(artificerArtifact, artifactType, classificationHelper);
+        visit(srampArtifact, artificerArtifact, artifactType, classificationHelper, new ArtifactChangeSet());
+        return artificerArtifact;
+    }
+
+    /**
+     * Updates the (possibly managed) entity, touching only the properties and classifiers that actually changed.
+     *
+     * @param srampArtifact
+     * @param artificerArtifact
+     * @param artifactType
+     * @param classificationHelper
+     * @param changeSet receives the changes that were applied
+     * @return ArtifactChangeSet
+     * @throws Exception
+     */
+    public static ArtifactChangeSet visit(BaseArtifactType srampArtifact, ArtificerArtifact artificerArtifact,
+            ArtifactType artifactType, ClassificationHelper classificationHelper, ArtifactChangeSet changeSet)
+            throws Exception {
+        SrampToHibernateEntityVisitor visitor = new SrampToHibernateEntityVisitor(artificerArtifact, artifactType,
+                classificationHelper, changeSet);
         ArtifactVisitorHelper.visitArtifact(visitor, srampArtifact);
 
         visitor.throwError();
 
-        return artificerArtifact;
+        visitor.applyClassifiers();
+        visitor.applyProperties();
+
+        return changeSet;
     }
 
-    public SrampToHibernateEntityVisitor(ArtificerArtifact artificerArtifact, ArtifactType artifactType,
-            ClassificationHelper classificationHelper) {
+    private SrampToHibernateEntityVisitor(ArtificerArtifact artificerArtifact, ArtifactType artifactType,
+            ClassificationHelper classificationHelper, ArtifactChangeSet changeSet) {
         this.artificerArtifact = artificerArtifact;
         this.artifactType = artifactType;
         this.classificationHelper = classificationHelper;
-
-        artificerArtifact.getClassifiers().clear();
-        artificerArtifact.getNormalizedClassifiers().clear();
-        artificerArtifact.getProperties().clear();
+        this.changeSet = changeSet;
     }
 
     /**
@@ -174,11 +203,12 @@ public class SrampToHibernateEntityVisitor extends HierarchicalArtifactVisitor {
         ArtificerUser modifiedBy = HibernateEntityFactory.user(srampArtifact.getLastModifiedBy(), srampArtifact.getLastModifiedTimestamp());
         artificerArtifact.setModifiedBy(modifiedBy);
 
-        if (srampArtifact.getName() != null)
-            artificerArtifact.setName(srampArtifact.getName());
-        else
-            artificerArtifact.setName(srampArtifact.getClass().getSimpleName());
-
+        String name = srampArtifact.getName() != null ? srampArtifact.getName()
+                : srampArtifact.getClass().getSimpleName();
+        changeSet.propertyChanged("name", artificerArtifact.getName(), name);
+        changeSet.propertyChanged("description", artificerArtifact.getDescription(), srampArtifact.getDescription());
+        changeSet.propertyChanged("version", artificerArtifact.getVersion(), srampArtifact.getVersion());
+        artificerArtifact.setName(name);
         artificerArtifact.setDescription(srampArtifact.getDescription());
         artificerArtifact.setVersion(srampArtifact.getVersion());
     }
@@ -193,13 +223,92 @@ public class SrampToHibernateEntityVisitor extends HierarchicalArtifactVisitor {
         Collection<URI> classifiers = classificationHelper.resolveAll(artifact.getClassifiedBy());
         Collection<URI> normalizedClassifiers = classificationHelper.normalizeAll(classifiers);
         for (URI classifier : classifiers) {
-            artificerArtifact.getClassifiers().add(classifier.toString());
+            this.classifiers.add(classifier.toString());
         }
         for (URI normalizedClassifier : normalizedClassifiers) {
-            artificerArtifact.getNormalizedClassifiers().add(normalizedClassifier.toString());
+            this.normalizedClassifiers.add(normalizedClassifier.toString());
         }
     }
 
+    /**
+     * The classifier collections are bags, so Hibernate re-creates them whenever they're modified.  Leave them
+     * completely untouched unless their contents actually changed.
+     */
+    private void applyClassifiers() {
+        List<String> removed = new ArrayList<>(artificerArtifact.getClassifiers());
+        List<String> added = new ArrayList<>();
+        for (String classifier : classifiers) {
+            if (!removed.remove(classifier)) {
+                added.add(classifier);
+            }
+        }
+        if (!added.isEmpty() || !removed.isEmpty()) {
+            for (String classifier : removed) {
+                artificerArtifact.getClassifiers().remove(classifier);
+                changeSet.classifierRemoved(classifier);
+            }
+            for (String classifier : added) {
+                artificerArtifact.getClassifiers().add(classifier);
+                changeSet.classifierAdded(classifier);
+            }
+        }
+
+        List<String> normalizedRemoved = new ArrayList<>(artificerArtifact.getNormalizedClassifiers());
+        List<String> normalizedAdded = new ArrayList<>();
+        for (String normalizedClassifier : normalizedClassifiers) {
+            if (!normalizedRemoved.remove(normalizedClassifier)) {
+                normalizedAdded.add(normalizedClassifier);
+            }
+        }
+        if (!normalizedAdded.isEmpty() || !normalizedRemoved.isEmpty()) {
+            for (String normalizedClassifier : normalizedRemoved) {
+                artificerArtifact.getNormalizedClassifiers().remove(normalizedClassifier);
+            }
+            artificerArtifact.getNormalizedClassifiers().addAll(normalizedAdded);
+        }
+    }
+
+    /**
+     * Matches the visited properties to the existing ones by key (and whether or not they're custom).  Matches with
+     * an equal value are left alone, others are updated in place, and only the leftovers are inserted or deleted.
+     */
+    private void applyProperties() {
+        Map<String, List<ArtificerProperty>> existing = new HashMap<>();
+        for (ArtificerProperty property : artificerArtifact.getProperties()) {
+            String propertyKey = propertyKey(property);
+            if (!existing.containsKey(propertyKey)) {
+                existing.put(propertyKey, new ArrayList<ArtificerProperty>());
+            }
+            existing.get(propertyKey).add(property);
+        }
+
+        for (ArtificerProperty property : properties) {
+            List<ArtificerProperty> matches = existing.get(propertyKey(property));
+            if (matches != null && !matches.isEmpty()) {
+                ArtificerProperty match = matches.remove(0);
+                if (!StringUtils.equals(match.getValue(), property.getValue())) {
+                    changeSet.propertyChanged(property.getKey(), match.getValue(), property.getValue());
+                    match.setValue(property.getValue());
+                }
+            } else {
+                property.setOwner(artificerArtifact);
+                artificerArtifact.getProperties().add(property);
+                changeSet.propertyAdded(property.getKey(), property.getValue());
+            }
+        }
+
+        for (List<ArtificerProperty> leftovers : existing.values()) {
+            for (ArtificerProperty property : leftovers) {
+                artificerArtifact.getProperties().remove(property);
+                changeSet.propertyRemoved(property.getKey());
+            }
+        }
+    }
+
+    private static String propertyKey(ArtificerProperty property) {
+        return (property.isCustom() ? "custom:" : "builtin:") + property.getKey();
+    }
+
     /**
      * Updates the custom s-ramp properties.
      * @param artifact
@@ -360,6 +469,7 @@ public class SrampToHibernateEntityVisitor extends HierarchicalArtifactVisitor {
         }
     }
 
+    // A model attribute, rather than a custom property (see ArtificerProperty.BUILTIN_KEYS)
     private void createProperty(String key, String value) {
         createProperty(key, value, false);
     }
@@ -369,7 +479,6 @@ public class SrampToHibernateEntityVisitor extends HierarchicalArtifactVisitor {
         artificerProperty.setKey(key);
         artificerProperty.setValue(value);
         artificerProperty.setCustom(isCustom);
-        artificerProperty.setOwner(artificerArtifact);
-        artificerArtifact.getProperties().add(artificerProperty);
+        properties.add(artificerProperty);
     }
 }
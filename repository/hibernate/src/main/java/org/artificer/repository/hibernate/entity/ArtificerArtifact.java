@@ -45,17 +45,22 @@ import javax.persistence.OneToMany;
 import javax.persistence.Transient;
 
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.artificer.repository.hibernate.CacheRegions;
+import org.artificer.repository.hibernate.HibernateUtil;
 import org.artificer.repository.hibernate.audit.ArtificerAuditEntry;
-import org.artificer.repository.hibernate.query.ArtificerTikaBridge;
+import org.artificer.repository.hibernate.query.ArtifactIndexBridge;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Index;
 import org.hibernate.annotations.Table;
+import org.hibernate.search.annotations.Analyze;
 import org.hibernate.search.annotations.Analyzer;
+import org.hibernate.search.annotations.ClassBridge;
 import org.hibernate.search.annotations.Field;
-import org.hibernate.search.annotations.FieldBridge;
 import org.hibernate.search.annotations.Indexed;
 import org.hibernate.search.annotations.IndexedEmbedded;
+import org.hibernate.search.annotations.Store;
 
 /**
  * @author Brett Meyer.
@@ -68,11 +73,14 @@ import org.hibernate.search.annotations.IndexedEmbedded;
         @Index(name = "artifact_name_idx", columnNames = {"name", "trashed"}),
         @Index(name = "artifact_model_idx", columnNames = {"model", "trashed"}),
         @Index(name = "artifact_type_idx", columnNames = {"type", "trashed"}),
-        @Index(name = "artifact_model_type_idx", columnNames = {"model", "type", "trashed"})})
+        @Index(name = "artifact_model_type_idx", columnNames = {"model", "type", "trashed"}),
+        @Index(name = "artifact_contenthash_idx", columnNames = {"contentHash", "trashed"})})
 @Cacheable
-@Cache(usage = CacheConcurrencyStrategy.TRANSACTIONAL)
+@Cache(usage = CacheConcurrencyStrategy.TRANSACTIONAL, region = CacheRegions.ARTIFACTS)
 @Indexed
 @Analyzer(impl = StandardAnalyzer.class)
+// Un-analyzed copies of the filtered and sorted fields, for full-text queries paged within Lucene
+@ClassBridge(name = "exact", impl = ArtifactIndexBridge.class, analyze = Analyze.NO, store = Store.NO)
 @javax.persistence.Table(name = "Artifact")
 public class ArtificerArtifact implements Serializable {
 
@@ -221,6 +229,7 @@ public class ArtificerArtifact implements Serializable {
     }
 
     @OneToMany(mappedBy = "owner", orphanRemoval = true, cascade = CascadeType.ALL)
+    @BatchSize(size = HibernateUtil.FETCH_BATCH_SIZE)
     public List<ArtificerRelationship> getRelationships() {
         return relationships;
     }
@@ -231,6 +240,7 @@ public class ArtificerArtifact implements Serializable {
 
     @ElementCollection
     @CollectionTable(name = "Artifact_classifiers", joinColumns = @JoinColumn(name = "Artifact_Id"))
+    @BatchSize(size = HibernateUtil.FETCH_BATCH_SIZE)
     public List<String> getClassifiers() {
         return classifiers;
     }
@@ -241,6 +251,7 @@ public class ArtificerArtifact implements Serializable {
 
     @ElementCollection
     @CollectionTable(name = "Artifact_normalizedClassifiers", joinColumns = @JoinColumn(name = "Artifact_Id"))
+    @BatchSize(size = HibernateUtil.FETCH_BATCH_SIZE)
     public List<String> getNormalizedClassifiers() {
         return normalizedClassifiers;
     }
@@ -251,6 +262,7 @@ public class ArtificerArtifact implements Serializable {
 
     @OneToMany(mappedBy = "artifact", orphanRemoval = true, cascade = CascadeType.ALL)
     @IndexedEmbedded
+    @BatchSize(size = HibernateUtil.FETCH_BATCH_SIZE)
     public List<ArtificerComment> getComments() {
         return comments;
     }
@@ -295,6 +307,7 @@ public class ArtificerArtifact implements Serializable {
     }
 
     @OneToMany(mappedBy = "owner", orphanRemoval = true, cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @BatchSize(size = HibernateUtil.FETCH_BATCH_SIZE)
     @IndexedEmbedded
     public Set<ArtificerProperty> getProperties() {
         return properties;
@@ -327,8 +340,6 @@ public class ArtificerArtifact implements Serializable {
     }
 
     @Lob
-    @Field
-    @FieldBridge(impl = ArtificerTikaBridge.class)
     @Nullable
     @Column(length = 20971520, nullable = true)
     public byte[] getContent() {
@@ -339,8 +350,6 @@ public class ArtificerArtifact implements Serializable {
         this.content = content;
     }
 
-    @Field
-    @FieldBridge(impl = ArtificerTikaBridge.class)
     public String getContentPath() {
         return contentPath;
     }
@@ -26,6 +26,7 @@ import javax.persistence.Lob;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
 
+import org.artificer.repository.hibernate.CacheRegions;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Immutable;
@@ -37,7 +38,7 @@ import org.hibernate.search.annotations.Field;
 @Entity
 @Immutable
 @Cacheable
-@Cache(usage = CacheConcurrencyStrategy.READ_ONLY)
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = CacheRegions.COMMENTS)
 @Table(name = "ArtifactComment")
 public class ArtificerComment implements Serializable {
 
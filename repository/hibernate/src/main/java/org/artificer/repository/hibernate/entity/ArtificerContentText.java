@@ -0,0 +1,73 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.repository.hibernate.entity;
+
+import java.io.Serializable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.search.annotations.Analyzer;
+import org.hibernate.search.annotations.Field;
+import org.hibernate.search.annotations.Indexed;
+
+/**
+ * The plain text extracted (Tika) from a document's content, keyed by the content's SHA-1 hash.  Identical content
+ * is therefore only ever extracted (and indexed) once, regardless of how many artifacts share it.  Full-text queries
+ * match documents to it through their contentHash.  Documents whose hash has no entry yet are pending extraction
+ * (see ContentTextIndexer).
+ *
+ * Note that this is indexed separately from ArtificerArtifact, rather than embedded.  Otherwise, linking the text to
+ * an artifact would rewrite the artifact's entire index document, racing any concurrent metadata update.
+ *
+ * @author Brett Meyer.
+ */
+@Entity
+@Immutable
+@Indexed
+@Analyzer(impl = StandardAnalyzer.class)
+@Table(name = "ContentText")
+public class ArtificerContentText implements Serializable {
+
+    private String contentHash;
+
+    private String text;
+
+    @Id
+    @Column(columnDefinition = "char(40)")
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    @Lob
+    @Field
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        this.text = text;
+    }
+}
@@ -16,35 +16,70 @@
 package org.artificer.repository.hibernate.entity;
 
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.ManyToOne;
-import javax.persistence.Table;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
 
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.hibernate.annotations.Index;
+import org.hibernate.annotations.Table;
 import org.hibernate.search.annotations.Analyzer;
 import org.hibernate.search.annotations.ContainedIn;
 import org.hibernate.search.annotations.Field;
 import org.hibernate.search.annotations.Indexed;
+import org.joda.time.format.ISODateTimeFormat;
 
 /**
+ * Values that look like numbers or ISO-8601 dates/timestamps are also stored in typed (and indexed) columns, so that
+ * property predicates can compare them numerically or chronologically.  The typed columns are derived from the value
+ * whenever the property is written.
+ *
  * @author Brett Meyer.
  */
 @Entity
 @Indexed
 @Analyzer(impl = StandardAnalyzer.class)
-@Table(name = "Property")
+@Table(appliesTo = "Property", indexes = {
+        @Index(name = "property_key_value_idx", columnNames = {"propertyKey", "propertyValue", "owner_id"}),
+        @Index(name = "property_key_numeric_idx", columnNames = {"propertyKey", "numericValue", "owner_id"}),
+        @Index(name = "property_key_timestamp_idx", columnNames = {"propertyKey", "timestampValue", "owner_id"})})
+@javax.persistence.Table(name = "Property")
 public class ArtificerProperty implements Serializable {
 
+    /**
+     * Keys of the model attributes (ex: an XSD's targetNamespace) that are stored as non-custom properties, and so
+     * are also matched by property predicates.
+     */
+    public static final Set<String> BUILTIN_KEYS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "end", "namespace", "ncName", "soapLocation", "style", "targetNamespace", "transport", "url")));
+
+    private static final Pattern NUMBER = Pattern.compile("[-+]?\\d+(\\.\\d+)?([eE][-+]?\\d+)?");
+
+    private static final Pattern TIMESTAMP = Pattern.compile("\\d{4}-\\d{2}-\\d{2}([T ].*)?");
+
     private long id;
 
     private String key;
 
     private String value;
 
+    private Double numericValue;
+
+    private Calendar timestampValue;
+
     private boolean isCustom;
 
     private ArtificerArtifact owner;
@@ -79,6 +114,60 @@ public class ArtificerProperty implements Serializable {
         this.value = value;
     }
 
+    public Double getNumericValue() {
+        return numericValue;
+    }
+
+    public void setNumericValue(Double numericValue) {
+        this.numericValue = numericValue;
+    }
+
+    @Temporal(TemporalType.TIMESTAMP)
+    public Calendar getTimestampValue() {
+        return timestampValue;
+    }
+
+    public void setTimestampValue(Calendar timestampValue) {
+        this.timestampValue = timestampValue;
+    }
+
+    @PrePersist
+    @PreUpdate
+    public void updateTypedValues() {
+        numericValue = parseNumber(value);
+        timestampValue = parseTimestamp(value);
+    }
+
+    /**
+     * @param value
+     * @return the value as a number, or null if it isn't one (ex: "1.0" is, but "1.0.3" isn't)
+     */
+    public static Double parseNumber(String value) {
+        if (value != null && NUMBER.matcher(value).matches()) {
+            double number = Double.parseDouble(value);
+            if (!Double.isInfinite(number)) {
+                return number;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param value
+     * @return the value as a timestamp, or null if it isn't an ISO-8601 date or date-time
+     */
+    public static Calendar parseTimestamp(String value) {
+        if (value != null && TIMESTAMP.matcher(value).matches()) {
+            try {
+                return ISODateTimeFormat.dateTimeParser().parseDateTime(value.replace(' ', 'T'))
+                        .toGregorianCalendar();
+            } catch (IllegalArgumentException e) {
+                // not a timestamp after all
+            }
+        }
+        return null;
+    }
+
     public boolean isCustom() {
         return isCustom;
     }
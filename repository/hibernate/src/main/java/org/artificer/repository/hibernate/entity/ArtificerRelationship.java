@@ -33,6 +33,9 @@ import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
 
 import org.artificer.common.query.RelationshipType;
+import org.artificer.repository.hibernate.CacheRegions;
+import org.artificer.repository.hibernate.HibernateUtil;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Immutable;
@@ -47,7 +50,7 @@ import org.hibernate.annotations.Table;
         @Index(name = "relationship_name_idx", columnNames = "name")})
 @Immutable
 @Cacheable
-@Cache(usage = CacheConcurrencyStrategy.READ_ONLY)
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = CacheRegions.RELATIONSHIPS)
 @javax.persistence.Table(name = "Relationship")
 public class ArtificerRelationship implements Serializable {
 
@@ -90,6 +93,7 @@ public class ArtificerRelationship implements Serializable {
     }
 
     @OneToMany(mappedBy = "relationship", orphanRemoval = true, cascade = CascadeType.ALL)
+    @BatchSize(size = HibernateUtil.FETCH_BATCH_SIZE)
     public List<ArtificerTarget> getTargets() {
         return targets;
     }
@@ -100,6 +104,7 @@ public class ArtificerRelationship implements Serializable {
 
     @ElementCollection
     @CollectionTable(name = "Relationship_otherAttributes", joinColumns = @JoinColumn(name = "Relationship_id"))
+    @BatchSize(size = HibernateUtil.FETCH_BATCH_SIZE)
     public Map<String, String> getOtherAttributes() {
         return otherAttributes;
     }
@@ -27,6 +27,7 @@ import javax.persistence.FetchType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 
+import org.artificer.repository.hibernate.CacheRegions;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Index;
@@ -39,7 +40,7 @@ import org.hibernate.annotations.Table;
 @Table(appliesTo = "StoredQuery", indexes = {
         @Index(name = "storedquery_name_idx", columnNames = "queryName")})
 @Cacheable
-@Cache(usage = CacheConcurrencyStrategy.TRANSACTIONAL)
+@Cache(usage = CacheConcurrencyStrategy.TRANSACTIONAL, region = CacheRegions.STORED_QUERIES)
 @javax.persistence.Table(name = "StoredQuery")
 public class ArtificerStoredQuery implements Serializable {
 
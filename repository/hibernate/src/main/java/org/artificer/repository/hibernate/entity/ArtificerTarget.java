@@ -29,6 +29,9 @@ import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
 
+import org.artificer.repository.hibernate.CacheRegions;
+import org.artificer.repository.hibernate.HibernateUtil;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Immutable;
@@ -39,7 +42,7 @@ import org.hibernate.annotations.Immutable;
 @Entity
 @Immutable
 @Cacheable
-@Cache(usage = CacheConcurrencyStrategy.READ_ONLY)
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = CacheRegions.RELATIONSHIPS)
 @Table(name = "Target")
 public class ArtificerTarget implements Serializable {
 
@@ -85,6 +88,7 @@ public class ArtificerTarget implements Serializable {
 
     @ElementCollection
     @CollectionTable(name = "Target_otherAttributes", joinColumns = @JoinColumn(name = "Target_id"))
+    @BatchSize(size = HibernateUtil.FETCH_BATCH_SIZE)
     public Map<String, String> getOtherAttributes() {
         return otherAttributes;
     }
@@ -22,6 +22,7 @@ import org.artificer.repository.hibernate.entity.ArtificerDocumentArtifact;
 import javax.persistence.EntityManager;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 /**
  * @author Brett Meyer.
@@ -35,6 +36,24 @@ public class BlobFileManager implements FileManager {
 
     @Override
     public void write(ArtificerDocumentArtifact artifact, ArtifactContent content, EntityManager entityManager) throws Exception {
-        artifact.setContent(IOUtils.toByteArray(content.getInputStream()));
+        ByteBuffer buffer = content.getByteBuffer();
+        if (buffer != null) {
+            // Copy straight out of the mapped content into an exactly-sized array.
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            artifact.setContent(bytes);
+        } else {
+            InputStream inputStream = content.getInputStream();
+            try {
+                artifact.setContent(IOUtils.toByteArray(inputStream));
+            } finally {
+                IOUtils.closeQuietly(inputStream);
+            }
+        }
+    }
+
+    @Override
+    public void delete(ArtificerDocumentArtifact artifact, EntityManager entityManager) throws Exception {
+        // nothing to do -- the content lives on the (trashed) entity row itself
     }
 }
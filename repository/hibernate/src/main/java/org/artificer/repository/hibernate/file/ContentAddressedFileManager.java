@@ -0,0 +1,214 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.repository.hibernate.file;
+
+import org.artificer.common.ArtifactContent;
+import org.artificer.repository.hibernate.HibernateUtil;
+import org.artificer.repository.hibernate.entity.ArtificerDocumentArtifact;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Filesystem storage keyed by the content's SHA-1 hash (the same hash persisted as the artifact's contentHash).
+ * Identical content, regardless of how many artifacts share it, is stored exactly once.
+ *
+ * Files are sharded into two levels of sub-directories, using the first four hex characters of the hash
+ * (ex: 'ab/cd/abcd1234...'), so that no single directory grows unbounded.  New content is written to a temp file
+ * within the storage root and atomically renamed into place, so readers never observe a partially-written file.
+ *
+ * Trashing an artifact is a soft delete, so (as with the other file managers) its content is retained.  Content is only
+ * removed once nothing references it at all, ex: new content stored by an upload that then rolled back.  The reference
+ * count is the number of documents (trashed or not) holding the hash, which the database already knows, plus the
+ * uploads of that content still in flight within this JVM.  Both are checked under the lock that uploads of the same
+ * hash register under, right up until the file is unlinked, so a concurrent upload of identical content never loses
+ * its file.  The locks are striped by hash, so uploads of other content never wait on that count.
+ *
+ * @author Brett Meyer.
+ */
+public class ContentAddressedFileManager implements FileManager {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ContentAddressedFileManager.class);
+
+    private static final String TMP_DIR = ".tmp";
+
+    private final File root;
+
+    private final File tmpDir;
+
+    private static final int LOCK_STRIPES = 256;
+
+    // Uncommitted writes, per hash.  Guarded by itself.
+    private final Map<String, Integer> pendingWrites = new HashMap<>();
+
+    // Registering a write and unlinking content of the same hash are exclusive (see #unlinkIfUnreferenced).
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public ContentAddressedFileManager(String path) {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        root = new File(path);
+        tmpDir = new File(root, TMP_DIR);
+        if (!tmpDir.exists()) {
+            tmpDir.mkdirs();
+        }
+    }
+
+    @Override
+    public InputStream read(ArtificerDocumentArtifact artifact) throws Exception {
+        return new FileInputStream(file(artifact.getContentHash()));
+    }
+
+    @Override
+    public void write(ArtificerDocumentArtifact artifact, ArtifactContent content, EntityManager entityManager) throws Exception {
+        final String hash = content.getSha1Hash();
+        File out = file(hash);
+
+        entityManager.unwrap(Session.class).getTransaction().registerSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                writeCompleted(hash);
+                if (status != Status.STATUS_COMMITTED) {
+                    unlinkIfUnreferenced(hash);
+                }
+            }
+        });
+        // From here on, the content can't be unlinked until this transaction completes.
+        writeStarted(hash);
+
+        if (!out.exists()) {
+            File shard = out.getParentFile();
+            if (!shard.exists()) {
+                shard.mkdirs();
+            }
+
+            // Stage within the same filesystem as the target, so the rename is atomic.
+            Path tmp = new File(tmpDir, hash + "." + UUID.randomUUID().toString()).toPath();
+            Files.copy(content.getFile().toPath(), tmp);
+            try {
+                try {
+                    Files.move(tmp, out.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp, out.toPath());
+                }
+            } catch (FileAlreadyExistsException e) {
+                // A concurrent upload of identical content won the race -- the result is the same.
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+
+        artifact.setContentPath(out.getAbsolutePath());
+    }
+
+    @Override
+    public void delete(ArtificerDocumentArtifact artifact, EntityManager entityManager) throws Exception {
+        // nothing to do -- content is retained alongside the trashed artifact
+    }
+
+    private void writeStarted(String hash) {
+        synchronized (lock(hash)) {
+            synchronized (pendingWrites) {
+                Integer pending = pendingWrites.get(hash);
+                pendingWrites.put(hash, pending == null ? 1 : pending + 1);
+            }
+        }
+    }
+
+    private void writeCompleted(String hash) {
+        synchronized (pendingWrites) {
+            Integer pending = pendingWrites.get(hash);
+            if (pending == null || pending <= 1) {
+                pendingWrites.remove(hash);
+            } else {
+                pendingWrites.put(hash, pending - 1);
+            }
+        }
+    }
+
+    /**
+     * Removes the content, unless any artifact holds it or an upload of it is still in flight.  Both are checked
+     * while holding the lock that uploads of this hash register under, so that one can't start using the file in
+     * between.  Only uploads sharing the lock's stripe wait on the reference count.
+     */
+    private void unlinkIfUnreferenced(String hash) {
+        synchronized (lock(hash)) {
+            synchronized (pendingWrites) {
+                if (pendingWrites.containsKey(hash)) {
+                    return;
+                }
+            }
+            try {
+                if (countReferences(hash) > 0) {
+                    return;
+                }
+            } catch (Exception e) {
+                LOG.warn("Unable to count the references to content " + hash + ", so retaining it", e);
+                return;
+            }
+            File file = file(hash);
+            if (file.exists() && !file.delete()) {
+                LOG.warn("Unable to delete unreferenced content: " + file.getAbsolutePath());
+            }
+        }
+    }
+
+    /**
+     * @param hash
+     * @return the number of documents (trashed or not) holding the content
+     * @throws Exception
+     */
+    protected long countReferences(final String hash) throws Exception {
+        return new HibernateUtil.HibernateTask<Long>() {
+            @Override
+            protected Long doExecute(EntityManager entityManager) throws Exception {
+                Query query = entityManager.createQuery(
+                        "SELECT COUNT(a.id) FROM ArtificerDocumentArtifact a WHERE a.contentHash = :hash");
+                query.setParameter("hash", hash);
+                return (Long) query.getSingleResult();
+            }
+        }.execute();
+    }
+
+    private Object lock(String hash) {
+        return locks[(hash.hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES];
+    }
+
+    private File file(String hash) {
+        return new File(root, hash.substring(0, 2) + File.separator + hash.substring(2, 4) + File.separator + hash);
+    }
+}
@@ -31,4 +31,10 @@ public interface FileManager {
     public InputStream read(ArtificerDocumentArtifact artifact) throws Exception;
 
     public void write(ArtificerDocumentArtifact artifact, ArtifactContent content, EntityManager entityManager) throws Exception;
+
+    /**
+     * Called once the given artifact has been trashed (within the same transaction).  Trashing is a soft delete, so
+     * the trashed artifact still references its content, which must remain readable.
+     */
+    public void delete(ArtificerDocumentArtifact artifact, EntityManager entityManager) throws Exception;
 }
@@ -33,6 +33,10 @@ public class FileManagerFactory {
                     instance = new FilesystemFileManager(
                             ArtificerConfig.getConfigProperty(ArtificerConstants.ARTIFICER_FILE_STORAGE_FILESYSTEM_PATH, ""));
                     break;
+                case "content-addressed":
+                    instance = new ContentAddressedFileManager(
+                            ArtificerConfig.getConfigProperty(ArtificerConstants.ARTIFICER_FILE_STORAGE_FILESYSTEM_PATH, ""));
+                    break;
                 default:
                     instance = new BlobFileManager();
             }
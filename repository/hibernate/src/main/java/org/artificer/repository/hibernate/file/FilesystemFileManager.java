@@ -15,7 +15,6 @@
  */
 package org.artificer.repository.hibernate.file;
 
-import org.apache.commons.io.IOUtils;
 import org.artificer.common.ArtifactContent;
 import org.artificer.repository.hibernate.entity.ArtificerDocumentArtifact;
 
@@ -53,17 +52,14 @@ public class FilesystemFileManager implements FileManager {
 
     @Override
     public void write(ArtificerDocumentArtifact artifact, ArtifactContent content, EntityManager entityManager) throws Exception {
-        InputStream inputStream = null;
-        try {
-            File out = new File(path + artifact.getUuid());
-            out.createNewFile();
-            inputStream = content.getInputStream();
-            Files.copy(content.getInputStream(), out.toPath(), StandardCopyOption.REPLACE_EXISTING);
-            artifact.setContentPath(path + artifact.getUuid());
-        } finally {
-            if (inputStream != null) {
-                IOUtils.closeQuietly(inputStream);
-            }
-        }
+        File out = new File(path + artifact.getUuid());
+        // File-to-file copy of the already-spooled content, letting the platform avoid user-space buffers.
+        Files.copy(content.getFile().toPath(), out.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        artifact.setContentPath(path + artifact.getUuid());
+    }
+
+    @Override
+    public void delete(ArtificerDocumentArtifact artifact, EntityManager entityManager) throws Exception {
+        // nothing to do -- content is retained alongside the trashed artifact
     }
 }
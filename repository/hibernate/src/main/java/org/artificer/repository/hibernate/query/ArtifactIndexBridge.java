@@ -0,0 +1,121 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.repository.hibernate.query;
+
+import org.apache.lucene.document.DateTools;
+import org.apache.lucene.document.Document;
+import org.artificer.repository.hibernate.entity.ArtificerArtifact;
+import org.artificer.repository.hibernate.entity.ArtificerProperty;
+import org.artificer.repository.hibernate.entity.ArtificerUser;
+import org.hibernate.search.bridge.FieldBridge;
+import org.hibernate.search.bridge.LuceneOptions;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Adds un-analyzed copies of the fields that full-text queries filter and sort on, so that those queries can be
+ * executed (and paged) entirely within Lucene.  See {@link ArtificerToHibernateQueryVisitor}.  The analyzed fields
+ * (name, description, etc.) are still used for the full-text match itself.
+ *
+ * Values are indexed exactly as they're stored, so equality is case-sensitive (like the SQL) and sorting is by
+ * the raw string.  Timestamps are indexed as sortable (millisecond resolution) strings.
+ *
+ * @author Brett Meyer
+ */
+public class ArtifactIndexBridge implements FieldBridge {
+
+    public static final String UUID = "exact.uuid";
+
+    public static final String CONTENT_HASH = "exact.contentHash";
+
+    public static final String CLASSIFIER = "exact.classifier";
+
+    public static final String NORMALIZED_CLASSIFIER = "exact.normalizedClassifier";
+
+    // + the property key
+    public static final String PROPERTY_PREFIX = "exact.property.";
+
+    // ArtificerArtifact path (see ArtificerToHibernateQueryVisitor#orderByPath) -> field
+    private static final Map<String, String> PATH_FIELDS = new HashMap<>();
+    static {
+        PATH_FIELDS.put("uuid", UUID);
+        PATH_FIELDS.put("name", "exact.name");
+        PATH_FIELDS.put("version", "exact.version");
+        PATH_FIELDS.put("createdBy.username", "exact.createdBy");
+        PATH_FIELDS.put("modifiedBy.username", "exact.modifiedBy");
+        PATH_FIELDS.put("createdBy.lastActionTime", "exact.createdTimestamp");
+        PATH_FIELDS.put("modifiedBy.lastActionTime", "exact.modifiedTimestamp");
+    }
+
+    /**
+     * @param path an ArtificerArtifact property path (ex: createdBy.username)
+     * @return the un-analyzed field holding it, or null if it isn't indexed
+     */
+    public static String field(String path) {
+        return PATH_FIELDS.get(path);
+    }
+
+    /**
+     * @param path an ArtificerArtifact property path
+     * @return true if the field is a timestamp, indexed with {@link #timestamp(long)}
+     */
+    public static boolean isTimestamp(String path) {
+        return path.endsWith("lastActionTime");
+    }
+
+    public static String timestamp(long millis) {
+        return DateTools.timeToString(millis, DateTools.Resolution.MILLISECOND);
+    }
+
+    @Override
+    public void set(String name, Object value, Document document, LuceneOptions luceneOptions) {
+        ArtificerArtifact artifact = (ArtificerArtifact) value;
+
+        add(UUID, artifact.getUuid(), document, luceneOptions);
+        add(CONTENT_HASH, artifact.getContentHash(), document, luceneOptions);
+        add(field("name"), artifact.getName(), document, luceneOptions);
+        add(field("version"), artifact.getVersion(), document, luceneOptions);
+        addUser("createdBy", artifact.getCreatedBy(), document, luceneOptions);
+        addUser("modifiedBy", artifact.getModifiedBy(), document, luceneOptions);
+
+        for (String classifier : artifact.getClassifiers()) {
+            add(CLASSIFIER, classifier, document, luceneOptions);
+        }
+        for (String normalizedClassifier : artifact.getNormalizedClassifiers()) {
+            add(NORMALIZED_CLASSIFIER, normalizedClassifier, document, luceneOptions);
+        }
+        for (ArtificerProperty property : artifact.getProperties()) {
+            add(PROPERTY_PREFIX + property.getKey(), property.getValue(), document, luceneOptions);
+        }
+    }
+
+    private void addUser(String path, ArtificerUser user, Document document, LuceneOptions luceneOptions) {
+        if (user != null) {
+            add(field(path + ".username"), user.getUsername(), document, luceneOptions);
+            if (user.getLastActionTime() != null) {
+                add(field(path + ".lastActionTime"), timestamp(user.getLastActionTime().getTimeInMillis()), document,
+                        luceneOptions);
+            }
+        }
+    }
+
+    private void add(String field, String value, Document document, LuceneOptions luceneOptions) {
+        if (value != null) {
+            luceneOptions.addFieldToDocument(field, value, document);
+        }
+    }
+}
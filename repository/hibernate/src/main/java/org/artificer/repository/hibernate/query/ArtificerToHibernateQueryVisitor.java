@@ -19,31 +19,45 @@ import java.math.BigInteger;
 import java.net.URI;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
 import javax.persistence.criteria.From;
 import javax.persistence.criteria.Join;
 import javax.persistence.criteria.JoinType;
 import javax.persistence.criteria.MapJoin;
+import javax.persistence.criteria.Order;
 import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
 import javax.persistence.criteria.Subquery;
 import javax.xml.namespace.QName;
 
 import org.apache.commons.lang.StringUtils;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
 import org.artificer.common.ArtifactType;
+import org.artificer.common.ArtificerConfig;
 import org.artificer.common.ArtificerConstants;
 import org.artificer.common.ArtificerException;
 import org.artificer.common.query.ArtifactSummary;
+import org.artificer.common.query.CountMode;
 import org.artificer.common.query.xpath.ast.AndExpr;
 import org.artificer.common.query.xpath.ast.Argument;
 import org.artificer.common.query.xpath.ast.EqualityExpr;
@@ -57,13 +71,27 @@ import org.artificer.common.query.xpath.ast.RelationshipPath;
 import org.artificer.common.query.xpath.ast.SubartifactSet;
 import org.artificer.repository.ClassificationHelper;
 import org.artificer.repository.error.QueryExecutionException;
+import org.artificer.repository.hibernate.CacheRegions;
 import org.artificer.repository.hibernate.data.HibernateEntityCreator;
 import org.artificer.repository.hibernate.entity.ArtificerArtifact;
+import org.artificer.repository.hibernate.entity.ArtificerContentText;
+import org.artificer.repository.hibernate.entity.ArtificerProperty;
 import org.artificer.repository.hibernate.entity.ArtificerRelationship;
 import org.artificer.repository.hibernate.entity.ArtificerTarget;
 import org.artificer.repository.hibernate.i18n.Messages;
 import org.artificer.repository.query.AbstractArtificerQueryVisitor;
 import org.artificer.repository.query.ArtificerQueryArgs;
+import org.artificer.repository.query.ContinuationToken;
+import org.artificer.repository.query.QueryProfile;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.dialect.DB2Dialect;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.Oracle8iDialect;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.search.Search;
 import org.hibernate.search.jpa.FullTextEntityManager;
 import org.hibernate.search.jpa.FullTextQuery;
 import org.hibernate.search.query.dsl.BooleanJunction;
@@ -91,14 +119,45 @@ public class ArtificerToHibernateQueryVisitor extends AbstractArtificerQueryVisi
     private Subquery customPropertySubquery = null;
     private Path customPropertyValuePath = null;
     private List<Predicate> customPropertyPredicates = null;
+    // The ArtificerProperty being constrained (null for relationship and target attributes)
+    private From customPropertyFrom = null;
+    // Set while visiting the left side of a top-level conjunct, whose custom property can simply be joined.
+    private boolean joinCustomProperty = false;
+    private boolean customPropertyJoined = false;
 
     private String propertyContext = null;
     private Object valueContext = null;
 
     private List<Predicate> predicates = new ArrayList<>();
 
+    // Full-text queries are executed within Lucene (filtered, sorted, and paged) if *every* predicate is a top-level
+    // conjunct that Lucene can express.  These are the Lucene equivalents of those predicates.
+    private final List<org.apache.lucene.search.Query> luceneClauses = new ArrayList<>();
+    private boolean luceneExpressible = true;
+
+    // > 0 while visiting anything other than a top-level conjunct (or, not, relationship predicates)
+    private int nested = 0;
+
+    // Top-level full-text matches are deferred until #query, rather than being turned into a (potentially huge)
+    // list of IDs up front.
+    private org.apache.lucene.search.Query fullTextClause = null;
+
+    private String customPropertyKey = null;
+
+    private QueryBuilder luceneQueryBuilder = null;
+
     private long totalSize;
 
+    private boolean hasMore;
+
+    private boolean seekable;
+
+    // Some databases (Oracle especially) limit the number of elements in an "in" expression, and Lucene limits the
+    // number of clauses in a BooleanQuery.  Both allow at least 1000.
+    private static final int IN_LIMIT = 1000;
+
+    private static final int FETCH_SIZE = 1000;
+
     private static final Map<QName, String> corePropertyMap = new HashMap<>();
     static {
         corePropertyMap.put(new QName(ArtificerConstants.SRAMP_NS, "createdBy"), "createdBy.username");
@@ -152,45 +211,407 @@ public class ArtificerToHibernateQueryVisitor extends AbstractArtificerQueryVisi
             throw this.error;
         }
 
+        String propName = args.getOrderBy() == null ? null : orderByMap.get(args.getOrderBy());
+        boolean ascending = !Boolean.FALSE.equals(args.getOrderAscending());
+
+        if (fullTextClause != null) {
+            List<ArtifactSummary> results;
+            if (luceneExpressible && args.getContinuation() == null) {
+                results = luceneQuery(args, propName, ascending);
+            } else {
+                results = hybridQuery(args, propName, ascending);
+            }
+            projectProperties(args, results);
+            return results;
+        }
+
         // filter out the trash (have to do this here since 'from' can be overridden at several points in the visitor)
         predicates.add(criteriaBuilder.equal(from.get("trashed"), Boolean.valueOf(false)));
         // build the full set of constraints and
         query.where(compileAnd(predicates));
 
-        // First, select the total count, without paging
-        query.select(criteriaBuilder.count(from)).distinct(true);
-        totalSize = (Long) entityManager.createQuery(query).getSingleResult();
+        // First, select the total count, without paging (unless the caller opted out of it)
+        if (args.getCountMode() == CountMode.EXACT) {
+            query.select(criteriaBuilder.count(from)).distinct(true);
+            long start = System.nanoTime();
+            totalSize = (Long) entityManager.createQuery(query).getSingleResult();
+            QueryProfile.record(QueryProfile.Phase.COUNT, start);
+        }
+
+        if (args.getContinuation() != null) {
+            // Keyset paging: rather than an offset, seek past the last artifact of the previous page.
+            predicates.add(seek(propName, ascending, args.getContinuation()));
+            query.where(compileAnd(predicates));
+        }
 
         // Setup the select.  Note that we're only grabbing the fields we need for the summary.
         query.multiselect(from.get("uuid"), from.get("name"), from.get("description"), from.get("model"),
                 from.get("type"), from.get("derived"), from.get("expandedFromArchive"),
                 from.get("createdBy").get("lastActionTime"), from.get("createdBy").get("username"),
-                from.get("modifiedBy").get("lastActionTime"))
+                from.get("modifiedBy").get("lastActionTime"), from.get("modifiedBy").get("username"),
+                from.get("version"))
                 .distinct(true);
 
-        if (args.getOrderBy() != null) {
-            String propName = orderByMap.get(args.getOrderBy());
+        orderBy(propName, ascending, args);
+
+        TypedQuery q = entityManager.createQuery(query);
+        args.applyPaging(q, true);
+
+        q.unwrap(org.hibernate.Query.class).setCacheable(true).setCacheRegion(CacheRegions.QUERY_ARTIFACTS);
+
+        long start = System.nanoTime();
+        List<Object[]> rows = q.getResultList();
+        QueryProfile.record(QueryProfile.Phase.PAGE, start);
+
+        start = System.nanoTime();
+        List<ArtifactSummary> results = new ArrayList<ArtifactSummary>(rows.size());
+        for (Object[] row : rows) {
+            results.add(summary(row, 0));
+        }
+        QueryProfile.record(QueryProfile.Phase.CONVERSION, start);
+        hasMore = args.hasMore(results);
+
+        estimateTotalSize(args, results);
+        projectProperties(args, results);
+
+        return results;
+    }
+
+    /**
+     * Order by the requested property, then by uuid.  The latter makes the ordering total, which both offset and
+     * keyset paging need in order to be stable.  Without a (supported) order by, a page is still ordered by uuid
+     * alone, since that's what {@link #seek} reproduces for the next one.  Unpaged results are left unordered.
+     */
+    private void orderBy(String propName, boolean ascending, ArtificerQueryArgs args) {
+        List<Order> orders = new ArrayList<>();
+        if (propName != null) {
+            orders.add(ascending ? criteriaBuilder.asc(path(propName)) : criteriaBuilder.desc(path(propName)));
+        }
+        if ((propName != null || args.getCount() != null || args.getContinuation() != null)
+                && !"uuid".equals(propName)) {
+            orders.add(ascending ? criteriaBuilder.asc(from.get("uuid")) : criteriaBuilder.desc(from.get("uuid")));
+        }
+        if (!orders.isEmpty()) {
+            query.orderBy(orders);
+            seekable = true;
+        }
+    }
+
+    private void estimateTotalSize(ArtificerQueryArgs args, List<ArtifactSummary> results) {
+        switch (args.getCountMode()) {
+            case ESTIMATE:
+                int startIndex = args.getStartIndex() == null ? 0 : args.getStartIndex();
+                totalSize = startIndex + results.size() + (hasMore ? 1 : 0);
+                break;
+            case NONE:
+                totalSize = -1;
+                break;
+        }
+    }
+
+    /**
+     * Executes the query entirely within Lucene, including the sort and paging, then loads only the requested page.
+     */
+    private List<ArtifactSummary> luceneQuery(ArtificerQueryArgs args, String propName, boolean ascending) {
+        org.apache.lucene.search.Query luceneQuery = luceneQuery();
+        QueryProfile.statement("Lucene: " + luceneQuery);
+        FullTextQuery fullTextQuery = fullTextEntityManager().createFullTextQuery(luceneQuery,
+                ArtificerArtifact.class);
+        // Without an explicit order, leave the results in relevance order (which can't be seeked past).
+        if (propName != null) {
+            seekable = true;
+            List<SortField> sortFields = new ArrayList<>();
+            sortFields.add(new SortField(ArtifactIndexBridge.field(propName), SortField.Type.STRING, !ascending));
+            if (!"uuid".equals(propName)) {
+                sortFields.add(new SortField(ArtifactIndexBridge.UUID, SortField.Type.STRING, !ascending));
+            }
+            fullTextQuery.setSort(new Sort(sortFields.toArray(new SortField[sortFields.size()])));
+        }
+        fullTextQuery.setProjection(FullTextQuery.ID);
+        args.applyPaging(fullTextQuery, true);
+
+        long start = System.nanoTime();
+        List<Long> ids = new ArrayList<>();
+        for (Object result : fullTextQuery.getResultList()) {
+            ids.add((Long) ((Object[]) result)[0]);
+        }
+        hasMore = args.hasMore(ids);
+        QueryProfile.record(QueryProfile.Phase.PAGE, start);
+
+        // The hit count is exact and cheap, so it's used for estimates as well.
+        start = System.nanoTime();
+        totalSize = args.getCountMode() == CountMode.NONE ? -1 : fullTextQuery.getResultSize();
+        QueryProfile.record(QueryProfile.Phase.COUNT, start);
+
+        return summaries(ids);
+    }
+
+    /**
+     * For queries that Lucene can't fully express.  The full-text matches (narrowed by whatever Lucene *can* express)
+     * are collected into a bitset of IDs.  The relational query then selects only IDs (in order) and is streamed,
+     * skipping anything not in the bitset, until the requested page is filled.  Only that page is loaded.
+     */
+    private List<ArtifactSummary> hybridQuery(ArtificerQueryArgs args, String propName, boolean ascending) {
+        long start = System.nanoTime();
+        IdSet matches = new IdSet();
+        org.apache.lucene.search.Query luceneQuery = luceneQuery();
+        QueryProfile.statement("Lucene: " + luceneQuery);
+        org.hibernate.search.FullTextQuery fullTextQuery = Search.getFullTextSession(
+                entityManager.unwrap(Session.class)).createFullTextQuery(luceneQuery, ArtificerArtifact.class);
+        fullTextQuery.setProjection(FullTextQuery.ID);
+        fullTextQuery.setFetchSize(FETCH_SIZE);
+        ScrollableResults hits = fullTextQuery.scroll(ScrollMode.FORWARD_ONLY);
+        try {
+            while (hits.next()) {
+                matches.add((Long) hits.get()[0]);
+            }
+        } finally {
+            hits.close();
+        }
+
+        List<Long> ids = new ArrayList<>();
+        long matched = 0;
+        if (!matches.isEmpty()) {
+            predicates.add(criteriaBuilder.equal(from.get("trashed"), Boolean.valueOf(false)));
+            if (args.getContinuation() != null) {
+                predicates.add(seek(propName, ascending, args.getContinuation()));
+            }
+            query.where(compileAnd(predicates));
+            // The order by columns must also be selected, due to the distinct.
             if (propName != null) {
-                if (args.getOrderAscending()) {
-                    query.orderBy(criteriaBuilder.asc(path(propName)));
-                } else {
-                    query.orderBy(criteriaBuilder.desc(path(propName)));
+                query.select(criteriaBuilder.array(from.get("id"), path(propName), from.get("uuid"))).distinct(true);
+            } else {
+                query.select(criteriaBuilder.array(from.get("id"), from.get("uuid"))).distinct(true);
+            }
+            orderBy(propName, ascending, args);
+
+            org.hibernate.Query q = entityManager.createQuery(query).unwrap(org.hibernate.Query.class);
+            q.setFetchSize(FETCH_SIZE);
+            int offset = args.getStartIndex() == null || args.getContinuation() != null ? 0 : args.getStartIndex();
+            // one extra, to determine hasMore
+            int limit = args.getCount() == null ? Integer.MAX_VALUE : args.getCount() + 1;
+            ScrollableResults rows = q.scroll(ScrollMode.FORWARD_ONLY);
+            try {
+                while (rows.next()) {
+                    // The array selection arrives as a single (transformed) column.
+                    Long id = (Long) ((Object[]) rows.get(0))[0];
+                    if (matches.contains(id)) {
+                        matched++;
+                        if (matched > offset && ids.size() < limit) {
+                            ids.add(id);
+                        } else if (matched > offset && args.getCountMode() != CountMode.EXACT) {
+                            break;
+                        }
+                    }
                 }
+            } finally {
+                rows.close();
             }
         }
+        hasMore = args.hasMore(ids);
+        QueryProfile.record(QueryProfile.Phase.PAGE, start);
 
-        TypedQuery q = entityManager.createQuery(query);
-        args.applyPaging(q);
+        List<ArtifactSummary> results = summaries(ids);
+        totalSize = matched;
+        estimateTotalSize(args, results);
+        return results;
+    }
 
-        q.unwrap(org.hibernate.Query.class).setCacheable(true);
+    /**
+     * @return 'not trashed', the model and type (if known), and every expressible predicate (including the full-text
+     * match), as a conjunction
+     */
+    private org.apache.lucene.search.Query luceneQuery() {
+        BooleanQuery luceneQuery = new BooleanQuery();
+        luceneQuery.add(luceneQueryBuilder().keyword().onField("trashed").matching(false).createQuery(),
+                BooleanClause.Occur.MUST);
+        if (StringUtils.isNotBlank(artifactModel)) {
+            luceneQuery.add(luceneQueryBuilder().keyword().onField("model").matching(artifactModel).createQuery(),
+                    BooleanClause.Occur.MUST);
+        }
+        if (StringUtils.isNotBlank(artifactType)) {
+            luceneQuery.add(luceneQueryBuilder().keyword().onField("type").matching(artifactType).createQuery(),
+                    BooleanClause.Occur.MUST);
+        }
+        for (org.apache.lucene.search.Query clause : luceneClauses) {
+            luceneQuery.add(clause, BooleanClause.Occur.MUST);
+        }
+        return luceneQuery;
+    }
 
-        return q.getResultList();
+    /**
+     * Executes the deferred full-text match (along with everything else Lucene can express about the current
+     * context) and constrains the current 'from' to its matches, as an "id in (...)" predicate -- the same as a
+     * nested full-text match.  Called before 'from' is rebased onto related artifacts, after which the deferred match
+     * would otherwise be applied to the wrong artifacts.
+     */
+    private void bindFullTextClause() {
+        if (fullTextClause == null) {
+            return;
+        }
+        org.apache.lucene.search.Query luceneQuery = luceneQuery();
+        QueryProfile.statement("Lucene: " + luceneQuery);
+        FullTextQuery fullTextQuery = fullTextEntityManager().createFullTextQuery(luceneQuery,
+                ArtificerArtifact.class);
+        fullTextQuery.setProjection(FullTextQuery.ID);
+        List<Object[]> results = fullTextQuery.getResultList();
+
+        List<Predicate> matches = new ArrayList<>();
+        for (int i = 0; i < results.size(); i += IN_LIMIT) {
+            List<Object[]> subResults = results.subList(i, Math.min(i + IN_LIMIT, results.size()));
+            Long[] ids = new Long[subResults.size()];
+            for (int j = 0; j < subResults.size(); j++) {
+                ids[j] = (Long) subResults.get(j)[0];
+            }
+            matches.add(from.get("id").in(ids));
+        }
+        predicates.add(matches.isEmpty() ? criteriaBuilder.disjunction() : compileOr(matches));
+        fullTextClause = null;
+    }
+
+    /**
+     * Loads the summaries of the given artifacts, in the given order.
+     */
+    private List<ArtifactSummary> summaries(List<Long> ids) {
+        long start = System.nanoTime();
+        Map<Long, ArtifactSummary> summaries = new HashMap<>();
+        for (int i = 0; i < ids.size(); i += IN_LIMIT) {
+            CriteriaQuery<Object[]> summaryQuery = criteriaBuilder.createQuery(Object[].class);
+            Root<ArtificerArtifact> root = summaryQuery.from(ArtificerArtifact.class);
+            summaryQuery.multiselect(root.get("id"), root.get("uuid"), root.get("name"), root.get("description"),
+                    root.get("model"), root.get("type"), root.get("derived"), root.get("expandedFromArchive"),
+                    root.get("createdBy").get("lastActionTime"), root.get("createdBy").get("username"),
+                    root.get("modifiedBy").get("lastActionTime"), root.get("modifiedBy").get("username"),
+                    root.get("version"));
+            summaryQuery.where(root.get("id").in(ids.subList(i, Math.min(i + IN_LIMIT, ids.size()))));
+            for (Object[] row : entityManager.createQuery(summaryQuery).getResultList()) {
+                summaries.put((Long) row[0], summary(row, 1));
+            }
+        }
+
+        List<ArtifactSummary> results = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            // Possible if the index is momentarily ahead of (or behind) the database.
+            if (summaries.containsKey(id)) {
+                results.add(summaries.get(id));
+            }
+        }
+        QueryProfile.record(QueryProfile.Phase.CONVERSION, start);
+        return results;
+    }
+
+    /**
+     * @param row the summary columns (uuid, name, description, model, type, derived, expandedFromArchive, created
+     * timestamp and user, modified timestamp and user, and version), starting at the given offset
+     */
+    private static ArtifactSummary summary(Object[] row, int offset) {
+        return new ArtifactSummary((String) row[offset], (String) row[offset + 1], (String) row[offset + 2],
+                (String) row[offset + 3], (String) row[offset + 4], (Boolean) row[offset + 5],
+                (Boolean) row[offset + 6], (Calendar) row[offset + 7], (String) row[offset + 8],
+                (Calendar) row[offset + 9], (String) row[offset + 10], (String) row[offset + 11]);
+    }
+
+    /**
+     * Populates each summary with the requested custom properties (see {@link ArtificerQueryArgs#getPropertyNames()}).
+     * They're fetched for the whole page at once, rather than joined into the page query (which would multiply its
+     * rows, and so break its paging).
+     */
+    private void projectProperties(ArtificerQueryArgs args, List<ArtifactSummary> results) {
+        Collection<String> propertyNames = args.getPropertyNames();
+        if (propertyNames == null || propertyNames.isEmpty() || results.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        Map<String, ArtifactSummary> summaries = new HashMap<>();
+        for (ArtifactSummary summary : results) {
+            summary.setProperties(new HashMap<String, String>());
+            summaries.put(summary.getUuid(), summary);
+        }
+        List<String> uuids = new ArrayList<>(summaries.keySet());
+        for (int i = 0; i < uuids.size(); i += IN_LIMIT) {
+            CriteriaQuery<Object[]> propertyQuery = criteriaBuilder.createQuery(Object[].class);
+            Root<ArtificerProperty> root = propertyQuery.from(ArtificerProperty.class);
+            Join<ArtificerProperty, ArtificerArtifact> owner = root.join("owner");
+            propertyQuery.multiselect(owner.get("uuid"), root.get("key"), root.get("value"));
+            // Custom only: model attributes (ex: an XSD's targetNamespace) are stored as properties too, and their keys
+            // may collide.
+            propertyQuery.where(owner.get("uuid").in(uuids.subList(i, Math.min(i + IN_LIMIT, uuids.size()))),
+                    root.get("key").in(propertyNames), criteriaBuilder.isTrue(root.<Boolean>get("custom")));
+            TypedQuery<Object[]> q = entityManager.createQuery(propertyQuery);
+            q.unwrap(org.hibernate.Query.class).setCacheable(true).setCacheRegion(CacheRegions.QUERY_ARTIFACTS);
+            for (Object[] row : q.getResultList()) {
+                summaries.get(row[0]).getProperties().put((String) row[1], (String) row[2]);
+            }
+        }
+        QueryProfile.record(QueryProfile.Phase.CONVERSION, start);
+    }
+
+    /**
+     * Builds the keyset predicate selecting everything after the continuation's (order by value, uuid), in the given
+     * direction.  Where null order by values fall depends on the database, so that's accounted for as well.
+     */
+    private Predicate seek(String propName, boolean ascending, ContinuationToken continuation) {
+        Path uuidPath = from.get("uuid");
+        String lastUuid = continuation.getLastUuid();
+        Predicate afterUuid = ascending ? criteriaBuilder.greaterThan(uuidPath, lastUuid)
+                : criteriaBuilder.lessThan(uuidPath, lastUuid);
+        if (propName == null || "uuid".equals(propName)) {
+            return afterUuid;
+        }
+
+        Path valuePath = path(propName);
+        Comparable lastValue = (Comparable) continuation.getLastValue();
+        boolean nullsFirst = ascending != nullsSortHigh();
+        if (lastValue == null) {
+            Predicate inNulls = criteriaBuilder.and(criteriaBuilder.isNull(valuePath), afterUuid);
+            return nullsFirst ? criteriaBuilder.or(inNulls, criteriaBuilder.isNotNull(valuePath)) : inNulls;
+        }
+
+        Predicate after = ascending ? criteriaBuilder.greaterThan(valuePath, lastValue)
+                : criteriaBuilder.lessThan(valuePath, lastValue);
+        Predicate tie = criteriaBuilder.and(criteriaBuilder.equal(valuePath, lastValue), afterUuid);
+        return nullsFirst ? criteriaBuilder.or(after, tie)
+                : criteriaBuilder.or(after, tie, criteriaBuilder.isNull(valuePath));
+    }
+
+    /**
+     * @return true if the database sorts nulls after all other values (in ascending order)
+     */
+    private boolean nullsSortHigh() {
+        Dialect dialect = ((SessionFactoryImplementor) entityManager.unwrap(Session.class).getSessionFactory())
+                .getDialect();
+        return dialect instanceof PostgreSQL81Dialect || dialect instanceof Oracle8iDialect
+                || dialect instanceof DB2Dialect;
     }
 
     public long getTotalSize() {
         return totalSize;
     }
 
+    /**
+     * @return whether or not another page follows the results returned by {@link #query(ArtificerQueryArgs)}
+     */
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    /**
+     * @return whether or not the results returned by {@link #query(ArtificerQueryArgs)} were ordered by (order by,
+     * uuid), which is what a continuation seeks past.  If not, a continuation would skip or repeat artifacts.
+     */
+    public boolean isSeekable() {
+        return seekable;
+    }
+
+    /**
+     * @param orderBy an s-ramp order by name (ex: createdTimestamp)
+     * @return the corresponding ArtificerArtifact path, or null if it is not supported
+     */
+    public static String orderByPath(String orderBy) {
+        return orderByMap.get(orderBy);
+    }
+
     /**
      * @see org.artificer.common.query.xpath.visitors.XPathVisitor#visit(org.artificer.common.query.xpath.ast.Query)
      */
@@ -198,7 +619,7 @@ public class ArtificerToHibernateQueryVisitor extends AbstractArtificerQueryVisi
     public void visit(Query node) {
         this.error = null;
 
-        query = criteriaBuilder.createQuery(ArtifactSummary.class);
+        query = criteriaBuilder.createQuery(Object[].class);
         from = query.from(ArtificerArtifact.class);
 
         node.getArtifactSet().accept(this);
@@ -208,6 +629,13 @@ public class ArtificerToHibernateQueryVisitor extends AbstractArtificerQueryVisi
         if (node.getSubartifactSet() != null) {
             SubartifactSet subartifactSet = node.getSubartifactSet();
             if (subartifactSet.getRelationshipPath() != null) {
+                // The results are now related artifacts, so Lucene can no longer execute the query by itself (and
+                // anything it *could* express so far applied to the original context).  A deferred full-text match
+                // must be bound to that context now, before 'from' moves on.
+                bindFullTextClause();
+                luceneExpressible = false;
+                luceneClauses.clear();
+
                 if (subartifactSet.getRelationshipPath().getRelationshipType().equalsIgnoreCase("relatedDocument")) {
                     // derivedFrom
                     from = from.join("derivedFrom");
@@ -273,7 +701,7 @@ public class ArtificerToHibernateQueryVisitor extends AbstractArtificerQueryVisi
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
-            query = criteriaBuilder.createQuery(ArtifactSummary.class);
+            query = criteriaBuilder.createQuery(Object[].class);
             from = query.from(artifact.getClass());
 
             eq("type", node.getArtifactType());
@@ -313,26 +741,97 @@ public class ArtificerToHibernateQueryVisitor extends AbstractArtificerQueryVisi
         } else if (node.getExpr() != null) {
             node.getExpr().accept(this);
         } else if (node.getOperator() == null) {
-            node.getLeft().accept(this);
-            if (customPropertySubquery != null) {
+            visitLeft(node);
+            if (customPropertyJoined) {
+                predicates.add(compileAnd(customPropertyPredicates));
+            } else if (customPropertySubquery != null) {
                 customPropertySubquery.where(compileAnd(customPropertyPredicates));
             } else if (propertyContext != null) {
                 exists(propertyContext);
             }
+            if (node.getLeft() instanceof ForwardPropertyStep) {
+                lucene(null);
+            }
         } else {
-            node.getLeft().accept(this);
+            visitLeft(node);
             node.getRight().accept(this);
 
-            if (customPropertySubquery != null) {
-                customPropertyPredicates.add(criteriaBuilder.equal(customPropertyValuePath, valueContext));
-                customPropertySubquery.where(compileAnd(customPropertyPredicates));
+            if (customPropertyJoined || customPropertySubquery != null) {
+                customPropertyPredicates.add(customPropertyComparison(node.getOperator(), valueContext));
+                if (customPropertyJoined) {
+                    predicates.add(compileAnd(customPropertyPredicates));
+                } else {
+                    customPropertySubquery.where(compileAnd(customPropertyPredicates));
+                }
+                if (node.getOperator() == EqualityExpr.Operator.EQ && customPropertyKey != null
+                        && valueContext instanceof String) {
+                    lucene(new TermQuery(new Term(ArtifactIndexBridge.PROPERTY_PREFIX + customPropertyKey,
+                            (String) valueContext)));
+                } else {
+                    lucene(null);
+                }
             } else if (propertyContext != null) {
                 // TODO: Not guaranteed to be propertyContext -- may be function, etc.
                 operation(node.getOperator().symbol(), propertyContext, valueContext);
+                String field = ArtifactIndexBridge.field(propertyContext);
+                if ("=".equals(node.getOperator().symbol()) && field != null && valueContext instanceof String) {
+                    lucene(new TermQuery(new Term(field, (String) valueContext)));
+                } else {
+                    lucene(null);
+                }
+            } else {
+                lucene(null);
             }
 
             valueContext = null;
         }
+        customPropertyJoined = false;
+    }
+
+    private void visitLeft(EqualityExpr node) {
+        customPropertyJoined = false;
+        joinCustomProperty = nested == 0;
+        node.getLeft().accept(this);
+        joinCustomProperty = false;
+    }
+
+    /**
+     * Compares a custom property using its typed columns where possible: numerically if the value is a number (or,
+     * for ranges, a numeric string), then chronologically for ranges of ISO-8601 dates, and otherwise as a string.
+     * Relationship and target attributes have no typed columns, and are only ever compared for equality.
+     */
+    private Predicate customPropertyComparison(EqualityExpr.Operator operator, Object value) {
+        if (customPropertyFrom == null || value == null) {
+            return criteriaBuilder.equal(customPropertyValuePath, value);
+        }
+
+        boolean range = operator != EqualityExpr.Operator.EQ && operator != EqualityExpr.Operator.NE;
+        Expression path = customPropertyValuePath;
+        Comparable typedValue = value instanceof Number ? ((Number) value).doubleValue() : (Comparable) value;
+        if (value instanceof Number) {
+            path = customPropertyFrom.get("numericValue");
+        } else if (range && ArtificerProperty.parseNumber((String) value) != null) {
+            path = customPropertyFrom.get("numericValue");
+            typedValue = ArtificerProperty.parseNumber((String) value);
+        } else if (range && ArtificerProperty.parseTimestamp((String) value) != null) {
+            path = customPropertyFrom.get("timestampValue");
+            typedValue = ArtificerProperty.parseTimestamp((String) value);
+        }
+
+        switch (operator) {
+            case NE:
+                return criteriaBuilder.notEqual(path, typedValue);
+            case LT:
+                return criteriaBuilder.lessThan(path, typedValue);
+            case LTE:
+                return criteriaBuilder.lessThanOrEqualTo(path, typedValue);
+            case GT:
+                return criteriaBuilder.greaterThan(path, typedValue);
+            case GTE:
+                return criteriaBuilder.greaterThanOrEqualTo(path, typedValue);
+            default:
+                return criteriaBuilder.equal(path, typedValue);
+        }
     }
 
     /**
@@ -349,21 +848,35 @@ public class ArtificerToHibernateQueryVisitor extends AbstractArtificerQueryVisi
                 if (corePropertyMap.containsKey(property)) {
                     propertyContext = corePropertyMap.get(property);
                     customPropertySubquery = null;
+                    customPropertyFrom = null;
+                    customPropertyKey = null;
                 } else {
-                    // Note: Typically, you'd expect to see a really simple MapJoin w/ key and value predicates.
-                    // However, *negation* ("not()") is needed and is tricky when just using a join.  Instead, use
-                    // an "a1.id in (select a2.id from ArtificerArtifact a2 [map join and predicates)" -- easily negated.
-
-                    customPropertySubquery = query.subquery(ArtificerArtifact.class);
-                    From customPropertyFrom = customPropertySubquery.from(ArtificerArtifact.class);
-                    Join customPropertyJoin = customPropertyFrom.join("properties");
-                    customPropertySubquery.select(customPropertyFrom.get("id"));
                     customPropertyPredicates = new ArrayList<>();
-                    customPropertyPredicates.add(criteriaBuilder.equal(customPropertyFrom.get("id"), from.get("id")));
-                    customPropertyPredicates.add(criteriaBuilder.equal(customPropertyJoin.get("key"), property.getLocalPart()));
-                    customPropertyValuePath = customPropertyJoin.get("value");
-                    predicates.add(criteriaBuilder.exists(customPropertySubquery));
+                    if (joinCustomProperty) {
+                        // A top-level conjunct, so a plain (inner) join suffices.  Each property predicate gets its
+                        // own join, which the database can drive from the (key, value, owner) indexes.
+                        customPropertyFrom = from.join("properties");
+                        customPropertySubquery = null;
+                        customPropertyJoined = true;
+                    } else {
+                        // However, *negation* ("not()") and disjunctions are tricky when just using a join.  Instead,
+                        // use an "exists (select p.id from ArtificerProperty p where p.owner = a1 and [predicates])"
+                        // -- easily negated, and still answered by the same indexes.
+                        customPropertySubquery = query.subquery(ArtificerProperty.class);
+                        customPropertyFrom = customPropertySubquery.from(ArtificerProperty.class);
+                        customPropertySubquery.select(customPropertyFrom.get("id"));
+                        customPropertyPredicates.add(criteriaBuilder.equal(
+                                customPropertyFrom.get("owner").get("id"), from.get("id")));
+                        predicates.add(criteriaBuilder.exists(customPropertySubquery));
+                    }
+                    customPropertyPredicates.add(criteriaBuilder.equal(customPropertyFrom.get("key"),
+                            property.getLocalPart()));
+                    if (!ArtificerProperty.BUILTIN_KEYS.contains(property.getLocalPart())) {
+                        customPropertyPredicates.add(criteriaBuilder.isTrue(customPropertyFrom.<Boolean>get("custom")));
+                    }
+                    customPropertyValuePath = customPropertyFrom.get("value");
                     propertyContext = null;
+                    customPropertyKey = property.getLocalPart();
                 }
             } else {
                 throw new RuntimeException(Messages.i18n.format("XP_INVALID_PROPERTY_NS", property.getNamespaceURI()));
@@ -400,6 +913,8 @@ public class ArtificerToHibernateQueryVisitor extends AbstractArtificerQueryVisi
                 customPropertyValuePath = customPropertyJoin.value();
                 predicates.add(criteriaBuilder.exists(customPropertySubquery));
                 propertyContext = null;
+                customPropertyFrom = null;
+                customPropertyKey = null;
             } else if (node.getFunctionName().equals(GET_TARGET_ATTRIBUTE)) {
                 String otherAttributeKey = reduceStringLiteralArgument(node.getArguments().get(1));
                 // Ex. query: /s-ramp/wsdl/WsdlDocument[someRelationship[s-ramp:getTargetAttribute(., 'someAttribute') = 'true']]
@@ -415,6 +930,8 @@ public class ArtificerToHibernateQueryVisitor extends AbstractArtificerQueryVisi
                 customPropertyValuePath = customPropertyJoin.value();
                 predicates.add(criteriaBuilder.exists(customPropertySubquery));
                 propertyContext = null;
+                customPropertyFrom = null;
+                customPropertyKey = null;
             } else {
                 if (node.getFunctionName().getLocalPart().equals("matches") || node.getFunctionName().getLocalPart().equals("not")) {
                     throw new RuntimeException(Messages.i18n.format("XP_BAD_FUNC_NS", node.getFunctionName().getLocalPart()) );
@@ -437,6 +954,7 @@ public class ArtificerToHibernateQueryVisitor extends AbstractArtificerQueryVisi
                 ForwardPropertyStep attribute = reducePropertyArgument(attributeArg);
                 attribute.accept(this);
                 like(propertyContext, pattern);
+                lucene(null);
             }
         } else if (NOT.equals(node.getFunctionName())) {
             if (node.getArguments().size() != 1) {
@@ -445,7 +963,9 @@ public class ArtificerToHibernateQueryVisitor extends AbstractArtificerQueryVisi
 
             Argument argument = node.getArguments().get(0);
             if (argument.getExpr() != null) {
+                nested(true);
                 argument.getExpr().accept(this);
+                nested(false);
                 // Should have resulted in only 1 constraint -- negate it and re-add
                 Predicate predicate = predicates.remove(predicates.size() - 1);
                 predicates.add(criteriaBuilder.not(predicate));
@@ -469,9 +989,14 @@ public class ArtificerToHibernateQueryVisitor extends AbstractArtificerQueryVisi
         }
 
         List<Predicate> classifierConstraints = new ArrayList<>();
+        BooleanQuery classifierClause = new BooleanQuery();
         for (URI classification : classifications) {
             classifierConstraints.add(criteriaBuilder.isMember(classification.toString(), classifierPath));
+            classifierClause.add(new TermQuery(new Term(allowSubtypes ? ArtifactIndexBridge.NORMALIZED_CLASSIFIER
+                    : ArtifactIndexBridge.CLASSIFIER, classification.toString())),
+                    isOr ? BooleanClause.Occur.SHOULD : BooleanClause.Occur.MUST);
         }
+        lucene(classifications.isEmpty() ? null : classifierClause);
 
         if (isOr) {
             predicates.add(compileOr(classifierConstraints));
@@ -488,8 +1013,10 @@ public class ArtificerToHibernateQueryVisitor extends AbstractArtificerQueryVisi
         if (node.getRight() == null) {
             node.getLeft().accept(this);
         } else {
+            nested(true);
             node.getLeft().accept(this);
             node.getRight().accept(this);
+            nested(false);
             Predicate predicate1 = predicates.remove(predicates.size() - 1);
             Predicate predicate2 = predicates.remove(predicates.size() - 1);
             predicates.add(criteriaBuilder.or(predicate1, predicate2));
@@ -501,52 +1028,54 @@ public class ArtificerToHibernateQueryVisitor extends AbstractArtificerQueryVisi
      */
     @Override
     public void visit(PrimaryExpr node) {
-        if (node.getLiteral() != null) {
+        String literal = literal(node);
+        Number number = number(node);
+        if (literal != null) {
             // If this is a custom property, we must assume that the value will always be a literal String.  If
             // it's a built-in property, correctly handle booleans and timestamps.
-            if (customPropertySubquery == null) {
+            if (customPropertySubquery == null && !customPropertyJoined) {
                 if (propertyContext != null && propertyContext.contains("lastActionTime")) {
                     Date date = null;
                     try {
-                        date = SDF.parse(node.getLiteral());
+                        date = SDF.parse(literal);
                     } catch (ParseException e) {
                         error = new QueryExecutionException(e);
                     }
                     Calendar calendar = Calendar.getInstance();
                     calendar.setTime(date);
                     valueContext = calendar;
-                } else if ("true".equalsIgnoreCase(node.getLiteral())) {
+                } else if ("true".equalsIgnoreCase(literal)) {
                     valueContext = Boolean.valueOf(true);
-                } else if ("false".equalsIgnoreCase(node.getLiteral())) {
+                } else if ("false".equalsIgnoreCase(literal)) {
                     valueContext = Boolean.valueOf(false);
                 } else {
-                    valueContext = node.getLiteral();
+                    valueContext = literal;
                 }
             } else {
-                valueContext = node.getLiteral();
+                valueContext = literal;
             }
-        } else if (node.getNumber() != null) {
-            if (customPropertySubquery == null) {
+        } else if (number != null) {
+            if (customPropertySubquery == null && !customPropertyJoined) {
                 if (propertyContext != null && propertyContext.contains("lastActionTime")) {
                     Date date = null;
-                    if (node.getNumber() instanceof BigInteger) {
-                        date = new Date(((BigInteger)node.getNumber()).longValue());
+                    if (number instanceof BigInteger) {
+                        date = new Date(((BigInteger)number).longValue());
                     } else {
-                        date = new Date((Long)node.getNumber());
+                        date = new Date((Long)number);
                     }
 
                     Calendar calendar = Calendar.getInstance();
                     calendar.setTime(date);
                     valueContext = calendar;
-                } else if ("true".equalsIgnoreCase(node.getLiteral())) {
+                } else if ("true".equalsIgnoreCase(literal)) {
                     valueContext = Boolean.valueOf(true);
-                } else if ("false".equalsIgnoreCase(node.getLiteral())) {
+                } else if ("false".equalsIgnoreCase(literal)) {
                     valueContext = Boolean.valueOf(false);
                 } else {
-                    valueContext = node.getLiteral();
+                    valueContext = literal;
                 }
             } else {
-                valueContext = node.getNumber().doubleValue();
+                valueContext = number.doubleValue();
             }
         } else if (node.getPropertyQName() != null) {
             throw new RuntimeException(Messages.i18n.format("XP_PROPERTY_PRIMARY_EXPR_NOT_SUPPORTED"));
@@ -556,6 +1085,7 @@ public class ArtificerToHibernateQueryVisitor extends AbstractArtificerQueryVisi
     @Override
     public void visit(RelationshipPath node) {
         eq("name", node.getRelationshipType());
+        lucene(null);
     }
 
     /**
@@ -566,6 +1096,7 @@ public class ArtificerToHibernateQueryVisitor extends AbstractArtificerQueryVisi
         if (node.getFunctionCall() != null) {
             node.getFunctionCall().accept(this);
         } else if (node.getRelationshipPath() != null) {
+            nested(true);
             From oldRootContext = from;
 
             if (node.getRelationshipPath().getRelationshipType().equalsIgnoreCase("relatedDocument")) {
@@ -627,6 +1158,7 @@ public class ArtificerToHibernateQueryVisitor extends AbstractArtificerQueryVisi
 
             // restore the original selector (since the relationship was in a predicate, not a path)
             from = oldRootContext;
+            nested(false);
 
             if (node.getSubartifactSet() != null) {
                 throw new RuntimeException(Messages.i18n.format("XP_MULTILEVEL_SUBARTYSETS_NOT_SUPPORTED"));
@@ -702,11 +1234,59 @@ public class ArtificerToHibernateQueryVisitor extends AbstractArtificerQueryVisi
         else if ("<>".equalsIgnoreCase(operator)) ne(propertyName, value);
     }
 
+    /**
+     * Records the Lucene equivalent of the predicate just added, or null if there isn't one.  Only top-level conjuncts
+     * are recorded -- anything else (disjunctions, negations, relationships) was already flagged when entered.
+     */
+    private void lucene(org.apache.lucene.search.Query clause) {
+        if (clause == null) {
+            luceneExpressible = false;
+        } else if (nested == 0) {
+            luceneClauses.add(clause);
+        }
+    }
+
+    private void nested(boolean entering) {
+        if (entering) {
+            nested++;
+            luceneExpressible = false;
+        } else {
+            nested--;
+        }
+    }
+
+    private FullTextEntityManager fullTextEntityManager() {
+        return org.hibernate.search.jpa.Search.getFullTextEntityManager(entityManager);
+    }
+
+    private QueryBuilder luceneQueryBuilder() {
+        if (luceneQueryBuilder == null) {
+            luceneQueryBuilder = fullTextEntityManager().getSearchFactory().buildQueryBuilder()
+                    .forEntity(ArtificerArtifact.class).get();
+        }
+        return luceneQueryBuilder;
+    }
+
     private void fullTextSearch(String query) {
-        FullTextEntityManager fullTextEntityManager = org.hibernate.search.jpa.Search.getFullTextEntityManager(
-                entityManager);
-        QueryBuilder qb = fullTextEntityManager.getSearchFactory().buildQueryBuilder()
-                .forEntity(ArtificerArtifact.class).get();
+        if (nested == 0 && ArtificerConfig.isFullTextNativePaging()) {
+            // A top-level conjunct: nothing is executed yet.  #query either runs the whole thing in Lucene or
+            // intersects the Lucene matches with the relational results while paging through them.
+            org.apache.lucene.search.Query clause = fullTextClause(query);
+            if (fullTextClause == null) {
+                fullTextClause = clause;
+            } else {
+                BooleanQuery both = new BooleanQuery();
+                both.add(fullTextClause, BooleanClause.Occur.MUST);
+                both.add(clause, BooleanClause.Occur.MUST);
+                fullTextClause = both;
+            }
+            lucene(clause);
+            predicates.add(criteriaBuilder.conjunction());
+            return;
+        }
+
+        FullTextEntityManager fullTextEntityManager = fullTextEntityManager();
+        QueryBuilder qb = luceneQueryBuilder();
         BooleanJunction<BooleanJunction> junction = qb.bool();
 
         // not trashed
@@ -715,8 +1295,6 @@ public class ArtificerToHibernateQueryVisitor extends AbstractArtificerQueryVisi
         // the main full-text query
         junction.must(qb.keyword()
                 .onFields("description", "name", "comments.text", "properties.key", "properties.value")
-                .andField("content").ignoreFieldBridge()
-                .andField("contentPath").ignoreFieldBridge()
                 .matching(query)
                 .createQuery());
 
@@ -742,14 +1320,25 @@ public class ArtificerToHibernateQueryVisitor extends AbstractArtificerQueryVisi
         // it's restricted, they typically allow for at least 1000 elements.  Just to be safe (and maintain
         // portability), break the expressions up into 1000-element chunks.
 
+        // Content text is indexed once per content hash (see ArtificerContentText), so match documents through it.
+        QueryBuilder contentQb = fullTextEntityManager.getSearchFactory().buildQueryBuilder()
+                .forEntity(ArtificerContentText.class).get();
+        FullTextQuery contentQuery = fullTextEntityManager.createFullTextQuery(
+                contentQb.keyword().onField("text").matching(query).createQuery(), ArtificerContentText.class);
+        contentQuery.setProjection(FullTextQuery.ID);
+        List<Object[]> contentResults = contentQuery.getResultList();
+
         List<Predicate> searchResults = new ArrayList<>();
-        for (int i = 0; i < results.size(); i += 1000) {
-            List<Object[]> subResults;
-            if (results.size() > i + 1000) {
-                subResults = results.subList(i, i + 1000 - 1);
-            } else {
-                subResults = results;
+        for (int i = 0; i < contentResults.size(); i += IN_LIMIT) {
+            List<Object[]> subResults = contentResults.subList(i, Math.min(i + IN_LIMIT, contentResults.size()));
+            String[] hashes = new String[subResults.size()];
+            for (int j = 0; j < subResults.size(); j++) {
+                hashes[j] = (String) subResults.get(j)[0];
             }
+            searchResults.add(from.get("contentHash").in(hashes));
+        }
+        for (int i = 0; i < results.size(); i += IN_LIMIT) {
+            List<Object[]> subResults = results.subList(i, Math.min(i + IN_LIMIT, results.size()));
             Long[] ids = new Long[subResults.size()];
             for (int j = 0; j < subResults.size(); j++) {
                 Object[] result = subResults.get(j);
@@ -759,7 +1348,40 @@ public class ArtificerToHibernateQueryVisitor extends AbstractArtificerQueryVisi
         }
         if (searchResults.size() > 0) {
             predicates.add(compileOr(searchResults));
+        } else {
+            // nothing matched
+            predicates.add(criteriaBuilder.disjunction());
+        }
+    }
+
+    /**
+     * The full-text match, as a single Lucene query: the artifact's own fields, or its content's text (matched by
+     * content hash, as content text is indexed once per hash).
+     */
+    private org.apache.lucene.search.Query fullTextClause(String query) {
+        BooleanQuery clause = new BooleanQuery();
+        clause.add(luceneQueryBuilder().keyword()
+                .onFields("description", "name", "comments.text", "properties.key", "properties.value")
+                .matching(query)
+                .createQuery(), BooleanClause.Occur.SHOULD);
+
+        FullTextEntityManager fullTextEntityManager = fullTextEntityManager();
+        QueryBuilder contentQb = fullTextEntityManager.getSearchFactory().buildQueryBuilder()
+                .forEntity(ArtificerContentText.class).get();
+        FullTextQuery contentQuery = fullTextEntityManager.createFullTextQuery(
+                contentQb.keyword().onField("text").matching(query).createQuery(), ArtificerContentText.class);
+        contentQuery.setProjection(FullTextQuery.ID);
+        List<Object[]> contentResults = contentQuery.getResultList();
+        // Lucene limits the number of clauses in a BooleanQuery, so nest the hashes in chunks.
+        for (int i = 0; i < contentResults.size(); i += IN_LIMIT) {
+            BooleanQuery hashes = new BooleanQuery();
+            for (Object[] contentResult : contentResults.subList(i, Math.min(i + IN_LIMIT, contentResults.size()))) {
+                hashes.add(new TermQuery(new Term(ArtifactIndexBridge.CONTENT_HASH, (String) contentResult[0])),
+                        BooleanClause.Occur.SHOULD);
+            }
+            clause.add(hashes, BooleanClause.Occur.SHOULD);
         }
+        return clause;
     }
 
     private void exists(String propertyName) {
@@ -803,4 +1425,34 @@ public class ArtificerToHibernateQueryVisitor extends AbstractArtificerQueryVisi
         }
     }
 
-}
\ No newline at end of file
+
+    /**
+     * Artifact IDs, as a bitset.  IDs are sequence-generated, so they're dense enough for that to be far smaller
+     * than a set of Longs.  Anything beyond int range (unlikely) falls back to a regular set.
+     */
+    private static class IdSet {
+
+        private final BitSet ids = new BitSet();
+
+        private final Set<Long> overflow = new HashSet<>();
+
+        public void add(long id) {
+            if (id >= 0 && id <= Integer.MAX_VALUE) {
+                ids.set((int) id);
+            } else {
+                overflow.add(id);
+            }
+        }
+
+        public boolean contains(long id) {
+            if (id >= 0 && id <= Integer.MAX_VALUE) {
+                return ids.get((int) id);
+            }
+            return overflow.contains(id);
+        }
+
+        public boolean isEmpty() {
+            return ids.isEmpty() && overflow.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,589 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.repository.hibernate.query;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.WriteOutContentHandler;
+import org.artificer.common.ArtifactContent;
+import org.artificer.common.ArtificerConfig;
+import org.artificer.common.ArtificerException;
+import org.artificer.repository.hibernate.HibernateUtil;
+import org.artificer.repository.hibernate.entity.ArtificerArtifact;
+import org.artificer.repository.hibernate.entity.ArtificerContentText;
+import org.artificer.repository.hibernate.entity.ArtificerDocumentArtifact;
+import org.artificer.repository.hibernate.entity.ArtificerProperty;
+import org.artificer.repository.hibernate.file.FileManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.search.jpa.FullTextEntityManager;
+import org.hibernate.search.jpa.Search;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Extracts (Tika) the text of document content for the full-text index, out of the persisting transaction.
+ *
+ * The pending work is simply every non-trashed document with content, but without an {@link ArtificerContentText}
+ * for its hash.  Since that lives in the database, the queue is durable: anything left behind by a restart (or by
+ * another node) is picked up by the next pass.  Passes are triggered after an upload commits, as well as every
+ * 'artificer.config.fulltext.poll-interval'.  Each pass claims up to 'artificer.config.fulltext.batch-size' distinct
+ * content hashes and extracts them across 'artificer.config.fulltext.threads' workers.  Each hash's text is then
+ * stored (and indexed by Hibernate Search) in its own short transaction.  A hash that could not be indexed (ex: its
+ * content could not be read) is not claimed again until its backoff, doubling with each attempt, has elapsed.
+ *
+ * If 'artificer.config.fulltext.async' is disabled, extraction instead happens inline, prior to persisting, and the
+ * text is stored as soon as the upload commits.
+ *
+ * Either way, the same content may be extracted more than once concurrently (ex: by the inline path and a pass, or
+ * by another node), so storing text that already exists is simply a no-op.
+ *
+ * @author Brett Meyer
+ */
+public class ContentTextIndexer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ContentTextIndexer.class);
+
+    // Expensive, so only do it once...
+    private static final Parser PARSER = new AutoDetectParser();
+
+    private static final long SHUTDOWN_TIMEOUT = 30000;
+
+    // A failed hash waits (poll interval * 2^attempts), up to (poll interval * 2^MAX_BACKOFF_SHIFT).
+    private static final int MAX_BACKOFF_SHIFT = 6;
+
+    private static ContentTextIndexer instance = null;
+
+    public static synchronized ContentTextIndexer getInstance() {
+        if (instance == null) {
+            instance = new ContentTextIndexer();
+        }
+        return instance;
+    }
+
+    private final Object lock = new Object();
+
+    // All guarded by the lock.
+    private Thread coordinator;
+    private ExecutorService workers;
+    private boolean requested;
+    private boolean reindexRequested;
+    private boolean busy;
+
+    // Hashes that failed to index, guarded by itself.  Not persisted, so a restart simply retries them right away.
+    private final Map<String, Failure> failures = new HashMap<>();
+
+    private final AtomicLong extracted = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    /**
+     * Starts the background workers, if they aren't already running, and triggers an initial pass.  Note that the
+     * workers are also started lazily, as soon as any extraction is needed.
+     * @param reindex if true, the full-text index is completely rebuilt first (see {@link #reindex(boolean)})
+     */
+    public void start(boolean reindex) {
+        synchronized (lock) {
+            if (reindex) {
+                reindexRequested = true;
+            }
+            requestPass();
+        }
+    }
+
+    /**
+     * Stops the background workers, waiting (briefly) for any in-flight extraction to finish.  Pending documents are
+     * picked up again by the next pass.
+     */
+    public void shutdown() {
+        Thread coordinator;
+        ExecutorService workers;
+        synchronized (lock) {
+            coordinator = this.coordinator;
+            workers = this.workers;
+            this.coordinator = null;
+            this.workers = null;
+            requested = false;
+            reindexRequested = false;
+            busy = false;
+            lock.notifyAll();
+        }
+        synchronized (failures) {
+            failures.clear();
+        }
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+        if (coordinator != null) {
+            coordinator.interrupt();
+        }
+
+        // Otherwise, a straggler could store its text after shutdown (ex: after the tables were cleared).
+        try {
+            if (workers != null && !workers.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                LOG.warn("Timed out waiting for full-text extraction to stop");
+            }
+            if (coordinator != null) {
+                coordinator.join(SHUTDOWN_TIMEOUT);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Called for each new document with content.  If identical content was already extracted, there's nothing to do.
+     * Otherwise, the text is either extracted now (synchronous mode) or a background pass is requested once the
+     * transaction commits.
+     *
+     * @param artifact
+     * @param content
+     * @param entityManager
+     * @throws Exception
+     */
+    public void contentWritten(ArtificerDocumentArtifact artifact, ArtifactContent content, EntityManager entityManager)
+            throws Exception {
+        if (content.getSize() == 0) {
+            return;
+        }
+
+        if (entityManager.find(ArtificerContentText.class, artifact.getContentHash()) != null) {
+            return;
+        }
+
+        if (!ArtificerConfig.isFullTextAsync()) {
+            final String hash = artifact.getContentHash();
+            final String text;
+            InputStream is = content.getInputStream();
+            try {
+                text = extract(is, hash);
+            } finally {
+                IOUtils.closeQuietly(is);
+            }
+            // Stored in its own transaction, once the upload commits.  Otherwise, a concurrent insert of the same hash
+            // would fail the upload itself.
+            entityManager.unwrap(Session.class).getTransaction().registerSynchronization(new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == Status.STATUS_COMMITTED) {
+                        try {
+                            store(hash, text);
+                        } catch (Exception e) {
+                            LOG.warn("Unable to store the text of content " + hash + " -- retrying in the background", e);
+                            synchronized (lock) {
+                                requestPass();
+                            }
+                        }
+                    }
+                }
+            });
+        } else {
+            entityManager.unwrap(Session.class).getTransaction().registerSynchronization(new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == Status.STATUS_COMMITTED) {
+                        synchronized (lock) {
+                            requestPass();
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Blocks until all pending documents have been extracted and indexed, or until the timeout elapses.
+     *
+     * @param timeout in ms
+     * @return true if idle
+     * @throws InterruptedException
+     */
+    public boolean awaitIdle(long timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        synchronized (lock) {
+            while (requested || busy || reindexRequested) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                lock.wait(remaining);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Completely rebuilds the full-text index from the database, using Hibernate Search's MassIndexer (parallel,
+     * batched loading).  Blocks until complete.
+     *
+     * @param reextract if true, all previously-extracted text is discarded first, so every document's content is
+     * extracted again in the background (ex: after changing 'artificer.config.fulltext.max-text-length' or upgrading
+     * Tika)
+     * @throws Exception
+     */
+    public void reindex(final boolean reextract) throws Exception {
+        final int batchSize = ArtificerConfig.getFullTextBatchSize();
+        final int threads = Math.max(1, ArtificerConfig.getFullTextThreads());
+        long start = System.currentTimeMillis();
+
+        new HibernateUtil.HibernateTask<Void>() {
+            @Override
+            protected Void doExecute(EntityManager entityManager) throws Exception {
+                if (reextract) {
+                    // A bulk delete is fine here, since the MassIndexer purges and rebuilds everything anyway.
+                    entityManager.createQuery("DELETE FROM ArtificerContentText").executeUpdate();
+                }
+                return null;
+            }
+        }.execute();
+        if (reextract) {
+            synchronized (failures) {
+                failures.clear();
+            }
+        }
+
+        new HibernateUtil.HibernateTask<Void>() {
+            @Override
+            protected Void doExecute(EntityManager entityManager) throws Exception {
+                FullTextEntityManager fullTextEntityManager = Search.getFullTextEntityManager(entityManager);
+                fullTextEntityManager.createIndexer(
+                        ArtificerArtifact.class, ArtificerProperty.class, ArtificerContentText.class)
+                        .batchSizeToLoadObjects(batchSize)
+                        .threadsToLoadObjects(threads)
+                        .startAndWait();
+                return null;
+            }
+        }.execute();
+
+        LOG.info(String.format("Rebuilt the full-text index in %d ms", System.currentTimeMillis() - start));
+
+        synchronized (lock) {
+            requestPass();
+        }
+    }
+
+    public long getExtractedCount() {
+        return extracted.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    // Must hold the lock.
+    private void requestPass() {
+        requested = true;
+        if (coordinator == null) {
+            final int threads = Math.max(1, ArtificerConfig.getFullTextThreads());
+            final AtomicInteger count = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "artificer-fulltext-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            pool.allowCoreThreadTimeOut(true);
+            workers = pool;
+
+            coordinator = new Thread(new Coordinator(pool), "artificer-fulltext");
+            coordinator.setDaemon(true);
+            coordinator.start();
+        }
+        lock.notifyAll();
+    }
+
+    private class Coordinator implements Runnable {
+
+        private final ExecutorService pool;
+
+        private Coordinator(ExecutorService pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public void run() {
+            long pollInterval = ArtificerConfig.getFullTextPollInterval();
+            while (true) {
+                boolean reindex;
+                synchronized (lock) {
+                    try {
+                        if (!requested && isCurrent()) {
+                            lock.wait(pollInterval);
+                        }
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    if (!isCurrent()) {
+                        return;
+                    }
+                    reindex = reindexRequested;
+                    requested = false;
+                    busy = true;
+                }
+
+                try {
+                    if (reindex) {
+                        reindex(false);
+                    }
+                    while (pass(pool) > 0 && !Thread.currentThread().isInterrupted()) {
+                        // keep going until caught up
+                    }
+                } catch (Throwable t) {
+                    if (!Thread.currentThread().isInterrupted()) {
+                        LOG.error("Full-text extraction pass failed", t);
+                    }
+                } finally {
+                    synchronized (lock) {
+                        if (isCurrent()) {
+                            if (reindex) {
+                                reindexRequested = false;
+                            }
+                            busy = false;
+                        }
+                        lock.notifyAll();
+                    }
+                }
+            }
+        }
+
+        // Must hold the lock.  False once shut down (a later request starts a new coordinator).
+        private boolean isCurrent() {
+            return coordinator == Thread.currentThread();
+        }
+    }
+
+    /**
+     * Claims a batch of pending content hashes (skipping any still backing off from a failure) and extracts them in
+     * parallel.
+     *
+     * @return the number of hashes processed
+     */
+    private int pass(ExecutorService pool) throws Exception {
+        final int batchSize = ArtificerConfig.getFullTextBatchSize();
+        final Set<String> backingOff = backingOff();
+        List<String> pending = new HibernateUtil.HibernateTask<List<String>>() {
+            @Override
+            protected List<String> doExecute(EntityManager entityManager) throws Exception {
+                Query query = entityManager.createQuery("SELECT DISTINCT a.contentHash FROM ArtificerDocumentArtifact a"
+                        + " WHERE a.trashed = false AND a.contentSize > 0 AND NOT EXISTS"
+                        + " (SELECT t.contentHash FROM ArtificerContentText t WHERE t.contentHash = a.contentHash)");
+                // Over-fetch by the hashes that will be skipped, so they can't starve the rest.
+                query.setMaxResults(batchSize + backingOff.size());
+                return query.getResultList();
+            }
+        }.execute();
+        List<String> hashes = new ArrayList<>(batchSize);
+        for (String hash : pending) {
+            if (hashes.size() < batchSize && !backingOff.contains(hash)) {
+                hashes.add(hash);
+            }
+        }
+
+        List<Future<Void>> futures = new ArrayList<>(hashes.size());
+        for (final String hash : hashes) {
+            futures.add(pool.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    index(hash);
+                    return null;
+                }
+            }));
+        }
+        int processed = 0;
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get();
+                succeeded(hashes.get(i));
+                processed++;
+            } catch (InterruptedException e) {
+                // shut down
+                Thread.currentThread().interrupt();
+                return 0;
+            } catch (ExecutionException e) {
+                failed(hashes.get(i), e.getCause());
+            }
+        }
+        return processed;
+    }
+
+    private Set<String> backingOff() {
+        long now = System.currentTimeMillis();
+        Set<String> hashes = new HashSet<>();
+        synchronized (failures) {
+            for (Map.Entry<String, Failure> entry : failures.entrySet()) {
+                if (entry.getValue().retryAt > now) {
+                    hashes.add(entry.getKey());
+                }
+            }
+        }
+        return hashes;
+    }
+
+    private void succeeded(String hash) {
+        synchronized (failures) {
+            failures.remove(hash);
+        }
+    }
+
+    private void failed(String hash, Throwable cause) {
+        failed.incrementAndGet();
+        long backoff;
+        int attempts;
+        synchronized (failures) {
+            Failure failure = failures.get(hash);
+            if (failure == null) {
+                failure = new Failure();
+                failures.put(hash, failure);
+            }
+            attempts = ++failure.attempts;
+            backoff = ArtificerConfig.getFullTextPollInterval() << Math.min(attempts, MAX_BACKOFF_SHIFT);
+            failure.retryAt = System.currentTimeMillis() + backoff;
+        }
+        LOG.warn(String.format("Unable to index content %s (attempt %d) -- retrying in %d ms", hash, attempts, backoff),
+                cause);
+    }
+
+    private static class Failure {
+        private int attempts;
+        private long retryAt;
+    }
+
+    private void index(final String hash) throws Exception {
+        // Open the content in a short transaction, but extract outside of it.
+        InputStream is = new HibernateUtil.HibernateTask<InputStream>() {
+            @Override
+            protected InputStream doExecute(EntityManager entityManager) throws Exception {
+                if (entityManager.find(ArtificerContentText.class, hash) != null) {
+                    return null;
+                }
+                Query query = entityManager.createQuery("SELECT a FROM ArtificerDocumentArtifact a"
+                        + " WHERE a.contentHash = :hash AND a.trashed = false");
+                query.setParameter("hash", hash);
+                query.setMaxResults(1);
+                List<ArtificerDocumentArtifact> artifacts = query.getResultList();
+                if (artifacts.isEmpty()) {
+                    return null;
+                }
+                return FileManagerFactory.getInstance().read(artifacts.get(0));
+            }
+        }.execute();
+
+        final String text;
+        if (is != null) {
+            try {
+                text = extract(is, hash);
+            } finally {
+                IOUtils.closeQuietly(is);
+            }
+        } else {
+            text = null;
+        }
+
+        if (text == null) {
+            // already extracted, or no longer referenced
+            return;
+        }
+
+        store(hash, text);
+    }
+
+    /**
+     * Stores the text extracted from the given content, unless some other extraction already did.  The existence
+     * check and insert share a transaction, but a concurrent one can still commit the same hash first -- losing that
+     * race is not an error.
+     */
+    private void store(final String hash, final String text) throws ArtificerException {
+        try {
+            new HibernateUtil.HibernateTask<Void>() {
+                @Override
+                protected Void doExecute(EntityManager entityManager) throws Exception {
+                    if (entityManager.find(ArtificerContentText.class, hash) == null) {
+                        ArtificerContentText contentText = new ArtificerContentText();
+                        contentText.setContentHash(hash);
+                        contentText.setText(text);
+                        entityManager.persist(contentText);
+                    }
+                    return null;
+                }
+            }.execute();
+        } catch (ArtificerException e) {
+            boolean stored = new HibernateUtil.HibernateTask<Boolean>() {
+                @Override
+                protected Boolean doExecute(EntityManager entityManager) throws Exception {
+                    return entityManager.find(ArtificerContentText.class, hash) != null;
+                }
+            }.execute();
+            if (!stored) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Extracts up to 'artificer.config.fulltext.max-text-length' characters.  A document Tika cannot parse results in
+     * whatever text was extracted prior to the failure (possibly none), rather than an error -- otherwise, it would be
+     * retried on every pass.
+     */
+    private String extract(InputStream is, String hash) {
+        WriteOutContentHandler handler = new WriteOutContentHandler(ArtificerConfig.getFullTextMaxTextLength());
+        try {
+            PARSER.parse(is, handler, new Metadata(), new ParseContext());
+            extracted.incrementAndGet();
+        } catch (Exception e) {
+            if (handler.isWriteLimitReached(e)) {
+                extracted.incrementAndGet();
+            } else {
+                failed.incrementAndGet();
+                LOG.warn("Tika was unable to parse content " + hash + " -- full-text search may not work properly.", e);
+            }
+        }
+        return handler.toString();
+    }
+}
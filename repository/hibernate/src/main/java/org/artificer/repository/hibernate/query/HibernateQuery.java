@@ -26,7 +26,9 @@ import org.artificer.repository.hibernate.HibernateUtil;
 import org.artificer.repository.hibernate.i18n.Messages;
 import org.artificer.repository.query.AbstractArtificerQueryImpl;
 import org.artificer.repository.query.ArtificerQueryArgs;
+import org.artificer.repository.query.ContinuationToken;
 import org.artificer.repository.query.PagedResult;
+import org.artificer.repository.query.QueryProfile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -70,7 +72,7 @@ public class HibernateQuery extends AbstractArtificerQueryImpl {
 			if (entityManager != null) {
 				return executeQuery(queryModel, entityManager);
 			} else {
-				return new HibernateUtil.HibernateTask<PagedResult<ArtifactSummary>>() {
+				return new HibernateUtil.ReadOnlyHibernateTask<PagedResult<ArtifactSummary>>() {
 					@Override
 					protected PagedResult<ArtifactSummary> doExecute(EntityManager entityManager) throws Exception {
 						return executeQuery(queryModel, entityManager);
@@ -85,9 +87,12 @@ public class HibernateQuery extends AbstractArtificerQueryImpl {
 	}
 
 	private PagedResult<ArtifactSummary> executeQuery(final Query queryModel, EntityManager entityManager) throws Exception {
+		long start = System.nanoTime();
 		ArtificerToHibernateQueryVisitor visitor = new ArtificerToHibernateQueryVisitor(entityManager,
 				(ClassificationHelper) RepositoryProviderFactory.persistenceManager());
+		bind(visitor);
 		queryModel.accept(visitor);
+		QueryProfile.record(QueryProfile.Phase.CRITERIA, start);
 
 		long startTime = System.currentTimeMillis();
 		List<ArtifactSummary> artifacts = visitor.query(args);
@@ -96,7 +101,16 @@ public class HibernateQuery extends AbstractArtificerQueryImpl {
 
 		LOG.debug(Messages.i18n.format("QUERY_EXECUTED_IN", endTime - startTime));
 
-		return new PagedResult<>(artifacts, xpathTemplate, totalSize, args);
+		// Issued for offset-paged queries as well, so that a client can switch to keyset paging after the first page --
+		// but only if the page was ordered the way the next one would seek past it.
+		String continuation = null;
+		if (visitor.hasMore() && visitor.isSeekable() && !artifacts.isEmpty()) {
+			int startIndex = args.getStartIndex() == null ? 0 : args.getStartIndex();
+			continuation = ContinuationToken.after(artifacts.get(artifacts.size() - 1), args,
+					startIndex + artifacts.size()).encode();
+		}
+
+		return new PagedResult<>(artifacts, xpathTemplate, totalSize, args, visitor.hasMore(), continuation);
 	}
 
 }
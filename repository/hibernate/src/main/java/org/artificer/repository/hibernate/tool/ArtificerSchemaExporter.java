@@ -6,6 +6,7 @@ import org.artificer.repository.hibernate.audit.ArtificerAuditEntry;
 import org.artificer.repository.hibernate.audit.ArtificerAuditItem;
 import org.artificer.repository.hibernate.entity.ArtificerArtifact;
 import org.artificer.repository.hibernate.entity.ArtificerComment;
+import org.artificer.repository.hibernate.entity.ArtificerContentText;
 import org.artificer.repository.hibernate.entity.ArtificerDocumentArtifact;
 import org.artificer.repository.hibernate.entity.ArtificerProperty;
 import org.artificer.repository.hibernate.entity.ArtificerRelationship;
@@ -40,6 +41,7 @@ public class ArtificerSchemaExporter {
 
         cfg.addAnnotatedClass(ArtificerArtifact.class);
         cfg.addAnnotatedClass(ArtificerComment.class);
+        cfg.addAnnotatedClass(ArtificerContentText.class);
         cfg.addAnnotatedClass(ArtificerDocumentArtifact.class);
         cfg.addAnnotatedClass(ArtificerProperty.class);
         cfg.addAnnotatedClass(ArtificerRelationship.class);
@@ -9,6 +9,7 @@
     drop table Relationship_otherAttributes;
     drop table StoredQuery_propertyNames;
     drop table StoredQuery;
+    drop table SchemaMigration;
     drop table Target_otherAttributes;
     drop table Target;
     drop table XsdDocument_Artifact;
@@ -22,6 +23,7 @@
     drop table Relationship;
     drop table ArtifactComment;
     drop table Artifact;
+    drop table ContentText;
     drop sequence hibernate_sequence;
 
 
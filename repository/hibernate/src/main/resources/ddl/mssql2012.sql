@@ -69,6 +69,12 @@
         primary key (id)
     );
 
+    create table ContentText (
+        contentHash char(40) not null,
+        text varchar(MAX),
+        primary key (contentHash)
+    );
+
     create table Document (
         id bigint not null,
         primary key (id)
@@ -102,8 +108,10 @@
     create table Property (
         id bigint identity not null,
         custom bit not null,
+        numericValue double precision,
         propertyKey varchar(255),
         propertyValue varchar(255),
+        timestampValue datetime2,
         owner_id bigint not null,
         primary key (id)
     );
@@ -123,6 +131,11 @@
         primary key (Relationship_id, otherAttributes_KEY)
     );
 
+    create table SchemaMigration (
+        name varchar(255) not null,
+        primary key (name)
+    );
+
     create table StoredQuery (
         queryName varchar(255) not null,
         queryExpression varchar(255),
@@ -214,6 +227,14 @@
 
     create index artifact_model_type_idx on Artifact (model, type, trashed);
 
+    create index artifact_contenthash_idx on Artifact (contentHash, trashed);
+
+    create index property_key_value_idx on Property (propertyKey, propertyValue, owner_id);
+
+    create index property_key_numeric_idx on Property (propertyKey, numericValue, owner_id);
+
+    create index property_key_timestamp_idx on Property (propertyKey, timestampValue, owner_id);
+
     create index relationship_name_idx on Relationship (name);
 
     create index storedquery_name_idx on StoredQuery (queryName);
@@ -534,3 +555,5 @@
         add constraint FK_4hw0cjxhdn9b8t9ikr4ljrfea 
         foreign key (attributes_id) 
         references Artifact;
+
+    insert into SchemaMigration (name) values ('typedPropertyValues');
@@ -69,6 +69,12 @@
         primary key (id)
     );
 
+    create table ContentText (
+        contentHash char(40) not null,
+        text clob,
+        primary key (contentHash)
+    );
+
     create table Document (
         id number(19,0) not null,
         primary key (id)
@@ -102,8 +108,10 @@
     create table Property (
         id number(19,0) not null,
         custom number(1,0) not null,
+        numericValue double precision,
         propertyKey varchar2(255 char),
         propertyValue varchar2(255 char),
+        timestampValue timestamp,
         owner_id number(19,0) not null,
         primary key (id)
     );
@@ -123,6 +131,11 @@
         primary key (Relationship_id, otherAttributes_KEY)
     );
 
+    create table SchemaMigration (
+        name varchar2(255 char) not null,
+        primary key (name)
+    );
+
     create table StoredQuery (
         queryName varchar2(255 char) not null,
         queryExpression varchar2(255 char),
@@ -214,6 +227,14 @@
 
     create index artifact_model_type_idx on Artifact (model, type, trashed);
 
+    create index artifact_contenthash_idx on Artifact (contentHash, trashed);
+
+    create index property_key_value_idx on Property (propertyKey, propertyValue, owner_id);
+
+    create index property_key_numeric_idx on Property (propertyKey, numericValue, owner_id);
+
+    create index property_key_timestamp_idx on Property (propertyKey, timestampValue, owner_id);
+
     create index relationship_name_idx on Relationship (name);
 
 
@@ -535,3 +556,5 @@
         references Artifact;
 
     create sequence hibernate_sequence;
+
+    insert into SchemaMigration (name) values ('typedPropertyValues');
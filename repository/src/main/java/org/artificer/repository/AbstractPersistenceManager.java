@@ -15,36 +15,46 @@
  */
 package org.artificer.repository;
 
+import org.artificer.common.ArtificerConfig;
 import org.artificer.common.ArtificerException;
+import org.artificer.common.error.ArtificerServerException;
 import org.artificer.common.error.ArtificerUserException;
-import org.artificer.common.ontology.ArtificerOntology;
-import org.artificer.common.ontology.ArtificerOntologyClass;
+import org.artificer.repository.query.QueryPlanCache;
 
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * @author Brett Meyer.
  */
 public abstract class AbstractPersistenceManager implements PersistenceManager, ClassificationHelper {
 
+    // Unless isCurrent is overridden, changes made through another node are only seen once the snapshot expires.
+    private static final long ONTOLOGY_INDEX_TTL = ArtificerConfig.getCacheTtl("ontologies", 60000);
+
+    private final AtomicLong ontologyIndexVersion = new AtomicLong();
+
+    private volatile OntologyIndex ontologyIndex = null;
+
+    // The rebuild of an expired snapshot in progress, if any.  Only one caller runs it.
+    private final AtomicReference<FutureTask<OntologyIndex>> ontologyIndexRebuild = new AtomicReference<>();
+
     @Override
     public URI resolve(String classifiedBy) throws ArtificerException {
         try {
-            URI classifiedUri = new URI(classifiedBy);
-            Collection<ArtificerOntology> ontologies = getOntologies();
-            for (ArtificerOntology ontology : ontologies) {
-                ArtificerOntologyClass sclass = ontology.findClass(classifiedBy);
-                if (sclass == null) {
-                    sclass = ontology.findClass(classifiedUri);
-                }
-                if (sclass != null) {
-                    return new URI(sclass.getUri());
-                }
+            // Still required to be a valid URI, even if it's a class id.
+            new URI(classifiedBy);
+            URI resolved = ontologyIndex().resolve(classifiedBy);
+            if (resolved != null) {
+                return resolved;
             }
         } catch (URISyntaxException e) {
             // fall through
@@ -54,16 +64,9 @@ public abstract class AbstractPersistenceManager implements PersistenceManager,
 
     @Override
     public Collection<URI> normalize(URI classification) throws ArtificerException {
-        try {
-            List<ArtificerOntology> ontologies = getOntologies();
-            for (ArtificerOntology ontology : ontologies) {
-                ArtificerOntologyClass sclass = ontology.findClass(classification);
-                if (sclass != null) {
-                    return sclass.normalize();
-                }
-            }
-        } catch (URISyntaxException e) {
-            // fall through
+        Collection<URI> normalized = ontologyIndex().normalize(classification);
+        if (normalized != null) {
+            return normalized;
         }
         throw ArtificerUserException.invalidClassifiedBy(classification.toString());
     }
@@ -85,4 +88,90 @@ public abstract class AbstractPersistenceManager implements PersistenceManager,
         }
         return resolved;
     }
+
+    /**
+     * @return the current ontology snapshot, (re-)building it if there is none or it is no longer current.  Only one
+     * caller rebuilds it.  Meanwhile, the others keep using the expired snapshot (or, if there is none yet, wait
+     * for the rebuild).
+     * @throws ArtificerException
+     */
+    protected OntologyIndex ontologyIndex() throws ArtificerException {
+        while (true) {
+            OntologyIndex index = ontologyIndex;
+            if (index != null && isCurrent(index)) {
+                return index;
+            }
+
+            FutureTask<OntologyIndex> rebuild = ontologyIndexRebuild.get();
+            if (rebuild == null) {
+                rebuild = new FutureTask<>(new Callable<OntologyIndex>() {
+                    @Override
+                    public OntologyIndex call() throws Exception {
+                        return rebuildOntologyIndex();
+                    }
+                });
+                if (!ontologyIndexRebuild.compareAndSet(null, rebuild)) {
+                    // lost the race -- another caller is rebuilding it
+                    continue;
+                }
+                try {
+                    rebuild.run();
+                } finally {
+                    ontologyIndexRebuild.compareAndSet(rebuild, null);
+                }
+            } else if (index != null) {
+                return index;
+            }
+            return awaitRebuild(rebuild);
+        }
+    }
+
+    private OntologyIndex awaitRebuild(FutureTask<OntologyIndex> rebuild) throws ArtificerException {
+        try {
+            return rebuild.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ArtificerServerException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ArtificerException) {
+                throw (ArtificerException) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ArtificerServerException(e.getCause());
+        }
+    }
+
+    /**
+     * By default, a snapshot expires after 'artificer.config.cache.ontologies.ttl'.  Implementations that cache the
+     * ontologies themselves should instead tie the snapshot to that cache, so that the two don't expire one after
+     * the other.
+     * @param index
+     * @return true if the snapshot may still be used
+     */
+    protected boolean isCurrent(OntologyIndex index) {
+        return index.getCreatedOn() + ONTOLOGY_INDEX_TTL >= System.currentTimeMillis();
+    }
+
+    /**
+     * Must be called once an ontology is persisted, updated, or deleted (after the change is committed).  Builds a new
+     * snapshot and atomically swaps it in, and drops the query plans (which hold resolved classifiers).
+     * @throws ArtificerException
+     */
+    protected void ontologiesChanged() throws ArtificerException {
+        rebuildOntologyIndex();
+        QueryPlanCache.getInstance().invalidate();
+    }
+
+    private OntologyIndex rebuildOntologyIndex() throws ArtificerException {
+        // Versioned when the build *starts*, so a slow build from older state never replaces a newer snapshot.
+        long version = ontologyIndexVersion.incrementAndGet();
+        OntologyIndex index = OntologyIndex.build(version, getOntologies());
+        synchronized (ontologyIndexVersion) {
+            if (ontologyIndex == null || ontologyIndex.getVersion() < version) {
+                ontologyIndex = index;
+            }
+        }
+        return index;
+    }
 }
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.repository;
+
+import org.artificer.common.ontology.ArtificerOntology;
+import org.artificer.common.ontology.ArtificerOntologyClass;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable, versioned snapshot of every ontology class, built once so that classifier resolution and
+ * normalization are simple (lock-free) map lookups.  A new snapshot replaces the old whenever an ontology changes.
+ *
+ * Lookups follow the same precedence as walking the ontologies in order: within each ontology, a class's id is
+ * matched before any class's URI, and the first ontology with a match wins.
+ *
+ * A class whose URI is malformed is skipped (and logged), rather than failing every classifier resolution.  Its
+ * children are still indexed, under its remaining ancestors.
+ *
+ * @author Brett Meyer
+ */
+public final class OntologyIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OntologyIndex.class);
+
+    private final long version;
+
+    private final long createdOn;
+
+    private final List<ArtificerOntology> ontologies;
+
+    // classifiedBy (class id or URI) -> class URI
+    private final Map<String, URI> resolved;
+
+    // class URI -> the URIs of the class and all of its ancestors
+    private final Map<String, Set<URI>> closures;
+
+    private OntologyIndex(long version, List<ArtificerOntology> ontologies, Map<String, URI> resolved,
+            Map<String, Set<URI>> closures) {
+        this.version = version;
+        this.createdOn = System.currentTimeMillis();
+        this.ontologies = ontologies;
+        this.resolved = resolved;
+        this.closures = closures;
+    }
+
+    /**
+     * @param version
+     * @param ontologies in precedence order
+     * @return OntologyIndex
+     */
+    public static OntologyIndex build(long version, List<ArtificerOntology> ontologies) {
+        Map<String, URI> resolved = new HashMap<>();
+        Map<String, Set<URI>> closures = new HashMap<>();
+        for (ArtificerOntology ontology : ontologies) {
+            Map<String, URI> byUri = new HashMap<>();
+            for (ArtificerOntologyClass rootClass : ontology.getRootClasses()) {
+                index(rootClass, Collections.<URI>emptySet(), resolved, byUri, closures);
+            }
+            // A URI only matches if no id (in this or an earlier ontology) already did.
+            for (Map.Entry<String, URI> entry : byUri.entrySet()) {
+                if (!resolved.containsKey(entry.getKey())) {
+                    resolved.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return new OntologyIndex(version, ontologies, Collections.unmodifiableMap(resolved),
+                Collections.unmodifiableMap(closures));
+    }
+
+    // Depth-first, pre-order, matching ArtificerOntologyClass#findClass.
+    private static void index(ArtificerOntologyClass ontologyClass, Set<URI> ancestors, Map<String, URI> resolved,
+            Map<String, URI> byUri, Map<String, Set<URI>> closures) {
+        URI uri = uri(ontologyClass);
+        if (uri == null) {
+            for (ArtificerOntologyClass child : ontologyClass.getChildren()) {
+                index(child, ancestors, resolved, byUri, closures);
+            }
+            return;
+        }
+        if (!resolved.containsKey(ontologyClass.getId())) {
+            resolved.put(ontologyClass.getId(), uri);
+        }
+        if (!byUri.containsKey(ontologyClass.getUri())) {
+            byUri.put(ontologyClass.getUri(), uri);
+        }
+
+        Set<URI> closure = new HashSet<>(ancestors.size() + 1);
+        closure.addAll(ancestors);
+        closure.add(uri);
+        closure = Collections.unmodifiableSet(closure);
+        if (!closures.containsKey(ontologyClass.getUri())) {
+            closures.put(ontologyClass.getUri(), closure);
+        }
+
+        for (ArtificerOntologyClass child : ontologyClass.getChildren()) {
+            index(child, closure, resolved, byUri, closures);
+        }
+    }
+
+    private static URI uri(ArtificerOntologyClass ontologyClass) {
+        if (ontologyClass.getUri() != null) {
+            try {
+                return new URI(ontologyClass.getUri());
+            } catch (URISyntaxException e) {
+                // logged below
+            }
+        }
+        LOG.warn(String.format("Skipping ontology class '%s' -- its URI is invalid: %s", ontologyClass.getId(),
+                ontologyClass.getUri()));
+        return null;
+    }
+
+    /**
+     * @param classifiedBy a class id or URI
+     * @return the URI of the matching class, or null if none
+     */
+    public URI resolve(String classifiedBy) {
+        return resolved.get(classifiedBy);
+    }
+
+    /**
+     * @param classification a class URI
+     * @return the URIs of the class and all of its ancestors, or null if no such class exists
+     */
+    public Collection<URI> normalize(URI classification) {
+        return closures.get(classification.toString());
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getCreatedOn() {
+        return createdOn;
+    }
+
+    /**
+     * @return the ontologies the snapshot was built from
+     */
+    public List<ArtificerOntology> getOntologies() {
+        return ontologies;
+    }
+}
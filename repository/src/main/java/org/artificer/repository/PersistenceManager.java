@@ -58,6 +58,26 @@ public interface PersistenceManager extends AbstractManager {
 	 */
 	public BaseArtifactType getArtifact(String uuid, ArtifactType type) throws ArtificerException;
 
+	/**
+	 * Same as {@link #getArtifact(String, ArtifactType)}, but never served by a read replica, so it reflects every
+	 * committed write.  Use it for the lookups within create, update, and delete flows (existence checks, the
+	 * previous state handed to events and caches), which must not act on stale data.
+	 * @param uuid the UUID of the s-ramp artifact
+	 * @param type the type of the artifact
+	 * @return an instance of a {@link BaseArtifactType} or null if not found
+	 * @throws org.artificer.common.ArtificerException
+	 */
+	public BaseArtifactType getArtifactForUpdate(String uuid, ArtifactType type) throws ArtificerException;
+
+	/**
+	 * Gets previously persisted artifacts by their UUIDs, all at once.  Considerably cheaper than calling
+	 * {@link #getArtifact(String, ArtifactType)} for each.
+	 * @param uuids the UUIDs of the s-ramp artifacts
+	 * @return the artifacts, in the order of the given UUIDs, skipping any that are not found
+	 * @throws org.artificer.common.ArtificerException
+	 */
+	public List<BaseArtifactType> getArtifacts(List<String> uuids) throws ArtificerException;
+
 	/**
 	 * Gets the content (media) for a previously persisted artifact by its UUID.
 	 * <br/><br/>
@@ -169,6 +189,14 @@ public interface PersistenceManager extends AbstractManager {
      */
     public void deleteStoredQuery(String queryName) throws ArtificerException;
 
+    /**
+     * Completely rebuilds the full-text index from the repository's persisted state.  Typically only needed if the
+     * index was lost or corrupted.
+     * @param reextractContent if true, all document content is also re-extracted (in the background)
+     * @throws org.artificer.common.ArtificerException
+     */
+    public void reindex(boolean reextractContent) throws ArtificerException;
+
 	/**
 	 * TODO remove this
 	 * @param uuid
@@ -15,9 +15,12 @@
  */
 package org.artificer.repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import org.artificer.common.ArtificerException;
+import org.artificer.common.query.ArtifactSummary;
 import org.artificer.common.query.ReverseRelationship;
 import org.artificer.repository.query.ArtificerQuery;
 import org.artificer.repository.query.ArtificerQueryArgs;
@@ -66,4 +69,20 @@ public interface QueryManager extends AbstractManager {
 
     public List<String> getTypes() throws ArtificerException;
 
+    /**
+     * Return summaries of all artifacts whose properties match *every* given name/value pair.  Each summary is
+     * populated with the values of the requested properties (see {@link ArtifactSummary#getProperties()}).  Unlike an
+     * s-ramp query followed by a meta-data lookup per result, this is a single projection that never loads the
+     * artifacts themselves.
+     *
+     * @param criteria property name -> required value
+     * @param propertyNames the properties to include in each summary
+     * @param orderBy
+     * @param ascending
+     * @return List<ArtifactSummary>
+     * @throws ArtificerException
+     */
+    public List<ArtifactSummary> queryProperties(Map<String, String> criteria, Collection<String> propertyNames,
+            String orderBy, boolean ascending) throws ArtificerException;
+
 }
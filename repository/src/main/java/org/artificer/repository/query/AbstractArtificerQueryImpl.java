@@ -35,6 +35,11 @@ import java.util.List;
  * base class does a lot of the common work, such as managing the replacement of params
  * in the xpath template.  It frees up individual providers to focus on the
  *
+ * Templates are parsed once and cached (see {@link QueryPlanCache}), with the params bound
+ * while visiting, rather than formatted into the xpath.
+ *
+ * Every execution is profiled (see {@link QueryProfile} and {@link QueryStatistics}).
+ *
  * @author eric.wittmann@redhat.com
  */
 public abstract class AbstractArtificerQueryImpl implements ArtificerQuery {
@@ -44,6 +49,7 @@ public abstract class AbstractArtificerQueryImpl implements ArtificerQuery {
 	protected String xpathTemplate;
 	protected ArtificerQueryArgs args;
 	private List<QueryReplacementParam<?>> replacementParams = new ArrayList<QueryReplacementParam<?>>();
+	private QueryPlan plan;
 
 	/**
 	 * Constructor.
@@ -99,10 +105,40 @@ public abstract class AbstractArtificerQueryImpl implements ArtificerQuery {
 
 	@Override
 	public final PagedResult<ArtifactSummary> executeQuery() throws ArtificerException {
-		String xpath = formatQuery(xpathTemplate, this.replacementParams);
-		Query queryModel = parseXPath(xpath);
-		validateQuery(queryModel);
-		return executeQuery(queryModel);
+		QueryProfile profile = QueryProfile.begin(xpathTemplate, this.replacementParams);
+		try {
+			long start = System.nanoTime();
+			QueryPlan plan = QueryPlanCache.getInstance().get(xpathTemplate);
+			Query queryModel;
+			if (plan.isCompiled()) {
+				plan.checkParameters(this.replacementParams);
+				queryModel = plan.getQueryModel();
+				this.plan = plan;
+			} else {
+				String xpath = formatQuery(xpathTemplate, this.replacementParams);
+				queryModel = parseXPath(xpath);
+				this.plan = null;
+			}
+			validateQuery(queryModel);
+			QueryProfile.record(QueryProfile.Phase.PARSE, start);
+
+			PagedResult<ArtifactSummary> result = executeQuery(queryModel);
+			profile.succeeded(result.getTotalSize(), result.getResults().size());
+			return result;
+		} finally {
+			profile.end();
+		}
+	}
+
+	/**
+	 * Binds the replacement params to the visitor, if the query model being executed came from a compiled
+	 * {@link QueryPlan}.  Must be called before the visitor visits the query model.
+	 * @param visitor
+	 */
+	protected void bind(AbstractArtificerQueryVisitor visitor) {
+		if (plan != null) {
+			visitor.bind(plan, this.replacementParams);
+		}
 	}
 
 	/**
@@ -154,6 +190,17 @@ public abstract class AbstractArtificerQueryImpl implements ArtificerQuery {
 	 */
 	protected void validateQuery(Query queryModel) throws ArtificerUserException {
 		// TODO static validation of the query goes here
+
+		ContinuationToken continuation = args.getContinuation();
+		if (continuation != null) {
+			boolean ascending = !Boolean.FALSE.equals(args.getOrderAscending());
+			String orderBy = args.getOrderBy();
+			if (!(orderBy == null ? continuation.getOrderBy() == null : orderBy.equals(continuation.getOrderBy()))
+					|| continuation.isAscending() != ascending) {
+				throw new ArtificerUserException(Messages.i18n.format("CONTINUATION_ORDER_MISMATCH",
+						continuation.getOrderBy(), continuation.isAscending()));
+			}
+		}
 	}
 
 	/**
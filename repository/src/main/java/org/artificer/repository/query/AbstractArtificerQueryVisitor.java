@@ -28,6 +28,7 @@ import org.artificer.repository.ClassificationHelper;
 import org.artificer.repository.i18n.Messages;
 
 import javax.xml.namespace.QName;
+import java.math.BigInteger;
 import java.net.URI;
 import java.text.SimpleDateFormat;
 import java.util.Collection;
@@ -57,10 +58,60 @@ public abstract class AbstractArtificerQueryVisitor implements XPathVisitor {
 
     protected ArtificerException error;
 
+    // Set if the query model came from a compiled plan, in which case its parameter placeholders are bound to these.
+    private QueryPlan plan;
+    private List<QueryReplacementParam<?>> parameters;
+
     protected AbstractArtificerQueryVisitor(ClassificationHelper classificationHelper) {
         this.classificationHelper = classificationHelper;
     }
 
+    /**
+     * Binds the plan's parameter placeholders to the given values.
+     * @param plan
+     * @param parameters
+     */
+    public void bind(QueryPlan plan, List<QueryReplacementParam<?>> parameters) {
+        this.plan = plan;
+        this.parameters = parameters;
+    }
+
+    /**
+     * @param node
+     * @return the node's string literal, or the bound value if it's a string parameter (null for a number parameter)
+     */
+    protected String literal(PrimaryExpr node) {
+        QueryReplacementParam<?> parameter = parameter(node);
+        if (parameter == null) {
+            return node.getLiteral();
+        }
+        return parameter instanceof StringReplacementParam ? ((StringReplacementParam) parameter).getValue() : null;
+    }
+
+    /**
+     * @param node
+     * @return the node's number, or the bound value (as the parser would have read it) if it's a number parameter
+     */
+    protected Number number(PrimaryExpr node) {
+        QueryReplacementParam<?> parameter = parameter(node);
+        if (parameter == null) {
+            return node.getNumber();
+        }
+        if (parameter instanceof NumberReplacementParam) {
+            String formatted = parameter.getFormattedValue();
+            return formatted.contains(".") ? new Double(formatted) : new BigInteger(formatted);
+        }
+        return null;
+    }
+
+    private QueryReplacementParam<?> parameter(PrimaryExpr node) {
+        if (plan == null) {
+            return null;
+        }
+        int index = plan.parameterIndex(node.getLiteral());
+        return index < 0 ? null : parameters.get(index);
+    }
+
     /**
      * @see org.artificer.common.query.xpath.visitors.XPathVisitor#visit(org.artificer.common.query.xpath.ast.Argument)
      */
@@ -101,16 +152,30 @@ public abstract class AbstractArtificerQueryVisitor implements XPathVisitor {
      * @param arguments
      */
     protected Collection<URI> resolveArgumentsToClassifications(List<Argument> arguments) {
+        if (plan != null) {
+            Collection<URI> resolved = plan.getClassifications(arguments);
+            if (resolved != null) {
+                return resolved;
+            }
+        }
+
         Collection<String> classifiedBy = new HashSet<>();
+        boolean parameterized = false;
         for (int idx = 1; idx < arguments.size(); idx++) {
             Argument arg = arguments.get(idx);
-            if (arg.getPrimaryExpr() == null || arg.getPrimaryExpr().getLiteral() == null) {
+            if (arg.getPrimaryExpr() == null || literal(arg.getPrimaryExpr()) == null) {
                 throw new RuntimeException(Messages.i18n.format("XP_INVALID_CLASSIFIER_FORMAT"));
             }
-            classifiedBy.add(arg.getPrimaryExpr().getLiteral());
+            classifiedBy.add(literal(arg.getPrimaryExpr()));
+            parameterized |= parameter(arg.getPrimaryExpr()) != null;
         }
         try {
-            return this.classificationHelper.resolveAll(classifiedBy);
+            Collection<URI> resolved = this.classificationHelper.resolveAll(classifiedBy);
+            // Only literals are resolved once per plan -- parameters differ from one execution to the next.
+            if (plan != null && !parameterized) {
+                plan.setClassifications(arguments, resolved);
+            }
+            return resolved;
         } catch (ArtificerException e) {
             this.error = e;
             return Collections.emptySet();
@@ -159,7 +224,7 @@ public abstract class AbstractArtificerQueryVisitor implements XPathVisitor {
      */
     protected String reduceStringLiteralArgument(Argument argument) {
         try {
-            String l = argument.getPrimaryExpr().getLiteral();
+            String l = literal(argument.getPrimaryExpr());
             if (l == null) {
                 throw new NullPointerException();
             }
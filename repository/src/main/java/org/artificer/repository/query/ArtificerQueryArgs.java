@@ -1,7 +1,11 @@
 package org.artificer.repository.query;
 
+import org.artificer.common.query.CountMode;
+
 import javax.persistence.Query;
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Represents ordering and paging arguments, given to an Artificer query.  Note that the fields should *not* be given
@@ -15,6 +19,9 @@ public class ArtificerQueryArgs implements Serializable {
     private Boolean orderAscending;
     private Integer startIndex;
     private Integer count;
+    private ContinuationToken continuation;
+    private CountMode countMode = CountMode.EXACT;
+    private Collection<String> propertyNames;
 
     public ArtificerQueryArgs() {}
 
@@ -31,6 +38,29 @@ public class ArtificerQueryArgs implements Serializable {
         initPaging(startPage, startIndex, count);
     }
 
+    /**
+     * @param orderBy
+     * @param orderAscending
+     * @param startPage
+     * @param startIndex
+     * @param count
+     * @param continuation if given, the page following the one that produced it is selected by keyset, rather than by
+     *                     startPage/startIndex
+     * @param countMode if null, {@link CountMode#EXACT}
+     */
+    public ArtificerQueryArgs(String orderBy, Boolean orderAscending, Integer startPage, Integer startIndex,
+            Integer count, ContinuationToken continuation, CountMode countMode) {
+        initOrdering(orderBy, orderAscending);
+        if (continuation != null) {
+            // The token carries the logical position, purely for reporting -- it is never used as an offset.
+            initPaging(null, continuation.getStartIndex(), count);
+        } else {
+            initPaging(startPage, startIndex, count);
+        }
+        this.continuation = continuation;
+        this.countMode = countMode == null ? CountMode.EXACT : countMode;
+    }
+
     private void initOrdering(String orderBy, Boolean orderAscending) {
         this.orderBy = orderBy == null ? "name" : orderBy;
         this.orderAscending = orderAscending == null ? true : orderAscending;
@@ -69,12 +99,56 @@ public class ArtificerQueryArgs implements Serializable {
         return count;
     }
 
+    public ContinuationToken getContinuation() {
+        return continuation;
+    }
+
+    public CountMode getCountMode() {
+        return countMode;
+    }
+
+    /**
+     * @return the custom properties to project into each result's {@link org.artificer.common.query.ArtifactSummary}
+     * (the s-ramp "propertyName" feature), or null
+     */
+    public Collection<String> getPropertyNames() {
+        return propertyNames;
+    }
+
+    public void setPropertyNames(Collection<String> propertyNames) {
+        this.propertyNames = propertyNames;
+    }
+
     public void applyPaging(Query query) {
+        applyPaging(query, false);
+    }
+
+    /**
+     * Applies the page limit and, unless paging by keyset (in which case the query itself must seek past the
+     * previous page), the offset.
+     * @param query
+     * @param lookahead if true, one more result than the page size is requested, so that whether or not another page
+     *                  exists is known without a count.  See {@link #hasMore(java.util.List)}.
+     */
+    public void applyPaging(Query query, boolean lookahead) {
         if (count != null) {
-            query.setMaxResults(count);
+            query.setMaxResults(lookahead ? count + 1 : count);
         }
-        if (startIndex != null) {
+        if (startIndex != null && continuation == null) {
             query.setFirstResult(startIndex);
         }
     }
+
+    /**
+     * Trims the extra result requested by {@link #applyPaging(javax.persistence.Query, boolean)}, if present.
+     * @param results the (mutable) query results
+     * @return true if another page exists
+     */
+    public boolean hasMore(List<?> results) {
+        if (count != null && results.size() > count) {
+            results.subList(count, results.size()).clear();
+            return true;
+        }
+        return false;
+    }
 }
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.repository.query;
+
+import org.apache.commons.codec.binary.Base64;
+import org.artificer.common.error.ArtificerUserException;
+import org.artificer.common.query.ArtifactSummary;
+import org.artificer.repository.i18n.Messages;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Calendar;
+
+/**
+ * Keyset ("seek") pagination state: the order-by value and UUID of the last artifact on the previous page.  Rather
+ * than skipping startIndex rows (which the database must still read and discard), the next page is selected with
+ * a predicate on (order-by value, uuid), which an index can satisfy directly and which is stable under concurrent
+ * inserts and deletes.
+ *
+ * Clients treat the encoded form as opaque.  The order-by and direction it was produced for are encoded as well, so a
+ * token can't be misapplied to a differently ordered query.
+ *
+ * @author Brett Meyer
+ */
+public class ContinuationToken implements Serializable {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final char TYPE_NULL = 'N';
+    private static final char TYPE_STRING = 'S';
+    private static final char TYPE_CALENDAR = 'T';
+
+    private final String orderBy;
+
+    private final boolean ascending;
+
+    private final int startIndex;
+
+    private final Serializable lastValue;
+
+    private final String lastUuid;
+
+    public ContinuationToken(String orderBy, boolean ascending, int startIndex, Serializable lastValue,
+            String lastUuid) {
+        this.orderBy = orderBy;
+        this.ascending = ascending;
+        this.startIndex = startIndex;
+        this.lastValue = lastValue;
+        this.lastUuid = lastUuid;
+    }
+
+    /**
+     * Creates the token for the page following the one ending with the given artifact.
+     * @param last the last artifact of the current page
+     * @param args
+     * @param startIndex the (logical) index of the next page's first artifact
+     * @return ContinuationToken
+     */
+    public static ContinuationToken after(ArtifactSummary last, ArtificerQueryArgs args, int startIndex) {
+        return new ContinuationToken(args.getOrderBy(), !Boolean.FALSE.equals(args.getOrderAscending()), startIndex,
+                orderByValue(last, args.getOrderBy()), last.getUuid());
+    }
+
+    /**
+     * @param summary
+     * @param orderBy
+     * @return the summary's value for the given s-ramp order by name
+     */
+    public static Serializable orderByValue(ArtifactSummary summary, String orderBy) {
+        if ("name".equals(orderBy)) {
+            return summary.getName();
+        } else if ("uuid".equals(orderBy)) {
+            return summary.getUuid();
+        } else if ("version".equals(orderBy)) {
+            return summary.getVersion();
+        } else if ("createdBy".equals(orderBy)) {
+            return summary.getCreatedBy();
+        } else if ("createdTimestamp".equals(orderBy)) {
+            return summary.getCreatedTimestamp();
+        } else if ("lastModifiedBy".equals(orderBy)) {
+            return summary.getLastModifiedBy();
+        } else if ("lastModifiedTimestamp".equals(orderBy)) {
+            return summary.getLastModifiedTimestamp();
+        }
+        return null;
+    }
+
+    public String encode() {
+        try {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(baos);
+            out.writeByte(FORMAT_VERSION);
+            out.writeUTF(orderBy == null ? "" : orderBy);
+            out.writeBoolean(ascending);
+            out.writeInt(startIndex);
+            if (lastValue instanceof Calendar) {
+                out.writeChar(TYPE_CALENDAR);
+                out.writeLong(((Calendar) lastValue).getTimeInMillis());
+            } else if (lastValue != null) {
+                out.writeChar(TYPE_STRING);
+                out.writeUTF(lastValue.toString());
+            } else {
+                out.writeChar(TYPE_NULL);
+            }
+            out.writeUTF(lastUuid);
+            out.flush();
+            return Base64.encodeBase64URLSafeString(baos.toByteArray());
+        } catch (IOException e) {
+            // in-memory -- can't happen
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @param token an encoded token, as returned by {@link #encode()}
+     * @return ContinuationToken
+     * @throws ArtificerUserException if the token is malformed
+     */
+    public static ContinuationToken decode(String token) throws ArtificerUserException {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.decodeBase64(token)));
+            if (in.readByte() != FORMAT_VERSION) {
+                throw new ArtificerUserException(Messages.i18n.format("INVALID_CONTINUATION", token));
+            }
+            String orderBy = in.readUTF();
+            boolean ascending = in.readBoolean();
+            int startIndex = in.readInt();
+            Serializable lastValue;
+            char type = in.readChar();
+            if (type == TYPE_CALENDAR) {
+                Calendar calendar = Calendar.getInstance();
+                calendar.setTimeInMillis(in.readLong());
+                lastValue = calendar;
+            } else if (type == TYPE_STRING) {
+                lastValue = in.readUTF();
+            } else if (type == TYPE_NULL) {
+                lastValue = null;
+            } else {
+                throw new ArtificerUserException(Messages.i18n.format("INVALID_CONTINUATION", token));
+            }
+            String lastUuid = in.readUTF();
+            return new ContinuationToken(orderBy.length() == 0 ? null : orderBy, ascending, startIndex, lastValue,
+                    lastUuid);
+        } catch (IOException e) {
+            throw new ArtificerUserException(Messages.i18n.format("INVALID_CONTINUATION", token), e);
+        }
+    }
+
+    public String getOrderBy() {
+        return orderBy;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    public int getStartIndex() {
+        return startIndex;
+    }
+
+    public Serializable getLastValue() {
+        return lastValue;
+    }
+
+    public String getLastUuid() {
+        return lastUuid;
+    }
+}
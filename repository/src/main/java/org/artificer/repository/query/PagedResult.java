@@ -31,11 +31,35 @@ public class PagedResult<T> implements Serializable {
 
     private final ArtificerQueryArgs args;
 
+    private final boolean hasMore;
+
+    private final String continuation;
+
     public PagedResult(List<T> results, String query, long totalSize, ArtificerQueryArgs args) {
         this.results = results;
         this.query = query;
         this.totalSize = totalSize;
         this.args = args;
+        hasMore = args.getStartIndex() != null && args.getStartIndex() + results.size() < totalSize;
+        continuation = null;
+    }
+
+    /**
+     * @param results
+     * @param query
+     * @param totalSize -1 if unknown
+     * @param args
+     * @param hasMore whether or not another page exists
+     * @param continuation the encoded {@link ContinuationToken} selecting the next page, or null if there is none
+     */
+    public PagedResult(List<T> results, String query, long totalSize, ArtificerQueryArgs args, boolean hasMore,
+            String continuation) {
+        this.results = results;
+        this.query = query;
+        this.totalSize = totalSize;
+        this.args = args;
+        this.hasMore = hasMore;
+        this.continuation = continuation;
     }
 
     public List<T> getResults() {
@@ -46,10 +70,25 @@ public class PagedResult<T> implements Serializable {
         return query;
     }
 
+    /**
+     * @return the total size of the result set, which depends on the query's {@link org.artificer.common.query.CountMode}
+     * (-1 if not counted)
+     */
     public long getTotalSize() {
         return totalSize;
     }
 
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    /**
+     * @return an opaque token selecting the next page by keyset, or null if this is the last page
+     */
+    public String getContinuation() {
+        return continuation;
+    }
+
     public long getPageSize() {
         return args.getCount() == null ? totalSize : args.getCount();
     }
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.repository.query;
+
+import org.artificer.common.error.ArtificerUserException;
+import org.artificer.common.query.xpath.XPathParser;
+import org.artificer.common.query.xpath.ast.Argument;
+import org.artificer.common.query.xpath.ast.Query;
+import org.artificer.repository.i18n.Messages;
+
+import java.net.URI;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An xpath template, parsed once with its ?'s kept as bind parameters.  Each ? is parsed as a string literal
+ * placeholder ('?0', '?1', etc.), which {@link AbstractArtificerQueryVisitor} replaces with the bound value while
+ * visiting, so the same (immutable) AST is shared by every execution.  Classifier functions whose arguments are all
+ * literals are resolved once per plan, which is why plans are dropped when an ontology changes.
+ *
+ * A template with a ? inside a quoted literal can't be parameterized (the ? is substituted textually), nor can one
+ * whose ?'s don't all land in value positions.  Such a template is still cached, but as "not compiled", so that it's
+ * formatted and parsed per execution, exactly as before.
+ *
+ * @author Brett Meyer
+ */
+public final class QueryPlan {
+
+    private static final XPathParser sParser = new XPathParser();
+
+    private static final String PARAMETER_PREFIX = "?";
+
+    private final String xpathTemplate;
+
+    private final Query queryModel;
+
+    private final int parameterCount;
+
+    private final long createdOn;
+
+    // classifier function arguments -> resolved URIs
+    private final Map<List<Argument>, Collection<URI>> classifications = Collections.synchronizedMap(
+            new IdentityHashMap<List<Argument>, Collection<URI>>());
+
+    private QueryPlan(String xpathTemplate, Query queryModel, int parameterCount) {
+        this.xpathTemplate = xpathTemplate;
+        this.queryModel = queryModel;
+        this.parameterCount = parameterCount;
+        this.createdOn = System.currentTimeMillis();
+    }
+
+    /**
+     * @param xpathTemplate the xpath template (with ?'s)
+     * @return QueryPlan never null, but only usable if {@link #isCompiled()}
+     */
+    public static QueryPlan compile(String xpathTemplate) {
+        StringBuilder xpath = new StringBuilder(xpathTemplate.length() + 16);
+        int parameterCount = 0;
+        char quote = 0;
+        for (int i = 0; i < xpathTemplate.length(); i++) {
+            char c = xpathTemplate.charAt(i);
+            if (quote != 0) {
+                if (c == '?') {
+                    return new QueryPlan(xpathTemplate, null, 0);
+                } else if (c == quote) {
+                    quote = 0;
+                }
+                xpath.append(c);
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+                xpath.append(c);
+            } else if (c == '?') {
+                xpath.append('\'').append(PARAMETER_PREFIX).append(parameterCount++).append('\'');
+            } else {
+                xpath.append(c);
+            }
+        }
+
+        try {
+            return new QueryPlan(xpathTemplate, sParser.parseXPath(xpath.toString()), parameterCount);
+        } catch (Throwable e) {
+            // Let the per-execution path report it (or, if the ?'s were simply not values, handle it).
+            return new QueryPlan(xpathTemplate, null, 0);
+        }
+    }
+
+    /**
+     * @return true if the template was parsed, false if it must be formatted and parsed per execution
+     */
+    public boolean isCompiled() {
+        return queryModel != null;
+    }
+
+    /**
+     * @param replacementParams
+     * @throws ArtificerUserException if the number of params doesn't match the template's ?'s
+     */
+    public void checkParameters(List<QueryReplacementParam<?>> replacementParams) throws ArtificerUserException {
+        if (replacementParams.size() < parameterCount) {
+            throw new ArtificerUserException(Messages.i18n.format("TOO_FEW_QUERY_PARAMS"));
+        }
+        if (replacementParams.size() > parameterCount) {
+            throw new ArtificerUserException(Messages.i18n.format("TOO_MANY_QUERY_PARAMS"));
+        }
+    }
+
+    /**
+     * @param literal a string literal from {@link #getQueryModel()}
+     * @return the index of the bind parameter it stands for, or -1 if it's an actual literal
+     */
+    public int parameterIndex(String literal) {
+        // Every ? in the template became a parameter, so no actual literal can take this form.
+        if (literal != null && literal.startsWith(PARAMETER_PREFIX)) {
+            try {
+                int index = Integer.parseInt(literal.substring(PARAMETER_PREFIX.length()));
+                if (index >= 0 && index < parameterCount) {
+                    return index;
+                }
+            } catch (NumberFormatException e) {
+                // not a parameter
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param arguments a classifier function's arguments, from {@link #getQueryModel()}
+     * @return the URIs they were resolved to, or null if they haven't been
+     */
+    public Collection<URI> getClassifications(List<Argument> arguments) {
+        return classifications.get(arguments);
+    }
+
+    public void setClassifications(List<Argument> arguments, Collection<URI> resolved) {
+        classifications.put(arguments, Collections.unmodifiableCollection(resolved));
+    }
+
+    public String getXpathTemplate() {
+        return xpathTemplate;
+    }
+
+    public Query getQueryModel() {
+        return queryModel;
+    }
+
+    public int getParameterCount() {
+        return parameterCount;
+    }
+
+    public long getCreatedOn() {
+        return createdOn;
+    }
+}
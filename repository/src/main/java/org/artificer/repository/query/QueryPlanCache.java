@@ -0,0 +1,152 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.repository.query;
+
+import org.artificer.common.ArtificerConfig;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded (LRU) cache of {@link QueryPlan}s, keyed by xpath template.  Stored queries and the UI's filters repeat the
+ * same handful of templates, so most executions skip the formatting and parsing entirely.
+ *
+ * Plans hold resolved classifiers, so persisting, updating, or deleting an ontology invalidates the cache.  That
+ * invalidation is local to the node, so plans also expire after 'artificer.config.cache.query-plans.ttl' (defaulting
+ * to the ontologies' TTL).  The size is set by 'artificer.config.cache.query-plans.max-entries' (0 disables).
+ *
+ * @author Brett Meyer
+ */
+public class QueryPlanCache {
+
+    private static final long DEFAULT_MAX_ENTRIES = 1000;
+
+    private static final long DEFAULT_TTL = 60000;
+
+    private static final QueryPlanCache INSTANCE = new QueryPlanCache(ArtificerConfig.isCacheEnabled()
+            ? (int) ArtificerConfig.getCacheMaxEntries("query-plans", DEFAULT_MAX_ENTRIES) : 0,
+            ArtificerConfig.getCacheTtl("query-plans", ArtificerConfig.getCacheTtl("ontologies", DEFAULT_TTL)));
+
+    public static QueryPlanCache getInstance() {
+        return INSTANCE;
+    }
+
+    private final int maxEntries;
+
+    private final long ttl;
+
+    private final Map<String, QueryPlan> plans;
+
+    // Bumped by every invalidation.  A plan compiled while an ontology was changing must not be cached.
+    private long generation = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong puts = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    public QueryPlanCache(final int maxEntries, long ttl) {
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+        this.plans = new LinkedHashMap<String, QueryPlan>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, QueryPlan> eldest) {
+                if (size() > maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @param xpathTemplate
+     * @return the template's plan, compiling (and caching) it if necessary
+     */
+    public QueryPlan get(String xpathTemplate) {
+        long generation;
+        synchronized (this) {
+            QueryPlan plan = plans.get(xpathTemplate);
+            if (plan != null && plan.getCreatedOn() + ttl < System.currentTimeMillis()) {
+                plans.remove(xpathTemplate);
+                evictions.incrementAndGet();
+                plan = null;
+            }
+            if (plan != null) {
+                hits.incrementAndGet();
+                return plan;
+            }
+            misses.incrementAndGet();
+            generation = this.generation;
+        }
+
+        // Compiled outside of the lock -- two callers may compile the same template, which is harmless.
+        QueryPlan plan = QueryPlan.compile(xpathTemplate);
+        synchronized (this) {
+            if (maxEntries > 0 && generation == this.generation) {
+                plans.put(xpathTemplate, plan);
+                puts.incrementAndGet();
+            }
+        }
+        return plan;
+    }
+
+    public synchronized void invalidate() {
+        generation++;
+        evictions.addAndGet(plans.size());
+        plans.clear();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getPutCount() {
+        return puts.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public synchronized long getElementCount() {
+        return plans.size();
+    }
+
+    /**
+     * @return hits / (hits + misses), or 0 if nothing has been requested
+     */
+    public double getHitRate() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Query plans: %d cached, %d hits, %d misses (%.1f%% hit rate), %d evictions",
+                getElementCount(), getHitCount(), getMissCount(), getHitRate() * 100, getEvictionCount());
+    }
+}
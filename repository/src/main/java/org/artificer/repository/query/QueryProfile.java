@@ -0,0 +1,188 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.repository.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The timings, statements, and row counts of a single query execution.  {@link AbstractArtificerQueryImpl} opens one
+ * for the duration of each execution, and the provider reports into it (through the static methods, which are no-ops
+ * when nothing is being profiled) as the query runs.  When the execution ends, the profile is handed to
+ * {@link QueryStatistics}.
+ *
+ * @author Brett Meyer
+ */
+public class QueryProfile {
+
+    public static enum Phase {
+        /** Plan lookup (or xpath formatting and parsing) and validation */
+        PARSE,
+        /** Visiting the query model (ex: building the JPA criteria) */
+        CRITERIA,
+        /** The total count */
+        COUNT,
+        /** The requested page (or, for full-text queries, the matching IDs) */
+        PAGE,
+        /** Loading and converting the page's summaries */
+        CONVERSION,
+        /** The entire execution */
+        TOTAL
+    }
+
+    // Enough to see what a slow query did, without holding onto an unbounded amount of SQL.
+    private static final int MAX_STATEMENTS = 20;
+
+    private static final ThreadLocal<QueryProfile> CURRENT = new ThreadLocal<QueryProfile>();
+
+    private final String xpathTemplate;
+
+    private final List<QueryReplacementParam<?>> replacementParams;
+
+    private final QueryProfile previous;
+
+    private final long startNanos = System.nanoTime();
+
+    private final long[] nanos = new long[Phase.values().length];
+
+    private final List<String> statements = new ArrayList<String>();
+
+    private int statementCount = 0;
+
+    private long totalSize = -1;
+
+    private int resultCount = -1;
+
+    private boolean failed = true;
+
+    private QueryProfile(String xpathTemplate, List<QueryReplacementParam<?>> replacementParams,
+            QueryProfile previous) {
+        this.xpathTemplate = xpathTemplate;
+        this.replacementParams = replacementParams;
+        this.previous = previous;
+    }
+
+    /**
+     * Starts profiling an execution on the current thread.  Must be paired with {@link #end()}, in a finally block.
+     * Executions may nest (ex: a query issued while visiting another), in which case the outer one is resumed.
+     * @param xpathTemplate
+     * @param replacementParams
+     * @return the new profile
+     */
+    public static QueryProfile begin(String xpathTemplate, List<QueryReplacementParam<?>> replacementParams) {
+        QueryProfile profile = new QueryProfile(xpathTemplate, replacementParams, CURRENT.get());
+        CURRENT.set(profile);
+        return profile;
+    }
+
+    /**
+     * @return the execution being profiled on the current thread, or null
+     */
+    public static QueryProfile current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Adds the time since the given System.nanoTime() to the given phase of the current execution, if any.
+     * @param phase
+     * @param startNanos
+     */
+    public static void record(Phase phase, long startNanos) {
+        QueryProfile profile = CURRENT.get();
+        if (profile != null) {
+            profile.nanos[phase.ordinal()] += System.nanoTime() - startNanos;
+        }
+    }
+
+    /**
+     * Notes a statement (SQL, or a Lucene query) issued by the current execution, if any.
+     * @param statement
+     */
+    public static void statement(String statement) {
+        QueryProfile profile = CURRENT.get();
+        if (profile != null) {
+            profile.statementCount++;
+            if (profile.statements.size() < MAX_STATEMENTS) {
+                profile.statements.add(statement);
+            }
+        }
+    }
+
+    /**
+     * Marks the execution as successful.
+     * @param totalSize
+     * @param resultCount
+     */
+    public void succeeded(long totalSize, int resultCount) {
+        this.totalSize = totalSize;
+        this.resultCount = resultCount;
+        this.failed = false;
+    }
+
+    /**
+     * Ends the execution, restores whichever execution it was nested in (if any), and records it with
+     * {@link QueryStatistics}.
+     */
+    public void end() {
+        nanos[Phase.TOTAL.ordinal()] = System.nanoTime() - startNanos;
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+        QueryStatistics.getInstance().record(this);
+    }
+
+    public String getXpathTemplate() {
+        return xpathTemplate;
+    }
+
+    public List<QueryReplacementParam<?>> getReplacementParams() {
+        return replacementParams;
+    }
+
+    /**
+     * @param phase
+     * @return nanos spent in the given phase
+     */
+    public long getNanos(Phase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    /**
+     * @return the first {@link #MAX_STATEMENTS} statements issued
+     */
+    public List<String> getStatements() {
+        return Collections.unmodifiableList(statements);
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    public long getTotalSize() {
+        return totalSize;
+    }
+
+    public int getResultCount() {
+        return resultCount;
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+}
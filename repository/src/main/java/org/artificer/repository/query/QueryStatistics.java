@@ -0,0 +1,252 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.repository.query;
+
+import org.artificer.common.ArtificerConfig;
+import org.artificer.common.LatencyHistogram;
+import org.artificer.repository.i18n.Messages;
+import org.artificer.repository.query.QueryProfile.Phase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Per query shape latency histograms, for each phase of an execution (see {@link QueryProfile.Phase}), and the slow
+ * query log.
+ *
+ * A shape is the xpath template with its literals replaced by '?', so that executions differing only in their values
+ * (ex: the UI's filters) are grouped together.  Shapes are tracked up to 'artificer.config.query.statistics.max-shapes'.
+ * Beyond that, new shapes are lumped into {@link #OTHER_SHAPE}, rather than growing without bound.
+ *
+ * Any execution taking longer than 'artificer.config.query.slow-threshold' (ms) is logged (WARN), with its shape,
+ * phases, and row counts.  Its literal xpath, parameter values, and the statements it issued are logged at DEBUG.
+ *
+ * @author Brett Meyer
+ */
+public class QueryStatistics implements QueryStatisticsMBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(QueryStatistics.class);
+
+    public static final String OTHER_SHAPE = "(other)";
+
+    private static final Pattern LITERAL = Pattern.compile("'[^']*'|\"[^\"]*\"|(?<![\\w.])-?\\d+(\\.\\d+)?");
+
+    private static final QueryStatistics INSTANCE = new QueryStatistics(ArtificerConfig.getQueryStatisticsMaxShapes(),
+            ArtificerConfig.getQuerySlowThreshold());
+
+    public static QueryStatistics getInstance() {
+        return INSTANCE;
+    }
+
+    private final int maxShapes;
+
+    private volatile long slowQueryThreshold;
+
+    private final ConcurrentMap<String, LatencyHistogram[]> shapes = new ConcurrentHashMap<>();
+
+    private final AtomicLong queries = new AtomicLong();
+
+    private final AtomicLong failedQueries = new AtomicLong();
+
+    private final AtomicLong slowQueries = new AtomicLong();
+
+    public QueryStatistics(int maxShapes, long slowQueryThreshold) {
+        this.maxShapes = maxShapes;
+        this.slowQueryThreshold = slowQueryThreshold;
+    }
+
+    /**
+     * @param xpathTemplate
+     * @return the template, with its string and number literals replaced by '?'
+     */
+    public static String shape(String xpathTemplate) {
+        return LITERAL.matcher(xpathTemplate).replaceAll("?");
+    }
+
+    /**
+     * Records a finished execution.
+     * @param profile
+     */
+    public void record(QueryProfile profile) {
+        queries.incrementAndGet();
+        if (profile.isFailed()) {
+            failedQueries.incrementAndGet();
+        }
+
+        LatencyHistogram[] histograms = histograms(shape(profile.getXpathTemplate()));
+        for (Phase phase : Phase.values()) {
+            long nanos = profile.getNanos(phase);
+            // Not every execution has every phase (ex: no count query).  Don't skew those phases toward 0.
+            if (nanos > 0 || phase == Phase.TOTAL) {
+                histograms[phase.ordinal()].record(nanos);
+            }
+        }
+
+        long slowQueryThreshold = this.slowQueryThreshold;
+        long totalMillis = profile.getNanos(Phase.TOTAL) / 1000000;
+        if (slowQueryThreshold >= 0 && totalMillis >= slowQueryThreshold) {
+            slowQueries.incrementAndGet();
+            logSlowQuery(profile, totalMillis);
+        }
+    }
+
+    private LatencyHistogram[] histograms(String shape) {
+        LatencyHistogram[] histograms = shapes.get(shape);
+        if (histograms == null) {
+            // The limit is approximate under concurrency, which is fine.
+            if (shapes.size() >= maxShapes) {
+                shape = OTHER_SHAPE;
+                histograms = shapes.get(shape);
+                if (histograms != null) {
+                    return histograms;
+                }
+            }
+            histograms = new LatencyHistogram[Phase.values().length];
+            for (int i = 0; i < histograms.length; i++) {
+                histograms[i] = new LatencyHistogram();
+            }
+            LatencyHistogram[] existing = shapes.putIfAbsent(shape, histograms);
+            if (existing != null) {
+                histograms = existing;
+            }
+        }
+        return histograms;
+    }
+
+    private void logSlowQuery(QueryProfile profile, long totalMillis) {
+        if (!LOG.isWarnEnabled()) {
+            return;
+        }
+        StringBuilder phases = new StringBuilder();
+        for (Phase phase : Phase.values()) {
+            if (phase != Phase.TOTAL && profile.getNanos(phase) > 0) {
+                phases.append(' ').append(phase).append('=').append(profile.getNanos(phase) / 1000000).append("ms");
+            }
+        }
+        // Only the shape: the values (literals, parameters, and the statements that embed them) may be sensitive.
+        LOG.warn(Messages.i18n.format("SLOW_QUERY", totalMillis, shape(profile.getXpathTemplate()),
+                phases.toString().trim(), profile.getTotalSize(), profile.getResultCount(),
+                profile.isFailed() ? " (failed)" : ""));
+
+        if (!LOG.isDebugEnabled()) {
+            return;
+        }
+        StringBuilder params = new StringBuilder();
+        for (QueryReplacementParam<?> param : profile.getReplacementParams()) {
+            if (params.length() > 0) {
+                params.append(", ");
+            }
+            params.append(param.getFormattedValue());
+        }
+        StringBuilder statements = new StringBuilder();
+        for (String statement : profile.getStatements()) {
+            statements.append("\n    ").append(statement);
+        }
+        if (profile.getStatementCount() > profile.getStatements().size()) {
+            statements.append("\n    ... (").append(profile.getStatementCount() - profile.getStatements().size())
+                    .append(" more)");
+        }
+        LOG.debug(Messages.i18n.format("SLOW_QUERY_DETAIL", totalMillis, profile.getXpathTemplate(), params,
+                statements));
+    }
+
+    /**
+     * @param shape
+     * @param phase
+     * @return the shape's histogram for the given phase, or null if the shape isn't tracked
+     */
+    public LatencyHistogram getHistogram(String shape, Phase phase) {
+        LatencyHistogram[] histograms = shapes.get(shape);
+        return histograms == null ? null : histograms[phase.ordinal()];
+    }
+
+    @Override
+    public long getQueryCount() {
+        return queries.get();
+    }
+
+    @Override
+    public long getFailedQueryCount() {
+        return failedQueries.get();
+    }
+
+    @Override
+    public long getSlowQueryCount() {
+        return slowQueries.get();
+    }
+
+    @Override
+    public long getSlowQueryThreshold() {
+        return slowQueryThreshold;
+    }
+
+    @Override
+    public void setSlowQueryThreshold(long slowQueryThreshold) {
+        this.slowQueryThreshold = slowQueryThreshold;
+    }
+
+    @Override
+    public String[] getShapes() {
+        return shapes.keySet().toArray(new String[0]);
+    }
+
+    @Override
+    public String[] getShapeSummaries() {
+        List<String> summaries = new ArrayList<>();
+        for (Map.Entry<String, LatencyHistogram[]> entry : shapes.entrySet()) {
+            StringBuilder summary = new StringBuilder(entry.getKey());
+            for (Phase phase : Phase.values()) {
+                LatencyHistogram histogram = entry.getValue()[phase.ordinal()];
+                if (histogram.getCount() > 0) {
+                    summary.append("\n  ").append(phase).append(": ").append(histogram);
+                }
+            }
+            summaries.add(summary.toString());
+        }
+        return summaries.toArray(new String[summaries.size()]);
+    }
+
+    @Override
+    public double getPercentile(String shape, String phase, double percentile) {
+        LatencyHistogram histogram = getHistogram(shape, Phase.valueOf(phase.toUpperCase()));
+        return histogram == null ? 0 : histogram.getPercentile(percentile);
+    }
+
+    @Override
+    public void reset() {
+        shapes.clear();
+        queries.set(0);
+        failedQueries.set(0);
+        slowQueries.set(0);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("Query statistics: ").append(queries.get()).append(" queries, ")
+                .append(failedQueries.get()).append(" failed, ").append(slowQueries.get()).append(" slow");
+        for (String summary : getShapeSummaries()) {
+            builder.append("\n").append(summary);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.repository.query;
+
+/**
+ * JMX view of the {@link QueryStatistics}.  Latencies are in ms.
+ *
+ * @author Brett Meyer
+ */
+public interface QueryStatisticsMBean {
+
+    long getQueryCount();
+
+    long getFailedQueryCount();
+
+    long getSlowQueryCount();
+
+    long getSlowQueryThreshold();
+
+    /**
+     * @param slowQueryThreshold ms, or a negative number to stop logging slow queries
+     */
+    void setSlowQueryThreshold(long slowQueryThreshold);
+
+    /**
+     * @return every tracked query shape
+     */
+    String[] getShapes();
+
+    /**
+     * @return a line per query shape: the shape, then each phase's count, mean, p50, p95, p99, and max
+     */
+    String[] getShapeSummaries();
+
+    /**
+     * @param shape one of {@link #getShapes()}
+     * @param phase one of PARSE, CRITERIA, COUNT, PAGE, CONVERSION, or TOTAL
+     * @param percentile ex: 99
+     * @return the percentile, in ms (0 if the shape is unknown)
+     */
+    double getPercentile(String shape, String phase, double percentile);
+
+    void reset();
+}
@@ -83,6 +83,7 @@ public abstract class AbstractPersistenceTest {
         List<Object[]> data = new ArrayList<>();
         data.add(new Object[] { TestType.HIBERNATE_BLOB });
         data.add(new Object[] { TestType.HIBERNATE_FILESYSTEM });
+        data.add(new Object[] { TestType.HIBERNATE_CONTENT_ADDRESSED });
         return data;
     }
 
@@ -110,6 +111,17 @@ public abstract class AbstractPersistenceTest {
                         "target/test/artificer-data");
                 repositoryTestProvider = new HibernateRepositoryTestProvider(extraProperties);
 
+                break;
+            case HIBERNATE_CONTENT_ADDRESSED:
+                persistenceManager = new HibernatePersistenceManager();
+                queryManager = new HibernateQueryManager();
+                auditManager = new HibernateAuditManager();
+
+                extraProperties.put(ArtificerConstants.ARTIFICER_FILE_STORAGE, "content-addressed");
+                extraProperties.put(ArtificerConstants.ARTIFICER_FILE_STORAGE_FILESYSTEM_PATH,
+                        "target/test/artificer-cas");
+                repositoryTestProvider = new HibernateRepositoryTestProvider(extraProperties);
+
                 break;
         }
 
@@ -238,6 +250,6 @@ public abstract class AbstractPersistenceTest {
     }
 
     public enum TestType {
-        HIBERNATE_BLOB, HIBERNATE_FILESYSTEM
+        HIBERNATE_BLOB, HIBERNATE_FILESYSTEM, HIBERNATE_CONTENT_ADDRESSED
     }
 }
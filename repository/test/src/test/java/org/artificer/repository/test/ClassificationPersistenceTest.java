@@ -20,6 +20,9 @@ import org.artificer.common.ArtifactType;
 import org.artificer.common.ArtificerException;
 import org.artificer.common.ontology.ArtificerOntology;
 import org.artificer.common.ontology.ArtificerOntologyClass;
+import org.artificer.repository.ClassificationHelper;
+import org.artificer.repository.hibernate.HibernatePersistenceManager;
+import org.artificer.repository.hibernate.OntologyCache;
 import org.junit.Assert;
 import org.junit.Test;
 import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactEnum;
@@ -27,6 +30,12 @@ import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactType;
 import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.Document;
 
 import java.io.InputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 
 /**
@@ -60,6 +69,77 @@ public class ClassificationPersistenceTest extends AbstractNoAuditingPersistence
         Assert.assertEquals("urn:example.org/test2#China", artifact.getClassifiedBy().get(0));
     }
 
+    @Test
+    public void testOntologyChangedThroughAnotherManager() throws Exception {
+        ArtificerOntology ontology = createOntology();
+        ClassificationHelper classificationHelper = (ClassificationHelper) persistenceManager;
+        // Builds this manager's classifier snapshot.
+        Assert.assertEquals(new URI("urn:example.org/test2#China"), classificationHelper.resolve("China"));
+
+        // Ex: another node's manager, invalidating the shared ontology cache.
+        ArtificerOntologyClass asia = ontology.findClass("Asia");
+        ArtificerOntologyClass korea = createClass(ontology, asia, "Korea", "Korea", null);
+        asia.getChildren().add(korea);
+        new HibernatePersistenceManager().updateOntology(ontology);
+
+        // Seen right away, rather than once the snapshot expires.
+        Assert.assertEquals(new URI("urn:example.org/test2#Korea"), classificationHelper.resolve("Korea"));
+    }
+
+    @Test
+    public void testOntologyIndexRebuiltOnce() throws Exception {
+        createOntology();
+        final AtomicInteger builds = new AtomicInteger();
+        final CountDownLatch rebuilding = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final HibernatePersistenceManager manager = new HibernatePersistenceManager() {
+            @Override
+            public List<ArtificerOntology> getOntologies() throws ArtificerException {
+                List<ArtificerOntology> ontologies = super.getOntologies();
+                // Holds up the rebuild (but not the first build).
+                if (builds.incrementAndGet() > 1) {
+                    rebuilding.countDown();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return ontologies;
+            }
+        };
+        Assert.assertEquals(new URI("urn:example.org/test2#China"), manager.resolve("China"));
+        Assert.assertEquals(1, builds.get());
+
+        // Expires the snapshot, then rebuilds it.
+        OntologyCache.getInstance().invalidate();
+        final AtomicReference<Object> rebuilt = new AtomicReference<>();
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    rebuilt.set(manager.resolve("China"));
+                } catch (Exception e) {
+                    rebuilt.set(e);
+                }
+            }
+        };
+        thread.start();
+        Assert.assertTrue(rebuilding.await(10, TimeUnit.SECONDS));
+
+        // Everyone else keeps using the expired snapshot meanwhile, rather than rebuilding it as well.
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(new URI("urn:example.org/test2#China"), manager.resolve("China"));
+        }
+        Assert.assertEquals(2, builds.get());
+
+        release.countDown();
+        thread.join(10000);
+        Assert.assertEquals(new URI("urn:example.org/test2#China"), rebuilt.get());
+        Assert.assertEquals(new URI("urn:example.org/test2#China"), manager.resolve("China"));
+        Assert.assertEquals(2, builds.get());
+    }
+
 	/**
 	 * @throws org.artificer.common.ArtificerException
 	 */
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.repository.test;
+
+import org.artificer.common.ontology.ArtificerOntology;
+import org.artificer.common.ontology.ArtificerOntologyClass;
+import org.artificer.repository.OntologyIndex;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+/**
+ * Test for {@link OntologyIndex}.
+ *
+ * @author Brett Meyer
+ */
+public class OntologyIndexTest {
+
+    @Test
+    public void testResolveAndNormalize() throws Exception {
+        ArtificerOntology ontology = new ArtificerOntology();
+        ontology.setBase("urn:example.org/test");
+        ArtificerOntologyClass world = addClass(ontology, null, "World");
+        ArtificerOntologyClass asia = addClass(ontology, world, "Asia");
+        addClass(ontology, asia, "China");
+
+        OntologyIndex index = OntologyIndex.build(1, Collections.singletonList(ontology));
+        Assert.assertEquals(new URI("urn:example.org/test#China"), index.resolve("China"));
+        Assert.assertEquals(new URI("urn:example.org/test#China"), index.resolve("urn:example.org/test#China"));
+        Assert.assertNull(index.resolve("Japan"));
+        Assert.assertEquals(new HashSet<URI>(Arrays.asList(new URI("urn:example.org/test#World"),
+                new URI("urn:example.org/test#Asia"), new URI("urn:example.org/test#China"))),
+                new HashSet<URI>(index.normalize(new URI("urn:example.org/test#China"))));
+    }
+
+    @Test
+    public void testMalformedClassUriIsSkipped() throws Exception {
+        ArtificerOntology ontology = new ArtificerOntology();
+        ontology.setBase("urn:example.org/test");
+        ArtificerOntologyClass world = addClass(ontology, null, "World");
+        ArtificerOntologyClass bad = addClass(ontology, world, "Bad");
+        bad.setUri("urn:example.org/test#not a uri");
+        addClass(ontology, bad, "Child");
+        ArtificerOntologyClass missing = addClass(ontology, world, "Missing");
+        missing.setUri(null);
+        addClass(ontology, world, "Asia");
+
+        // Doesn't prevent the rest of the ontology from being indexed.
+        OntologyIndex index = OntologyIndex.build(1, Collections.singletonList(ontology));
+        Assert.assertNull(index.resolve("Bad"));
+        Assert.assertNull(index.resolve("Missing"));
+        Assert.assertEquals(new URI("urn:example.org/test#Asia"), index.resolve("Asia"));
+
+        // Its children remain, under its valid ancestors.
+        Assert.assertEquals(new URI("urn:example.org/test#Child"), index.resolve("Child"));
+        Assert.assertEquals(new HashSet<URI>(Arrays.asList(new URI("urn:example.org/test#World"),
+                new URI("urn:example.org/test#Child"))),
+                new HashSet<URI>(index.normalize(new URI("urn:example.org/test#Child"))));
+    }
+
+    private ArtificerOntologyClass addClass(ArtificerOntology ontology, ArtificerOntologyClass parent, String id) {
+        ArtificerOntologyClass ontologyClass = ontology.createClass(id);
+        ontologyClass.setParent(parent);
+        if (parent == null) {
+            ontology.getRootClasses().add(ontologyClass);
+        } else {
+            parent.getChildren().add(ontologyClass);
+        }
+        return ontologyClass;
+    }
+}
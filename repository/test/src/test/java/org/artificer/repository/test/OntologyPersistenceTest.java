@@ -333,8 +333,13 @@ public class OntologyPersistenceTest extends AbstractNoAuditingPersistenceTest {
         europe.getChildren().remove(germany);
         europe.getChildren().add(sweden);
 
+        // Warm the ontology cache, which the update must invalidate.
+        Assert.assertTrue(index(persistenceManager.getOntologies().get(0).getRootClasses().get(0)).containsKey("Germany"));
+
         persistenceManager.updateOntology(ontology);
 
+        Assert.assertTrue(index(persistenceManager.getOntologies().get(0).getRootClasses().get(0)).containsKey("Sweden"));
+
         actual = persistenceManager.getOntology(uuid);
         Map<String, ArtificerOntologyClass> all = index(actual.getRootClasses().get(0));
         Assert.assertEquals(6, all.size());
@@ -15,6 +15,7 @@
  */
 package org.artificer.repository.test;
 
+import org.apache.commons.io.IOUtils;
 import org.artificer.common.ArtifactContent;
 import org.artificer.common.ArtifactType;
 import org.artificer.common.ArtificerModelUtils;
@@ -22,7 +23,10 @@ import org.artificer.common.error.ArtificerConflictException;
 import org.artificer.common.error.ArtificerNotFoundException;
 import org.artificer.common.query.ArtifactSummary;
 import org.artificer.repository.query.ArtificerQuery;
+import org.artificer.repository.hibernate.HibernateUtil;
 import org.artificer.repository.query.PagedResult;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.Assert;
 import org.junit.Test;
 import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactEnum;
@@ -33,11 +37,18 @@ import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.DocumentArtifactType;
 import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.ExtendedArtifactType;
 import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.Property;
 import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.Relationship;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.Target;
 import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.XmlDocument;
 import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.XsdDocument;
 
+import javax.xml.namespace.QName;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static org.junit.Assert.assertTrue;
@@ -209,6 +220,61 @@ public class PersistenceTest extends AbstractNoAuditingPersistenceTest {
         Assert.assertEquals(artifact.getLastModifiedTimestamp(), artifact2.getLastModifiedTimestamp());
     }
 
+    @Test
+    public void testGetArtifacts() throws Exception {
+        BaseArtifactType xsd = persistXsd("PO.xsd");
+        BaseArtifactType schema = persistXsd("XMLSchema.xsd");
+        BaseArtifactType extended = ArtifactType.ExtendedArtifactType("FooType").newArtifactInstance();
+        extended.setName("FooArtifact");
+        ArtificerModelUtils.setCustomProperty(extended, "foo", "bar");
+        ArtificerModelUtils.addGenericRelationship(extended, "TargetedRelationship", xsd.getUuid());
+        extended = persistenceManager.persistArtifact(extended, null);
+        persistenceManager.addComment(extended.getUuid(), ArtifactType.valueOf(extended), "xyz");
+
+        // in the requested order, skipping unknown UUIDs, and fully populated
+        List<BaseArtifactType> artifacts = persistenceManager.getArtifacts(Arrays.asList(extended.getUuid(),
+                "not-a-valid-uuid", schema.getUuid(), xsd.getUuid()));
+        Assert.assertEquals(3, artifacts.size());
+        Assert.assertEquals(extended.getUuid(), artifacts.get(0).getUuid());
+        Assert.assertEquals(ExtendedArtifactType.class, artifacts.get(0).getClass());
+        Assert.assertEquals("bar", ArtificerModelUtils.getCustomProperty(artifacts.get(0), "foo"));
+        Assert.assertEquals(1, artifacts.get(0).getComment().size());
+        Relationship relationship = ArtificerModelUtils.getGenericRelationship(artifacts.get(0),
+                "TargetedRelationship");
+        Assert.assertEquals(xsd.getUuid(), relationship.getRelationshipTarget().get(0).getValue());
+        Assert.assertEquals(schema.getUuid(), artifacts.get(1).getUuid());
+        Assert.assertEquals(XsdDocument.class, artifacts.get(2).getClass());
+        Assert.assertEquals(persistenceManager.getArtifact(xsd.getUuid(), ArtifactType.XsdDocument()).getRelationship()
+                .size(), artifacts.get(2).getRelationship().size());
+
+        Assert.assertTrue(persistenceManager.getArtifacts(new ArrayList<String>()).isEmpty());
+
+        // the statements issued don't grow with the number of artifacts (collections are batch fetched)
+        List<String> uuids = new ArrayList<String>();
+        for (int i = 0; i < 10; i++) {
+            BaseArtifactType artifact = ArtifactType.ExtendedArtifactType("FooType").newArtifactInstance();
+            artifact.setName("FooArtifact" + i);
+            ArtificerModelUtils.setCustomProperty(artifact, "foo", "bar" + i);
+            ArtificerModelUtils.addGenericRelationship(artifact, "TargetedRelationship", xsd.getUuid());
+            uuids.add(persistenceManager.persistArtifact(artifact, null).getUuid());
+        }
+        long fewStatements = countGetArtifactsStatements(uuids.subList(0, 2));
+        long manyStatements = countGetArtifactsStatements(uuids);
+        Assert.assertTrue(fewStatements > 0);
+        Assert.assertEquals(fewStatements, manyStatements);
+    }
+
+    private long countGetArtifactsStatements(List<String> uuids) throws Exception {
+        SessionFactory sessionFactory = HibernateUtil.startup().unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictEntityRegions();
+        sessionFactory.getCache().evictCollectionRegions();
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        Assert.assertEquals(uuids.size(), persistenceManager.getArtifacts(uuids).size());
+        return statistics.getPrepareStatementCount();
+    }
+
     /**
      * Tests that we can update basic s-ramp meta data.
      * @throws Exception
@@ -471,6 +537,113 @@ public class PersistenceTest extends AbstractNoAuditingPersistenceTest {
 		}
     }
 
+    /**
+     * Updates only apply what changed, so also make sure that removed relationships and targets actually go away,
+     * while the untouched ones survive.
+     * @throws Exception
+     */
+    @Test
+    public void testGenericRelationshipsRemoved() throws Exception {
+        BaseArtifactType artifact = persistXsd("PO.xsd");
+        String uuid1 = artifact.getUuid();
+        String uuid2 = persistXsd("XMLSchema.xsd").getUuid();
+        String uuid3 = persistXsd("PO.xsd").getUuid();
+
+        ArtificerModelUtils.addGenericRelationship(artifact, "Kept", uuid2);
+        ArtificerModelUtils.addGenericRelationship(artifact, "Kept", uuid3);
+        ArtificerModelUtils.addGenericRelationship(artifact, "Removed", uuid2);
+        ArtificerModelUtils.setCustomProperty(artifact, "foo", "bar");
+        persistenceManager.updateArtifact(artifact, ArtifactType.XsdDocument());
+
+        artifact = persistenceManager.getArtifact(uuid1, ArtifactType.XsdDocument());
+        Assert.assertEquals(2, artifact.getRelationship().size());
+        Assert.assertEquals(2, ArtificerModelUtils.getGenericRelationship(artifact, "Kept").getRelationshipTarget().size());
+
+        // Drop one target of the first relationship, the entire second relationship, and change the property.
+        Relationship kept = ArtificerModelUtils.getGenericRelationship(artifact, "Kept");
+        for (int i = 0; i < kept.getRelationshipTarget().size(); i++) {
+            if (uuid3.equals(kept.getRelationshipTarget().get(i).getValue())) {
+                kept.getRelationshipTarget().remove(i);
+            }
+        }
+        artifact.getRelationship().remove(ArtificerModelUtils.getGenericRelationship(artifact, "Removed"));
+        ArtificerModelUtils.setCustomProperty(artifact, "foo", "baz");
+        persistenceManager.updateArtifact(artifact, ArtifactType.XsdDocument());
+
+        artifact = persistenceManager.getArtifact(uuid1, ArtifactType.XsdDocument());
+        Assert.assertEquals(1, artifact.getRelationship().size());
+        kept = ArtificerModelUtils.getGenericRelationship(artifact, "Kept");
+        Assert.assertNotNull(kept);
+        Assert.assertEquals(1, kept.getRelationshipTarget().size());
+        Assert.assertEquals(uuid2, kept.getRelationshipTarget().get(0).getValue());
+        Assert.assertNull(ArtificerModelUtils.getGenericRelationship(artifact, "Removed"));
+        Assert.assertEquals("baz", ArtificerModelUtils.getCustomProperty(artifact, "foo"));
+
+        // And an update that changes nothing leaves everything in place.
+        persistenceManager.updateArtifact(artifact, ArtifactType.XsdDocument());
+        artifact = persistenceManager.getArtifact(uuid1, ArtifactType.XsdDocument());
+        Assert.assertEquals(1, artifact.getRelationship().size());
+        Assert.assertEquals("baz", ArtificerModelUtils.getCustomProperty(artifact, "foo"));
+    }
+
+    /**
+     * Adding a target to an existing relationship must keep the relationship (and its other targets) as they were.
+     * @throws Exception
+     */
+    @Test
+    public void testGenericRelationshipTargetAdded() throws Exception {
+        BaseArtifactType artifact = persistXsd("PO.xsd");
+        String uuid1 = artifact.getUuid();
+        String uuid2 = persistXsd("XMLSchema.xsd").getUuid();
+        String uuid3 = persistXsd("PO.xsd").getUuid();
+
+        Map<QName, String> relationshipAttributes = new HashMap<QName, String>();
+        relationshipAttributes.put(QName.valueOf("FooKey"), "FooValue");
+        Map<QName, String> targetAttributes = new HashMap<QName, String>();
+        targetAttributes.put(QName.valueOf("BarKey"), "BarValue");
+        ArtificerModelUtils.addGenericRelationship(artifact, "Extended", uuid2, relationshipAttributes,
+                targetAttributes);
+        persistenceManager.updateArtifact(artifact, ArtifactType.XsdDocument());
+
+        // Add a second target to the (now stored) relationship.
+        artifact = persistenceManager.getArtifact(uuid1, ArtifactType.XsdDocument());
+        ArtificerModelUtils.addGenericRelationship(artifact, "Extended", uuid3);
+        persistenceManager.updateArtifact(artifact, ArtifactType.XsdDocument());
+
+        artifact = persistenceManager.getArtifact(uuid1, ArtifactType.XsdDocument());
+        Assert.assertEquals(1, artifact.getRelationship().size());
+        Relationship relationship = ArtificerModelUtils.getGenericRelationship(artifact, "Extended");
+        Assert.assertEquals("FooValue", relationship.getOtherAttributes().get(QName.valueOf("FooKey")));
+        Assert.assertEquals(2, relationship.getRelationshipTarget().size());
+        Map<String, Target> targets = new HashMap<String, Target>();
+        for (Target target : relationship.getRelationshipTarget()) {
+            targets.put(target.getValue(), target);
+        }
+        Assert.assertEquals(new HashSet<String>(Arrays.asList(uuid2, uuid3)), targets.keySet());
+        Assert.assertEquals("BarValue", targets.get(uuid2).getOtherAttributes().get(QName.valueOf("BarKey")));
+        Assert.assertTrue(targets.get(uuid3).getOtherAttributes().isEmpty());
+
+        // Both targets are queryable.
+        for (String uuid : Arrays.asList(uuid2, uuid3)) {
+            PagedResult<ArtifactSummary> result = queryManager.createQuery(
+                    "/s-ramp/xsd/XsdDocument[Extended[@uuid = '" + uuid + "']]").executeQuery();
+            Assert.assertEquals(1, result.getTotalSize());
+            Assert.assertEquals(uuid1, result.getResults().get(0).getUuid());
+        }
+    }
+
+    private BaseArtifactType persistXsd(String artifactFileName) throws Exception {
+        InputStream contentStream = this.getClass().getResourceAsStream("/sample-files/xsd/" + artifactFileName);
+        try {
+            Document document = new Document();
+            document.setName(artifactFileName);
+            document.setArtifactType(BaseArtifactEnum.XSD_DOCUMENT);
+            return persistenceManager.persistArtifact(document, new ArtifactContent(artifactFileName, contentStream));
+        } finally {
+            IOUtils.closeQuietly(contentStream);
+        }
+    }
+
     @Test
     public void testArtifactComments() throws Exception {
         BaseArtifactType artifact = ArtifactType.ExtendedArtifactType("FooType").newArtifactInstance();
@@ -533,4 +706,34 @@ public class PersistenceTest extends AbstractNoAuditingPersistenceTest {
         Assert.assertNull(deleted);
     }
 
+    @Test
+    public void testSharedContent() throws Exception {
+        String artifactFileName = "s-ramp-press-release.pdf";
+        ArtifactType at = ArtifactType.Document();
+
+        // Add two artifacts with identical content
+        Document document1 = new Document();
+        document1.setName(artifactFileName);
+        document1.setArtifactType(BaseArtifactEnum.DOCUMENT);
+        InputStream pdf = this.getClass().getResourceAsStream("/sample-files/core/" + artifactFileName);
+        BaseArtifactType artifact1 = persistenceManager.persistArtifact(document1, new ArtifactContent(artifactFileName, pdf));
+        Document document2 = new Document();
+        document2.setName(artifactFileName);
+        document2.setArtifactType(BaseArtifactEnum.DOCUMENT);
+        pdf = this.getClass().getResourceAsStream("/sample-files/core/" + artifactFileName);
+        BaseArtifactType artifact2 = persistenceManager.persistArtifact(document2, new ArtifactContent(artifactFileName, pdf));
+        Assert.assertEquals(((DocumentArtifactType) artifact1).getContentHash(),
+                ((DocumentArtifactType) artifact2).getContentHash());
+
+        // Deleting one must not affect the other's content
+        persistenceManager.deleteArtifact(artifact1.getUuid(), at, false);
+        InputStream content = persistenceManager.getArtifactContent(artifact2.getUuid(), at);
+        try {
+            Assert.assertEquals(18873, IOUtils.toByteArray(content).length);
+        } finally {
+            IOUtils.closeQuietly(content);
+        }
+        persistenceManager.deleteArtifact(artifact2.getUuid(), at, false);
+    }
+
 }
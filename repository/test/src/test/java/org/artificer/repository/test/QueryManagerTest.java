@@ -18,17 +18,39 @@ package org.artificer.repository.test;
 import org.artificer.common.ArtifactContent;
 import org.artificer.common.ArtifactType;
 import org.artificer.common.ArtificerModelUtils;
+import org.artificer.common.error.ArtificerUserException;
 import org.artificer.common.query.ArtifactSummary;
+import org.artificer.common.query.CountMode;
+import org.artificer.repository.hibernate.HibernateUtil;
 import org.artificer.repository.query.ArtificerQuery;
+import org.artificer.repository.query.ArtificerQueryArgs;
+import org.artificer.repository.query.ContinuationToken;
 import org.artificer.repository.query.PagedResult;
+import org.artificer.repository.query.QueryPlanCache;
+import org.artificer.repository.query.QueryProfile;
+import org.artificer.repository.query.QueryStatistics;
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
 import org.junit.Assert;
 import org.junit.Test;
 import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactEnum;
 import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactType;
 import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.XmlDocument;
 
+import javax.management.MBeanServer;
+import javax.persistence.EntityManager;
+import javax.management.ObjectName;
 import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 
@@ -225,6 +247,9 @@ public class QueryManagerTest extends AbstractNoAuditingPersistenceTest {
         persistenceManager.updateArtifact(artifact3, ArtifactType.XmlDocument());
         persistenceManager.updateArtifact(artifact4, ArtifactType.valueOf(artifact4));
 
+        // content is extracted and indexed in the background
+        repositoryTestProvider.awaitIndexing();
+
         // full-text, using metadata
         ArtificerQuery query = queryManager.createQuery("/s-ramp[xp2:matches(., ?)]");
         query.setString("fizz");
@@ -280,9 +305,561 @@ public class QueryManagerTest extends AbstractNoAuditingPersistenceTest {
         Assert.assertEquals(1, artifactSet.getTotalSize());
     }
 
+    @Test
+    public void testFullTextReindex() throws Exception {
+        createXmlDocument("PO.xml", 1); // content contains "Lawn Mower"
+        createXmlDocument("PO2.xml", 2); // content contains "Leaf Blower"
+        repositoryTestProvider.awaitIndexing();
+
+        // rebuild the index, discarding (and re-extracting) all content text
+        persistenceManager.reindex(true);
+        repositoryTestProvider.awaitIndexing();
+
+        ArtificerQuery query = queryManager.createQuery("/s-ramp[xp2:matches(., ?)]");
+        query.setString("Lawn Mower");
+        PagedResult<ArtifactSummary> artifactSet = query.executeQuery();
+        Assert.assertEquals(1, artifactSet.getTotalSize());
+        query = queryManager.createQuery("/s-ramp[xp2:matches(., ?)]");
+        query.setString("Leaf Blower");
+        artifactSet = query.executeQuery();
+        Assert.assertEquals(1, artifactSet.getTotalSize());
+    }
+
+    @Test
+    public void testQueryProperties() throws Exception {
+        BaseArtifactType artifact1 = createXmlDocument("PO.xml", 1);
+        BaseArtifactType artifact2 = createXmlDocument("PO.xml", 2);
+        BaseArtifactType artifact3 = createXmlDocument("PO.xml", 3);
+
+        ArtificerModelUtils.setCustomProperty(artifact1, "maven.groupId", "org.example");
+        ArtificerModelUtils.setCustomProperty(artifact1, "maven.version", "1.0");
+        ArtificerModelUtils.setCustomProperty(artifact1, "maven.classifier", "sources");
+        ArtificerModelUtils.setCustomProperty(artifact2, "maven.groupId", "org.example");
+        ArtificerModelUtils.setCustomProperty(artifact2, "maven.version", "2.0");
+        ArtificerModelUtils.setCustomProperty(artifact3, "maven.groupId", "org.other");
+        ArtificerModelUtils.setCustomProperty(artifact3, "maven.version", "1.0");
+        persistenceManager.updateArtifact(artifact1, ArtifactType.XmlDocument());
+        persistenceManager.updateArtifact(artifact2, ArtifactType.XmlDocument());
+        persistenceManager.updateArtifact(artifact3, ArtifactType.XmlDocument());
+
+        Map<String, String> criteria = new HashMap<String, String>();
+        criteria.put("maven.groupId", "org.example");
+        List<ArtifactSummary> summaries = queryManager.queryProperties(criteria,
+                Arrays.asList("maven.version", "maven.classifier"), "name", true);
+        Assert.assertEquals(2, summaries.size());
+        Assert.assertEquals(artifact1.getUuid(), summaries.get(0).getUuid());
+        Assert.assertEquals("1.0", summaries.get(0).getProperty("maven.version"));
+        Assert.assertEquals("sources", summaries.get(0).getProperty("maven.classifier"));
+        Assert.assertNull(summaries.get(0).getProperty("maven.groupId"));
+        Assert.assertEquals(artifact2.getUuid(), summaries.get(1).getUuid());
+        Assert.assertEquals("2.0", summaries.get(1).getProperty("maven.version"));
+        Assert.assertNull(summaries.get(1).getProperty("maven.classifier"));
+
+        criteria.put("maven.version", "1.0");
+        summaries = queryManager.queryProperties(criteria, Collections.<String>emptyList(), "name", false);
+        Assert.assertEquals(1, summaries.size());
+        Assert.assertEquals(artifact1.getUuid(), summaries.get(0).getUuid());
+        Assert.assertEquals(artifact1.getName(), summaries.get(0).getName());
+
+        // trashed artifacts are excluded
+        persistenceManager.deleteArtifact(artifact1.getUuid(), ArtifactType.XmlDocument(), false);
+        summaries = queryManager.queryProperties(criteria, Collections.<String>emptyList(), "name", false);
+        Assert.assertEquals(0, summaries.size());
+    }
+
+    @Test
+    public void testQueryPropertyNames() throws Exception {
+        BaseArtifactType artifact1 = createXmlDocument("PO.xml", 1);
+        BaseArtifactType artifact2 = createXmlDocument("PO.xml", 2);
+        BaseArtifactType artifact3 = createXmlDocument("PO2.xml", 3);
+        ArtificerModelUtils.setCustomProperty(artifact1, "owner", "team-1");
+        ArtificerModelUtils.setCustomProperty(artifact1, "priority", "5");
+        ArtificerModelUtils.setCustomProperty(artifact1, "unrequested", "x");
+        ArtificerModelUtils.setCustomProperty(artifact2, "owner", "team-2");
+        persistenceManager.updateArtifact(artifact1, ArtifactType.XmlDocument());
+        persistenceManager.updateArtifact(artifact2, ArtifactType.XmlDocument());
+        repositoryTestProvider.awaitIndexing();
+
+        ArtificerQueryArgs args = new ArtificerQueryArgs("name", true, null, 0, 2);
+        args.setPropertyNames(Arrays.asList("owner", "priority"));
+        PagedResult<ArtifactSummary> page = queryManager.createQuery("/s-ramp/core/XmlDocument", args)
+                .executeQuery();
+        Assert.assertEquals(2, page.getResults().size());
+        Assert.assertEquals(artifact1.getUuid(), page.getResults().get(0).getUuid());
+        Assert.assertEquals("team-1", page.getResults().get(0).getProperty("owner"));
+        Assert.assertEquals("5", page.getResults().get(0).getProperty("priority"));
+        Assert.assertNull(page.getResults().get(0).getProperty("unrequested"));
+        Assert.assertEquals("team-2", page.getResults().get(1).getProperty("owner"));
+        Assert.assertNull(page.getResults().get(1).getProperty("priority"));
+
+        // full-text queries are projected as well
+        args = new ArtificerQueryArgs("name", true, null, 0, 10);
+        args.setPropertyNames(Collections.singletonList("owner"));
+        ArtificerQuery query = queryManager.createQuery("/s-ramp[xp2:matches(., ?)]", args);
+        query.setString("Lawn Mower");
+        page = query.executeQuery();
+        Assert.assertEquals(2, page.getResults().size());
+        Assert.assertEquals("team-1", page.getResults().get(0).getProperty("owner"));
+        Assert.assertEquals("team-2", page.getResults().get(1).getProperty("owner"));
+
+        // without property names, nothing is projected
+        page = queryManager.createQuery("/s-ramp/core/XmlDocument").executeQuery();
+        Assert.assertEquals(3, page.getResults().size());
+        Assert.assertNull(page.getResults().get(0).getProperties());
+    }
+
 	/**
 	 * @throws org.artificer.common.ArtificerException
 	 */
+    @Test
+    public void testKeysetPaging() throws Exception {
+        for (int i = 1; i <= 5; i++) {
+            createXmlDocument("PO.xml", i);
+        }
+
+        // By name (unique), and by version (the same for all, so entirely decided by the uuid tie-breaker)
+        for (String orderBy : Arrays.asList("name", "version")) {
+            for (boolean ascending : Arrays.asList(true, false)) {
+                ArtificerQuery query = queryManager.createQuery("/s-ramp/core/XmlDocument",
+                        new ArtificerQueryArgs(orderBy, ascending, null, 0, 5));
+                List<String> expected = new ArrayList<String>();
+                for (ArtifactSummary summary : query.executeQuery().getResults()) {
+                    expected.add(summary.getUuid());
+                }
+
+                List<String> actual = new ArrayList<String>();
+                ContinuationToken continuation = null;
+                int pages = 0;
+                do {
+                    query = queryManager.createQuery("/s-ramp/core/XmlDocument",
+                            new ArtificerQueryArgs(orderBy, ascending, null, null, 2, continuation, CountMode.NONE));
+                    PagedResult<ArtifactSummary> page = query.executeQuery();
+                    Assert.assertEquals(-1, page.getTotalSize());
+                    Assert.assertEquals(pages * 2, page.getStartIndex());
+                    for (ArtifactSummary summary : page.getResults()) {
+                        actual.add(summary.getUuid());
+                    }
+                    Assert.assertEquals(page.getResults().size() == 2 && actual.size() < 5, page.hasMore());
+                    continuation = page.getContinuation() == null ? null : ContinuationToken.decode(page.getContinuation());
+                    pages++;
+                } while (continuation != null);
+
+                Assert.assertEquals(3, pages);
+                Assert.assertEquals(expected, actual);
+            }
+        }
+
+        ArtificerQuery query = queryManager.createQuery("/s-ramp/core/XmlDocument",
+                new ArtificerQueryArgs("name", true, null, 0, 2, null, CountMode.ESTIMATE));
+        PagedResult<ArtifactSummary> page = query.executeQuery();
+        Assert.assertEquals(3, page.getTotalSize());
+        Assert.assertNotNull(page.getContinuation());
+
+        // A token can't be applied to a differently-ordered query
+        query = queryManager.createQuery("/s-ramp/core/XmlDocument",
+                new ArtificerQueryArgs("name", false, null, null, 2, ContinuationToken.decode(page.getContinuation()), null));
+        try {
+            query.executeQuery();
+            Assert.fail("Expected an ArtificerUserException");
+        } catch (ArtificerUserException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testKeysetPagingUnmappedOrderBy() throws Exception {
+        List<String> expected = new ArrayList<String>();
+        for (int i = 1; i <= 5; i++) {
+            expected.add(createXmlDocument("PO.xml", i).getUuid());
+        }
+        Collections.sort(expected);
+
+        // An order by that isn't supported falls back to the uuid, which the continuation seeks past.
+        for (boolean ascending : Arrays.asList(true, false)) {
+            List<String> actual = new ArrayList<String>();
+            ContinuationToken continuation = null;
+            do {
+                ArtificerQuery query = queryManager.createQuery("/s-ramp/core/XmlDocument",
+                        new ArtificerQueryArgs("bogus", ascending, null, null, 2, continuation, CountMode.NONE));
+                PagedResult<ArtifactSummary> page = query.executeQuery();
+                for (ArtifactSummary summary : page.getResults()) {
+                    actual.add(summary.getUuid());
+                }
+                Assert.assertEquals(page.hasMore(), page.getContinuation() != null);
+                continuation = page.getContinuation() == null ? null : ContinuationToken.decode(page.getContinuation());
+            } while (continuation != null);
+
+            List<String> sorted = new ArrayList<String>(expected);
+            if (!ascending) {
+                Collections.reverse(sorted);
+            }
+            Assert.assertEquals(sorted, actual);
+        }
+
+        // Results in relevance order can't be seeked past, so those are only offset paged.
+        repositoryTestProvider.awaitIndexing();
+        ArtificerQuery query = queryManager.createQuery("/s-ramp/core/XmlDocument[xp2:matches(., ?)]",
+                new ArtificerQueryArgs("bogus", true, null, 0, 2, null, CountMode.NONE));
+        query.setString("Lawn Mower");
+        PagedResult<ArtifactSummary> page = query.executeQuery();
+        Assert.assertTrue(page.hasMore());
+        Assert.assertNull(page.getContinuation());
+    }
+
+    @Test
+    public void testFullTextPaging() throws Exception {
+        for (int i = 1; i <= 5; i++) {
+            createXmlDocument("PO.xml", i); // content contains "Lawn Mower"
+        }
+        createXmlDocument("PO2.xml", 6); // content contains "Leaf Blower"
+        repositoryTestProvider.awaitIndexing();
+
+        // sorted and paged within Lucene
+        ArtificerQuery query = queryManager.createQuery("/s-ramp/core/XmlDocument[xp2:matches(., ?)]",
+                new ArtificerQueryArgs("name", true, null, 0, 2, null, CountMode.EXACT));
+        query.setString("Lawn Mower");
+        PagedResult<ArtifactSummary> page = query.executeQuery();
+        Assert.assertEquals(5, page.getTotalSize());
+        Assert.assertTrue(page.hasMore());
+        Assert.assertEquals(Arrays.asList("PO.xml-1", "PO.xml-2"), names(page));
+        query = queryManager.createQuery("/s-ramp/core/XmlDocument[xp2:matches(., ?)]",
+                new ArtificerQueryArgs("name", false, null, 4, 2, null, CountMode.EXACT));
+        query.setString("Lawn Mower");
+        page = query.executeQuery();
+        Assert.assertEquals(5, page.getTotalSize());
+        Assert.assertFalse(page.hasMore());
+        Assert.assertEquals(Arrays.asList("PO.xml-1"), names(page));
+
+        // a disjunction can't be pushed into Lucene, so the matches are intersected with the relational results
+        query = queryManager.createQuery("/s-ramp/core/XmlDocument[xp2:matches(., ?) and (@name = ? or @name = ?)]",
+                new ArtificerQueryArgs("name", false, null, 0, 1, null, CountMode.EXACT));
+        query.setString("Lawn Mower");
+        query.setString("PO.xml-2");
+        query.setString("PO2.xml-6");
+        page = query.executeQuery();
+        Assert.assertEquals(1, page.getTotalSize());
+        Assert.assertFalse(page.hasMore());
+        Assert.assertEquals(Arrays.asList("PO.xml-2"), names(page));
+
+        // continuations (keyset paging) also intersect
+        List<String> actual = new ArrayList<String>();
+        ContinuationToken continuation = null;
+        do {
+            query = queryManager.createQuery("/s-ramp/core/XmlDocument[xp2:matches(., ?)]",
+                    new ArtificerQueryArgs("name", true, null, null, 2, continuation, CountMode.NONE));
+            query.setString("Lawn Mower");
+            page = query.executeQuery();
+            actual.addAll(names(page));
+            continuation = page.getContinuation() == null ? null : ContinuationToken.decode(page.getContinuation());
+        } while (continuation != null);
+        Assert.assertEquals(Arrays.asList("PO.xml-1", "PO.xml-2", "PO.xml-3", "PO.xml-4", "PO.xml-5"), actual);
+    }
+
+    @Test
+    public void testTypedPropertyPredicates() throws Exception {
+        BaseArtifactType artifact1 = createXmlDocument("PO.xml", 1);
+        BaseArtifactType artifact2 = createXmlDocument("PO.xml", 2);
+        BaseArtifactType artifact3 = createXmlDocument("PO.xml", 3);
+        ArtificerModelUtils.setCustomProperty(artifact1, "size", "5");
+        ArtificerModelUtils.setCustomProperty(artifact1, "released", "2014-01-15");
+        ArtificerModelUtils.setCustomProperty(artifact2, "size", "10");
+        ArtificerModelUtils.setCustomProperty(artifact2, "released", "2014-06-01T12:00:00Z");
+        ArtificerModelUtils.setCustomProperty(artifact3, "size", "100.5");
+        ArtificerModelUtils.setCustomProperty(artifact3, "released", "unknown");
+        persistenceManager.updateArtifact(artifact1, ArtifactType.XmlDocument());
+        persistenceManager.updateArtifact(artifact2, ArtifactType.XmlDocument());
+        persistenceManager.updateArtifact(artifact3, ArtifactType.XmlDocument());
+
+        // numeric, not lexicographic
+        ArtificerQuery query = queryManager.createQuery("/s-ramp/core/XmlDocument[@size > ?]");
+        query.setNumber(7);
+        Assert.assertEquals(2, query.executeQuery().getTotalSize());
+        query = queryManager.createQuery("/s-ramp/core/XmlDocument[@size <= '10']");
+        Assert.assertEquals(2, query.executeQuery().getTotalSize());
+        query = queryManager.createQuery("/s-ramp/core/XmlDocument[@size = ?]");
+        query.setNumber(100.5);
+        Assert.assertEquals(1, query.executeQuery().getTotalSize());
+        query = queryManager.createQuery("/s-ramp/core/XmlDocument[@size != ?]");
+        query.setString("5");
+        Assert.assertEquals(2, query.executeQuery().getTotalSize());
+
+        // chronological
+        query = queryManager.createQuery("/s-ramp/core/XmlDocument[@released >= ?]");
+        query.setString("2014-02-01");
+        Assert.assertEquals(1, query.executeQuery().getTotalSize());
+
+        // multiple joined predicates, and the (negatable) subquery form
+        query = queryManager.createQuery("/s-ramp/core/XmlDocument[@size > ? and @released < ?]");
+        query.setNumber(1);
+        query.setString("2015-01-01");
+        Assert.assertEquals(2, query.executeQuery().getTotalSize());
+        query = queryManager.createQuery("/s-ramp/core/XmlDocument[xp2:not(@size > ?) or @released = ?]");
+        query.setNumber(7);
+        query.setString("unknown");
+        Assert.assertEquals(2, query.executeQuery().getTotalSize());
+    }
+
+    @Test
+    public void testQueryPlanCache() throws Exception {
+        BaseArtifactType artifact1 = createXmlDocument("PO.xml", 1);
+        createXmlDocument("PO.xml", 2);
+        ArtificerModelUtils.setCustomProperty(artifact1, "prop1", "it's quoted");
+        persistenceManager.updateArtifact(artifact1, ArtifactType.XmlDocument());
+
+        QueryPlanCache cache = QueryPlanCache.getInstance();
+        String template = "/s-ramp/core/XmlDocument[@name = ? and @prop1 = ?]";
+        long hits = cache.getHitCount();
+        for (int i = 0; i < 3; i++) {
+            ArtificerQuery query = queryManager.createQuery(template);
+            query.setString("PO.xml-1");
+            query.setString("it's quoted");
+            Assert.assertEquals(1, query.executeQuery().getTotalSize());
+        }
+        Assert.assertTrue(cache.get(template).isCompiled());
+        Assert.assertTrue(cache.getHitCount() - hits >= 2);
+
+        // the values are bound, not formatted into the xpath
+        ArtificerQuery query = queryManager.createQuery(template);
+        query.setString("PO.xml-1' or @name = 'PO.xml-2");
+        query.setString("it's quoted");
+        Assert.assertEquals(0, query.executeQuery().getTotalSize());
+
+        // param count mismatches are still caught
+        query = queryManager.createQuery(template);
+        query.setString("PO.xml-1");
+        try {
+            query.executeQuery();
+            Assert.fail("Expected an ArtificerUserException");
+        } catch (ArtificerUserException e) {
+            // expected
+        }
+
+        // a ? within a literal can't be bound, so the template is formatted per execution (as before)
+        Assert.assertFalse(cache.get("/s-ramp/core/XmlDocument[@name = 'PO?']").isCompiled());
+    }
+
+    @Test
+    public void testQueryStatistics() throws Exception {
+        createXmlDocument("PO.xml", 1);
+        createXmlDocument("PO.xml", 2);
+
+        QueryStatistics statistics = QueryStatistics.getInstance();
+        long slowQueryThreshold = statistics.getSlowQueryThreshold();
+        statistics.reset();
+        try {
+            // literals and bound params alike are reduced to the same shape
+            queryManager.createQuery("/s-ramp/core/XmlDocument[@name = 'PO.xml-1']").executeQuery();
+            queryManager.createQuery("/s-ramp/core/XmlDocument[@name = 'PO.xml-2']").executeQuery();
+            ArtificerQuery query = queryManager.createQuery("/s-ramp/core/XmlDocument[@name = ?]");
+            query.setString("PO.xml-1");
+            query.executeQuery();
+            String shape = "/s-ramp/core/XmlDocument[@name = ?]";
+            Assert.assertEquals(shape, QueryStatistics.shape("/s-ramp/core/XmlDocument[@name = 'PO.xml-1']"));
+            Assert.assertEquals(3, statistics.getQueryCount());
+            Assert.assertEquals(3, statistics.getHistogram(shape, QueryProfile.Phase.TOTAL).getCount());
+            Assert.assertEquals(3, statistics.getHistogram(shape, QueryProfile.Phase.PAGE).getCount());
+            Assert.assertEquals(3, statistics.getHistogram(shape, QueryProfile.Phase.CONVERSION).getCount());
+            Assert.assertTrue(statistics.getPercentile(shape, "total", 99)
+                    >= statistics.getPercentile(shape, "page", 50));
+
+            // everything is slow at 0, so the slow query log runs (with the captured SQL)
+            statistics.setSlowQueryThreshold(0);
+            queryManager.createQuery("/s-ramp/core/XmlDocument").executeQuery();
+            Assert.assertEquals(1, statistics.getSlowQueryCount());
+
+            try {
+                queryManager.createQuery("/s-ramp/core/XmlDocument[@name = ?]").executeQuery();
+                Assert.fail("Expected an ArtificerUserException");
+            } catch (ArtificerUserException e) {
+                // expected
+            }
+            Assert.assertEquals(1, statistics.getFailedQueryCount());
+        } finally {
+            statistics.setSlowQueryThreshold(slowQueryThreshold);
+        }
+
+        MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        Assert.assertEquals(5L, mbeanServer.getAttribute(new ObjectName("org.artificer:type=QueryStatistics"),
+                "QueryCount"));
+        Assert.assertNotNull(mbeanServer.getAttribute(new ObjectName("org.artificer:type=HibernateStatistics"),
+                "StatisticsEnabled"));
+    }
+
+    @Test
+    public void testSlowQueryLog() throws Exception {
+        createXmlDocument("PO.xml", 1);
+
+        final List<LoggingEvent> events = new ArrayList<LoggingEvent>();
+        AppenderSkeleton appender = new AppenderSkeleton() {
+            @Override
+            protected void append(LoggingEvent event) {
+                events.add(event);
+            }
+
+            @Override
+            public void close() {
+            }
+
+            @Override
+            public boolean requiresLayout() {
+                return false;
+            }
+        };
+        Logger logger = Logger.getLogger(QueryStatistics.class);
+        Level level = logger.getLevel();
+        QueryStatistics statistics = QueryStatistics.getInstance();
+        long slowQueryThreshold = statistics.getSlowQueryThreshold();
+        logger.addAppender(appender);
+        statistics.setSlowQueryThreshold(0);
+        try {
+            logger.setLevel(Level.WARN);
+            queryManager.createQuery("/s-ramp/core/XmlDocument[@name = 'PO.xml-1']").executeQuery();
+            ArtificerQuery query = queryManager.createQuery("/s-ramp/core/XmlDocument[@name = ?]");
+            query.setString("PO.xml-1");
+            query.executeQuery();
+
+            // Only the shape, without any of the values.
+            Assert.assertEquals(2, events.size());
+            for (LoggingEvent event : events) {
+                Assert.assertEquals(Level.WARN, event.getLevel());
+                String message = event.getRenderedMessage();
+                Assert.assertTrue(message, message.contains("/s-ramp/core/XmlDocument[@name = ?]"));
+                Assert.assertTrue(message, message.contains("CONVERSION="));
+                Assert.assertFalse(message, message.contains("PO.xml-1"));
+            }
+
+            // The values are at DEBUG.
+            events.clear();
+            logger.setLevel(Level.DEBUG);
+            query.executeQuery();
+            Assert.assertEquals(2, events.size());
+            Assert.assertEquals(Level.DEBUG, events.get(1).getLevel());
+            Assert.assertTrue(events.get(1).getRenderedMessage().contains("PO.xml-1"));
+        } finally {
+            statistics.setSlowQueryThreshold(slowQueryThreshold);
+            logger.setLevel(level);
+            logger.removeAppender(appender);
+        }
+    }
+
+    private List<String> names(PagedResult<ArtifactSummary> page) {
+        List<String> names = new ArrayList<String>();
+        for (ArtifactSummary summary : page.getResults()) {
+            names.add(summary.getName());
+        }
+        return names;
+    }
+
+    @Test
+    public void testTypedPropertyBackfill() throws Exception {
+        BaseArtifactType artifact1 = createXmlDocument("PO.xml", 1);
+        BaseArtifactType artifact2 = createXmlDocument("PO.xml", 2);
+        ArtificerModelUtils.setCustomProperty(artifact1, "size", "5");
+        ArtificerModelUtils.setCustomProperty(artifact1, "released", "2014-01-15");
+        ArtificerModelUtils.setCustomProperty(artifact2, "size", "100");
+        ArtificerModelUtils.setCustomProperty(artifact2, "released", "2014-06-01T12:00:00Z");
+        // starts like a number, but isn't one
+        ArtificerModelUtils.setCustomProperty(artifact2, "build", "1.0.3");
+        persistenceManager.updateArtifact(artifact1, ArtifactType.XmlDocument());
+        persistenceManager.updateArtifact(artifact2, ArtifactType.XmlDocument());
+
+        final String uuid = artifact1.getUuid();
+
+        // as if written before the typed columns existed (with enough properties for several batches)
+        new HibernateUtil.HibernateTask<Void>() {
+            @Override
+            protected Void doExecute(EntityManager entityManager) throws Exception {
+                Object ownerId = entityManager.createNativeQuery("SELECT id FROM Artifact WHERE uuid = ?")
+                        .setParameter(1, uuid).getSingleResult();
+                for (int i = 0; i < 2500; i++) {
+                    entityManager.createNativeQuery("INSERT INTO Property (custom, propertyKey, propertyValue, "
+                            + "owner_id) VALUES (true, ?, ?, ?)").setParameter(1, "count" + i)
+                            .setParameter(2, String.valueOf(i)).setParameter(3, ownerId).executeUpdate();
+                }
+                entityManager.createNativeQuery("UPDATE Property SET numericValue = NULL, timestampValue = NULL")
+                        .executeUpdate();
+                entityManager.createNativeQuery("DELETE FROM SchemaMigration").executeUpdate();
+                return null;
+            }
+        }.execute();
+        ArtificerQuery query = queryManager.createQuery("/s-ramp/core/XmlDocument[@size > ?]");
+        query.setNumber(7);
+        Assert.assertEquals(0, query.executeQuery().getTotalSize());
+
+        // the typed columns are backfilled on startup
+        HibernateUtil.shutdown();
+        HibernateUtil.startup();
+        query = queryManager.createQuery("/s-ramp/core/XmlDocument[@size > ?]");
+        query.setNumber(7);
+        Assert.assertEquals(1, query.executeQuery().getTotalSize());
+        query = queryManager.createQuery("/s-ramp/core/XmlDocument[@released >= ?]");
+        query.setString("2014-02-01");
+        Assert.assertEquals(1, query.executeQuery().getTotalSize());
+        query = queryManager.createQuery("/s-ramp/core/XmlDocument[@build = ?]");
+        query.setString("1.0.3");
+        Assert.assertEquals(1, query.executeQuery().getTotalSize());
+        query = queryManager.createQuery("/s-ramp/core/XmlDocument[@count2499 = ?]");
+        query.setNumber(2499);
+        Assert.assertEquals(1, query.executeQuery().getTotalSize());
+
+        // ... and only once
+        new HibernateUtil.HibernateTask<Void>() {
+            @Override
+            protected Void doExecute(EntityManager entityManager) throws Exception {
+                Assert.assertEquals(Collections.singletonList(HibernateUtil.TYPED_PROPERTY_VALUES_MIGRATION),
+                        entityManager.createNativeQuery("SELECT name FROM SchemaMigration").getResultList());
+                entityManager.createNativeQuery("UPDATE Property SET numericValue = NULL, timestampValue = NULL")
+                        .executeUpdate();
+                return null;
+            }
+        }.execute();
+        HibernateUtil.shutdown();
+        HibernateUtil.startup();
+        query = queryManager.createQuery("/s-ramp/core/XmlDocument[@size > ?]");
+        query.setNumber(7);
+        Assert.assertEquals(0, query.executeQuery().getTotalSize());
+    }
+
+    @Test
+    public void testBuiltinPropertyPredicates() throws Exception {
+        InputStream content = this.getClass().getResourceAsStream("/sample-files/xsd/XMLSchema.xsd");
+        BaseArtifactType xsd = ArtifactType.XsdDocument().newArtifactInstance();
+        xsd.setName("XMLSchema.xsd");
+        persistenceManager.persistArtifact(xsd, new ArtifactContent("XMLSchema.xsd", content));
+        BaseArtifactType artifact = createXmlDocument("PO.xml", 1);
+        ArtificerModelUtils.setCustomProperty(artifact, "namespace", "http://www.w3.org/2001/XMLSchema");
+        persistenceManager.updateArtifact(artifact, ArtifactType.XmlDocument());
+
+        // model attributes stored as (non-custom) properties still match, and custom properties of the same key too
+        ArtificerQuery query = queryManager.createQuery("/s-ramp/xsd/XsdDocument[@targetNamespace = ?]");
+        query.setString("http://www.w3.org/2001/XMLSchema");
+        Assert.assertEquals(1, query.executeQuery().getTotalSize());
+        query = queryManager.createQuery("/s-ramp/core/XmlDocument[@namespace = ?]");
+        query.setString("http://www.w3.org/2001/XMLSchema");
+        Assert.assertEquals(1, query.executeQuery().getTotalSize());
+    }
+
+    @Test
+    public void testQueryPropertyNamesCollidingWithBuiltin() throws Exception {
+        InputStream content = this.getClass().getResourceAsStream("/sample-files/xsd/XMLSchema.xsd");
+        BaseArtifactType xsd = ArtifactType.XsdDocument().newArtifactInstance();
+        xsd.setName("XMLSchema.xsd");
+        xsd = persistenceManager.persistArtifact(xsd, new ArtifactContent("XMLSchema.xsd", content));
+
+        // the XSD's targetNamespace is stored as a (non-custom) property, but is not a custom property
+        ArtificerQueryArgs args = new ArtificerQueryArgs();
+        args.setPropertyNames(Collections.singletonList("targetNamespace"));
+        PagedResult<ArtifactSummary> page = queryManager.createQuery("/s-ramp/xsd/XsdDocument", args).executeQuery();
+        Assert.assertEquals(1, page.getResults().size());
+        Assert.assertNull(page.getResults().get(0).getProperty("targetNamespace"));
+
+        ArtificerModelUtils.setCustomProperty(xsd, "targetNamespace", "urn:custom");
+        persistenceManager.updateArtifact(xsd, ArtifactType.XsdDocument());
+        page = queryManager.createQuery("/s-ramp/xsd/XsdDocument", args).executeQuery();
+        Assert.assertEquals(1, page.getResults().size());
+        Assert.assertEquals("urn:custom", page.getResults().get(0).getProperty("targetNamespace"));
+    }
+
 	private BaseArtifactType createXmlDocument(String artifactFileName, int idx) throws Exception {
 		InputStream content = this.getClass().getResourceAsStream("/sample-files/core/" + artifactFileName);
         XmlDocument document = (XmlDocument) ArtifactType.XmlDocument().newArtifactInstance();
@@ -157,6 +157,42 @@ public class RelationshipQueryTest extends AbstractNoAuditingPersistenceTest {
         Assert.assertEquals(0, artifactSet.getTotalSize());
     }
 
+    /**
+     * A full-text match applies to the artifacts it qualifies, not to the related artifacts being selected.
+     * @throws Exception
+     */
+    @Test
+    public void testFullTextRelationshipQueries() throws Exception {
+        XsdDocument xsdDoc = addXsdDoc();
+        WsdlDocument wsdlDoc1 = addWsdlDoc();
+        WsdlDocument wsdlDoc2 = addWsdlDoc();
+
+        xsdDoc.setDescription("quarterly");
+        ArtificerModelUtils.addGenericRelationship(xsdDoc, "importedBy", wsdlDoc1.getUuid());
+        ArtificerModelUtils.addGenericRelationship(xsdDoc, "importedBy", wsdlDoc2.getUuid());
+        persistenceManager.updateArtifact(xsdDoc, ArtifactType.XsdDocument());
+        repositoryTestProvider.awaitIndexing();
+
+        ArtificerQuery query = queryManager.createQuery("/s-ramp/xsd/XsdDocument[xp2:matches(., ?)]/importedBy");
+        query.setString("quarterly");
+        PagedResult<ArtifactSummary> artifactSet = query.executeQuery();
+        Assert.assertEquals(2, artifactSet.getTotalSize());
+        for (ArtifactSummary summary : artifactSet.getResults()) {
+            Assert.assertEquals("WsdlDocument", summary.getType());
+        }
+
+        query = queryManager.createQuery("/s-ramp/xsd/XsdDocument[xp2:matches(., ?) and @name = ?]/importedBy");
+        query.setString("quarterly");
+        query.setString(xsdDoc.getName());
+        artifactSet = query.executeQuery();
+        Assert.assertEquals(2, artifactSet.getTotalSize());
+
+        query = queryManager.createQuery("/s-ramp/xsd/XsdDocument[xp2:matches(., ?)]/importedBy");
+        query.setString("annually");
+        artifactSet = query.executeQuery();
+        Assert.assertEquals(0, artifactSet.getTotalSize());
+    }
+
     @Test
     public void testGenericRelationshipAttributeQueries() throws Exception {
         XsdDocument xsdDoc = addXsdDoc();
@@ -23,4 +23,9 @@ public interface RepositoryTestProvider {
     public void before() throws Exception;
 
     public void after() throws Exception;
+
+    /**
+     * Blocks until any background (ex: full-text) indexing has caught up.
+     */
+    public void awaitIndexing() throws Exception;
 }
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.repository.test.hibernate;
+
+import org.artificer.common.ArtificerConstants;
+import org.artificer.repository.hibernate.CacheRegions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests the translation of the 'artificer.config.cache.*' settings by {@link CacheRegions#configure(Map)}.
+ *
+ * @author Brett Meyer
+ */
+public class CacheRegionsTest {
+
+    private static final String INFINISPAN_REGION_FACTORY = "org.hibernate.cache.infinispan.InfinispanRegionFactory";
+
+    private static final String[] SETTINGS = {
+            ArtificerConstants.ARTIFICER_CONFIG_CACHE_ENABLED,
+            ArtificerConstants.ARTIFICER_CONFIG_CACHE_STATISTICS,
+            ArtificerConstants.ARTIFICER_CONFIG_CACHE_PREFIX + "artifacts.max-entries",
+            ArtificerConstants.ARTIFICER_CONFIG_CACHE_PREFIX + "artifacts.ttl",
+            ArtificerConstants.ARTIFICER_CONFIG_CACHE_PREFIX + "relationships.max-entries",
+            ArtificerConstants.ARTIFICER_CONFIG_CACHE_PREFIX + "query.ttl"};
+
+    private final Map<String, String> previous = new HashMap<>();
+
+    @Before
+    public void saveSettings() {
+        for (String setting : SETTINGS) {
+            previous.put(setting, System.getProperty(setting));
+            System.clearProperty(setting);
+        }
+    }
+
+    @After
+    public void restoreSettings() {
+        for (String setting : SETTINGS) {
+            if (previous.get(setting) == null) {
+                System.clearProperty(setting);
+            } else {
+                System.setProperty(setting, previous.get(setting));
+            }
+        }
+    }
+
+    @Test
+    public void testDisabled() {
+        System.setProperty(ArtificerConstants.ARTIFICER_CONFIG_CACHE_ENABLED, "false");
+        System.setProperty(ArtificerConstants.ARTIFICER_CONFIG_CACHE_PREFIX + "artifacts.max-entries", "100");
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("hibernate.cache.use_query_cache", "true");
+        CacheRegions.configure(properties);
+
+        assertEquals("false", properties.get("hibernate.cache.use_second_level_cache"));
+        assertEquals("false", properties.get("hibernate.cache.use_query_cache"));
+        assertEquals(2, properties.size());
+    }
+
+    @Test
+    public void testRegionLimits() {
+        System.setProperty(ArtificerConstants.ARTIFICER_CONFIG_CACHE_STATISTICS, "true");
+        System.setProperty(ArtificerConstants.ARTIFICER_CONFIG_CACHE_PREFIX + "artifacts.max-entries", "5000");
+        System.setProperty(ArtificerConstants.ARTIFICER_CONFIG_CACHE_PREFIX + "artifacts.ttl", "60000");
+        System.setProperty(ArtificerConstants.ARTIFICER_CONFIG_CACHE_PREFIX + "relationships.max-entries", "20000");
+        System.setProperty(ArtificerConstants.ARTIFICER_CONFIG_CACHE_PREFIX + "query.ttl", "30000");
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("hibernate.cache.region.factory_class", INFINISPAN_REGION_FACTORY);
+        // Explicit Hibernate properties win.
+        properties.put("hibernate.cache.infinispan.artificer.relationships.eviction.max_entries", "10");
+        CacheRegions.configure(properties);
+
+        assertEquals(INFINISPAN_REGION_FACTORY, properties.get("hibernate.cache.region.factory_class"));
+        assertEquals("true", properties.get("hibernate.cache.use_second_level_cache"));
+        assertEquals("true", properties.get("hibernate.cache.use_query_cache"));
+        assertEquals("true", properties.get("hibernate.generate_statistics"));
+
+        assertEquals("LRU", properties.get("hibernate.cache.infinispan." + CacheRegions.ARTIFACTS
+                + ".eviction.strategy"));
+        assertEquals("5000", properties.get("hibernate.cache.infinispan." + CacheRegions.ARTIFACTS
+                + ".eviction.max_entries"));
+        assertEquals("60000", properties.get("hibernate.cache.infinispan." + CacheRegions.ARTIFACTS
+                + ".expiration.lifespan"));
+        assertEquals("LRU", properties.get("hibernate.cache.infinispan." + CacheRegions.RELATIONSHIPS
+                + ".eviction.strategy"));
+        assertEquals("10", properties.get("hibernate.cache.infinispan." + CacheRegions.RELATIONSHIPS
+                + ".eviction.max_entries"));
+        assertNull(properties.get("hibernate.cache.infinispan." + CacheRegions.RELATIONSHIPS
+                + ".expiration.lifespan"));
+        assertEquals("30000", properties.get("hibernate.cache.infinispan.query.expiration.lifespan"));
+        assertNull(properties.get("hibernate.cache.infinispan.query.eviction.max_entries"));
+
+        // Unconfigured regions are left to the cache's defaults.
+        for (String region : new String[] {CacheRegions.COMMENTS, CacheRegions.STORED_QUERIES, CacheRegions.AUDIT}) {
+            assertNull(properties.get("hibernate.cache.infinispan." + region + ".eviction.max_entries"));
+            assertNull(properties.get("hibernate.cache.infinispan." + region + ".expiration.lifespan"));
+        }
+        assertEquals(10, properties.size());
+    }
+
+    @Test
+    public void testOtherRegionFactory() {
+        System.setProperty(ArtificerConstants.ARTIFICER_CONFIG_CACHE_PREFIX + "artifacts.max-entries", "5000");
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("hibernate.cache.region.factory_class", "org.hibernate.cache.ehcache.EhCacheRegionFactory");
+        CacheRegions.configure(properties);
+
+        // Region limits only apply to Infinispan.
+        assertEquals("true", properties.get("hibernate.cache.use_second_level_cache"));
+        assertEquals("true", properties.get("hibernate.cache.use_query_cache"));
+        assertFalse(properties.containsKey("hibernate.generate_statistics"));
+        assertEquals(3, properties.size());
+    }
+}
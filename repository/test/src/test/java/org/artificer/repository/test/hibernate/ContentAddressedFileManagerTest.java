@@ -0,0 +1,211 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.repository.test.hibernate;
+
+import org.apache.commons.io.FileUtils;
+import org.artificer.common.ArtifactContent;
+import org.artificer.common.ArtifactType;
+import org.artificer.common.ArtificerException;
+import org.artificer.repository.hibernate.HibernateUtil;
+import org.artificer.repository.hibernate.entity.ArtificerDocumentArtifact;
+import org.artificer.repository.hibernate.file.ContentAddressedFileManager;
+import org.artificer.repository.test.AbstractNoAuditingPersistenceTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactEnum;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactType;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.Document;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Content is only ever unlinked once nothing references it, ex: after a rolled-back upload.
+ *
+ * @author Brett Meyer
+ */
+public class ContentAddressedFileManagerTest extends AbstractNoAuditingPersistenceTest {
+
+    private File root;
+
+    private ContentAddressedFileManager fileManager;
+
+    @Before
+    public void createFileManager() throws Exception {
+        root = new File("target/test/artificer-cas-unlink");
+        FileUtils.deleteDirectory(root);
+        fileManager = new ContentAddressedFileManager(root.getPath());
+    }
+
+    @After
+    public void deleteFiles() throws Exception {
+        FileUtils.deleteDirectory(root);
+    }
+
+    @Test
+    public void testRolledBackWriteIsUnlinked() throws Exception {
+        ArtifactContent content = content("rolled back");
+        writeAndRollBack(content);
+        assertFalse(file(content).exists());
+    }
+
+    @Test
+    public void testRolledBackWriteKeepsReferencedContent() throws Exception {
+        // also held by an artifact (trashed, even)
+        Document document = new Document();
+        document.setName("referenced.txt");
+        document.setArtifactType(BaseArtifactEnum.DOCUMENT);
+        BaseArtifactType artifact = persistenceManager.persistArtifact(document, content("referenced"));
+        persistenceManager.deleteArtifact(artifact.getUuid(), ArtifactType.Document(), false);
+
+        ArtifactContent content = content("referenced");
+        writeAndRollBack(content);
+        assertTrue(file(content).exists());
+    }
+
+    @Test
+    public void testRolledBackWriteKeepsConcurrentlyWrittenContent() throws Exception {
+        final ArtifactContent concurrentContent = content("concurrent");
+        final CountDownLatch written = new CountDownLatch(1);
+        final CountDownLatch commit = new CountDownLatch(1);
+        Thread concurrentUpload = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    new HibernateUtil.HibernateTask<Void>() {
+                        @Override
+                        protected Void doExecute(EntityManager entityManager) throws Exception {
+                            fileManager.write(new ArtificerDocumentArtifact(), concurrentContent, entityManager);
+                            written.countDown();
+                            commit.await();
+                            return null;
+                        }
+                    }.execute();
+                } catch (ArtificerException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        concurrentUpload.start();
+        assertTrue(written.await(30, TimeUnit.SECONDS));
+
+        ArtifactContent content = content("concurrent");
+        writeAndRollBack(content);
+        assertTrue(file(content).exists());
+        commit.countDown();
+        concurrentUpload.join();
+        assertTrue(file(content).exists());
+    }
+
+    @Test
+    public void testReferenceCountDoesNotBlockOtherUploads() throws Exception {
+        final CountDownLatch counting = new CountDownLatch(1);
+        final CountDownLatch counted = new CountDownLatch(1);
+        final AtomicBoolean countFinished = new AtomicBoolean();
+        fileManager = new ContentAddressedFileManager(root.getPath()) {
+            @Override
+            protected long countReferences(String hash) throws Exception {
+                counting.countDown();
+                counted.await(30, TimeUnit.SECONDS);
+                countFinished.set(true);
+                return super.countReferences(hash);
+            }
+        };
+        final ArtifactContent rolledBack = content("counting");
+        Thread rollback = new Thread() {
+            @Override
+            public void run() {
+                writeAndRollBack(rolledBack);
+            }
+        };
+        rollback.start();
+        assertTrue(counting.await(30, TimeUnit.SECONDS));
+
+        // Other content is uploaded while the rolled back content's references are still being counted.
+        final ArtifactContent content = content("uploaded");
+        new HibernateUtil.HibernateTask<Void>() {
+            @Override
+            protected Void doExecute(EntityManager entityManager) throws Exception {
+                fileManager.write(new ArtificerDocumentArtifact(), content, entityManager);
+                return null;
+            }
+        }.execute();
+        assertFalse(countFinished.get());
+
+        counted.countDown();
+        rollback.join();
+        assertTrue(file(content).exists());
+        assertFalse(file(rolledBack).exists());
+    }
+
+    @Test
+    public void testTrashRetainsContent() throws Exception {
+        final ArtifactContent content = content("trashed");
+        final ArtificerDocumentArtifact artifact = new HibernateUtil.HibernateTask<ArtificerDocumentArtifact>() {
+            @Override
+            protected ArtificerDocumentArtifact doExecute(EntityManager entityManager) throws Exception {
+                ArtificerDocumentArtifact artifact = new ArtificerDocumentArtifact();
+                fileManager.write(artifact, content, entityManager);
+                artifact.setContentHash(content.getSha1Hash());
+                return artifact;
+            }
+        }.execute();
+        new HibernateUtil.HibernateTask<Void>() {
+            @Override
+            protected Void doExecute(EntityManager entityManager) throws Exception {
+                artifact.setTrashed(true);
+                fileManager.delete(artifact, entityManager);
+                return null;
+            }
+        }.execute();
+        assertEquals("trashed", FileUtils.readFileToString(file(content)));
+    }
+
+    private void writeAndRollBack(final ArtifactContent content) {
+        try {
+            new HibernateUtil.HibernateTask<Void>() {
+                @Override
+                protected Void doExecute(EntityManager entityManager) throws Exception {
+                    fileManager.write(new ArtificerDocumentArtifact(), content, entityManager);
+                    assertTrue(file(content).exists());
+                    throw new IllegalStateException("roll back");
+                }
+            }.execute();
+            fail("expected a rollback");
+        } catch (ArtificerException e) {
+            // expected
+        }
+    }
+
+    private ArtifactContent content(String text) throws Exception {
+        return new ArtifactContent(text + ".txt", new ByteArrayInputStream(text.getBytes("UTF-8")));
+    }
+
+    private File file(ArtifactContent content) {
+        String hash = content.getSha1Hash();
+        return new File(root, hash.substring(0, 2) + File.separator + hash.substring(2, 4) + File.separator + hash);
+    }
+}
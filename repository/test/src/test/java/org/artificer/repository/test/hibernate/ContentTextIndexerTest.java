@@ -0,0 +1,145 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.repository.test.hibernate;
+
+import org.artificer.common.ArtifactContent;
+import org.artificer.common.ArtificerConstants;
+import org.artificer.common.ArtificerException;
+import org.artificer.common.query.ArtifactSummary;
+import org.artificer.repository.hibernate.HibernateUtil;
+import org.artificer.repository.hibernate.entity.ArtificerArtifact;
+import org.artificer.repository.hibernate.entity.ArtificerContentText;
+import org.artificer.repository.hibernate.query.ContentTextIndexer;
+import org.artificer.repository.query.ArtificerQuery;
+import org.artificer.repository.query.PagedResult;
+import org.artificer.repository.test.AbstractNoAuditingPersistenceTest;
+import org.junit.Test;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactEnum;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactType;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.Document;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Brett Meyer
+ */
+public class ContentTextIndexerTest extends AbstractNoAuditingPersistenceTest {
+
+    private static final String UNREADABLE_HASH = "0000000000000000000000000000000000000000";
+
+    @Test(timeout = 60000)
+    public void testFailedContentBacksOff() throws Exception {
+        final BaseArtifactType artifact = persistenceManager.persistArtifact(document("unreadable.txt"),
+                content("unreadable"));
+        repositoryTestProvider.awaitIndexing();
+
+        // Point the document at content that no file manager can read, leaving it pending.
+        new HibernateUtil.HibernateTask<Void>() {
+            @Override
+            protected Void doExecute(EntityManager entityManager) throws Exception {
+                ArtificerArtifact entity = (ArtificerArtifact) entityManager.createQuery(
+                        "SELECT a FROM ArtificerArtifact a WHERE a.uuid = :uuid")
+                        .setParameter("uuid", artifact.getUuid()).getSingleResult();
+                entity.setContentHash(UNREADABLE_HASH);
+                entity.setContent(null);
+                if (entity.getContentPath() != null) {
+                    new File(entity.getContentPath()).delete();
+                }
+                return null;
+            }
+        }.execute();
+
+        ContentTextIndexer indexer = ContentTextIndexer.getInstance();
+        long failed = indexer.getFailedCount();
+        indexer.start(false);
+        repositoryTestProvider.awaitIndexing();
+        assertEquals(failed + 1, indexer.getFailedCount());
+
+        // Backing off, so further passes leave it alone.
+        for (int i = 0; i < 3; i++) {
+            indexer.start(false);
+            repositoryTestProvider.awaitIndexing();
+        }
+        assertEquals(failed + 1, indexer.getFailedCount());
+    }
+
+    @Test(timeout = 60000)
+    public void testInlineExtractionRacingAnotherInsert() throws Exception {
+        final ArtifactContent content = content("racing");
+        final CountDownLatch inserted = new CountDownLatch(1);
+        final CountDownLatch commit = new CountDownLatch(1);
+        Thread concurrentInsert = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    new HibernateUtil.HibernateTask<Void>() {
+                        @Override
+                        protected Void doExecute(EntityManager entityManager) throws Exception {
+                            ArtificerContentText contentText = new ArtificerContentText();
+                            contentText.setContentHash(content.getSha1Hash());
+                            contentText.setText("racing");
+                            entityManager.persist(contentText);
+                            entityManager.flush();
+                            inserted.countDown();
+                            commit.await();
+                            return null;
+                        }
+                    }.execute();
+                } catch (ArtificerException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        concurrentInsert.start();
+        assertTrue(inserted.await(30, TimeUnit.SECONDS));
+
+        System.setProperty(ArtificerConstants.ARTIFICER_CONFIG_FULLTEXT_ASYNC, "false");
+        try {
+            // The collision must not fail the upload itself.
+            BaseArtifactType artifact = persistenceManager.persistArtifact(document("racing.txt"), content);
+            assertNotNull(artifact.getUuid());
+        } finally {
+            System.clearProperty(ArtificerConstants.ARTIFICER_CONFIG_FULLTEXT_ASYNC);
+            commit.countDown();
+            concurrentInsert.join();
+        }
+
+        repositoryTestProvider.awaitIndexing();
+        ArtificerQuery query = queryManager.createQuery("/s-ramp[xp2:matches(., ?)]");
+        query.setString("racing");
+        PagedResult<ArtifactSummary> result = query.executeQuery();
+        assertEquals(1, result.getTotalSize());
+    }
+
+    private Document document(String name) {
+        Document document = new Document();
+        document.setName(name);
+        document.setArtifactType(BaseArtifactEnum.DOCUMENT);
+        return document;
+    }
+
+    private ArtifactContent content(String text) throws Exception {
+        return new ArtifactContent(text + ".txt", new ByteArrayInputStream(text.getBytes("UTF-8")));
+    }
+}
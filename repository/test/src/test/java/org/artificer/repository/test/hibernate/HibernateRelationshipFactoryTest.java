@@ -0,0 +1,119 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.repository.test.hibernate;
+
+import org.artificer.common.ArtifactType;
+import org.artificer.common.error.ArtificerNotFoundException;
+import org.artificer.repository.hibernate.HibernateRelationshipFactory;
+import org.artificer.repository.hibernate.HibernateUtil;
+import org.artificer.repository.hibernate.entity.ArtificerArtifact;
+import org.artificer.repository.test.AbstractNoAuditingPersistenceTest;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Test;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactType;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Brett Meyer
+ */
+public class HibernateRelationshipFactoryTest extends AbstractNoAuditingPersistenceTest {
+
+    private static final String MISSING_UUID = "00000000-0000-0000-0000-000000000000";
+
+    @Test
+    public void testBulkResolve() throws Exception {
+        final List<String> uuids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            uuids.add(persistArtifact("Target" + i));
+        }
+        // Trashed targets can't be related to, either.
+        final String trashedUuid = persistArtifact("Trashed");
+        persistenceManager.deleteArtifact(trashedUuid, ArtifactType.ExtendedArtifactType("FooType"), false);
+
+        final SessionFactory sessionFactory = HibernateUtil.startup().unwrap(SessionFactory.class);
+        final Statistics statistics = sessionFactory.getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        new HibernateUtil.HibernateTask<Void>() {
+            @Override
+            protected Void doExecute(EntityManager entityManager) throws Exception {
+                long oneTarget = countResolveStatements(uuids.subList(0, 1), entityManager, sessionFactory);
+                long allTargets = countResolveStatements(uuids, entityManager, sessionFactory);
+                assertTrue(oneTarget > 0);
+                assertEquals(oneTarget, allTargets);
+
+                HibernateRelationshipFactory factory = new HibernateRelationshipFactory();
+                List<String> targets = new ArrayList<>(uuids);
+                targets.addAll(Arrays.asList(MISSING_UUID, trashedUuid, uuids.get(0)));
+                factory.resolve(targets, entityManager);
+
+                // Everything is now served from memory, including the targets known to be missing.
+                statistics.clear();
+                for (String uuid : uuids) {
+                    ArtificerArtifact entity = factory.createRelationship(uuid, entityManager);
+                    assertEquals(uuid, entity.getUuid());
+                }
+                assertNotFound(factory, MISSING_UUID, entityManager);
+                assertNotFound(factory, trashedUuid, entityManager);
+                factory.resolve(targets, entityManager);
+                assertEquals(0, statistics.getPrepareStatementCount());
+
+                // A missing target that's stored later in the batch is picked up.
+                ArtificerArtifact tracked = new ArtificerArtifact();
+                tracked.setUuid(MISSING_UUID);
+                factory.trackEntity(MISSING_UUID, tracked);
+                assertEquals(tracked, factory.createRelationship(MISSING_UUID, entityManager));
+                return null;
+            }
+        }.execute();
+    }
+
+    private String persistArtifact(String name) throws Exception {
+        BaseArtifactType artifact = ArtifactType.ExtendedArtifactType("FooType").newArtifactInstance();
+        artifact.setName(name);
+        return persistenceManager.persistArtifact(artifact, null).getUuid();
+    }
+
+    private long countResolveStatements(List<String> uuids, EntityManager entityManager,
+            SessionFactory sessionFactory) throws Exception {
+        entityManager.clear();
+        sessionFactory.getCache().evictEntityRegions();
+        sessionFactory.getCache().evictCollectionRegions();
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+        new HibernateRelationshipFactory().resolve(uuids, entityManager);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void assertNotFound(HibernateRelationshipFactory factory, String uuid, EntityManager entityManager)
+            throws Exception {
+        try {
+            factory.createRelationship(uuid, entityManager);
+            fail("Expected ArtificerNotFoundException for " + uuid);
+        } catch (ArtificerNotFoundException e) {
+            // expected
+        }
+    }
+}
@@ -17,9 +17,12 @@ package org.artificer.repository.test.hibernate;
 
 import org.artificer.repository.filter.ServletCredentialsFilter;
 import org.artificer.repository.hibernate.HibernateUtil;
+import org.artificer.repository.hibernate.OntologyCache;
 import org.artificer.repository.hibernate.entity.ArtificerArtifact;
+import org.artificer.repository.hibernate.entity.ArtificerContentText;
 import org.artificer.repository.hibernate.entity.ArtificerProperty;
 import org.artificer.repository.hibernate.file.FileManagerFactory;
+import org.artificer.repository.hibernate.query.ContentTextIndexer;
 import org.artificer.repository.test.RepositoryTestProvider;
 import org.hibernate.Session;
 import org.hibernate.search.jpa.FullTextEntityManager;
@@ -66,6 +69,9 @@ public class HibernateRepositoryTestProvider implements RepositoryTestProvider {
 
     @Override
     public void after() throws Exception {
+        // Don't let a straggling extraction race the truncation.
+        awaitIndexing();
+
 		new HibernateUtil.HibernateTask<Void>() {
 			@Override
 			protected Void doExecute(EntityManager entityManager) throws Exception {
@@ -83,16 +89,25 @@ public class HibernateRepositoryTestProvider implements RepositoryTestProvider {
 				entityManager.unwrap(Session.class).getSessionFactory().getCache().evictCollectionRegions();
 				entityManager.unwrap(Session.class).getSessionFactory().getCache().evictEntityRegions();
 				entityManager.unwrap(Session.class).getSessionFactory().getCache().evictQueryRegions();
+				OntologyCache.getInstance().invalidate();
 
 				// purge Hibernate Search
 				FullTextEntityManager fullTextEntityManager
 						= org.hibernate.search.jpa.Search.getFullTextEntityManager(entityManager);
 				fullTextEntityManager.purgeAll(ArtificerProperty.class);
 				fullTextEntityManager.purgeAll(ArtificerArtifact.class);
+				fullTextEntityManager.purgeAll(ArtificerContentText.class);
 				fullTextEntityManager.getSearchFactory().optimize();
 
 				return null;
 			}
 		}.execute();
     }
+
+    @Override
+    public void awaitIndexing() throws Exception {
+        if (!ContentTextIndexer.getInstance().awaitIdle(30000)) {
+            throw new IllegalStateException("Timed out waiting for full-text indexing");
+        }
+    }
 }
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.repository.test.hibernate;
+
+import org.artificer.common.ArtifactType;
+import org.artificer.repository.hibernate.HibernateUtil;
+import org.artificer.repository.test.AbstractNoAuditingPersistenceTest;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactType;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Runs against a read replica that is a snapshot of the primary, taken right after startup, and never updated (ie,
+ * one that lags indefinitely).  Reads may see the stale replica, but the lookups within write flows must not.
+ *
+ * @author Brett Meyer
+ */
+public class ReplicaRoutingTest extends AbstractNoAuditingPersistenceTest {
+
+    private static final String REPLICA_URL = "jdbc:h2:mem:dbHibernateReplica;DB_CLOSE_DELAY=-1;MVCC=true";
+
+    @Before
+    public void startReplica() throws Exception {
+        System.setProperty("hibernate.connection.replica.url", REPLICA_URL);
+        HibernateUtil.shutdown();
+        HibernateUtil.startup();
+
+        File script = File.createTempFile("artificer-replica", ".sql");
+        try {
+            try (Connection primary = DriverManager.getConnection(
+                    System.getProperty("hibernate.connection.url"), "sa", "");
+                 Statement statement = primary.createStatement()) {
+                statement.execute("SCRIPT TO '" + script.getAbsolutePath() + "'");
+            }
+            try (Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "");
+                 Statement statement = replica.createStatement()) {
+                statement.execute("DROP ALL OBJECTS");
+                statement.execute("RUNSCRIPT FROM '" + script.getAbsolutePath() + "'");
+            }
+        } finally {
+            script.delete();
+        }
+    }
+
+    @After
+    public void stopReplica() throws Exception {
+        System.clearProperty("hibernate.connection.replica.url");
+        // The remaining cleanup (and tests) use the primary alone.
+        HibernateUtil.shutdown();
+    }
+
+    @Test
+    public void testReadYourWrites() throws Exception {
+        BaseArtifactType artifact = addExtendedArtifact("ReplicaArtifactType", "replica-test");
+        ArtifactType artifactType = ArtifactType.valueOf(artifact);
+
+        // Plain reads go to the replica, which hasn't caught up (once the shared caches no longer hold the artifact)...
+        evictCaches();
+        assertNull(persistenceManager.getArtifact(artifact.getUuid(), artifactType));
+        // ...but the lookups of create/update/delete flows always see the primary.
+        BaseArtifactType current = persistenceManager.getArtifactForUpdate(artifact.getUuid(), artifactType);
+        assertNotNull(current);
+
+        current.setDescription("updated");
+        persistenceManager.updateArtifact(current, artifactType);
+        assertEquals("updated",
+                persistenceManager.getArtifactForUpdate(artifact.getUuid(), artifactType).getDescription());
+        evictCaches();
+        assertNull(persistenceManager.getArtifact(artifact.getUuid(), artifactType));
+    }
+
+    @Test
+    public void testFailedStartupClosesPools() throws Exception {
+        MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName primaryPool = new ObjectName("com.zaxxer.hikari:type=Pool (artificer)");
+        assertTrue(mbeanServer.isRegistered(primaryPool));
+
+        // The primary's pool is built, but the replica's can't be.
+        HibernateUtil.shutdown();
+        System.setProperty("hibernate.connection.replica.url", "jdbc:h2:tcp://localhost:1/nowhere");
+        try {
+            HibernateUtil.startup();
+            fail("expected the startup to fail");
+        } catch (Exception e) {
+            // expected
+        }
+        assertFalse(mbeanServer.isRegistered(primaryPool));
+
+        // The next attempt starts cleanly.
+        System.setProperty("hibernate.connection.replica.url", REPLICA_URL);
+        HibernateUtil.startup();
+        assertTrue(mbeanServer.isRegistered(primaryPool));
+    }
+
+    private void evictCaches() throws Exception {
+        Cache cache = HibernateUtil.startup().unwrap(SessionFactory.class).getCache();
+        cache.evictEntityRegions();
+        cache.evictCollectionRegions();
+        cache.evictQueryRegions();
+        cache.evictDefaultQueryRegion();
+    }
+}
@@ -17,8 +17,10 @@ package org.artificer.server.core.api;
 
 import org.artificer.common.ArtifactType;
 import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactType;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.DocumentArtifactType;
 
 import java.io.InputStream;
+import java.util.List;
 
 /**
  * A service contract for interacting with artifacts.  Used as the logic/actions behind the Atom REST services, in
@@ -119,12 +121,32 @@ public interface ArtifactService extends AbstractService {
 
     public BaseArtifactType getMetaData(ArtifactType artifactType, String uuid) throws Exception;
 
+    /**
+     * Get the full meta-data of many artifacts at once.  Far cheaper than one getMetaData call per artifact.
+     *
+     * @param uuids
+     * @return List<BaseArtifactType> the artifacts, in the order of the given UUIDs (any not found are skipped)
+     * @throws Exception
+     */
+    public List<BaseArtifactType> getMetaData(List<String> uuids) throws Exception;
+
     public InputStream getContent(String model, String type, String uuid) throws Exception;
 
     public InputStream getContent(ArtifactType artifactType, String uuid) throws Exception;
 
     public InputStream getContent(ArtifactType artifactType, BaseArtifactType artifact) throws Exception;
 
+    /**
+     * Checks that the artifact has content, without opening it, and sets the given type's mime type to that of the
+     * content (same as {@link #getContent(ArtifactType, BaseArtifactType)}).
+     *
+     * @param artifactType
+     * @param artifact
+     * @return the artifact, as a document (with its contentHash, contentSize, etc.)
+     * @throws Exception
+     */
+    public DocumentArtifactType checkContent(ArtifactType artifactType, BaseArtifactType artifact) throws Exception;
+
     public byte[] getContentBytes(String model, String type, String uuid) throws Exception;
 
     public byte[] getContentBytes(ArtifactType artifactType, String uuid) throws Exception;
@@ -15,9 +15,12 @@
  */
 package org.artificer.server.core.api;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import org.artificer.common.query.ArtifactSummary;
+import org.artificer.common.query.CountMode;
 import org.artificer.common.query.ReverseRelationship;
 import org.artificer.repository.query.PagedResult;
 import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.StoredQuery;
@@ -34,6 +37,41 @@ public interface QueryService extends AbstractService {
     public PagedResult<ArtifactSummary> query(String query, Integer startPage, Integer startIndex, Integer count,
             String orderBy, Boolean ascending) throws Exception;
 
+    /**
+     * @param query
+     * @param startPage
+     * @param startIndex
+     * @param count
+     * @param orderBy
+     * @param ascending
+     * @param continuation the opaque token returned with the previous page (see {@link PagedResult#getContinuation()}),
+     *                     or null.  If given, the next page is selected by keyset, and startPage/startIndex are ignored.
+     * @param countMode how (and whether) to determine the total size of the result set, or null for an exact count
+     * @return PagedResult<ArtifactSummary>
+     * @throws Exception
+     */
+    public PagedResult<ArtifactSummary> query(String query, Integer startPage, Integer startIndex, Integer count,
+            String orderBy, Boolean ascending, String continuation, CountMode countMode) throws Exception;
+
+    /**
+     * As above, but each result's summary is also populated with the given custom properties (see
+     * {@link ArtifactSummary#getProperties()}).
+     * @param query
+     * @param startPage
+     * @param startIndex
+     * @param count
+     * @param orderBy
+     * @param ascending
+     * @param continuation
+     * @param countMode
+     * @param propertyNames the custom properties to return with each result (optional)
+     * @return PagedResult<ArtifactSummary>
+     * @throws Exception
+     */
+    public PagedResult<ArtifactSummary> query(String query, Integer startPage, Integer startIndex, Integer count,
+            String orderBy, Boolean ascending, String continuation, CountMode countMode,
+            Collection<String> propertyNames) throws Exception;
+
     public StoredQuery createStoredQuery(StoredQuery storedQuery) throws Exception;
 
     public void updateStoredQuery(String queryName, StoredQuery storedQuery) throws Exception;
@@ -53,4 +91,17 @@ public interface QueryService extends AbstractService {
     public List<ReverseRelationship> reverseRelationships(String uuid) throws Exception;
 
     public List<String> getTypes() throws Exception;
+
+    /**
+     * Return summaries of all artifacts whose properties match *every* given name/value pair, populated with the
+     * values of the requested properties.  A single projection -- the artifacts themselves are never loaded.
+     * @param criteria property name -> required value
+     * @param propertyNames
+     * @param orderBy
+     * @param ascending
+     * @return List<ArtifactSummary>
+     * @throws Exception
+     */
+    public List<ArtifactSummary> queryProperties(Map<String, String> criteria, Collection<String> propertyNames,
+            String orderBy, Boolean ascending) throws Exception;
 }
@@ -23,6 +23,7 @@ import org.artificer.common.ArtifactType;
 import org.artificer.common.ArtifactTypeEnum;
 import org.artificer.common.ArtifactVerifier;
 import org.artificer.common.ArtificerConstants;
+import org.artificer.common.ParallelStage;
 import org.artificer.common.error.ArtificerNotFoundException;
 import org.artificer.common.error.ArtificerUserException;
 import org.artificer.common.visitors.ArtifactVisitorHelper;
@@ -33,6 +34,7 @@ import org.artificer.integration.ExtensionFactory;
 import org.artificer.repository.PersistenceManager;
 import org.artificer.server.core.api.ArtifactService;
 import org.artificer.server.i18n.Messages;
+import org.artificer.server.mvn.services.MavenMetaDataCache;
 import org.artificer.server.mime.MimeTypes;
 import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactEnum;
 import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactType;
@@ -45,10 +47,11 @@ import javax.ejb.TransactionManagementType;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.InputStream;
-import java.util.Collection;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
 
 /**
  * @author Brett Meyer.
@@ -59,6 +62,11 @@ import java.util.UUID;
 @TransactionManagement(TransactionManagementType.BEAN)
 public class ArtifactServiceImpl extends AbstractServiceImpl implements ArtifactService {
 
+    /**
+     * The most artifacts a single {@link #getMetaData(List)} call may return -- they're all held in memory.
+     */
+    public static final int MAX_METADATA_BATCH = 500;
+
     @Override
     public BaseArtifactType create(BaseArtifactType artifact) throws Exception {
         ArtifactType artifactType = ArtifactType.valueOf(artifact);
@@ -81,6 +89,7 @@ public class ArtifactServiceImpl extends AbstractServiceImpl implements Artifact
         PersistenceManager persistenceManager = persistenceManager();
         // store the content
         BaseArtifactType persistedArtifact = persistenceManager.persistArtifact(artifact, null);
+        MavenMetaDataCache.getInstance().invalidate(persistedArtifact);
 
         Set<EventProducer> eventProducers = EventProducerFactory.getEventProducers();
         for (EventProducer eventProducer : eventProducers) {
@@ -118,6 +127,7 @@ public class ArtifactServiceImpl extends AbstractServiceImpl implements Artifact
 
         ArtifactContent content = null;
         ArchiveContext archiveContext = null;
+        BatchCreate creates = new BatchCreate();
 
         try {
             content = new ArtifactContent(fileName, is);
@@ -158,8 +168,6 @@ public class ArtifactServiceImpl extends AbstractServiceImpl implements Artifact
             BaseArtifactType artifact = artifactType.newArtifactInstance();
             artifact.setName(fileName);
 
-			BatchCreate creates = new BatchCreate();
-
 			if (archiveContext != null) {
                 // If it's an archive, expand it and upload through a batch (necessary for adequate relationship processing).
 
@@ -170,29 +178,23 @@ public class ArtifactServiceImpl extends AbstractServiceImpl implements Artifact
                 // Expand (building up the batch).
                 // Set the artifact in the context for the type detectors to use.
                 archiveContext.setArchiveArtifactType(artifactType);
-                Collection<File> subFiles = archiveContext.expand();
-                for (File subFile : subFiles) {
-                    String pathInArchive = archiveContext.stripWorkDir(subFile.getAbsolutePath());
-                    ArtifactContent subArtifactContent = new ArtifactContent(pathInArchive, subFile);
-                    if (ExtensionFactory.allowExpansionFromArchive(subArtifactContent, archiveContext)) {
-                        ArtifactType subArtifactType = ExtensionFactory.detect(subArtifactContent, archiveContext);
-                        // detectors do not accept everything...
-                        if (subArtifactType != null) {
-                            String subMimeType = MimeTypes.determineMimeType(subFile.getName(),
-                                    subArtifactContent.getInputStream(), subArtifactType);
-                            subArtifactType.setMimeType(subMimeType);
-
-                            BaseArtifactType subArtifact = subArtifactType.newArtifactInstance();
-                            subArtifact.setName(subFile.getName());
-
-                            // set relevant properties/relationships
-                            subArtifact.getOtherAttributes().put(
-                                    ArtificerConstants.ARTIFICER_EXPANDED_FROM_ARCHIVE_UUID_QNAME, parentUuid);
-                            subArtifact.getOtherAttributes().put(
-                                    ArtificerConstants.ARTIFICER_EXPANDED_FROM_ARCHIVE_PATH_QNAME, pathInArchive);
-
-                            creates.add(subArtifact, subArtifactContent, subArtifactContent.getPath());
-                        }
+                // Copying, detection, and mime sniffing are independent for each entry, so run them in parallel.
+                // Results retain the expansion order, keeping the batch (and its relationship processing) stable.
+                List<Callable<PersistenceManager.BatchItem>> expansionTasks = new ArrayList<>();
+                for (File subFile : archiveContext.expand()) {
+                    expansionTasks.add(new ExpansionTask(subFile, archiveContext, parentUuid));
+                }
+                List<PersistenceManager.BatchItem> expanded = new ParallelStage<PersistenceManager.BatchItem>(
+                        "archive-expansion", new ParallelStage.Cleanup<PersistenceManager.BatchItem>() {
+                    @Override
+                    public void cleanup(PersistenceManager.BatchItem batchItem) {
+                        // The copied content of entries expanded before another entry failed.
+                        batchItem.content.cleanup();
+                    }
+                }).execute(expansionTasks);
+                for (PersistenceManager.BatchItem batchItem : expanded) {
+                    if (batchItem != null) {
+                        creates.add(batchItem.baseArtifactType, batchItem.content, batchItem.content.getPath());
                     }
                 }
             }
@@ -212,13 +214,62 @@ public class ArtifactServiceImpl extends AbstractServiceImpl implements Artifact
             if (content != null) {
                 content.cleanup();
             }
+            creates.cleanup();
             if (archiveContext != null) {
                 archiveContext.cleanup();
             }
         }
     }
 
+    /**
+     * Prepares a single file expanded from an archive: copies its content, decides whether or not it should be
+     * expanded at all, detects its type and mime type, and creates its artifact.  Returns null if the file is skipped.
+     */
+    private static class ExpansionTask implements Callable<PersistenceManager.BatchItem> {
+
+        private final File subFile;
+
+        private final ArchiveContext archiveContext;
+
+        private final String parentUuid;
+
+        private ExpansionTask(File subFile, ArchiveContext archiveContext, String parentUuid) {
+            this.subFile = subFile;
+            this.archiveContext = archiveContext;
+            this.parentUuid = parentUuid;
+        }
+
+        @Override
+        public PersistenceManager.BatchItem call() throws Exception {
+            String pathInArchive = archiveContext.stripWorkDir(subFile.getAbsolutePath());
+            ArtifactContent subArtifactContent = new ArtifactContent(pathInArchive, subFile);
+            if (ExtensionFactory.allowExpansionFromArchive(subArtifactContent, archiveContext)) {
+                ArtifactType subArtifactType = ExtensionFactory.detect(subArtifactContent, archiveContext);
+                // detectors do not accept everything...
+                if (subArtifactType != null) {
+                    String subMimeType = MimeTypes.determineMimeType(subFile.getName(),
+                            subArtifactContent.getInputStream(), subArtifactType);
+                    subArtifactType.setMimeType(subMimeType);
+
+                    BaseArtifactType subArtifact = subArtifactType.newArtifactInstance();
+                    subArtifact.setName(subFile.getName());
+
+                    // set relevant properties/relationships
+                    subArtifact.getOtherAttributes().put(
+                            ArtificerConstants.ARTIFICER_EXPANDED_FROM_ARCHIVE_UUID_QNAME, parentUuid);
+                    subArtifact.getOtherAttributes().put(
+                            ArtificerConstants.ARTIFICER_EXPANDED_FROM_ARCHIVE_PATH_QNAME, pathInArchive);
+
+                    return new PersistenceManager.BatchItem(null, subArtifact, subArtifactContent);
+                }
+            }
+            subArtifactContent.cleanup();
+            return null;
+        }
+    }
+
 	private void doUploadEvent(BaseArtifactType artifact) {
+		MavenMetaDataCache.getInstance().invalidate(artifact);
 		Set<EventProducer> eventProducers = EventProducerFactory.getEventProducers();
 		for (EventProducer eventProducer : eventProducers) {
 			eventProducer.artifactCreated(artifact);
@@ -259,7 +310,7 @@ public class ArtifactServiceImpl extends AbstractServiceImpl implements Artifact
     public void updateMetaData(ArtifactType artifactType, String uuid,
             BaseArtifactType updatedArtifact) throws Exception {
         PersistenceManager persistenceManager = persistenceManager();
-        BaseArtifactType oldArtifact = persistenceManager.getArtifact(uuid, artifactType);
+        BaseArtifactType oldArtifact = persistenceManager.getArtifactForUpdate(uuid, artifactType);
         if (oldArtifact == null) {
             throw ArtificerNotFoundException.artifactNotFound(uuid);
         }
@@ -269,6 +320,8 @@ public class ArtifactServiceImpl extends AbstractServiceImpl implements Artifact
         verifier.throwError();
 
         updatedArtifact = persistenceManager.updateArtifact(updatedArtifact, artifactType);
+        MavenMetaDataCache.getInstance().invalidate(oldArtifact);
+        MavenMetaDataCache.getInstance().invalidate(updatedArtifact);
 
         Set<EventProducer> eventProducers = EventProducerFactory.getEventProducers();
         for (EventProducer eventProducer : eventProducers) {
@@ -305,6 +358,15 @@ public class ArtifactServiceImpl extends AbstractServiceImpl implements Artifact
         return artifact;
     }
 
+    @Override
+    public List<BaseArtifactType> getMetaData(List<String> uuids) throws Exception {
+        if (uuids.size() > MAX_METADATA_BATCH) {
+            throw new ArtificerUserException(Messages.i18n.format("METADATA_BATCH_TOO_LARGE", uuids.size(),
+                    MAX_METADATA_BATCH));
+        }
+        return persistenceManager().getArtifacts(uuids);
+    }
+
     @Override
     public InputStream getContent(String model, String type, String uuid) throws Exception {
         ArtifactType artifactType = ArtifactType.valueOf(model, type, true);
@@ -320,21 +382,28 @@ public class ArtifactServiceImpl extends AbstractServiceImpl implements Artifact
 
     @Override
     public InputStream getContent(ArtifactType artifactType, BaseArtifactType artifact) throws Exception {
+        checkContent(artifactType, artifact);
+        return persistenceManager().getArtifactContent(artifact.getUuid(), artifactType);
+    }
+
+    @Override
+    public DocumentArtifactType checkContent(ArtifactType artifactType, BaseArtifactType artifact) throws Exception {
         if (!(artifact instanceof DocumentArtifactType)) {
             throw ArtificerNotFoundException.contentNotFound(artifact.getUuid());
         }
         DocumentArtifactType documentArtifact = (DocumentArtifactType) artifact;
-        if (documentArtifact.getContentSize() == 0  || StringUtils.isEmpty(documentArtifact.getContentHash())) {
+        // A null contentSize isn't known to be empty (see ContentTransfer#contentLength).  Without a contentHash,
+        // on the other hand, the content can't be read (content-addressed storage is keyed by it) or validated.
+        Long contentSize = documentArtifact.getContentSize();
+        if ((contentSize != null && contentSize == 0) || StringUtils.isEmpty(documentArtifact.getContentHash())) {
             throw ArtificerNotFoundException.contentNotFound(artifact.getUuid());
         }
 
-        PersistenceManager persistenceManager = persistenceManager();
-
         ArtifactContentTypeVisitor ctVizzy = new ArtifactContentTypeVisitor();
         ArtifactVisitorHelper.visitArtifact(ctVizzy, artifact);
         javax.ws.rs.core.MediaType mediaType = ctVizzy.getContentType();
         artifactType.setMimeType(mediaType.toString());
-        return persistenceManager.getArtifactContent(artifact.getUuid(), artifactType);
+        return documentArtifact;
     }
 
     @Override
@@ -377,6 +446,7 @@ public class ArtifactServiceImpl extends AbstractServiceImpl implements Artifact
         PersistenceManager persistenceManager = persistenceManager();
         // Delete the artifact by UUID
         BaseArtifactType artifact = persistenceManager.deleteArtifact(uuid, artifactType, force);
+        MavenMetaDataCache.getInstance().invalidate(artifact);
 
         Set<EventProducer> eventProducers = EventProducerFactory.getEventProducers();
         for (EventProducer eventProducer : eventProducers) {
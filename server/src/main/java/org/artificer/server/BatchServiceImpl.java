@@ -27,6 +27,7 @@ import org.artificer.repository.RepositoryProviderFactory;
 import org.artificer.server.core.api.BatchResult;
 import org.artificer.server.core.api.BatchService;
 import org.artificer.server.mime.MimeTypes;
+import org.artificer.server.mvn.services.MavenMetaDataCache;
 import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactType;
 import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.DocumentArtifactType;
 
@@ -96,6 +97,7 @@ public class BatchServiceImpl extends AbstractServiceImpl implements BatchServic
             PersistenceManager.BatchItem bi = createItems.get(i);
 			BaseArtifactType artifact = batchResponses.get(i);
             batchResult.getCreates().put(bi.batchItemId, artifact);
+            MavenMetaDataCache.getInstance().invalidate(artifact);
         }
         batchCreates.cleanup();
 
@@ -134,7 +136,7 @@ public class BatchServiceImpl extends AbstractServiceImpl implements BatchServic
             PersistenceManager persistenceManager = RepositoryProviderFactory.persistenceManager();
             ArtifactType artifactType = ArtifactType.valueOf(metaData);
             // TODO Bug: this would allow a re-used UUID as long as the artifact type was different.  Should change this to query via UUID instead.
-            BaseArtifactType artifact = persistenceManager.getArtifact(metaData.getUuid(), artifactType);
+            BaseArtifactType artifact = persistenceManager.getArtifactForUpdate(metaData.getUuid(), artifactType);
             return artifact != null;
         } catch (ArtificerException e) {
             return false;
@@ -150,15 +152,17 @@ public class BatchServiceImpl extends AbstractServiceImpl implements BatchServic
      */
     private BaseArtifactType processUpdate(ArtifactType artifactType, BaseArtifactType metaData) throws Exception {
         PersistenceManager persistenceManager = RepositoryProviderFactory.persistenceManager();
-        BaseArtifactType artifact = persistenceManager.getArtifact(metaData.getUuid(), artifactType);
+        BaseArtifactType artifact = persistenceManager.getArtifactForUpdate(metaData.getUuid(), artifactType);
         if (artifact == null)
             throw ArtificerNotFoundException.artifactNotFound(metaData.getUuid());
 
         // update the meta data
         persistenceManager.updateArtifact(metaData, artifactType);
+        MavenMetaDataCache.getInstance().invalidate(artifact);
+        MavenMetaDataCache.getInstance().invalidate(metaData);
 
         // Refetch the data to make sure what we return is up-to-date
-        artifact = persistenceManager.getArtifact(metaData.getUuid(), artifactType);
+        artifact = persistenceManager.getArtifactForUpdate(metaData.getUuid(), artifactType);
 
         return artifact;
     }
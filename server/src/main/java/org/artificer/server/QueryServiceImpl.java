@@ -15,7 +15,9 @@
  */
 package org.artificer.server;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import javax.ejb.Remote;
 import javax.ejb.Stateful;
@@ -23,9 +25,11 @@ import javax.ejb.TransactionManagement;
 import javax.ejb.TransactionManagementType;
 
 import org.artificer.common.query.ArtifactSummary;
+import org.artificer.common.query.CountMode;
 import org.artificer.common.query.ReverseRelationship;
 import org.artificer.repository.query.ArtificerQuery;
 import org.artificer.repository.query.ArtificerQueryArgs;
+import org.artificer.repository.query.ContinuationToken;
 import org.artificer.repository.query.PagedResult;
 import org.artificer.server.core.api.QueryService;
 import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.StoredQuery;
@@ -63,6 +67,25 @@ public class QueryServiceImpl extends AbstractServiceImpl implements QueryServic
         return artificerQuery.executeQuery();
     }
 
+    @Override
+    public PagedResult<ArtifactSummary> query(String query, Integer startPage, Integer startIndex, Integer count,
+            String orderBy, Boolean ascending, String continuation, CountMode countMode) throws Exception {
+        return query(query, startPage, startIndex, count, orderBy, ascending, continuation, countMode, null);
+    }
+
+    @Override
+    public PagedResult<ArtifactSummary> query(String query, Integer startPage, Integer startIndex, Integer count,
+            String orderBy, Boolean ascending, String continuation, CountMode countMode,
+            Collection<String> propertyNames) throws Exception {
+        String xpath = formatXpath(query);
+
+        ArtificerQueryArgs args = new ArtificerQueryArgs(orderBy, ascending, startPage, startIndex, count,
+                continuation == null ? null : ContinuationToken.decode(continuation), countMode);
+        args.setPropertyNames(propertyNames);
+        ArtificerQuery artificerQuery = queryManager().createQuery(xpath, args);
+        return artificerQuery.executeQuery();
+    }
+
 	private String formatXpath(String query) {
 		String xpath = query;
 		if (xpath.equals("/s-ramp/")) {
@@ -112,4 +135,10 @@ public class QueryServiceImpl extends AbstractServiceImpl implements QueryServic
     public List<String> getTypes() throws Exception {
         return queryManager().getTypes();
     }
+
+    @Override
+    public List<ArtifactSummary> queryProperties(Map<String, String> criteria, Collection<String> propertyNames,
+            String orderBy, Boolean ascending) throws Exception {
+        return queryManager().queryProperties(criteria, propertyNames, orderBy, ascending);
+    }
 }
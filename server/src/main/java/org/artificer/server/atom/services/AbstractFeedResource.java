@@ -16,14 +16,18 @@
 package org.artificer.server.atom.services;
 
 import org.artificer.atom.ArtificerAtomUtils;
+import org.artificer.atom.AtomFeedWriter;
+import org.artificer.atom.StreamingFeed;
 import org.artificer.atom.err.ArtificerAtomException;
 import org.artificer.common.ArtificerConstants;
 import org.artificer.common.MediaType;
+import org.artificer.common.error.ArtificerServerException;
+import org.artificer.common.error.ArtificerUserException;
 import org.artificer.common.query.ArtifactSummary;
+import org.artificer.common.query.CountMode;
 import org.artificer.repository.query.PagedResult;
 import org.artificer.server.QueryServiceImpl;
 import org.artificer.server.i18n.Messages;
-import org.jboss.resteasy.plugins.providers.atom.Entry;
 import org.jboss.resteasy.plugins.providers.atom.Feed;
 import org.jboss.resteasy.plugins.providers.atom.Link;
 import org.jboss.resteasy.plugins.providers.atom.Person;
@@ -55,20 +59,43 @@ public abstract class AbstractFeedResource extends AbstractResource {
 	 * @param orderBy the property to sort the results by
 	 * @param ascending the sort direction
 	 * @param propNames the set of s-ramp property names - the extra properties that the query should return as part of the {@link Feed}
-	 * @return an Atom {@link Feed}
-	 * @throws org.artificer.atom.err.ArtificerAtomException
+	 * @return an Atom {@link Feed}, streamed as it's written
+	 * @throws ArtificerServerException
 	 */
-	protected Feed createArtifactFeed(String query, Integer startPage, Integer startIndex, Integer count, String orderBy,
-			Boolean ascending, Set<String> propNames, String baseUrl) throws ArtificerAtomException {
+	protected StreamingFeed createArtifactFeed(String query, Integer startPage, Integer startIndex, Integer count, String orderBy,
+			Boolean ascending, Set<String> propNames, String baseUrl) throws ArtificerServerException {
+		return createArtifactFeed(query, startPage, startIndex, count, orderBy, ascending, null, null, propNames,
+				baseUrl);
+	}
+
+	/**
+	 * Common method that performs a query for artifacts and returns them in an Atom {@link Feed}.
+	 * @param query the x-path formatted s-ramp query
+	 * @param startIndex which index within the result set to start with (0 indexed)
+	 * @param count the number of items desired
+	 * @param orderBy the property to sort the results by
+	 * @param ascending the sort direction
+	 * @param continuation the opaque token from the previous page's feed, selecting the next page by keyset (optional)
+	 * @param countMode how (and whether) to count the total results (optional)
+	 * @param propNames the set of s-ramp property names - the extra properties that the query should return as part of the {@link Feed}
+	 * @return an Atom {@link Feed}, streamed as it's written
+	 * @throws ArtificerServerException (an {@link ArtificerUserException} for an invalid query, continuation, etc.)
+	 */
+	protected StreamingFeed createArtifactFeed(String query, Integer startPage, Integer startIndex, Integer count, String orderBy,
+			Boolean ascending, String continuation, CountMode countMode, Set<String> propNames, String baseUrl)
+			throws ArtificerServerException {
 	    if (query == null)
             throw new ArtificerAtomException(Messages.i18n.format("MISSING_QUERY_PARAM"));
 
 		try {
             PagedResult<ArtifactSummary> artifactSet = queryService.query(
-                    query, startPage, startIndex, count, orderBy, ascending);
-            Feed feed = createFeed(artifactSet, propNames, baseUrl);
-			addPaginationLinks(feed, artifactSet, baseUrl);
+                    query, startPage, startIndex, count, orderBy, ascending, continuation, countMode, propNames);
+            StreamingFeed feed = createFeed(artifactSet);
+			addPaginationLinks(feed.getHeader(), artifactSet, countMode, baseUrl);
 			return feed;
+		} catch (ArtificerUserException e) {
+			// mapped to a 400
+			throw e;
 		} catch (Throwable e) {
 			logError(logger, Messages.i18n.format("Error trying to create an Artifact Feed."), e);
 			throw new ArtificerAtomException(e);
@@ -87,42 +114,54 @@ public abstract class AbstractFeedResource extends AbstractResource {
 	 *   <link rel="last" href="http://www.example.org/feed?page=147"/>
 	 * </pre>
 	 *
+	 * Any projected custom properties (see the propNames above) are already in the summaries, and are wrapped into
+	 * their entries.
+	 *
+	 * The entries are wrapped and marshalled one at a time, as the response is written, so only the (lightweight)
+	 * summaries are held for the whole page.
+	 *
      * @param pagedResult
-	 * @param propNames the additional s-ramp properties to return in the {@link Feed}
-	 * @return an Atom {@link Feed}
+	 * @return an Atom {@link Feed}, streamed as it's written
 	 * @throws Exception
 	 */
-	@SuppressWarnings("unchecked")
-    private Feed createFeed(PagedResult<ArtifactSummary> pagedResult, Set<String> propNames, String baseUrl) throws Exception {
+    private StreamingFeed createFeed(final PagedResult<ArtifactSummary> pagedResult) throws Exception {
 		Feed feed = new Feed();
 		feed.getExtensionAttributes().put(ArtificerConstants.SRAMP_PROVIDER_QNAME, "Artificer");
         feed.getExtensionAttributes().put(ArtificerConstants.SRAMP_ITEMS_PER_PAGE_QNAME, String.valueOf(pagedResult.getPageSize()));
         feed.getExtensionAttributes().put(ArtificerConstants.SRAMP_START_INDEX_QNAME, String.valueOf(pagedResult.getStartIndex()));
         feed.getExtensionAttributes().put(ArtificerConstants.SRAMP_TOTAL_RESULTS_QNAME, String.valueOf(pagedResult.getTotalSize()));
+        if (pagedResult.getContinuation() != null) {
+            feed.getExtensionAttributes().put(ArtificerConstants.ARTIFICER_CONTINUATION_QNAME, pagedResult.getContinuation());
+        }
 		feed.setId(new URI("urn:uuid:" + UUID.randomUUID().toString()));
 		feed.setTitle("S-RAMP Feed");
 		feed.setSubtitle("Ad Hoc query feed");
 		feed.setUpdated(new Date());
 		feed.getAuthors().add(new Person("anonymous"));
 
-        for (ArtifactSummary artifact : pagedResult.getResults()) {
-			Entry entry = ArtificerAtomUtils.wrapArtifactSummary(artifact);
-			feed.getEntries().add(entry);
-		}
-
-		return feed;
+		return new StreamingFeed(feed) {
+			@Override
+			protected void writeEntries(AtomFeedWriter writer) throws Exception {
+				for (ArtifactSummary artifact : pagedResult.getResults()) {
+					writer.writeEntry(ArtificerAtomUtils.wrapArtifactSummary(artifact));
+				}
+			}
+		};
 	}
 
 	/**
 	 * Add pagination links to the feed.
 	 *
+	 * The "next" link selects the following page by keyset (using the continuation token), rather than by offset.
+	 *
 	 * @param feed
      * @param pagedResult
+	 * @param countMode
 	 * @param baseUrl
 	 * @throws UnsupportedEncodingException
 	 */
-	private void addPaginationLinks(Feed feed, PagedResult<ArtifactSummary> pagedResult, String baseUrl)
-            throws UnsupportedEncodingException {
+	private void addPaginationLinks(Feed feed, PagedResult<ArtifactSummary> pagedResult, CountMode countMode,
+			String baseUrl) throws UnsupportedEncodingException {
         long pageSize = pagedResult.getPageSize();
         int startIndex = pagedResult.getStartIndex();
         String orderBy = pagedResult.getOrderBy();
@@ -136,6 +175,12 @@ public abstract class AbstractFeedResource extends AbstractResource {
 				String.valueOf(orderBy), String.valueOf(ascending));
 		String nextHref = String.format(hrefPattern, baseUrl, encodedQuery, startIndex + pageSize, String.valueOf(pageSize),
 				String.valueOf(orderBy), String.valueOf(ascending));
+		if (pagedResult.getContinuation() != null) {
+			nextHref += "&continuation=" + URLEncoder.encode(pagedResult.getContinuation(), "UTF-8");
+		}
+		if (countMode != null) {
+			nextHref += "&countMode=" + countMode.name();
+		}
 
 		Link first = new Link("first", firstHref, MediaType.APPLICATION_ATOM_XML_FEED_TYPE);
 		Link prev = new Link("prev", prevHref, MediaType.APPLICATION_ATOM_XML_FEED_TYPE);
@@ -145,7 +190,7 @@ public abstract class AbstractFeedResource extends AbstractResource {
 			feed.getLinks().add(first);
 			feed.getLinks().add(prev);
 		}
-		if (startIndex + pageSize < pagedResult.getTotalSize()) {
+		if (pagedResult.hasMore()) {
 			feed.getLinks().add(next);
 		}
 
@@ -15,16 +15,17 @@
  */
 package org.artificer.server.atom.services;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.artificer.atom.ArtificerAtomUtils;
+import org.artificer.atom.ArtificerJaxbContexts;
 import org.artificer.atom.err.ArtificerAtomException;
 import org.artificer.atom.visitors.ArtifactToFullAtomEntryVisitor;
 import org.artificer.common.ArtifactContent;
 import org.artificer.common.ArtifactType;
 import org.artificer.common.ArtifactVerifier;
 import org.artificer.common.ArtificerConfig;
-import org.artificer.common.ArtificerConstants;
 import org.artificer.common.MediaType;
 import org.artificer.common.error.ArtificerServerException;
 import org.artificer.common.error.ArtificerUserException;
@@ -34,7 +35,10 @@ import org.artificer.events.EventProducerFactory;
 import org.artificer.repository.PersistenceManager;
 import org.artificer.repository.RepositoryProviderFactory;
 import org.artificer.server.ArtifactServiceImpl;
+import org.artificer.server.content.ByteRange;
+import org.artificer.server.content.ContentTransfer;
 import org.artificer.server.i18n.Messages;
+import org.artificer.server.mvn.services.MavenMetaDataCache;
 import org.artificer.server.mime.MimeTypes;
 import org.jboss.resteasy.plugins.providers.atom.Entry;
 import org.jboss.resteasy.plugins.providers.multipart.InputPart;
@@ -42,13 +46,16 @@ import org.jboss.resteasy.plugins.providers.multipart.MultipartConstants;
 import org.jboss.resteasy.plugins.providers.multipart.MultipartRelatedInput;
 import org.jboss.resteasy.util.GenericType;
 import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactType;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.DocumentArtifactType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
+import javax.ws.rs.HEAD;
 import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
@@ -57,14 +64,19 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.StreamingOutput;
+import javax.xml.bind.Marshaller;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.text.SimpleDateFormat;
+import java.util.Date;
 import java.util.List;
 import java.util.Set;
 
@@ -87,14 +99,6 @@ public class ArtifactResource extends AbstractResource {
 
 	private static Logger logger = LoggerFactory.getLogger(ArtifactResource.class);
 
-	// Sadly, date formats are not thread safe.
-	private static final ThreadLocal<SimpleDateFormat> dateFormat = new ThreadLocal<SimpleDateFormat>() {
-		@Override
-		protected SimpleDateFormat initialValue() {
-			return new SimpleDateFormat(ArtificerConstants.DATE_FORMAT);
-		}
-	};
-
     private final ArtifactServiceImpl artifactService = new ArtifactServiceImpl();
 
     @POST
@@ -298,6 +302,7 @@ public class ArtifactResource extends AbstractResource {
 			PersistenceManager persistenceManager = RepositoryProviderFactory.persistenceManager();
 			// store the content
 			BaseArtifactType artifactRval = persistenceManager.persistArtifact(artifactMetaData, content);
+			MavenMetaDataCache.getInstance().invalidate(artifactRval);
 			
 			Set<EventProducer> eventProducers = EventProducerFactory.getEventProducers();
             for (EventProducer eventProducer : eventProducers) {
@@ -377,6 +382,10 @@ public class ArtifactResource extends AbstractResource {
 	 * Called to get the meta data for an s-ramp artifact. This will return an Atom {@link Entry} with the
 	 * full information about the artifact.
 	 *
+	 * The response carries a (weak) ETag, a digest of the entry itself, and If-None-Match is answered with
+	 * 304 (Not Modified).  The lastModifiedTimestamp isn't used as a validator, since adding comments doesn't change
+	 * it.
+	 *
 	 * @param model
 	 * @param type
 	 * @param uuid
@@ -385,13 +394,29 @@ public class ArtifactResource extends AbstractResource {
 	@GET
 	@Path("{model}/{type}/{uuid}")
 	@Produces(MediaType.APPLICATION_ATOM_XML_ENTRY)
-	public Entry getMetaData(@Context HttpServletRequest request, @PathParam("model") String model,
-	        @PathParam("type") String type, @PathParam("uuid") String uuid) throws ArtificerServerException {
+	public Response getMetaData(@Context HttpServletRequest request, @Context Request requestContext,
+	        @PathParam("model") String model, @PathParam("type") String type, @PathParam("uuid") String uuid)
+	        throws ArtificerServerException {
 		try {
 			BaseArtifactType artifact = artifactService.getMetaData(model, type, uuid);
 
 			// Return the entry containing the s-ramp artifact
-            return wrapArtifact(artifact, request);
+			Entry entry = wrapArtifact(artifact, request);
+			ByteArrayOutputStream body = new ByteArrayOutputStream();
+			Marshaller marshaller = ArtificerJaxbContexts.borrowMarshaller();
+			try {
+				marshaller.marshal(entry, body);
+			} finally {
+				ArtificerJaxbContexts.release(marshaller);
+			}
+			byte[] bytes = body.toByteArray();
+
+			EntityTag etag = new EntityTag(DigestUtils.shaHex(bytes), true);
+			ResponseBuilder builder = requestContext.evaluatePreconditions(etag);
+			if (builder == null) {
+				builder = Response.ok(bytes, MediaType.APPLICATION_ATOM_XML_ENTRY);
+			}
+			return builder.tag(etag).build();
 		} catch (ArtificerServerException e) {
             // Simply re-throw.  Don't allow the following catch it -- ArtificerServerException is mapped to a unique
             // HTTP response type.
@@ -405,6 +430,9 @@ public class ArtifactResource extends AbstractResource {
 	/**
 	 * Returns the content of an artifact in the s-ramp repository.
 	 *
+	 * The content's ETag is its contentHash, so If-None-Match and If-Modified-Since are answered with 304 (Not
+	 * Modified) without touching the content.  Single and multiple byte ranges (Range, with If-Range) are supported.
+	 *
 	 * @param model
 	 * @param type
 	 * @param uuid
@@ -412,31 +440,102 @@ public class ArtifactResource extends AbstractResource {
 	 */
 	@GET
 	@Path("{model}/{type}/{uuid}/media")
-	public Response getContent(@PathParam("model") String model, @PathParam("type") String type,
-	        @PathParam("uuid") String uuid) throws ArtificerServerException {
+	public Response getContent(@Context Request requestContext, @HeaderParam("Range") String range,
+	        @HeaderParam("If-Range") String ifRange, @PathParam("model") String model,
+	        @PathParam("type") String type, @PathParam("uuid") String uuid) throws ArtificerServerException {
+		return getContent(requestContext, range, ifRange, model, type, uuid, true);
+	}
+
+	/**
+	 * Same as {@link #getContent(Request, String, String, String, String, String)}, but without opening the
+	 * content.
+	 *
+	 * @param model
+	 * @param type
+	 * @param uuid
+	 * @throws org.artificer.atom.err.ArtificerAtomException
+	 */
+	@HEAD
+	@Path("{model}/{type}/{uuid}/media")
+	public Response getContentHead(@Context Request requestContext, @PathParam("model") String model,
+	        @PathParam("type") String type, @PathParam("uuid") String uuid) throws ArtificerServerException {
+		// Range is only defined for GET.
+		return getContent(requestContext, null, null, model, type, uuid, false);
+	}
+
+	private Response getContent(Request requestContext, String range, String ifRange, String model, String type,
+	        String uuid, boolean withBody) throws ArtificerServerException {
 		try {
             ArtifactType artifactType = ArtifactType.valueOf(model, type, true);
             BaseArtifactType artifact = artifactService.getMetaData(artifactType, uuid);
-            final InputStream inputStream = artifactService.getContent(artifactType, artifact);
-            Object output = new StreamingOutput() {
-                @Override
-                public void write(OutputStream output) throws IOException, WebApplicationException {
-                    try {
-                        IOUtils.copy(inputStream, output);
-                    } finally {
-                        IOUtils.closeQuietly(inputStream);
-                    }
+            DocumentArtifactType document = artifactService.checkContent(artifactType, artifact);
+            final String mimeType = artifactType.getMimeType();
+            // checkContent guarantees the contentHash, but not the contentSize.  Without the latter, the response
+            // goes without Content-Length (and ranges).
+            final long contentSize = ContentTransfer.contentLength(document.getContentSize());
+            String etagValue = ContentTransfer.etag(document.getContentHash());
+            EntityTag etag = new EntityTag(document.getContentHash());
+            Date lastModified = ContentTransfer.toHttpDate(
+                    artifact.getLastModifiedTimestamp().toGregorianCalendar().getTime());
+
+            ResponseBuilder builder = requestContext.evaluatePreconditions(lastModified, etag);
+            if (builder != null) {
+                return builder.tag(etag).lastModified(lastModified).build();
+            }
+
+            final List<ByteRange> ranges = contentSize >= 0
+                    && ContentTransfer.isRangeCurrent(ifRange, etagValue, lastModified)
+                    ? ByteRange.parse(range, contentSize) : null;
+            if (ranges != null && ranges.isEmpty()) {
+                return Response.status(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header("Content-Range", ByteRange.unsatisfiedContentRange(contentSize))
+                        .header("Accept-Ranges", "bytes").tag(etag).lastModified(lastModified).build();
+            }
+
+            final String boundary;
+            if (ranges == null) {
+                boundary = null;
+                builder = Response.ok().type(mimeType);
+                if (contentSize >= 0) {
+                    builder.header("Content-Length", contentSize);
                 }
-            };
+            } else if (ranges.size() == 1) {
+                boundary = null;
+                builder = Response.status(HttpServletResponse.SC_PARTIAL_CONTENT).type(mimeType)
+                        .header("Content-Range", ranges.get(0).toContentRange(contentSize))
+                        .header("Content-Length", ranges.get(0).getLength());
+            } else {
+                boundary = ContentTransfer.newBoundary();
+                builder = Response.status(HttpServletResponse.SC_PARTIAL_CONTENT)
+                        .type(ContentTransfer.multipartType(boundary));
+            }
 
-			String lastModifiedDate = dateFormat.get().format(
-                    artifact.getLastModifiedTimestamp().toGregorianCalendar().getTime());
-			return Response
-			        .ok(output, artifactType.getMimeType())
+            if (withBody) {
+                final InputStream inputStream = artifactService.getContent(artifactType, artifact);
+                builder.entity(new StreamingOutput() {
+                    @Override
+                    public void write(OutputStream output) throws IOException, WebApplicationException {
+                        try {
+                            if (ranges == null) {
+                                ContentTransfer.transfer(inputStream, output);
+                            } else if (boundary == null) {
+                                ContentTransfer.transfer(inputStream, output, ranges.get(0));
+                            } else {
+                                ContentTransfer.transfer(inputStream, output, ranges, mimeType, contentSize,
+                                        boundary);
+                            }
+                        } finally {
+                            IOUtils.closeQuietly(inputStream);
+                        }
+                    }
+                });
+            }
+
+			return builder
 			        .header("Content-Disposition", "attachment; filename=" + artifact.getName())
-			        .header("Content-Length",
-                            artifact.getOtherAttributes().get(ArtificerConstants.SRAMP_CONTENT_SIZE_QNAME))
-			        .header("Last-Modified", lastModifiedDate).build();
+			        .header("Accept-Ranges", "bytes")
+			        .tag(etag)
+			        .lastModified(lastModified).build();
 		} catch (ArtificerServerException e) {
             // Simply re-throw.  Don't allow the following catch it -- ArtificerServerException is mapped to a unique
             // HTTP response type.
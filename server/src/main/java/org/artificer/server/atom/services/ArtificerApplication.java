@@ -18,10 +18,12 @@ package org.artificer.server.atom.services;
 import org.artificer.atom.providers.ArtificerConflictExceptionProvider;
 import org.artificer.atom.providers.ArtificerNotFoundExceptionProvider;
 import org.artificer.atom.providers.ArtificerServerExceptionProvider;
+import org.artificer.atom.providers.ArtificerUserExceptionProvider;
 import org.artificer.atom.providers.ArtificerWrongModelExceptionProvider;
 import org.artificer.atom.providers.AuditEntryProvider;
 import org.artificer.atom.providers.HttpResponseProvider;
 import org.artificer.atom.providers.OntologyProvider;
+import org.artificer.server.filters.AcceptGzipInterceptor;
 
 import javax.ws.rs.core.Application;
 import java.util.HashSet;
@@ -55,10 +57,13 @@ public class ArtificerApplication extends Application {
         classes.add(ArtificerWrongModelExceptionProvider.class);
         classes.add(ArtificerConflictExceptionProvider.class);
         classes.add(ArtificerNotFoundExceptionProvider.class);
+        classes.add(ArtificerUserExceptionProvider.class);
         
 		classes.add(HttpResponseProvider.class);
         classes.add(OntologyProvider.class);
         classes.add(AuditEntryProvider.class);
+
+        classes.add(AcceptGzipInterceptor.class);
 	}
 
 	@Override
@@ -16,28 +16,47 @@
 package org.artificer.server.atom.services;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.UUID;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
+import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.StreamingOutput;
 
+import org.apache.commons.lang.StringUtils;
 import org.artificer.atom.ArtificerAtomUtils;
+import org.artificer.atom.AtomFeedWriter;
+import org.artificer.atom.StreamingFeed;
+import org.artificer.atom.err.ArtificerAtomException;
+import org.artificer.atom.visitors.ArtifactToFullAtomEntryVisitor;
 import org.artificer.atom.visitors.ArtifactToSummaryAtomEntryVisitor;
 import org.artificer.common.ArtificerConfig;
 import org.artificer.common.ArtificerConstants;
 import org.artificer.common.MediaType;
+import org.artificer.common.error.ArtificerServerException;
 import org.artificer.common.query.ArtifactSummary;
 import org.artificer.common.query.RelationshipType;
 import org.artificer.common.query.ReverseRelationship;
+import org.artificer.common.visitors.ArtifactVisitorHelper;
+import org.artificer.repository.query.PagedResult;
+import org.artificer.server.ArtifactServiceImpl;
+import org.artificer.server.i18n.Messages;
 import org.jboss.resteasy.plugins.providers.atom.Entry;
 import org.jboss.resteasy.plugins.providers.atom.Feed;
 import org.jboss.resteasy.plugins.providers.atom.Person;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * An JAX-RS resource with Artificer-specific capabilities, outside of the S-RAMP spec.
@@ -47,6 +66,10 @@ import org.jboss.resteasy.plugins.providers.atom.Person;
 @Path("/artificer")
 public class ArtificerResource extends AbstractFeedResource {
 
+    private static Logger logger = LoggerFactory.getLogger(ArtificerResource.class);
+
+    private final ArtifactServiceImpl artifactService = new ArtifactServiceImpl();
+
     @GET
     @Path("reverseRelationship/{uuid}")
     @Produces(MediaType.APPLICATION_ATOM_XML_FEED)
@@ -79,6 +102,99 @@ public class ArtificerResource extends AbstractFeedResource {
         return feed;
     }
 
+    /**
+     * Gets the full meta-data of many artifacts in one request: either those listed (repeated 'uuid' params), or
+     * those matching a query (paged as usual).  Returns a feed of full entries, rather than the summaries a query
+     * feed contains.  See {@link ArtifactServiceImpl#MAX_METADATA_BATCH} for the limit.
+     */
+    @GET
+    @Path("metadata")
+    @Produces(MediaType.APPLICATION_ATOM_XML_FEED)
+    public StreamingOutput getMetaData(
+            @Context HttpServletRequest request,
+            @QueryParam("uuid") List<String> uuids,
+            @QueryParam("query") String query,
+            @QueryParam("startIndex") Integer startIndex,
+            @QueryParam("count") Integer count,
+            @QueryParam("orderBy") String orderBy,
+            @QueryParam("ascending") Boolean asc) throws Exception {
+        String baseUrl = ArtificerConfig.getBaseUrl(request.getRequestURL().toString());
+        try {
+            if (query == null) {
+                return createMetaDataFeed(artifactService.getMetaData(uuids), baseUrl);
+            }
+
+            if (count == null || count > ArtifactServiceImpl.MAX_METADATA_BATCH) {
+                count = ArtifactServiceImpl.MAX_METADATA_BATCH;
+            }
+            PagedResult<ArtifactSummary> pagedResult = queryService.query(query, null, startIndex, count, orderBy,
+                    asc);
+            List<String> resultUuids = new ArrayList<String>(pagedResult.getResults().size());
+            for (ArtifactSummary summary : pagedResult.getResults()) {
+                resultUuids.add(summary.getUuid());
+            }
+            StreamingFeed feed = createMetaDataFeed(artifactService.getMetaData(resultUuids), baseUrl);
+            feed.getHeader().getExtensionAttributes().put(ArtificerConstants.SRAMP_ITEMS_PER_PAGE_QNAME,
+                    String.valueOf(pagedResult.getPageSize()));
+            feed.getHeader().getExtensionAttributes().put(ArtificerConstants.SRAMP_START_INDEX_QNAME,
+                    String.valueOf(pagedResult.getStartIndex()));
+            feed.getHeader().getExtensionAttributes().put(ArtificerConstants.SRAMP_TOTAL_RESULTS_QNAME,
+                    String.valueOf(pagedResult.getTotalSize()));
+            return feed;
+        } catch (ArtificerServerException e) {
+            throw e;
+        } catch (Throwable e) {
+            logError(logger, Messages.i18n.format("ERROR_GETTING_META_DATA", query != null ? query : uuids), e);
+            throw new ArtificerAtomException(e);
+        }
+    }
+
+    /**
+     * Same as {@link #getMetaData(HttpServletRequest, List, String, Integer, Integer, String, Boolean)}, but with the
+     * UUIDs POSTed (whitespace or comma separated), for lists too long for a URL.
+     */
+    @POST
+    @Path("metadata")
+    @Consumes(MediaType.TEXT_PLAIN)
+    @Produces(MediaType.APPLICATION_ATOM_XML_FEED)
+    public StreamingOutput getMetaData(@Context HttpServletRequest request, String uuids) throws Exception {
+        String baseUrl = ArtificerConfig.getBaseUrl(request.getRequestURL().toString());
+        try {
+            String[] split = StringUtils.split(uuids, " ,\t\r\n");
+            return createMetaDataFeed(artifactService.getMetaData(
+                    split == null ? new ArrayList<String>() : Arrays.asList(split)), baseUrl);
+        } catch (ArtificerServerException e) {
+            throw e;
+        } catch (Throwable e) {
+            logError(logger, Messages.i18n.format("ERROR_GETTING_META_DATA", uuids), e);
+            throw new ArtificerAtomException(e);
+        }
+    }
+
+    private StreamingFeed createMetaDataFeed(final List<BaseArtifactType> artifacts, final String baseUrl)
+            throws Exception {
+        Feed feed = new Feed();
+        feed.getExtensionAttributes().put(ArtificerConstants.SRAMP_PROVIDER_QNAME, "Artificer");
+        feed.setId(new URI("urn:uuid:" + UUID.randomUUID().toString()));
+        feed.setTitle("Artificer");
+        feed.setSubtitle("Artifact Meta-Data");
+        feed.setUpdated(new Date());
+        feed.getAuthors().add(new Person("anonymous"));
+
+        // Each full entry is built and marshalled as it's written, rather than all of them up front.
+        return new StreamingFeed(feed) {
+            @Override
+            protected void writeEntries(AtomFeedWriter writer) throws Exception {
+                ArtifactToFullAtomEntryVisitor visitor = new ArtifactToFullAtomEntryVisitor(baseUrl);
+                for (BaseArtifactType artifact : artifacts) {
+                    ArtifactVisitorHelper.visitArtifact(visitor, artifact);
+                    writer.writeEntry(visitor.getAtomEntry());
+                    visitor.reset();
+                }
+            }
+        };
+    }
+
     @GET
     @Path("types")
     @Produces(MediaType.TEXT_HTML)
@@ -16,6 +16,7 @@
 package org.artificer.server.atom.services;
 
 import org.apache.commons.io.IOUtils;
+import org.artificer.atom.StreamingBatchOutput;
 import org.artificer.atom.archive.ArtificerArchive;
 import org.artificer.atom.beans.HttpResponseBean;
 import org.artificer.atom.err.ArtificerAtomException;
@@ -28,9 +29,7 @@ import org.artificer.common.visitors.ArtifactVisitorHelper;
 import org.artificer.server.BatchServiceImpl;
 import org.artificer.server.core.api.BatchResult;
 import org.artificer.server.i18n.Messages;
-import org.jboss.resteasy.annotations.providers.multipart.PartType;
 import org.jboss.resteasy.plugins.providers.atom.Entry;
-import org.jboss.resteasy.plugins.providers.multipart.MultipartOutput;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -42,6 +41,7 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Response;
 import java.io.InputStream;
 
 /**
@@ -69,8 +69,7 @@ public class BatchResource extends AbstractResource {
     @POST
     @Consumes(MediaType.APPLICATION_ZIP)
     @Produces(MediaType.MULTIPART_MIXED)
-    @PartType("message/http")
-	public MultipartOutput zipPackagePost(@Context HttpServletRequest request,
+	public Response zipPackagePost(@Context HttpServletRequest request,
 	        @HeaderParam("Slug") String fileName, InputStream content) throws ArtificerAtomException, ArtificerException {
         return doZipPackage(request, content);
     }
@@ -86,39 +85,39 @@ public class BatchResource extends AbstractResource {
     @PUT
     @Consumes(MediaType.APPLICATION_ZIP)
     @Produces(MediaType.MULTIPART_MIXED)
-    @PartType("message/http")
-    public MultipartOutput zipPackagePut(@Context HttpServletRequest request,
+    public Response zipPackagePut(@Context HttpServletRequest request,
             @HeaderParam("Slug") String fileName, InputStream content) throws ArtificerServerException {
         return doZipPackage(request, content);
     }
 
-    private MultipartOutput doZipPackage(HttpServletRequest request, InputStream content)
+    private Response doZipPackage(HttpServletRequest request, InputStream content)
             throws ArtificerServerException {
         ArtificerArchive archive = null;
-        String baseUrl = ArtificerConfig.getBaseUrl(request.getRequestURL().toString());
+        final String baseUrl = ArtificerConfig.getBaseUrl(request.getRequestURL().toString());
         try {
             archive = new ArtificerArchive(content);
 
-            MultipartOutput output = new MultipartOutput();
-            output.setBoundary("package");
-
-            BatchResult batchResult = batchService.upload(archive);
-
-            for (String batchItemId : batchResult.getCreates().keySet()) {
-                ArtifactToFullAtomEntryVisitor visitor = new ArtifactToFullAtomEntryVisitor(baseUrl);
-                ArtifactVisitorHelper.visitArtifact(visitor, batchResult.getCreates().get(batchItemId));
-                Entry atomEntry = visitor.getAtomEntry();
-                addCreatedPart(output, batchItemId, atomEntry);
-            }
-
-            for (String batchItemId : batchResult.getUpdates().keySet()) {
-                ArtifactToFullAtomEntryVisitor visitor = new ArtifactToFullAtomEntryVisitor(baseUrl);
-                ArtifactVisitorHelper.visitArtifact(visitor, batchResult.getUpdates().get(batchItemId));
-                Entry atomEntry = visitor.getAtomEntry();
-                addUpdatedPart(output, batchItemId, atomEntry);
-            }
-
-            return output;
+            final BatchResult batchResult = batchService.upload(archive);
+
+            // The parts' entries are built and marshalled as the response is written, one at a time.
+            StreamingBatchOutput output = new StreamingBatchOutput("package") {
+                @Override
+                protected void writeParts(Parts parts) throws Exception {
+                    for (String batchItemId : batchResult.getCreates().keySet()) {
+                        ArtifactToFullAtomEntryVisitor visitor = new ArtifactToFullAtomEntryVisitor(baseUrl);
+                        ArtifactVisitorHelper.visitArtifact(visitor, batchResult.getCreates().get(batchItemId));
+                        addCreatedPart(parts, batchItemId, visitor.getAtomEntry());
+                    }
+
+                    for (String batchItemId : batchResult.getUpdates().keySet()) {
+                        ArtifactToFullAtomEntryVisitor visitor = new ArtifactToFullAtomEntryVisitor(baseUrl);
+                        ArtifactVisitorHelper.visitArtifact(visitor, batchResult.getUpdates().get(batchItemId));
+                        addUpdatedPart(parts, batchItemId, visitor.getAtomEntry());
+                    }
+                }
+            };
+
+            return Response.ok(output, output.getMediaType()).build();
         } catch (ArtificerServerException e) {
             // Simply re-throw.  Don't allow the following catch it -- ArtificerServerException is mapped to a unique
             // HTTP response type.
@@ -136,27 +135,31 @@ public class BatchResource extends AbstractResource {
 	/**
 	 * Adds an appropriate part to the batch response.  This takes the form of an HTTP
 	 * response bean with the appropriate headers and data.
-	 * @param output
+	 * @param parts
 	 * @param contentId
 	 * @param atomEntry
+	 * @throws Exception
 	 */
-	private void addCreatedPart(MultipartOutput output, String contentId, Entry atomEntry) {
+	private void addCreatedPart(StreamingBatchOutput.Parts parts, String contentId, Entry atomEntry)
+			throws Exception {
 		HttpResponseBean createdResponse = new HttpResponseBean(201, "Created");
 		createdResponse.setBody(atomEntry, MediaType.APPLICATION_ATOM_XML_ENTRY_TYPE);
-		output.addPart(createdResponse, MediaType.MESSAGE_HTTP_TYPE).getHeaders().putSingle("Content-ID", contentId);
+		parts.add(contentId, createdResponse);
 	}
 
     /**
      * Adds an appropriate part to the batch response.  This takes the form of an HTTP
      * response bean with the appropriate headers and data.
-     * @param output
+     * @param parts
      * @param contentId
      * @param atomEntry
+     * @throws Exception
      */
-    private void addUpdatedPart(MultipartOutput output, String contentId, Entry atomEntry) {
+    private void addUpdatedPart(StreamingBatchOutput.Parts parts, String contentId, Entry atomEntry)
+            throws Exception {
         HttpResponseBean createdResponse = new HttpResponseBean(200, "OK");
         createdResponse.setBody(atomEntry, MediaType.APPLICATION_ATOM_XML_ENTRY_TYPE);
-        output.addPart(createdResponse, MediaType.MESSAGE_HTTP_TYPE).getHeaders().putSingle("Content-ID", contentId);
+        parts.add(contentId, createdResponse);
     }
 
 }
@@ -15,7 +15,6 @@
  */
 package org.artificer.server.atom.services;
 
-import org.jboss.resteasy.plugins.providers.atom.Feed;
 import org.artificer.common.MediaType;
 import org.artificer.common.ArtificerConfig;
 
@@ -26,6 +25,7 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.StreamingOutput;
 import java.util.Set;
 
 /**
@@ -53,7 +53,7 @@ public class FeedResource extends AbstractFeedResource {
 	@GET
 	@Path("{model}")
 	@Produces(MediaType.APPLICATION_ATOM_XML_FEED)
-	public Feed getArtifactFeed(
+	public StreamingOutput getArtifactFeed(
 			@Context HttpServletRequest request,
 			@PathParam("model") String model,
 			@QueryParam("startPage") Integer startPage,
@@ -73,7 +73,7 @@ public class FeedResource extends AbstractFeedResource {
 	@GET
 	@Path("{model}/{type}")
 	@Produces(MediaType.APPLICATION_ATOM_XML_FEED)
-	public Feed getArtifactFeed(
+	public StreamingOutput getArtifactFeed(
 			@Context HttpServletRequest request,
 			@PathParam("model") String model,
 			@PathParam("type") String type,
@@ -17,13 +17,13 @@ package org.artificer.server.atom.services;
 
 import org.artificer.common.error.ArtificerServerException;
 import org.artificer.server.i18n.Messages;
-import org.jboss.resteasy.plugins.providers.atom.Feed;
 import org.jboss.resteasy.plugins.providers.multipart.InputPart;
 import org.jboss.resteasy.plugins.providers.multipart.MultipartFormDataInput;
 import org.jboss.resteasy.util.GenericType;
 import org.artificer.common.MediaType;
 import org.artificer.atom.err.ArtificerAtomException;
 import org.artificer.common.ArtificerConfig;
+import org.artificer.common.query.CountMode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,6 +35,7 @@ import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.StreamingOutput;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -62,11 +63,13 @@ public class QueryResource extends AbstractFeedResource {
 	 * @param count
 	 * @param orderBy
 	 * @param asc
-	 * @throws org.artificer.atom.err.ArtificerAtomException
+	 * @param continuation opaque token (from the previous page) selecting the next page by keyset
+	 * @param countMode EXACT (default), ESTIMATE, or NONE
+	 * @throws ArtificerServerException
 	 */
 	@GET
 	@Produces(MediaType.APPLICATION_ATOM_XML_FEED)
-	public Feed queryFromGet(
+	public StreamingOutput queryFromGet(
 			@Context HttpServletRequest request,
 			@QueryParam("query") String query,
 			@QueryParam("startPage") Integer startPage,
@@ -74,10 +77,15 @@ public class QueryResource extends AbstractFeedResource {
 			@QueryParam("count") Integer count,
 			@QueryParam("orderBy") String orderBy,
 			@QueryParam("ascending") Boolean asc,
-			@QueryParam("propertyName") Set<String> propNames) throws ArtificerAtomException {
+			@QueryParam("continuation") String continuation,
+			@QueryParam("countMode") String countMode,
+			@QueryParam("propertyName") Set<String> propNames) throws ArtificerServerException {
 		try {
 			String baseUrl = ArtificerConfig.getBaseUrl(request.getRequestURL().toString());
-			return createArtifactFeed(query, startPage, startIndex, count, orderBy, asc, propNames, baseUrl);
+			return createArtifactFeed(query, startPage, startIndex, count, orderBy, asc, continuation,
+					CountMode.fromString(countMode), propNames, baseUrl);
+		} catch (ArtificerServerException e) {
+			throw e;
 		} catch (Throwable e) {
 			logError(logger, Messages.i18n.format("ERROR_EXECUTING_QUERY", query), e);
 			throw new ArtificerAtomException(e);
@@ -92,7 +100,7 @@ public class QueryResource extends AbstractFeedResource {
 	@POST
 	@Consumes(MediaType.MULTIPART_FORM_DATA)
 	@Produces(MediaType.APPLICATION_ATOM_XML_FEED)
-	public Feed queryFromPost(@Context HttpServletRequest request, MultipartFormDataInput input) throws ArtificerServerException {
+	public StreamingOutput queryFromPost(@Context HttpServletRequest request, MultipartFormDataInput input) throws ArtificerServerException {
 		String query = null;
 		try {
 			String baseUrl = ArtificerConfig.getBaseUrl(request.getRequestURL().toString());
@@ -102,6 +110,8 @@ public class QueryResource extends AbstractFeedResource {
 			Integer count = input.getFormDataPart("count", new GenericType<Integer>() { });
 			String orderBy = input.getFormDataPart("orderBy", new GenericType<String>() { });
 			Boolean asc = input.getFormDataPart("ascending", new GenericType<Boolean>() { });
+			String continuation = input.getFormDataPart("continuation", new GenericType<String>() { });
+			String countMode = input.getFormDataPart("countMode", new GenericType<String>() { });
             Set<String> propNames = new HashSet<String>();
 			List<InputPart> list = input.getFormDataMap().get("propertyName");
 			if (list != null) {
@@ -110,7 +120,8 @@ public class QueryResource extends AbstractFeedResource {
                 }
 			}
 
-			return createArtifactFeed(query, startPage, startIndex, count, orderBy, asc, propNames, baseUrl);
+			return createArtifactFeed(query, startPage, startIndex, count, orderBy, asc, continuation,
+					CountMode.fromString(countMode), propNames, baseUrl);
 		} catch (ArtificerServerException e) {
 			throw e;
 		} catch (Throwable e) {
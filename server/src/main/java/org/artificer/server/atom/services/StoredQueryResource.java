@@ -41,6 +41,7 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.StreamingOutput;
 import java.net.URI;
 import java.util.Date;
 import java.util.Enumeration;
@@ -144,7 +145,7 @@ public class StoredQueryResource extends AbstractFeedResource {
     @GET
     @Path("{queryName}/results")
     @Produces(MediaType.APPLICATION_ATOM_XML_FEED)
-    public Feed getResults(@Context HttpServletRequest request,
+    public StreamingOutput getResults(@Context HttpServletRequest request,
             @PathParam("queryName") String queryName,
             @QueryParam("startPage") Integer startPage,
             @QueryParam("startIndex") Integer startIndex,
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.server.content;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A single, satisfiable byte range of a representation, as requested by an HTTP Range header (RFC 7233).
+ *
+ * @author Brett Meyer
+ */
+public final class ByteRange {
+
+    /**
+     * Requests asking for more (non-adjacent) ranges than this are served in full, rather than as a long
+     * multipart/byteranges response.
+     */
+    public static final int MAX_RANGES = 32;
+
+    private static final String BYTES_UNIT = "bytes=";
+
+    private static final Comparator<ByteRange> BY_START = new Comparator<ByteRange>() {
+        @Override
+        public int compare(ByteRange r1, ByteRange r2) {
+            return r1.start < r2.start ? -1 : (r1.start == r2.start ? 0 : 1);
+        }
+    };
+
+    private final long start;
+
+    private final long end;
+
+    /**
+     * Constructor.
+     * @param start the first byte (inclusive)
+     * @param end the last byte (inclusive)
+     */
+    public ByteRange(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Parses a Range header value against a representation of the given length.  The satisfiable ranges are sorted
+     * and overlapping or adjacent ranges are coalesced, so the result can be written in a single forward pass.
+     *
+     * @param header the Range header (may be null)
+     * @param length the full length of the representation
+     * @return null if the header is missing, malformed, or not worth honoring (the full representation should be
+     * sent), an empty list if none of the ranges are satisfiable (416), otherwise the ranges to send (206)
+     */
+    public static List<ByteRange> parse(String header, long length) {
+        if (header == null || !header.regionMatches(true, 0, BYTES_UNIT, 0, BYTES_UNIT.length())) {
+            return null;
+        }
+
+        List<ByteRange> ranges = new ArrayList<>();
+        for (String spec : header.substring(BYTES_UNIT.length()).split(",")) {
+            spec = spec.trim();
+            int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            try {
+                if (first.isEmpty()) {
+                    // suffix range: the final N bytes
+                    long suffix = Long.parseLong(last);
+                    if (suffix < 0) {
+                        return null;
+                    }
+                    if (suffix > 0 && length > 0) {
+                        ranges.add(new ByteRange(Math.max(0, length - suffix), length - 1));
+                    }
+                } else {
+                    long start = Long.parseLong(first);
+                    long end = last.isEmpty() ? length - 1 : Long.parseLong(last);
+                    if (start < 0 || end < start) {
+                        return null;
+                    }
+                    if (start < length) {
+                        ranges.add(new ByteRange(start, Math.min(end, length - 1)));
+                    }
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        List<ByteRange> coalesced = coalesce(ranges);
+        if (coalesced.size() > MAX_RANGES) {
+            return null;
+        }
+        return coalesced;
+    }
+
+    private static List<ByteRange> coalesce(List<ByteRange> ranges) {
+        if (ranges.size() < 2) {
+            return ranges;
+        }
+        Collections.sort(ranges, BY_START);
+        List<ByteRange> coalesced = new ArrayList<>(ranges.size());
+        ByteRange current = ranges.get(0);
+        for (int i = 1; i < ranges.size(); i++) {
+            ByteRange next = ranges.get(i);
+            if (next.start <= current.end + 1) {
+                current = new ByteRange(current.start, Math.max(current.end, next.end));
+            } else {
+                coalesced.add(current);
+                current = next;
+            }
+        }
+        coalesced.add(current);
+        return coalesced;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public long getLength() {
+        return end - start + 1;
+    }
+
+    /**
+     * @param total the full length of the representation
+     * @return the Content-Range header value for this range
+     */
+    public String toContentRange(long total) {
+        return "bytes " + start + "-" + end + "/" + total;
+    }
+
+    /**
+     * @param total the full length of the representation
+     * @return the Content-Range header value of a 416 response
+     */
+    public static String unsatisfiedContentRange(long total) {
+        return "bytes */" + total;
+    }
+
+    @Override
+    public String toString() {
+        return start + "-" + end;
+    }
+}
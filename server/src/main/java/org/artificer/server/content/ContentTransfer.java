@@ -0,0 +1,256 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.server.content;
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.UUID;
+
+/**
+ * Helpers for serving artifact content over HTTP: validators (ETag, Last-Modified) and their preconditions, and
+ * writing the full content, a single range, or a multipart/byteranges response.
+ *
+ * Content stored on the filesystem (see FilesystemFileManager and ContentAddressedFileManager) is read as a
+ * {@link FileInputStream}, which is written using {@link FileChannel#transferTo(long, long, WritableByteChannel)}
+ * from the requested position, rather than read (or skipped) through a buffer.
+ *
+ * @author Brett Meyer
+ */
+public final class ContentTransfer {
+
+    public static final String MULTIPART_BYTERANGES = "multipart/byteranges";
+
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+
+    private static final byte[] CRLF = "\r\n".getBytes(ASCII);
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final String RFC_1123 = "EEE, dd MMM yyyy HH:mm:ss zzz";
+
+    private ContentTransfer() {
+    }
+
+    /**
+     * @param contentHash the artifact's contentHash
+     * @return the strong entity tag (quoted) of the artifact's content
+     */
+    public static String etag(String contentHash) {
+        return "\"" + contentHash + "\"";
+    }
+
+    /**
+     * @param contentSize the artifact's contentSize (may be null)
+     * @return the length of the artifact's content, or -1 if it's unknown
+     */
+    public static long contentLength(Long contentSize) {
+        return contentSize == null ? -1 : contentSize;
+    }
+
+    /**
+     * HTTP dates have a resolution of one second, so comparisons against them must drop the milliseconds.
+     * @param date
+     * @return the date, truncated to the second
+     */
+    public static Date toHttpDate(Date date) {
+        return new Date(date.getTime() / 1000 * 1000);
+    }
+
+    /**
+     * Evaluates If-None-Match (weak comparison) and, only if that's absent, If-Modified-Since.
+     *
+     * @param ifNoneMatch the If-None-Match header (may be null)
+     * @param ifModifiedSince the If-Modified-Since header, or -1 if absent
+     * @param etag the current (quoted) entity tag
+     * @param lastModified the current modification date
+     * @return true if a GET or HEAD should be answered with 304 (Not Modified)
+     */
+    public static boolean isNotModified(String ifNoneMatch, long ifModifiedSince, String etag, Date lastModified) {
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if ("*".equals(tag) || tag.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return ifModifiedSince >= 0 && toHttpDate(lastModified).getTime() <= ifModifiedSince;
+    }
+
+    /**
+     * Evaluates If-Range.  A range request whose validator no longer matches gets the full content instead.
+     *
+     * @param ifRange the If-Range header (may be null)
+     * @param etag the current (quoted) entity tag
+     * @param lastModified the current modification date
+     * @return true if the Range header should be honored
+     */
+    public static boolean isRangeCurrent(String ifRange, String etag, Date lastModified) {
+        if (ifRange == null) {
+            return true;
+        }
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("W/")) {
+            // If-Range requires a strong comparison
+            return false;
+        }
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(etag);
+        }
+        SimpleDateFormat format = new SimpleDateFormat(RFC_1123, Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        try {
+            return format.parse(ifRange).getTime() == toHttpDate(lastModified).getTime();
+        } catch (ParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return a new, random multipart/byteranges boundary
+     */
+    public static String newBoundary() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+
+    /**
+     * @param boundary
+     * @return the Content-Type of a multipart/byteranges response
+     */
+    public static String multipartType(String boundary) {
+        return MULTIPART_BYTERANGES + "; boundary=" + boundary;
+    }
+
+    /**
+     * Writes the full content.  Closes neither stream.
+     * @param input
+     * @param output
+     * @throws IOException
+     */
+    public static void transfer(InputStream input, OutputStream output) throws IOException {
+        if (input instanceof FileInputStream) {
+            FileChannel channel = ((FileInputStream) input).getChannel();
+            transfer(channel, output, 0, channel.size());
+        } else {
+            IOUtils.copyLarge(input, output);
+        }
+        output.flush();
+    }
+
+    /**
+     * Writes a single range of the content.  Closes neither stream.
+     * @param input positioned at the start of the content
+     * @param output
+     * @param range
+     * @throws IOException
+     */
+    public static void transfer(InputStream input, OutputStream output, ByteRange range) throws IOException {
+        transfer(input, output, 0, range);
+        output.flush();
+    }
+
+    /**
+     * Writes a multipart/byteranges body.  Closes neither stream.
+     * @param input positioned at the start of the content
+     * @param output
+     * @param ranges sorted and non-overlapping (see {@link ByteRange#parse(String, long)})
+     * @param contentType the content's own media type
+     * @param total the full length of the content
+     * @param boundary
+     * @throws IOException
+     */
+    public static void transfer(InputStream input, OutputStream output, List<ByteRange> ranges, String contentType,
+            long total, String boundary) throws IOException {
+        long position = 0;
+        for (ByteRange range : ranges) {
+            output.write(("--" + boundary).getBytes(ASCII));
+            output.write(CRLF);
+            output.write(("Content-Type: " + contentType).getBytes(ASCII));
+            output.write(CRLF);
+            output.write(("Content-Range: " + range.toContentRange(total)).getBytes(ASCII));
+            output.write(CRLF);
+            output.write(CRLF);
+            position = transfer(input, output, position, range);
+            output.write(CRLF);
+        }
+        output.write(("--" + boundary + "--").getBytes(ASCII));
+        output.write(CRLF);
+        output.flush();
+    }
+
+    /**
+     * @param input
+     * @param output
+     * @param position the current position of the input (ignored for files, which are read by absolute position)
+     * @param range
+     * @return the new position of the input
+     * @throws IOException
+     */
+    private static long transfer(InputStream input, OutputStream output, long position, ByteRange range)
+            throws IOException {
+        if (input instanceof FileInputStream) {
+            transfer(((FileInputStream) input).getChannel(), output, range.getStart(), range.getLength());
+            return position;
+        }
+
+        IOUtils.skipFully(input, range.getStart() - position);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long remaining = range.getLength();
+        while (remaining > 0) {
+            int read = input.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read < 0) {
+                throw new EOFException();
+            }
+            output.write(buffer, 0, read);
+            remaining -= read;
+        }
+        return range.getEnd() + 1;
+    }
+
+    private static void transfer(FileChannel channel, OutputStream output, long position, long count)
+            throws IOException {
+        // Not closed: that would close the output as well.
+        WritableByteChannel target = Channels.newChannel(output);
+        long remaining = count;
+        while (remaining > 0) {
+            long transferred = channel.transferTo(position, remaining, target);
+            if (transferred <= 0 && position >= channel.size()) {
+                throw new EOFException();
+            }
+            position += transferred;
+            remaining -= transferred;
+        }
+    }
+}
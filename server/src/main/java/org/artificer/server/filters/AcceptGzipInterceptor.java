@@ -0,0 +1,108 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.server.filters;
+
+import org.jboss.resteasy.annotations.interception.HeaderDecoratorPrecedence;
+import org.jboss.resteasy.annotations.interception.ServerInterceptor;
+import org.jboss.resteasy.spi.ResteasyProviderFactory;
+import org.jboss.resteasy.spi.interception.MessageBodyWriterContext;
+import org.jboss.resteasy.spi.interception.MessageBodyWriterInterceptor;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Gzips textual (Atom, XML, text, JSON) responses for clients that accept it.  This only marks the response with
+ * Content-Encoding: RESTEasy's built-in GZIPEncodingInterceptor does the actual compression.
+ *
+ * Responses with an explicit Content-Length or Content-Range (artifact content) are left alone, since those headers
+ * describe the unencoded bytes.
+ *
+ * @author Brett Meyer
+ */
+@Provider
+@ServerInterceptor
+@HeaderDecoratorPrecedence
+public class AcceptGzipInterceptor implements MessageBodyWriterInterceptor {
+
+    @Override
+    public void write(MessageBodyWriterContext context) throws IOException, WebApplicationException {
+        MultivaluedMap<String, Object> headers = context.getHeaders();
+        if (isCompressible(context.getMediaType()) && !headers.containsKey(HttpHeaders.CONTENT_ENCODING)
+                && !headers.containsKey(HttpHeaders.CONTENT_LENGTH) && !headers.containsKey("Content-Range")) {
+            headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (acceptsGzip()) {
+                headers.putSingle(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+        }
+        context.proceed();
+    }
+
+    private boolean acceptsGzip() {
+        HttpHeaders headers = ResteasyProviderFactory.getContextData(HttpHeaders.class);
+        if (headers == null) {
+            return false;
+        }
+        return acceptsGzip(headers.getRequestHeader(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    /**
+     * @param acceptEncodings the Accept-Encoding request header values, or null
+     * @return true if gzip is among them, and not refused with q=0
+     */
+    static boolean acceptsGzip(List<String> acceptEncodings) {
+        if (acceptEncodings == null) {
+            return false;
+        }
+        for (String acceptEncoding : acceptEncodings) {
+            for (String coding : acceptEncoding.split(",")) {
+                String[] params = coding.split(";");
+                if ("gzip".equalsIgnoreCase(params[0].trim()) && quality(params) > 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static float quality(String[] params) {
+        for (int i = 1; i < params.length; i++) {
+            String param = params[i].trim().toLowerCase();
+            if (param.startsWith("q=")) {
+                try {
+                    return Float.parseFloat(param.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private boolean isCompressible(MediaType mediaType) {
+        if (mediaType == null) {
+            return false;
+        }
+        String type = mediaType.getType();
+        String subtype = mediaType.getSubtype();
+        return "text".equals(type) || "xml".equals(subtype) || subtype.endsWith("+xml") || "json".equals(subtype);
+    }
+}
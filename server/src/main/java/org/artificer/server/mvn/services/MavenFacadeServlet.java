@@ -22,11 +22,13 @@ import org.artificer.common.ArtificerModelUtils;
 import org.artificer.common.maven.MavenGavInfo;
 import org.artificer.common.maven.MavenUtil;
 import org.artificer.common.query.ArtifactSummary;
-import org.artificer.repository.query.PagedResult;
 import org.artificer.server.ArtifactServiceImpl;
 import org.artificer.server.QueryServiceImpl;
+import org.artificer.server.content.ByteRange;
+import org.artificer.server.content.ContentTransfer;
 import org.artificer.server.i18n.Messages;
 import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactType;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.DocumentArtifactType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,9 +40,15 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.security.MessageDigest;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -55,8 +63,12 @@ public class MavenFacadeServlet extends HttpServlet {
     private static final Logger LOGGER = LoggerFactory.getLogger(MavenFacadeServlet.class);
     private static final boolean SNAPSHOT_ALLOWED = ArtificerConfig.isSnapshotAllowed();
 
+    private static final Set<String> GAV_PROPERTIES = new HashSet<String>(Arrays.asList(
+            "maven.classifier", "maven.hash.md5", "maven.hash.sha1"));
+
     private final ArtifactServiceImpl artifactService = new ArtifactServiceImpl();
     private final QueryServiceImpl queryService = new QueryServiceImpl();
+    private final MavenMetaDataCache cache = MavenMetaDataCache.getInstance();
 
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException,
@@ -64,14 +76,10 @@ public class MavenFacadeServlet extends HttpServlet {
         try {
             MavenGavInfo gavInfo = MavenGavInfo.fromUrl(req.getRequestURI());
 
-            if (gavInfo.isMavenMetaData() && gavInfo.getVersion() == null) {
-                writeResponse(doGenerateArtifactDirMavenMetaData(gavInfo), gavInfo, resp);
-            } else if (gavInfo.isMavenMetaData() && gavInfo.getVersion() != null) {
-                writeResponse(doGenerateSnapshotMavenMetaData(gavInfo), gavInfo, resp);
-            } else if (gavInfo.isHash()) {
-                writeResponse(doGetHash(gavInfo, req), gavInfo, resp);
+            if (gavInfo.isMavenMetaData() || gavInfo.isHash()) {
+                writeResponse(getDocument(gavInfo, req), gavInfo, resp);
             } else {
-                writeResponse(findExistingArtifact(gavInfo), gavInfo, resp);
+                writeResponse(findExistingArtifact(gavInfo), gavInfo, req, resp);
             }
         } catch (MavenRepositoryException e) {
             LOGGER.warn(Messages.i18n.format("MAVEN_GET_ERROR"), e);
@@ -92,13 +100,89 @@ public class MavenFacadeServlet extends HttpServlet {
         }
     }
 
-    private void writeResponse(BaseArtifactType artifact, MavenGavInfo gavInfo, HttpServletResponse resp) throws Exception {
+    /**
+     * Writes the artifact's content.  Same as the S-RAMP content endpoint: the ETag is the contentHash, conditional
+     * requests are answered with 304, and byte ranges are supported.  HEAD (see {@link HttpServlet#doHead}) never
+     * opens the content.
+     */
+    private void writeResponse(BaseArtifactType artifact, MavenGavInfo gavInfo, HttpServletRequest req,
+            HttpServletResponse resp) throws Exception {
         if (artifact != null) {
             ArtifactType artifactType = ArtifactType.valueOf(artifact);
-            resp.setContentType(artifactType.getMimeType());
+            DocumentArtifactType document = artifactService.checkContent(artifactType, artifact);
+            String mimeType = artifactType.getMimeType();
+            // checkContent guarantees the contentHash, but not the contentSize.  Without the latter, the response
+            // goes without Content-Length (and ranges).
+            long contentSize = ContentTransfer.contentLength(document.getContentSize());
+            String etag = ContentTransfer.etag(document.getContentHash());
+            Date lastModified = ContentTransfer.toHttpDate(
+                    artifact.getLastModifiedTimestamp().toGregorianCalendar().getTime());
+
+            resp.setHeader("ETag", etag);
+            resp.setDateHeader("Last-Modified", lastModified.getTime());
+            resp.setHeader("Accept-Ranges", "bytes");
+            if (ContentTransfer.isNotModified(req.getHeader("If-None-Match"), getDateHeader(req, "If-Modified-Since"),
+                    etag, lastModified)) {
+                resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+
+            // Range is only defined for GET.
+            List<ByteRange> ranges = null;
+            if ("GET".equals(req.getMethod()) && contentSize >= 0
+                    && ContentTransfer.isRangeCurrent(req.getHeader("If-Range"), etag, lastModified)) {
+                ranges = ByteRange.parse(req.getHeader("Range"), contentSize);
+            }
+            if (ranges != null && ranges.isEmpty()) {
+                resp.setHeader("Content-Range", ByteRange.unsatisfiedContentRange(contentSize));
+                resp.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+
             resp.addHeader("Content-Disposition",
                     "attachment; filename=" + gavInfo.getName());
-            IOUtils.copy(artifactService.getContent(artifactType, artifact), resp.getOutputStream());
+            String boundary = null;
+            if (ranges == null) {
+                resp.setContentType(mimeType);
+                if (contentSize >= 0) {
+                    resp.setHeader("Content-Length", String.valueOf(contentSize));
+                }
+            } else if (ranges.size() == 1) {
+                resp.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                resp.setContentType(mimeType);
+                resp.setHeader("Content-Range", ranges.get(0).toContentRange(contentSize));
+                resp.setHeader("Content-Length", String.valueOf(ranges.get(0).getLength()));
+            } else {
+                boundary = ContentTransfer.newBoundary();
+                resp.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                resp.setContentType(ContentTransfer.multipartType(boundary));
+            }
+            if ("HEAD".equals(req.getMethod())) {
+                return;
+            }
+
+            InputStream inputStream = artifactService.getContent(artifactType, artifact);
+            try {
+                if (ranges == null) {
+                    ContentTransfer.transfer(inputStream, resp.getOutputStream());
+                } else if (boundary == null) {
+                    ContentTransfer.transfer(inputStream, resp.getOutputStream(), ranges.get(0));
+                } else {
+                    ContentTransfer.transfer(inputStream, resp.getOutputStream(), ranges, mimeType, contentSize,
+                            boundary);
+                }
+            } finally {
+                IOUtils.closeQuietly(inputStream);
+            }
+        }
+    }
+
+    private long getDateHeader(HttpServletRequest req, String name) {
+        try {
+            return req.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            // unparseable -- same as absent
+            return -1;
         }
     }
 
@@ -132,6 +216,29 @@ public class MavenFacadeServlet extends HttpServlet {
         }
     }
 
+    /**
+     * Returns the maven-metadata.xml or checksum document for the request, generating (and caching) it if necessary.
+     * @param gavInfo
+     * @param req
+     * @throws Exception
+     */
+    private String getDocument(MavenGavInfo gavInfo, HttpServletRequest req) throws Exception {
+        String key = req.getRequestURI();
+        String rval = cache.get(gavInfo.getGroupId(), gavInfo.getArtifactId(), key);
+        if (rval == null) {
+            long generation = cache.generation();
+            if (gavInfo.isMavenMetaData() && gavInfo.getVersion() == null) {
+                rval = doGenerateArtifactDirMavenMetaData(gavInfo);
+            } else if (gavInfo.isMavenMetaData()) {
+                rval = doGenerateSnapshotMavenMetaData(gavInfo);
+            } else {
+                rval = doGetHash(gavInfo, req);
+            }
+            cache.put(gavInfo.getGroupId(), gavInfo.getArtifactId(), key, rval, generation);
+        }
+        return rval;
+    }
+
     /**
      * Generates the maven-metadata.xml file dynamically for a given groupId/artifactId pair.  This will
      * list all of the versions available for that groupId+artifactId, along with the latest release and
@@ -139,10 +246,12 @@ public class MavenFacadeServlet extends HttpServlet {
      * @param gavInfo
      */
     private String doGenerateArtifactDirMavenMetaData(MavenGavInfo gavInfo) throws Exception {
-        PagedResult<ArtifactSummary> artifacts = queryService.query(
-                "/s-ramp[@maven.groupId = '" + gavInfo.getGroupId() + "' and @maven.artifactId = '" + gavInfo.getArtifactId() + "']",
-                "createdTimestamp", true);
-        if (artifacts.getTotalSize() == 0) {
+        Map<String, String> criteria = new LinkedHashMap<String, String>();
+        criteria.put("maven.groupId", gavInfo.getGroupId());
+        criteria.put("maven.artifactId", gavInfo.getArtifactId());
+        List<ArtifactSummary> artifacts = queryService.queryProperties(criteria,
+                Collections.singleton("maven.version"), "createdTimestamp", true);
+        if (artifacts.isEmpty()) {
             return null;
         }
 
@@ -154,10 +263,8 @@ public class MavenFacadeServlet extends HttpServlet {
 
         LinkedHashSet<String> versions = new LinkedHashSet<String>();
         SimpleDateFormat format = new SimpleDateFormat("yyyyMMddHHmmss");
-        for (ArtifactSummary artifactSummary : artifacts.getResults()) {
-            BaseArtifactType artifact = artifactService.getMetaData(
-                    artifactSummary.getModel(), artifactSummary.getType(), artifactSummary.getUuid());
-            String version = ArtificerModelUtils.getCustomProperty(artifact, "maven.version");
+        for (ArtifactSummary artifactSummary : artifacts) {
+            String version = artifactSummary.getProperty("maven.version");
             if (versions.add(version)) {
                 latest = version;
                 if (!version.endsWith("-SNAPSHOT")) {
@@ -198,12 +305,13 @@ public class MavenFacadeServlet extends HttpServlet {
      * @throws Exception
      */
     private String doGenerateSnapshotMavenMetaData(MavenGavInfo gavInfo) throws Exception {
-        PagedResult<ArtifactSummary> artifacts = queryService.query(
-                "/s-ramp[@maven.groupId = '" + gavInfo.getGroupId() + "'" +
-                        " and @maven.artifactId = '" + gavInfo.getArtifactId() + "'" +
-                        " and @maven.version = '" + gavInfo.getVersion() + "']",
-                "createdTimestamp", true);
-        if (artifacts.getTotalSize() == 0) {
+        Map<String, String> criteria = new LinkedHashMap<String, String>();
+        criteria.put("maven.groupId", gavInfo.getGroupId());
+        criteria.put("maven.artifactId", gavInfo.getArtifactId());
+        criteria.put("maven.version", gavInfo.getVersion());
+        List<ArtifactSummary> artifacts = queryService.queryProperties(criteria,
+                Arrays.asList("maven.type", "maven.classifier"), "createdTimestamp", true);
+        if (artifacts.isEmpty()) {
             return null;
         }
 
@@ -214,13 +322,11 @@ public class MavenFacadeServlet extends HttpServlet {
         snapshotVersions.append("    <snapshotVersions>\n");
         Set<String> processed = new HashSet<String>();
         Calendar latestDate = null;
-        for (ArtifactSummary artifactSummary : artifacts.getResults()) {
-            BaseArtifactType artifact = artifactService.getMetaData(
-                    artifactSummary.getModel(), artifactSummary.getType(), artifactSummary.getUuid());
-            String extension = ArtificerModelUtils.getCustomProperty(artifact, "maven.type");
-            String classifier = ArtificerModelUtils.getCustomProperty(artifact, "maven.classifier");
+        for (ArtifactSummary artifactSummary : artifacts) {
+            String extension = artifactSummary.getProperty("maven.type");
+            String classifier = artifactSummary.getProperty("maven.classifier");
             String value = gavInfo.getVersion();
-            Calendar updatedDate = artifact.getLastModifiedTimestamp().toGregorianCalendar();
+            Calendar updatedDate = artifactSummary.getLastModifiedTimestamp();
             String updated = updatedFormat.format(updatedDate.getTime());
             String pkey = classifier+"::"+extension;
             if (processed.add(pkey)) {
@@ -284,11 +390,15 @@ public class MavenFacadeServlet extends HttpServlet {
         }
 
         MavenGavInfo primaryGavInfo = gavWithoutHash(req, hashExtensionLength);
-        BaseArtifactType artifact = findExistingArtifact(primaryGavInfo);
+        ArtifactSummary artifactSummary = findExistingSummaryByGAV(primaryGavInfo);
+        if (artifactSummary != null) {
+            return artifactSummary.getProperty(hashPropName);
+        }
+
+        BaseArtifactType artifact = findExistingArtifactByUniversal(primaryGavInfo);
         if (artifact == null) {
             return null;
         }
-
         return ArtificerModelUtils.getCustomProperty(artifact, hashPropName);
     }
 
@@ -312,24 +422,35 @@ public class MavenFacadeServlet extends HttpServlet {
      * @throws Exception
      */
     private BaseArtifactType findExistingArtifactByGAV(MavenGavInfo gavInfo) throws Exception {
-        String query = MavenUtil.gavQuery(gavInfo);
-
-        PagedResult<ArtifactSummary> artifacts = queryService.query(query, "createdTimestamp", false);
-        if (artifacts.getTotalSize() > 0) {
-            for (ArtifactSummary artifactSummary : artifacts.getResults()) {
-                BaseArtifactType artifact = artifactService.getMetaData(
-                        artifactSummary.getModel(), artifactSummary.getType(), artifactSummary.getUuid());
-                // If no classifier in the GAV info, only return the artifact that also has no classifier
-                // TODO replace this with "not(@maven.classifer)" in the query, then force the result set to return 2 items (expecting only 1)
-                if (gavInfo.getClassifier() == null) {
-                    String artyClassifier = ArtificerModelUtils.getCustomProperty(artifact, "maven.classifier");
-                    if (artyClassifier == null) {
-                        return artifact;
-                    }
-                } else {
-                    // If classifier was supplied in the GAV info, we'll get the first artifact <shrug>
-                    return artifact;
+        ArtifactSummary artifactSummary = findExistingSummaryByGAV(gavInfo);
+        if (artifactSummary == null) {
+            return null;
+        }
+        return artifactService.getMetaData(
+                artifactSummary.getModel(), artifactSummary.getType(), artifactSummary.getUuid());
+    }
+
+    /**
+     * Finds a summary of the existing artifact that matches the GAV information, including its classifier and
+     * hashes, without loading any of the candidate artifacts.
+     * @param gavInfo
+     * @return a summary of the s-ramp artifact (if found) or null (if not found)
+     * @throws Exception
+     */
+    private ArtifactSummary findExistingSummaryByGAV(MavenGavInfo gavInfo) throws Exception {
+        List<ArtifactSummary> artifacts = queryService.queryProperties(MavenUtil.gavCriteria(gavInfo),
+                GAV_PROPERTIES, "createdTimestamp", false);
+        for (ArtifactSummary artifactSummary : artifacts) {
+            // If no classifier in the GAV info, only return the artifact that also has no classifier
+            // TODO replace this with "not(@maven.classifer)" in the query, then force the result set to return 2 items (expecting only 1)
+            if (gavInfo.getClassifier() == null) {
+                String artyClassifier = artifactSummary.getProperty("maven.classifier");
+                if (artyClassifier == null) {
+                    return artifactSummary;
                 }
+            } else {
+                // If classifier was supplied in the GAV info, we'll get the first artifact <shrug>
+                return artifactSummary;
             }
         }
         return null;
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.server.mvn.services;
+
+import org.apache.commons.lang.StringUtils;
+import org.artificer.common.ArtificerConfig;
+import org.artificer.common.ArtificerModelUtils;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactType;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds the documents the Maven facade generates on every request (maven-metadata.xml, its checksums, and artifact
+ * checksums), keyed by groupId:artifactId.  Creating, updating, or deleting an artifact invalidates everything cached
+ * for its groupId:artifactId (as well as its 'universal' model.type:uuid form).
+ *
+ * Invalidation is local to the node, so entries also expire after 'artificer.config.maven.cache.ttl', bounding how
+ * long a clustered node can serve stale metadata.
+ *
+ * @author Brett Meyer
+ */
+public class MavenMetaDataCache {
+
+    private static final MavenMetaDataCache INSTANCE = new MavenMetaDataCache(
+            ArtificerConfig.getMavenCacheSize(), ArtificerConfig.getMavenCacheTtl());
+
+    public static MavenMetaDataCache getInstance() {
+        return INSTANCE;
+    }
+
+    private final int maxSize;
+
+    private final long ttl;
+
+    // Bumped by every invalidation.  A document generated while a write was in flight must not be cached, since it
+    // may have been built from the pre-write state.
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Map<String, Entry> entries;
+
+    public MavenMetaDataCache(final int maxSize, long ttl) {
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * @return the current generation, to be captured *before* generating a document and then given to
+     * {@link #put(String, String, String, String, long)}
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    public String get(String groupId, String artifactId, String key) {
+        if (maxSize <= 0) {
+            return null;
+        }
+        synchronized (entries) {
+            Entry entry = entries.get(key(groupId, artifactId, key));
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expires < System.currentTimeMillis()) {
+                entries.remove(key(groupId, artifactId, key));
+                return null;
+            }
+            return entry.value;
+        }
+    }
+
+    public void put(String groupId, String artifactId, String key, String value, long generation) {
+        if (maxSize <= 0 || value == null) {
+            return;
+        }
+        synchronized (entries) {
+            // Checked under the lock, since invalidation also holds it.
+            if (generation == this.generation.get()) {
+                entries.put(key(groupId, artifactId, key), new Entry(value, System.currentTimeMillis() + ttl));
+            }
+        }
+    }
+
+    /**
+     * Invalidates everything cached for the artifact's Maven groupId:artifactId (if it has one), as well as anything
+     * cached for it through its universal form.
+     * @param artifact
+     */
+    public void invalidate(BaseArtifactType artifact) {
+        if (artifact == null) {
+            return;
+        }
+        String groupId = ArtificerModelUtils.getCustomProperty(artifact, "maven.groupId");
+        String artifactId = ArtificerModelUtils.getCustomProperty(artifact, "maven.artifactId");
+        String gaPrefix = StringUtils.isNotBlank(groupId) && StringUtils.isNotBlank(artifactId)
+                ? key(groupId, artifactId, "") : null;
+        String universalSuffix = ":" + artifact.getUuid() + "|";
+
+        synchronized (entries) {
+            generation.incrementAndGet();
+            Iterator<String> keys = entries.keySet().iterator();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                if ((gaPrefix != null && key.startsWith(gaPrefix)) || key.contains(universalSuffix)) {
+                    keys.remove();
+                }
+            }
+        }
+    }
+
+    private static String key(String groupId, String artifactId, String key) {
+        return groupId + ":" + artifactId + "|" + key;
+    }
+
+    private static class Entry {
+
+        private final String value;
+
+        private final long expires;
+
+        private Entry(String value, long expires) {
+            this.value = value;
+            this.expires = expires;
+        }
+    }
+}
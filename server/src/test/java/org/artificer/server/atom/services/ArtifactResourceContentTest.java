@@ -0,0 +1,167 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.server.atom.services;
+
+import org.artificer.atom.providers.ArtificerNotFoundExceptionProvider;
+import org.artificer.repository.AuditManager;
+import org.artificer.repository.PersistenceManager;
+import org.artificer.repository.QueryManager;
+import org.artificer.repository.RepositoryProvider;
+import org.artificer.repository.RepositoryProviderFactory;
+import org.jboss.resteasy.core.Dispatcher;
+import org.jboss.resteasy.mock.MockDispatcherFactory;
+import org.jboss.resteasy.mock.MockHttpRequest;
+import org.jboss.resteasy.mock.MockHttpResponse;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactEnum;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.XmlDocument;
+
+import javax.ws.rs.core.EntityTag;
+import javax.xml.datatype.DatatypeFactory;
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.GregorianCalendar;
+
+/**
+ * Tests the headers of {@link ArtifactResource}'s content responses, for artifacts missing their contentSize or
+ * contentHash.
+ *
+ * @author Brett Meyer
+ */
+public class ArtifactResourceContentTest {
+
+    private static final String UUID = "7d2c6b8e-3a5f-4e21-9c1d-0b4f6a8e2d13";
+
+    private static final byte[] CONTENT = "<po/>".getBytes();
+
+    private final XmlDocument artifact = new XmlDocument();
+
+    private Dispatcher dispatcher;
+
+    @Before
+    public void before() throws Exception {
+        artifact.setUuid(UUID);
+        artifact.setName("PO.xml");
+        artifact.setArtifactType(BaseArtifactEnum.XML_DOCUMENT);
+        artifact.setContentType("application/xml");
+        artifact.setContentSize((long) CONTENT.length);
+        artifact.setContentHash("2fd4e1c67a2d28fced849ee1bb76e7391b93eb12");
+        artifact.setLastModifiedTimestamp(DatatypeFactory.newInstance().newXMLGregorianCalendar(
+                new GregorianCalendar()));
+
+        // Only what the content endpoint needs.
+        final PersistenceManager persistenceManager = (PersistenceManager) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[] {PersistenceManager.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if ("getArtifact".equals(method.getName())) {
+                            return artifact;
+                        } else if ("getArtifactContent".equals(method.getName())) {
+                            return new ByteArrayInputStream(CONTENT);
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        RepositoryProviderFactory.overrideProvider(new RepositoryProvider() {
+            @Override
+            public String name() {
+                return null;
+            }
+            @Override
+            public PersistenceManager persistenceManager() {
+                return persistenceManager;
+            }
+            @Override
+            public QueryManager queryManager() {
+                return null;
+            }
+            @Override
+            public AuditManager auditManager() {
+                return null;
+            }
+        });
+
+        dispatcher = MockDispatcherFactory.createDispatcher();
+        dispatcher.getRegistry().addPerRequestResource(ArtifactResource.class);
+        dispatcher.getProviderFactory().registerProvider(ArtificerNotFoundExceptionProvider.class);
+    }
+
+    @After
+    public void after() {
+        RepositoryProviderFactory.overrideProvider(null);
+    }
+
+    @Test
+    public void testContent() throws Exception {
+        MockHttpResponse response = get(null);
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals(new EntityTag(artifact.getContentHash()),
+                response.getOutputHeaders().getFirst("ETag"));
+        Assert.assertEquals(String.valueOf(CONTENT.length), header(response, "Content-Length"));
+        Assert.assertArrayEquals(CONTENT, response.getOutput());
+    }
+
+    @Test
+    public void testNoContentSize() throws Exception {
+        artifact.setContentSize(null);
+
+        // Served, without a Content-Length
+        MockHttpResponse response = get(null);
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals(new EntityTag(artifact.getContentHash()),
+                response.getOutputHeaders().getFirst("ETag"));
+        Assert.assertNull(header(response, "Content-Length"));
+        Assert.assertArrayEquals(CONTENT, response.getOutput());
+
+        // ... and in full, since the range can't be checked against the size
+        response = get("bytes=0-1");
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertNull(header(response, "Content-Range"));
+        Assert.assertArrayEquals(CONTENT, response.getOutput());
+    }
+
+    @Test
+    public void testNoContentHash() throws Exception {
+        // The content can't be read (content-addressed storage is keyed by the hash) or validated without it.
+        for (String contentHash : new String[] {null, ""}) {
+            artifact.setContentHash(contentHash);
+            MockHttpResponse response = get(null);
+            Assert.assertEquals(404, response.getStatus());
+            Assert.assertNull(header(response, "ETag"));
+            Assert.assertNull(header(response, "Content-Length"));
+        }
+    }
+
+    private MockHttpResponse get(String range) throws Exception {
+        MockHttpRequest request = MockHttpRequest.get("/s-ramp/core/XmlDocument/" + UUID + "/media");
+        if (range != null) {
+            request.header("Range", range);
+        }
+        MockHttpResponse response = new MockHttpResponse();
+        dispatcher.invoke(request, response);
+        return response;
+    }
+
+    private static String header(MockHttpResponse response, String name) {
+        Object value = response.getOutputHeaders().getFirst(name);
+        return value == null ? null : value.toString();
+    }
+}
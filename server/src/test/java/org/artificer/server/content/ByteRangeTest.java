@@ -0,0 +1,159 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.server.content;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Tests {@link ByteRange} parsing and the range handling of {@link ContentTransfer}.
+ *
+ * @author Brett Meyer
+ */
+public class ByteRangeTest {
+
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+
+    private static final byte[] CONTENT = "0123456789abcdefghij".getBytes(ASCII);
+
+    @Test
+    public void testParse() {
+        Assert.assertNull(ByteRange.parse(null, 20));
+        Assert.assertNull(ByteRange.parse("items=0-1", 20));
+        Assert.assertNull(ByteRange.parse("bytes=5-2", 20));
+        Assert.assertNull(ByteRange.parse("bytes=a-b", 20));
+
+        assertRanges(ByteRange.parse("bytes=0-4", 20), "0-4");
+        assertRanges(ByteRange.parse("bytes=15-", 20), "15-19");
+        assertRanges(ByteRange.parse("bytes=-5", 20), "15-19");
+        assertRanges(ByteRange.parse("bytes=-50", 20), "0-19");
+        assertRanges(ByteRange.parse("bytes=10-100", 20), "10-19");
+
+        // sorted, overlapping and adjacent ranges coalesced, unsatisfiable ones dropped
+        assertRanges(ByteRange.parse("bytes=10-12, 0-2, 3-4, 11-15, 30-40", 20), "0-4", "10-15");
+
+        // nothing satisfiable
+        Assert.assertTrue(ByteRange.parse("bytes=20-30", 20).isEmpty());
+        Assert.assertTrue(ByteRange.parse("bytes=-0", 20).isEmpty());
+    }
+
+    @Test
+    public void testParseTooManyRanges() {
+        StringBuilder header = new StringBuilder("bytes=");
+        for (int i = 0; i <= ByteRange.MAX_RANGES; i++) {
+            header.append(i * 2).append('-').append(i * 2).append(',');
+        }
+        Assert.assertNull(ByteRange.parse(header.toString(), 1000));
+    }
+
+    @Test
+    public void testConditionals() {
+        Date lastModified = new Date(1400000000123L);
+        String etag = ContentTransfer.etag("abc");
+        Assert.assertEquals("\"abc\"", etag);
+
+        Assert.assertTrue(ContentTransfer.isNotModified("\"xyz\", \"abc\"", -1, etag, lastModified));
+        Assert.assertTrue(ContentTransfer.isNotModified("W/\"abc\"", -1, etag, lastModified));
+        Assert.assertTrue(ContentTransfer.isNotModified("*", -1, etag, lastModified));
+        // If-None-Match wins over If-Modified-Since
+        Assert.assertFalse(ContentTransfer.isNotModified("\"xyz\"", 1400000000000L, etag, lastModified));
+        Assert.assertTrue(ContentTransfer.isNotModified(null, 1400000000000L, etag, lastModified));
+        Assert.assertFalse(ContentTransfer.isNotModified(null, 1399999999000L, etag, lastModified));
+        Assert.assertFalse(ContentTransfer.isNotModified(null, -1, etag, lastModified));
+
+        Assert.assertTrue(ContentTransfer.isRangeCurrent(null, etag, lastModified));
+        Assert.assertTrue(ContentTransfer.isRangeCurrent("\"abc\"", etag, lastModified));
+        Assert.assertFalse(ContentTransfer.isRangeCurrent("W/\"abc\"", etag, lastModified));
+        Assert.assertFalse(ContentTransfer.isRangeCurrent("\"xyz\"", etag, lastModified));
+        Assert.assertTrue(ContentTransfer.isRangeCurrent("Tue, 13 May 2014 16:53:20 GMT", etag, lastModified));
+        Assert.assertFalse(ContentTransfer.isRangeCurrent("Tue, 13 May 2014 16:53:21 GMT", etag, lastModified));
+    }
+
+    @Test
+    public void testContentLength() {
+        Assert.assertEquals(-1, ContentTransfer.contentLength(null));
+        Assert.assertEquals(0, ContentTransfer.contentLength(0L));
+        Assert.assertEquals(20, ContentTransfer.contentLength(20L));
+    }
+
+    @Test
+    public void testTransferStream() throws Exception {
+        doTestTransfer(new ByteArrayInputStream(CONTENT), new ByteArrayInputStream(CONTENT),
+                new ByteArrayInputStream(CONTENT));
+    }
+
+    @Test
+    public void testTransferFile() throws Exception {
+        File file = File.createTempFile("artificer-range", ".txt");
+        try {
+            Files.write(file.toPath(), CONTENT);
+            FileInputStream full = new FileInputStream(file);
+            FileInputStream single = new FileInputStream(file);
+            FileInputStream multi = new FileInputStream(file);
+            try {
+                doTestTransfer(full, single, multi);
+            } finally {
+                full.close();
+                single.close();
+                multi.close();
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    private void doTestTransfer(InputStream full, InputStream single, InputStream multi) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ContentTransfer.transfer(full, output);
+        Assert.assertArrayEquals(CONTENT, output.toByteArray());
+
+        output = new ByteArrayOutputStream();
+        ContentTransfer.transfer(single, output, new ByteRange(5, 9));
+        Assert.assertEquals("56789", new String(output.toByteArray(), ASCII));
+
+        output = new ByteArrayOutputStream();
+        List<ByteRange> ranges = ByteRange.parse("bytes=-3,2-4", CONTENT.length);
+        ContentTransfer.transfer(multi, output, ranges, "text/plain", CONTENT.length, "BOUNDARY");
+        String expected = "--BOUNDARY\r\n"
+                + "Content-Type: text/plain\r\n"
+                + "Content-Range: bytes 2-4/20\r\n"
+                + "\r\n"
+                + "234\r\n"
+                + "--BOUNDARY\r\n"
+                + "Content-Type: text/plain\r\n"
+                + "Content-Range: bytes 17-19/20\r\n"
+                + "\r\n"
+                + "hij\r\n"
+                + "--BOUNDARY--\r\n";
+        Assert.assertEquals(expected, new String(output.toByteArray(), ASCII));
+    }
+
+    private void assertRanges(List<ByteRange> ranges, String... expected) {
+        Assert.assertNotNull(ranges);
+        Assert.assertEquals(Arrays.asList(expected).toString(), ranges.toString());
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.server.filters;
+
+import org.jboss.resteasy.specimpl.HttpHeadersImpl;
+import org.jboss.resteasy.specimpl.MultivaluedMapImpl;
+import org.jboss.resteasy.spi.ResteasyProviderFactory;
+import org.jboss.resteasy.spi.interception.MessageBodyWriterContext;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Tests the Accept-Encoding handling of {@link AcceptGzipInterceptor}.
+ *
+ * @author Brett Meyer
+ */
+public class AcceptGzipInterceptorTest {
+
+    @After
+    public void clearContext() {
+        ResteasyProviderFactory.clearContextData();
+    }
+
+    @Test
+    public void testAcceptsGzip() {
+        Assert.assertFalse(AcceptGzipInterceptor.acceptsGzip(null));
+        Assert.assertFalse(acceptsGzip(""));
+        Assert.assertFalse(acceptsGzip("deflate"));
+        Assert.assertFalse(acceptsGzip("x-gzip"));
+
+        Assert.assertTrue(acceptsGzip("gzip"));
+        Assert.assertTrue(acceptsGzip("GZIP"));
+        Assert.assertTrue(acceptsGzip("deflate, gzip"));
+        Assert.assertTrue(acceptsGzip("gzip;q=0.5"));
+        Assert.assertTrue(acceptsGzip("gzip ; q=1.0"));
+        Assert.assertTrue(AcceptGzipInterceptor.acceptsGzip(Arrays.asList("deflate", "gzip")));
+
+        // q=0 refuses it
+        Assert.assertFalse(acceptsGzip("gzip;q=0"));
+        Assert.assertFalse(acceptsGzip("gzip; q=0.0"));
+        Assert.assertFalse(acceptsGzip("gzip ;Q=0.000"));
+        Assert.assertFalse(acceptsGzip("deflate, gzip;q=0"));
+        Assert.assertFalse(acceptsGzip("gzip;q=bogus"));
+    }
+
+    @Test
+    public void testWrite() throws Exception {
+        pushAcceptEncoding("gzip");
+
+        StubContext context = new StubContext(MediaType.valueOf("application/atom+xml;type=feed"));
+        new AcceptGzipInterceptor().write(context);
+        Assert.assertEquals("gzip", context.headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+        Assert.assertEquals(HttpHeaders.ACCEPT_ENCODING, context.headers.getFirst(HttpHeaders.VARY));
+        Assert.assertTrue(context.proceeded);
+
+        // Not compressible
+        context = new StubContext(MediaType.valueOf("application/octet-stream"));
+        new AcceptGzipInterceptor().write(context);
+        Assert.assertFalse(context.headers.containsKey(HttpHeaders.CONTENT_ENCODING));
+        Assert.assertTrue(context.proceeded);
+    }
+
+    @Test
+    public void testWriteNotAccepted() throws Exception {
+        pushAcceptEncoding("gzip;q=0");
+
+        StubContext context = new StubContext(MediaType.TEXT_PLAIN_TYPE);
+        new AcceptGzipInterceptor().write(context);
+        Assert.assertFalse(context.headers.containsKey(HttpHeaders.CONTENT_ENCODING));
+        // The response still varies by Accept-Encoding, for caches.
+        Assert.assertEquals(HttpHeaders.ACCEPT_ENCODING, context.headers.getFirst(HttpHeaders.VARY));
+        Assert.assertTrue(context.proceeded);
+    }
+
+    @Test
+    public void testWriteSkipsContentLengthAndRange() throws Exception {
+        pushAcceptEncoding("gzip");
+
+        StubContext context = new StubContext(MediaType.APPLICATION_XML_TYPE);
+        context.headers.putSingle(HttpHeaders.CONTENT_LENGTH, 2376L);
+        new AcceptGzipInterceptor().write(context);
+        Assert.assertFalse(context.headers.containsKey(HttpHeaders.CONTENT_ENCODING));
+        Assert.assertFalse(context.headers.containsKey(HttpHeaders.VARY));
+        Assert.assertTrue(context.proceeded);
+
+        context = new StubContext(MediaType.APPLICATION_XML_TYPE);
+        context.headers.putSingle("Content-Range", "bytes 0-99/2376");
+        new AcceptGzipInterceptor().write(context);
+        Assert.assertFalse(context.headers.containsKey(HttpHeaders.CONTENT_ENCODING));
+        Assert.assertFalse(context.headers.containsKey(HttpHeaders.VARY));
+        Assert.assertTrue(context.proceeded);
+    }
+
+    private boolean acceptsGzip(String acceptEncoding) {
+        return AcceptGzipInterceptor.acceptsGzip(Collections.singletonList(acceptEncoding));
+    }
+
+    private void pushAcceptEncoding(String acceptEncoding) {
+        MultivaluedMap<String, String> requestHeaders = new MultivaluedMapImpl<>();
+        requestHeaders.add(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        HttpHeadersImpl headers = new HttpHeadersImpl();
+        headers.setRequestHeaders(requestHeaders);
+        ResteasyProviderFactory.pushContext(HttpHeaders.class, headers);
+    }
+
+    private static class StubContext implements MessageBodyWriterContext {
+
+        private final MultivaluedMap<String, Object> headers = new MultivaluedMapImpl<>();
+
+        private MediaType mediaType;
+
+        private boolean proceeded;
+
+        public StubContext(MediaType mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        @Override
+        public MultivaluedMap<String, Object> getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        @Override
+        public void setMediaType(MediaType mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        @Override
+        public void proceed() {
+            proceeded = true;
+        }
+
+        @Override
+        public Object getEntity() {
+            return null;
+        }
+
+        @Override
+        public void setEntity(Object entity) {
+        }
+
+        @Override
+        public Class getType() {
+            return null;
+        }
+
+        @Override
+        public void setType(Class type) {
+        }
+
+        @Override
+        public Type getGenericType() {
+            return null;
+        }
+
+        @Override
+        public void setGenericType(Type genericType) {
+        }
+
+        @Override
+        public Annotation[] getAnnotations() {
+            return new Annotation[0];
+        }
+
+        @Override
+        public void setAnnotations(Annotation[] annotations) {
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return null;
+        }
+
+        @Override
+        public void setOutputStream(OutputStream outputStream) {
+        }
+
+        @Override
+        public Object getAttribute(String attribute) {
+            return null;
+        }
+
+        @Override
+        public void setAttribute(String name, Object value) {
+        }
+
+        @Override
+        public void removeAttribute(String name) {
+        }
+    }
+}
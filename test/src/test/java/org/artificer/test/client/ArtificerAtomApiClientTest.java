@@ -39,7 +39,9 @@ import org.w3._1999._02._22_rdf_syntax_ns_.RDF;
 import java.io.BufferedReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
@@ -163,6 +165,36 @@ public class ArtificerAtomApiClientTest extends AbstractClientTest {
     }
 
 
+    /**
+     * Test method for {@link org.artificer.client.ArtificerAtomApiClient#getArtifactMetaData(java.util.List)} and
+     * {@link org.artificer.client.ArtificerAtomApiClient#queryArtifactMetaData(String, int, int, String, boolean)}
+     */
+    @Test
+    public void testGetArtifactMetaDataBulk() throws Exception {
+        ArtificerAtomApiClient client = client();
+        List<String> uuids = new ArrayList<String>();
+        for (String artifactFileName : new String[] {"PO.xsd", "XMLSchema.xsd"}) {
+            InputStream is = this.getClass().getResourceAsStream("/sample-files/xsd/" + artifactFileName);
+            try {
+                uuids.add(client.uploadArtifact(ArtifactType.XsdDocument(), is, artifactFileName).getUuid());
+            } finally {
+                IOUtils.closeQuietly(is);
+            }
+        }
+        Collections.reverse(uuids);
+        uuids.add(1, "not-a-valid-uuid");
+
+        List<BaseArtifactType> artifacts = client.getArtifactMetaData(uuids);
+        Assert.assertEquals(2, artifacts.size());
+        Assert.assertEquals("XMLSchema.xsd", artifacts.get(0).getName());
+        Assert.assertEquals("PO.xsd", artifacts.get(1).getName());
+        Assert.assertTrue(artifacts.get(1) instanceof XsdDocument);
+
+        artifacts = client.queryArtifactMetaData("/s-ramp/xsd/XsdDocument", 0, 10, "name", true);
+        Assert.assertEquals(2, artifacts.size());
+        Assert.assertEquals("PO.xsd", artifacts.get(0).getName());
+        Assert.assertNotNull(((XsdDocument) artifacts.get(0)).getContentSize());
+    }
 	/**
      * Test method for {@link org.artificer.client.ArtificerAtomApiClient#uploadArtifact(java.lang.String, java.lang.String, java.io.InputStream, java.lang.String)}.
      */
@@ -280,44 +312,41 @@ public class ArtificerAtomApiClientTest extends AbstractClientTest {
 		Assert.assertTrue("Failed to find the artifact we just added!", uuidFound);
 	}
 
-    // TODO: The use of CQRS and ArtificerSummary broke this ability.  S-RAMP support will probably be removed
-    // in ARTIF-674, so just commenting-out for now.
-//    @Test
-//    public void testQueryWithPropertyName() throws Exception {
-//        ArtificerAtomApiClient client = client();
-//        String uuid = null;
-//
-//        // First add an artifact so we have something to search for
-//        String artifactFileName = "PO.xsd";
-//        InputStream is = this.getClass().getResourceAsStream("/sample-files/xsd/" + artifactFileName);
-//        try {
-//            BaseArtifactType artifact = client.uploadArtifact(ArtifactType.XsdDocument(), is, artifactFileName);
-//            Assert.assertNotNull(artifact);
-//            Assert.assertEquals(artifactFileName, artifact.getName());
-//            uuid = artifact.getUuid();
-//
-//            // Set a couple of custom properties and update
-//            ArtificerModelUtils.setCustomProperty(artifact, "prop1", "foo");
-//            ArtificerModelUtils.setCustomProperty(artifact, "prop2", "bar");
-//            ArtificerModelUtils.setCustomProperty(artifact, "prop3", "baz");
-//            client.updateArtifactMetaData(artifact);
-//        } finally {
-//            IOUtils.closeQuietly(is);
-//        }
-//
-//        // Now search for the artifact and request one of the custom
-//        // properties be returned in the result set.
-//        Set<String> propertyNames = new HashSet<String>();
-//        propertyNames.add("prop1");
-//        propertyNames.add("prop2");
-//        QueryResultSet rset = client.query("/s-ramp/xsd/XsdDocument[@uuid='"+uuid+"']", 0, 50, "name", false, propertyNames);
-//        Assert.assertEquals("Expected a single artifact returned.", 1, rset.size());
-//        ArtifactSummary summary = rset.get(0);
-//        BaseArtifactType artifact = client.getArtifactMetaData(summary);
-//        Assert.assertEquals("foo", ArtificerModelUtils.getCustomProperty(artifact, "prop1"));
-//        Assert.assertEquals("bar", ArtificerModelUtils.getCustomProperty(artifact, "prop2"));
-//        Assert.assertNull("I didn't ask for 'prop3' to be returned!", ArtificerModelUtils.getCustomProperty(artifact, "prop3"));
-//    }
+    @Test
+    public void testQueryWithPropertyName() throws Exception {
+        ArtificerAtomApiClient client = client();
+        String uuid = null;
+
+        // First add an artifact so we have something to search for
+        String artifactFileName = "PO.xsd";
+        InputStream is = this.getClass().getResourceAsStream("/sample-files/xsd/" + artifactFileName);
+        try {
+            BaseArtifactType artifact = client.uploadArtifact(ArtifactType.XsdDocument(), is, artifactFileName);
+            Assert.assertNotNull(artifact);
+            Assert.assertEquals(artifactFileName, artifact.getName());
+            uuid = artifact.getUuid();
+
+            // Set a couple of custom properties and update
+            ArtificerModelUtils.setCustomProperty(artifact, "prop1", "foo");
+            ArtificerModelUtils.setCustomProperty(artifact, "prop2", "bar");
+            ArtificerModelUtils.setCustomProperty(artifact, "prop3", "baz");
+            client.updateArtifactMetaData(artifact);
+        } finally {
+            IOUtils.closeQuietly(is);
+        }
+
+        // Now search for the artifact and request one of the custom
+        // properties be returned in the result set.
+        Set<String> propertyNames = new HashSet<String>();
+        propertyNames.add("prop1");
+        propertyNames.add("prop2");
+        QueryResultSet rset = client.query("/s-ramp/xsd/XsdDocument[@uuid='"+uuid+"']", 0, 50, "name", false, propertyNames);
+        Assert.assertEquals("Expected a single artifact returned.", 1, rset.size());
+        ArtifactSummary summary = rset.get(0);
+        Assert.assertEquals("foo", summary.getProperty("prop1"));
+        Assert.assertEquals("bar", summary.getProperty("prop2"));
+        Assert.assertNull("I didn't ask for 'prop3' to be returned!", summary.getProperty("prop3"));
+    }
 
     /**
      * Test method for {@link org.artificer.client.ArtificerAtomApiClient#buildQuery(String)
@@ -621,49 +650,42 @@ public class ArtificerAtomApiClientTest extends AbstractClientTest {
         client().deleteOntology(ontology.getUuid());
     }
 
-    // TODO: The use of CQRS and ArtificerSummary broke this ability.  S-RAMP support will probably be removed
-    // in ARTIF-674, so just commenting-out for now.
-//    @Test
-//    public void testQueryWithPropertyName_SRAMP389() throws Exception {
-//        ArtificerAtomApiClient client = client();
-//
-//        // First add a bunch of artifacts so we can search for them.
-//        for (int count = 0; count < 10; count++) {
-//            String artifactFileName = "PO-" + count + ".xsd";
-//            InputStream is = this.getClass().getResourceAsStream("/sample-files/xsd/PO.xsd");
-//            try {
-//                BaseArtifactType artifact = client.uploadArtifact(ArtifactType.XsdDocument(), is, artifactFileName);
-//                Assert.assertNotNull(artifact);
-//                Assert.assertEquals(artifactFileName, artifact.getName());
-//
-//                // Set some custom properties and then update.
-//                ArtificerModelUtils.setCustomProperty(artifact, "count", String.valueOf(count));
-//                ArtificerModelUtils.setCustomProperty(artifact, "prop1", "foo");
-//                ArtificerModelUtils.setCustomProperty(artifact, "test", "SRAMP-389");
-//                client.updateArtifactMetaData(artifact);
-//            } finally {
-//                IOUtils.closeQuietly(is);
-//            }
-//        }
-//
-//        // Now search for the artifacts and request some of the custom
-//        // properties be returned in the result set.
-//        QueryResultSet rset = client.buildQuery("/s-ramp[@test = 'SRAMP-389']")
-//                .propertyName("count").propertyName("prop1")
-//                .orderBy("createdTimestamp").descending().query();
-//        StringBuilder builder = new StringBuilder();
-//        System.out.println("----- Query done, iterating result set");
-//        long start = System.currentTimeMillis();
-//        for (ArtifactSummary artifactSummary : rset) {
-//            BaseArtifactType artifact = client.getArtifactMetaData(artifactSummary);
-//            String prop = ArtificerModelUtils.getCustomProperty(artifact, "count");
-//            builder.append(prop);
-//            builder.append("|");
-//        }
-//        long end = System.currentTimeMillis();
-//        System.out.println("----- Done iterating in: " + (end-start) + "ms");
-//        Assert.assertEquals("9|8|7|6|5|4|3|2|1|0|", builder.toString());
-//    }
+    @Test
+    public void testQueryWithPropertyName_SRAMP389() throws Exception {
+        ArtificerAtomApiClient client = client();
+
+        // First add a bunch of artifacts so we can search for them.
+        for (int count = 0; count < 10; count++) {
+            String artifactFileName = "PO-" + count + ".xsd";
+            InputStream is = this.getClass().getResourceAsStream("/sample-files/xsd/PO.xsd");
+            try {
+                BaseArtifactType artifact = client.uploadArtifact(ArtifactType.XsdDocument(), is, artifactFileName);
+                Assert.assertNotNull(artifact);
+                Assert.assertEquals(artifactFileName, artifact.getName());
+
+                // Set some custom properties and then update.
+                ArtificerModelUtils.setCustomProperty(artifact, "count", String.valueOf(count));
+                ArtificerModelUtils.setCustomProperty(artifact, "prop1", "foo");
+                ArtificerModelUtils.setCustomProperty(artifact, "test", "SRAMP-389");
+                client.updateArtifactMetaData(artifact);
+            } finally {
+                IOUtils.closeQuietly(is);
+            }
+        }
+
+        // Now search for the artifacts and request some of the custom
+        // properties be returned in the result set.
+        QueryResultSet rset = client.buildQuery("/s-ramp[@test = 'SRAMP-389']")
+                .propertyName("count").propertyName("prop1")
+                .orderBy("createdTimestamp").descending().query();
+        StringBuilder builder = new StringBuilder();
+        for (ArtifactSummary artifactSummary : rset) {
+            Assert.assertEquals("foo", artifactSummary.getProperty("prop1"));
+            builder.append(artifactSummary.getProperty("count"));
+            builder.append("|");
+        }
+        Assert.assertEquals("9|8|7|6|5|4|3|2|1|0|", builder.toString());
+    }
     
     @Test
     public void testFullTextQuery() throws Exception {
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2014 JBoss Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.artificer.test.client;
+
+import org.apache.commons.io.FileUtils;
+import org.artificer.client.ArtificerAsyncClient;
+import org.artificer.client.BulkUpload;
+import org.artificer.client.query.QueryResultSet;
+import org.artificer.common.ArtifactType;
+import org.junit.Test;
+import org.oasis_open.docs.s_ramp.ns.s_ramp_v1.BaseArtifactType;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Brett Meyer
+ */
+public class AsyncClientTest extends AbstractClientTest {
+
+    private static final int UPLOAD_COUNT = 20;
+
+    @Test
+    public void testBulkUpload() throws Exception {
+        File xsd = new File(getClass().getResource("/sample-files/xsd/PO.xsd").toURI());
+        File xml = new File(getClass().getResource("/sample-files/core/PO.xml").toURI());
+
+        ArtificerAsyncClient asyncClient = new ArtificerAsyncClient(client());
+        try {
+            BulkUpload upload = asyncClient.bulkUpload();
+            for (int i = 0; i < UPLOAD_COUNT; i++) {
+                upload.add(ArtifactType.XmlDocument(), xml);
+            }
+            upload.add((ArtifactType) null, xsd);
+            List<BaseArtifactType> artifacts = upload.finish();
+            assertTrue(upload.getFailures().isEmpty());
+            assertEquals(UPLOAD_COUNT + 1, artifacts.size());
+            assertEquals(ArtifactType.XsdDocument(), ArtifactType.valueOf(artifacts.get(UPLOAD_COUNT)));
+
+            // Update, re-read, and download them concurrently.
+            List<Future<Void>> updates = new ArrayList<Future<Void>>();
+            for (BaseArtifactType artifact : artifacts) {
+                artifact.setDescription("uploaded in bulk");
+                updates.add(asyncClient.updateArtifactMetaData(artifact));
+            }
+            for (Future<Void> update : updates) {
+                update.get();
+            }
+
+            Future<QueryResultSet> query = asyncClient.query("/s-ramp/core/XmlDocument[@description = 'uploaded in bulk']",
+                    0, 100, "name", true);
+            assertEquals(UPLOAD_COUNT, query.get().size());
+
+            File target = File.createTempFile("artificer-async", ".xml");
+            try {
+                BaseArtifactType artifact = artifacts.get(0);
+                asyncClient.downloadArtifactContent(ArtifactType.valueOf(artifact), artifact.getUuid(), target).get();
+                assertEquals(FileUtils.readFileToString(xml), FileUtils.readFileToString(target));
+            } finally {
+                FileUtils.deleteQuietly(target);
+            }
+        } finally {
+            asyncClient.close();
+        }
+    }
+}